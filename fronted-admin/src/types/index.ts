@@ -60,7 +60,8 @@ export enum ExperimentStatus {
 // 分析状态
 export enum AnalysisStatus {
   SUCCESS = 'SUCCESS',
-  FAILED = 'FAILED'
+  FAILED = 'FAILED',
+  DEAD = 'DEAD'
 }
 
 // RSS 源
@@ -0,0 +1,18 @@
+package com.jingwei.rsswithai.application.Event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 向量模型切换完成：文章与主题的向量列已替换为新模型，serving model已更新（监听方在提交后处理）
+ */
+@Getter
+public class EmbeddingModelSwitchedEvent extends ApplicationEvent {
+    private final String model;
+
+    public EmbeddingModelSwitchedEvent(Object source, String model) {
+        super(source);
+        this.model = model;
+    }
+
+}
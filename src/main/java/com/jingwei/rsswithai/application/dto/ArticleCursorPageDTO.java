@@ -0,0 +1,11 @@
+package com.jingwei.rsswithai.application.dto;
+
+import java.util.List;
+
+public record ArticleCursorPageDTO(
+        List<ArticleDTO> items,
+        String nextCursor,
+        boolean hasMore,
+        long total,
+        boolean totalExact
+) {}
@@ -1,6 +1,7 @@
 package com.jingwei.rsswithai.application.dto;
 
 import com.jingwei.rsswithai.domain.model.Article;
+import com.jingwei.rsswithai.domain.repository.ArticleRepository;
 
 import java.time.LocalDateTime;
 
@@ -37,4 +38,22 @@ public record ArticleDTO(
         );
     }
 
+    public static ArticleDTO from(ArticleRepository.ArticleSummaryView article) {
+        return new ArticleDTO(
+                article.getId(),
+                article.getSourceId(),
+                article.getSourceName(),
+                article.getTitle(),
+                article.getLink(),
+                article.getGuid(),
+                article.getAuthor(),
+                article.getPubDate(),
+                article.getCategories(),
+                article.getWordCount(),
+                article.getCoverImage(),
+                article.getFetchedAt(),
+                article.getCreatedAt()
+        );
+    }
+
 }
\ No newline at end of file
@@ -53,6 +53,23 @@ public record ArticleExtraDTO(
         );
     }
 
+    /**
+     * 由原始列值构建，toc为JSON文本
+     */
+    public static ArticleExtraDTO of(Long id,
+                                     Long articleId,
+                                     String overview,
+                                     List<String> keyInformation,
+                                     List<String> tags,
+                                     String tocJson,
+                                     AnalysisStatus status,
+                                     String errorMessage,
+                                     LocalDateTime createdAt,
+                                     LocalDateTime updatedAt) {
+        return new ArticleExtraDTO(id, articleId, overview, keyInformation, tags, parseToc(tocJson), status,
+                errorMessage, createdAt, updatedAt);
+    }
+
     private static List<TocItemDTO> parseToc(String tocJson) {
         if (tocJson == null || tocJson.isBlank()) {
             return List.of();
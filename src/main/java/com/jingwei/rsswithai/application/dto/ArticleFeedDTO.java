@@ -13,7 +13,8 @@ public record ArticleFeedDTO(
         String coverImage,
         LocalDateTime pubDate,
         Long wordCount,
-        ArticleExtraDTO aiExtra
+        ArticleExtraDTO aiExtra,
+        Boolean isFavorite
 ) {
     public static ArticleFeedDTO of(Long id,
                                     Long sourceId,
@@ -24,7 +25,8 @@ public record ArticleFeedDTO(
                                     LocalDateTime pubDate,
                                     Long wordCount,
                                     ArticleExtraDTO aiExtra) {
-        return new ArticleFeedDTO(id, sourceId, sourceName, title, link, coverImage, pubDate, wordCount, aiExtra);
+        return new ArticleFeedDTO(id, sourceId, sourceName, title, link, coverImage, pubDate, wordCount, aiExtra,
+                null);
     }
     
     public static ArticleFeedDTO of(Long id,
@@ -35,7 +37,8 @@ public record ArticleFeedDTO(
                                     String coverImage,
                                     LocalDateTime pubDate,
                                     Long wordCount) {
-        return new ArticleFeedDTO(id, sourceId, sourceName, title, link, coverImage, pubDate, wordCount, null);
+        return new ArticleFeedDTO(id, sourceId, sourceName, title, link, coverImage, pubDate, wordCount, null,
+                null);
     }
 
     public static ArticleFeedDTO from(Article article) {
@@ -48,7 +51,13 @@ public record ArticleFeedDTO(
                 article.getCoverImage(),
                 article.getPubDate(),
                 article.getWordCount(),
+                null,
                 null
         );
     }
+
+    public ArticleFeedDTO withFavorite(Boolean favorite) {
+        return new ArticleFeedDTO(id, sourceId, sourceName, title, link, coverImage, pubDate, wordCount, aiExtra,
+                favorite);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.jingwei.rsswithai.application.dto;
+
+import java.time.LocalDateTime;
+
+public record EmbeddingMigrationStatusDTO(
+    String servingModel,
+    String targetModel,
+    String state,
+    long articlesTotal,
+    long articlesDone,
+    long topicsTotal,
+    long topicsDone,
+    double progress,
+    LocalDateTime startedAt,
+    String lastError
+) {}
@@ -0,0 +1,14 @@
+package com.jingwei.rsswithai.application.dto;
+
+public record LlmEndpointStatusDTO(
+    String type,
+    String name,
+    String baseUrl,
+    String model,
+    int weight,
+    int outstanding,
+    Long avgLatencyMillis,
+    long successCount,
+    long failureCount,
+    boolean ejected
+) {}
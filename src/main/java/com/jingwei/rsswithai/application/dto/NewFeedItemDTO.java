@@ -0,0 +1,11 @@
+package com.jingwei.rsswithai.application.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 新文章推送的条目，客户端据此决定是否刷新时间线
+ */
+public record NewFeedItemDTO(
+        Long id,
+        LocalDateTime pubDate
+) {}
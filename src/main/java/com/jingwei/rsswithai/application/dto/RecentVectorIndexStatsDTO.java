@@ -0,0 +1,17 @@
+package com.jingwei.rsswithai.application.dto;
+
+import java.time.LocalDateTime;
+
+public record RecentVectorIndexStatsDTO(
+    boolean ready,
+    boolean rebuilding,
+    int windowDays,
+    LocalDateTime coverageStart,
+    String model,
+    int size,
+    int deleted,
+    long offHeapBytes,
+    long heapBytes,
+    LocalDateTime builtAt,
+    long buildMillis
+) {}
@@ -0,0 +1,11 @@
+package com.jingwei.rsswithai.application.dto;
+
+public record SearchCacheStatsDTO(
+    long hits,
+    long misses,
+    double hitRate,
+    long invalidations,
+    int size,
+    int maxEntries,
+    int ttlSeconds
+) {}
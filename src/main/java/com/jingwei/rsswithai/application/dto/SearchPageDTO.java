@@ -0,0 +1,13 @@
+package com.jingwei.rsswithai.application.dto;
+
+import java.util.List;
+
+public record SearchPageDTO(
+    List<ArticleFeedDTO> items,
+    String nextCursor,
+    boolean hasMore
+) {
+    public static SearchPageDTO empty() {
+        return new SearchPageDTO(List.of(), null, false);
+    }
+}
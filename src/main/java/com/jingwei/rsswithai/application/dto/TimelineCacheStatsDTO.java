@@ -0,0 +1,13 @@
+package com.jingwei.rsswithai.application.dto;
+
+public record TimelineCacheStatsDTO(
+    long hits,
+    long misses,
+    double hitRate,
+    long evictions,
+    int users,
+    int maxUsers,
+    long entries,
+    int entriesPerUser,
+    long estimatedBytes
+) {}
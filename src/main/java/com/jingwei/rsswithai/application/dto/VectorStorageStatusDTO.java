@@ -0,0 +1,10 @@
+package com.jingwei.rsswithai.application.dto;
+
+import java.util.Map;
+
+public record VectorStorageStatusDTO(
+    String configuredMode,
+    String activeMode,
+    boolean migrating,
+    Map<String, Long> indexSizeBytes
+) {}
@@ -0,0 +1,19 @@
+package com.jingwei.rsswithai.application.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record WarmupReportDTO(
+    boolean completed,
+    long totalMillis,
+    LocalDateTime finishedAt,
+    List<Step> steps
+) {
+
+    public record Step(
+        String name,
+        long millis,
+        boolean success,
+        String detail
+    ) {}
+}
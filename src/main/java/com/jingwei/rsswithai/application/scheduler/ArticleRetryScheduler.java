@@ -2,7 +2,6 @@ package com.jingwei.rsswithai.application.scheduler;
 
 import com.jingwei.rsswithai.application.Event.ArticleProcessEvent;
 import com.jingwei.rsswithai.application.service.LlmProcessService;
-import com.jingwei.rsswithai.domain.model.AnalysisStatus;
 import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
 import com.jingwei.rsswithai.domain.repository.ArticleRepository;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +19,11 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class ArticleRetryScheduler {
 
+    /**
+     * 同时排队/执行的重试任务上限，避免故障恢复后一次性压入大量任务
+     */
+    private static final int MAX_IN_FLIGHT_RETRIES = 200;
+
     private final ArticleRepository articleRepository;
     private final ArticleExtraRepository articleExtraRepository;
     private final LlmProcessService llmProcessService;
@@ -33,10 +37,8 @@ public class ArticleRetryScheduler {
         log.info("Starting scheduled check for articles missing extra data...");
         LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
         List<Long> articleIds = articleRepository.findArticleIdsWithoutExtraSince(sevenDaysAgo);
-        List<Long> failedArticleIds = articleExtraRepository.findArticleIdsByStatusSince(
-                AnalysisStatus.FAILED, sevenDaysAgo);
 
-        if (articleIds.isEmpty() && failedArticleIds.isEmpty()) {
+        if (articleIds.isEmpty()) {
             log.info("No articles found missing extra data in the last 7 days.");
             return;
         }
@@ -49,15 +51,37 @@ public class ArticleRetryScheduler {
                 log.error("Failed to republish event for articleId: {}", articleId, e);
             }
         }
+    }
+
+    /**
+     * 每5分钟扫描一次已到退避时间的失败文章（过去7天内），提交给增强处理线程异步重试。
+     * 调度线程只负责提交，不等待LLM调用完成。
+     */
+    @Scheduled(fixedDelay = 5, timeUnit = TimeUnit.MINUTES)
+    public void retryFailedArticleExtras() {
+        int capacity = MAX_IN_FLIGHT_RETRIES - llmProcessService.getInFlightRetryCount();
+        if (capacity <= 0) {
+            log.debug("Retry queue is full, skipping this round");
+            return;
+        }
 
+        LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
+        List<Long> dueArticleIds = articleExtraRepository.findRetryableArticleIds(
+                LocalDateTime.now(), sevenDaysAgo, capacity);
+        if (dueArticleIds.isEmpty()) {
+            return;
+        }
 
-        for (Long articleId : failedArticleIds) {
+        int submitted = 0;
+        for (Long articleId : dueArticleIds) {
             try {
-                llmProcessService.regenerateArticleExtra(articleId);
-                log.debug("Regenerated ArticleExtra for articleId: {}", articleId);
+                if (llmProcessService.submitRetry(articleId)) {
+                    submitted++;
+                }
             } catch (Exception e) {
-                log.error("Failed to regenerate ArticleExtra for articleId: {}", articleId, e);
+                log.error("Failed to submit retry for articleId: {}", articleId, e);
             }
         }
+        log.info("Submitted {} failed articles for retry", submitted);
     }
-}
\ No newline at end of file
+}
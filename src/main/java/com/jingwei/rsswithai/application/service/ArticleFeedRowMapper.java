@@ -0,0 +1,91 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.dto.ArticleExtraDTO;
+import com.jingwei.rsswithai.application.dto.ArticleFeedDTO;
+import com.jingwei.rsswithai.domain.model.AnalysisStatus;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 时间线单查询投影：文章元信息 LEFT JOIN article_extra（不含vector），一行直接映射为带增强结果的ArticleFeedDTO，
+ * 替代先查文章、再按ID批量查增强结果并重建DTO的两次往返
+ */
+final class ArticleFeedRowMapper implements RowMapper<ArticleFeedDTO> {
+
+    static final ArticleFeedRowMapper INSTANCE = new ArticleFeedRowMapper(true);
+    static final ArticleFeedRowMapper WITHOUT_EXTRA = new ArticleFeedRowMapper(false);
+
+    /**
+     * 文章元信息列，表别名a
+     */
+    static final String ARTICLE_COLUMNS = "a.id, a.source_id, a.source_name, a.title, a.link, a.cover_image, " +
+            "a.pub_date, a.word_count";
+
+    /**
+     * 增强结果列，表别名ae；列名加前缀避免与文章列冲突
+     */
+    static final String EXTRA_COLUMNS = "ae.id AS extra_id, ae.overview AS extra_overview, " +
+            "ae.key_information AS extra_key_information, ae.tags AS extra_tags, " +
+            "CAST(ae.toc AS TEXT) AS extra_toc, ae.status AS extra_status, ae.error_message AS extra_error_message, " +
+            "ae.created_at AS extra_created_at, ae.updated_at AS extra_updated_at";
+
+    private final boolean withExtra;
+
+    private ArticleFeedRowMapper(boolean withExtra) {
+        this.withExtra = withExtra;
+    }
+
+    @Override
+    public ArticleFeedDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+        long id = rs.getLong("id");
+        return ArticleFeedDTO.of(
+                id,
+                getLong(rs, "source_id"),
+                rs.getString("source_name"),
+                rs.getString("title"),
+                rs.getString("link"),
+                rs.getString("cover_image"),
+                toLocalDateTime(rs.getTimestamp("pub_date")),
+                getLong(rs, "word_count"),
+                withExtra ? mapExtra(rs, id) : null);
+    }
+
+    private ArticleExtraDTO mapExtra(ResultSet rs, long articleId) throws SQLException {
+        Long extraId = getLong(rs, "extra_id");
+        if (extraId == null) {
+            return null;
+        }
+        String status = rs.getString("extra_status");
+        return ArticleExtraDTO.of(
+                extraId,
+                articleId,
+                rs.getString("extra_overview"),
+                toStringList(rs.getArray("extra_key_information")),
+                toStringList(rs.getArray("extra_tags")),
+                rs.getString("extra_toc"),
+                status == null ? null : AnalysisStatus.valueOf(status),
+                rs.getString("extra_error_message"),
+                toLocalDateTime(rs.getTimestamp("extra_created_at")),
+                toLocalDateTime(rs.getTimestamp("extra_updated_at")));
+    }
+
+    private static Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private static List<String> toStringList(Array array) throws SQLException {
+        return array == null ? null : Arrays.asList((String[]) array.getArray());
+    }
+}
@@ -0,0 +1,154 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.dto.ArticleCursorPageDTO;
+import com.jingwei.rsswithai.application.dto.ArticleDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 后台文章列表的游标分页
+ * 按 (pub_date DESC, id DESC) 的键集游标翻页，每页只走索引取 size+1 行，不受页码深度影响；
+ * pub_date为空的文章排在最后，按id DESC继续翻页。
+ * 总数默认取估算值：无过滤条件时读pg_class.reltuples，有过滤条件时取EXPLAIN的估算行数；显式要求时才执行count(*)
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ArticleListService {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String COLUMNS = "a.id, a.source_id, a.source_name, a.title, a.link, a.guid, a.author, " +
+            "a.pub_date, a.categories, a.word_count, a.cover_image, a.fetched_at, a.created_at";
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    private static final RowMapper<ArticleDTO> ROW_MAPPER = (rs, rowNum) -> {
+        return new ArticleDTO(
+                rs.getLong("id"),
+                rs.getObject("source_id", Long.class),
+                rs.getString("source_name"),
+                rs.getString("title"),
+                rs.getString("link"),
+                rs.getString("guid"),
+                rs.getString("author"),
+                toLocalDateTime(rs.getTimestamp("pub_date")),
+                rs.getString("categories"),
+                rs.getObject("word_count", Long.class),
+                rs.getString("cover_image"),
+                toLocalDateTime(rs.getTimestamp("fetched_at")),
+                toLocalDateTime(rs.getTimestamp("created_at")));
+    };
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * 首页：先取有发布时间的文章
+     */
+    private static final FeedCursor START = new FeedCursor(LocalDateTime.MAX, Long.MAX_VALUE);
+
+    /**
+     * @param sourceId   为空表示全部文章
+     * @param searchWord 标题/作者（全部文章时另含源名称）模糊匹配，可为空
+     * @param cursor     上一页返回的nextCursor，首页为空
+     * @param exactCount 为true时总数使用count(*)
+     */
+    public ArticleCursorPageDTO list(Long sourceId, String searchWord, String cursor, Integer size,
+            boolean exactCount) {
+        int pageSize = (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        FeedCursor position = FeedCursor.parse(cursor, START);
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> conditions = new ArrayList<>();
+        if (sourceId != null) {
+            conditions.add("a.source_id = :sourceId");
+            params.addValue("sourceId", sourceId);
+        }
+        String keyword = searchWord == null ? "" : searchWord.trim();
+        if (!keyword.isEmpty()) {
+            conditions.add(sourceId != null
+                    ? "(a.title ILIKE CONCAT('%', :searchWord, '%') OR a.author ILIKE CONCAT('%', :searchWord, '%'))"
+                    : "(a.title ILIKE CONCAT('%', :searchWord, '%') OR a.author ILIKE CONCAT('%', :searchWord, '%') " +
+                    "OR a.source_name ILIKE CONCAT('%', :searchWord, '%'))");
+            params.addValue("searchWord", keyword);
+        }
+        String filter = conditions.isEmpty() ? "TRUE" : String.join(" AND ", conditions);
+
+        // 多取一行判断是否还有下一页
+        List<ArticleDTO> rows = new ArrayList<>(pageSize + 1);
+        if (position.pubDate() != null) {
+            String keyset = position == START ? "a.pub_date IS NOT NULL"
+                    : "(a.pub_date < :cursorTime OR (a.pub_date = :cursorTime AND a.id < :cursorId))";
+            rows.addAll(namedParameterJdbcTemplate.query("SELECT " + COLUMNS + " FROM articles a WHERE " + filter +
+                            " AND " + keyset + " ORDER BY a.pub_date DESC, a.id DESC LIMIT :limit",
+                    new MapSqlParameterSource(params.getValues())
+                            .addValue("cursorTime", position == START ? null : Timestamp.valueOf(position.pubDate()))
+                            .addValue("cursorId", position.id())
+                            .addValue("limit", pageSize + 1),
+                    ROW_MAPPER));
+        }
+        if (rows.size() <= pageSize) {
+            long cursorId = position.pubDate() == null ? position.id() : Long.MAX_VALUE;
+            rows.addAll(namedParameterJdbcTemplate.query("SELECT " + COLUMNS + " FROM articles a WHERE " + filter +
+                            " AND a.pub_date IS NULL AND a.id < :cursorId ORDER BY a.id DESC LIMIT :limit",
+                    new MapSqlParameterSource(params.getValues())
+                            .addValue("cursorId", cursorId)
+                            .addValue("limit", pageSize + 1 - rows.size()),
+                    ROW_MAPPER));
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ArticleDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? new FeedCursor(items.getLast().pubDate(), items.getLast().id()).format() : null;
+
+        long total;
+        boolean totalExact = exactCount;
+        if (exactCount) {
+            Long count = namedParameterJdbcTemplate.queryForObject("SELECT count(*) FROM articles a WHERE " + filter,
+                    params, Long.class);
+            total = count == null ? 0 : count;
+        } else {
+            total = estimateCount(filter, params);
+            if (total < 0) {
+                // 表从未ANALYZE过，没有统计信息
+                Long count = namedParameterJdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM articles a WHERE " + filter, params, Long.class);
+                total = count == null ? 0 : count;
+                totalExact = true;
+            }
+        }
+        return new ArticleCursorPageDTO(List.copyOf(items), nextCursor, hasMore, total, totalExact);
+    }
+
+    /**
+     * @return 没有统计信息时返回-1
+     */
+    private long estimateCount(String filter, MapSqlParameterSource params) {
+        if ("TRUE".equals(filter)) {
+            Long reltuples = namedParameterJdbcTemplate.queryForObject(
+                    "SELECT reltuples::bigint FROM pg_class WHERE oid = 'articles'::regclass", params, Long.class);
+            return reltuples == null ? -1 : reltuples;
+        }
+        List<String> plan = namedParameterJdbcTemplate.queryForList("EXPLAIN SELECT 1 FROM articles a WHERE " + filter,
+                params, String.class);
+        if (plan.isEmpty()) {
+            return -1;
+        }
+        Matcher matcher = PLAN_ROWS.matcher(plan.getFirst());
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,292 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 相似文章近邻表
+ * 文章写入向量后计算全库top-K近邻存入article_neighbors（每篇一行，近邻ID与距离为数组），相似推荐变为主键查询；
+ * 新文章同时插入其近邻的列表（距离对称，比列表中最远的更近时替换）；
+ * 后台定期补算缺失的行，并重算向量已更新、向量模型已切换的文章，最近几天入库（仍在不断出现新近邻）的文章每6小时重算一次
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ArticleNeighborService {
+
+    static final int NEIGHBOR_COUNT = 10;
+    private static final String TABLE = "article_neighbors";
+    private static final int REFRESH_BATCH_SIZE = 200;
+    private static final int RECENT_REFRESH_DAYS = 3;
+    private static final int RECENT_REFRESH_INTERVAL_HOURS = 6;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VectorSearchService vectorSearchService;
+    private final EmbeddingVersionService embeddingVersionService;
+    private final ExecutorService neighborExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile boolean ready = false;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    private record Neighbor(long articleId, float distance) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread.ofVirtual().name("article-neighbor-init").start(() -> {
+            try {
+                initialize();
+                ready = true;
+                refresh();
+            } catch (Exception e) {
+                log.error("Article neighbor table initialization failed, recommendations keep querying vectors", e);
+            }
+        });
+    }
+
+    /**
+     * 每30分钟一轮：补算、重算过期的近邻列表，单轮处理完所有待处理文章
+     */
+    @Scheduled(initialDelay = 30, fixedDelay = 30, timeUnit = TimeUnit.MINUTES)
+    public void scheduledRefresh() {
+        if (ready) {
+            Thread.ofVirtual().name("article-neighbor-refresh").start(this::refresh);
+        }
+    }
+
+    /**
+     * 预计算的近邻ID（按距离升序，可能包含已删除的文章）
+     *
+     * @return 尚未计算或计算失败时为空
+     */
+    public Optional<List<Long>> findNeighborIds(Long articleId) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        List<List<Long>> rows = jdbcTemplate.query("SELECT neighbor_ids FROM " + TABLE + " WHERE article_id = ?",
+                (rs, rowNum) -> toLongList(rs.getArray("neighbor_ids")), articleId);
+        return rows.isEmpty() || rows.getFirst().isEmpty() ? Optional.empty() : Optional.of(rows.getFirst());
+    }
+
+    /**
+     * 文章向量写入后异步计算近邻；处于事务中时提交后才执行
+     */
+    public void onArticleVector(Long articleId) {
+        if (articleId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submitCompute(articleId);
+                }
+            });
+        } else {
+            submitCompute(articleId);
+        }
+    }
+
+    private void submitCompute(Long articleId) {
+        if (!ready) {
+            return;
+        }
+        neighborExecutor.submit(() -> {
+            try {
+                List<Neighbor> neighbors = compute(articleId);
+                insertIntoNeighborLists(articleId, neighbors);
+            } catch (Exception e) {
+                log.warn("Failed to compute neighbors for article {}", articleId, e);
+            }
+        });
+    }
+
+    private void initialize() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                "article_id BIGINT PRIMARY KEY REFERENCES articles(id) ON DELETE CASCADE, " +
+                "neighbor_ids BIGINT[] NOT NULL, " +
+                "distances REAL[] NOT NULL, " +
+                "vector_model VARCHAR(255), " +
+                "computed_at TIMESTAMP NOT NULL DEFAULT now())");
+    }
+
+    private void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long total = 0;
+            long start = System.currentTimeMillis();
+            // 本轮开始之后（由新文章触发）计算的行不再选中
+            LocalDateTime now = LocalDateTime.now();
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("roundStart", Timestamp.valueOf(now))
+                    .addValue("model", embeddingVersionService.getServingModel())
+                    .addValue("recentSince", Timestamp.valueOf(now.minusDays(RECENT_REFRESH_DAYS)))
+                    .addValue("recentStaleBefore", Timestamp.valueOf(now.minusHours(RECENT_REFRESH_INTERVAL_HOURS)))
+                    .addValue("limit", REFRESH_BATCH_SIZE);
+            // 按article_id倒序做keyset分页，每批从上一批最小的ID之后继续，不再从头扫描已处理过的行
+            long lastId = Long.MAX_VALUE;
+            while (true) {
+                List<Long> ids = namedParameterJdbcTemplate.queryForList(
+                        "SELECT ae.article_id FROM article_extra ae JOIN articles a ON a.id = ae.article_id " +
+                                "LEFT JOIN " + TABLE + " n ON n.article_id = ae.article_id " +
+                                "WHERE ae.article_id < :lastId AND ae.vector IS NOT NULL AND (n.article_id IS NULL " +
+                                "OR (n.computed_at < :roundStart AND (n.computed_at < ae.updated_at " +
+                                "OR n.vector_model IS DISTINCT FROM :model)) " +
+                                "OR (a.created_at >= :recentSince AND n.computed_at < :recentStaleBefore)) " +
+                                "ORDER BY ae.article_id DESC LIMIT :limit",
+                        params.addValue("lastId", lastId), Long.class);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                for (Long id : ids) {
+                    try {
+                        compute(id);
+                    } catch (Exception e) {
+                        // 写入不带模型的空列表：本轮不再重试，下一轮按模型不一致重算
+                        log.warn("Failed to compute neighbors for article {}", id, e);
+                        store(id, List.of(), null);
+                    }
+                }
+                total += ids.size();
+                lastId = ids.getLast();
+            }
+            if (total > 0) {
+                log.info("Article neighbor refresh: {} lists computed in {}ms", total,
+                        System.currentTimeMillis() - start);
+            }
+        } catch (Exception e) {
+            log.warn("Article neighbor refresh failed", e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * 查询并保存一篇文章的近邻列表
+     */
+    private List<Neighbor> compute(Long articleId) {
+        List<Neighbor> neighbors = new ArrayList<>();
+        for (ArticleExtraRepository.IdWithDistance hit : vectorSearchService.nearestToArticle(articleId,
+                NEIGHBOR_COUNT)) {
+            neighbors.add(new Neighbor(hit.getArticleId(), hit.getDistance().floatValue()));
+        }
+        store(articleId, neighbors, embeddingVersionService.getServingModel());
+        return neighbors;
+    }
+
+    private void store(Long articleId, List<Neighbor> neighbors, String model) {
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement("INSERT INTO " + TABLE +
+                    " (article_id, neighbor_ids, distances, vector_model, computed_at) VALUES (?, ?, ?, ?, now()) " +
+                    "ON CONFLICT (article_id) DO UPDATE SET neighbor_ids = EXCLUDED.neighbor_ids, " +
+                    "distances = EXCLUDED.distances, vector_model = EXCLUDED.vector_model, " +
+                    "computed_at = EXCLUDED.computed_at");
+            statement.setLong(1, articleId);
+            statement.setArray(2, connection.createArrayOf("bigint",
+                    neighbors.stream().map(Neighbor::articleId).toArray()));
+            statement.setArray(3, connection.createArrayOf("real",
+                    neighbors.stream().map(Neighbor::distance).toArray()));
+            statement.setString(4, model);
+            return statement;
+        });
+    }
+
+    /**
+     * 把新文章并入其近邻各自的列表：距离对称，比列表中最远的近邻更近（或列表未满）时插入
+     * 行锁按article_id顺序获取，避免并发的新文章互相死锁
+     */
+    private void insertIntoNeighborLists(Long articleId, List<Neighbor> neighbors) {
+        if (neighbors.isEmpty()) {
+            return;
+        }
+        Map<Long, Float> distances = new HashMap<>();
+        for (Neighbor neighbor : neighbors) {
+            distances.put(neighbor.articleId(), neighbor.distance());
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, List<Neighbor>> lists = new HashMap<>();
+            namedParameterJdbcTemplate.query("SELECT article_id, neighbor_ids, distances FROM " + TABLE +
+                            " WHERE article_id IN (:ids) ORDER BY article_id FOR UPDATE",
+                    new MapSqlParameterSource("ids", distances.keySet()),
+                    rs -> {
+                        lists.put(rs.getLong("article_id"),
+                                toNeighbors(rs.getArray("neighbor_ids"), rs.getArray("distances")));
+                    });
+            List<Map.Entry<Long, List<Neighbor>>> changed = new ArrayList<>();
+            for (Map.Entry<Long, List<Neighbor>> entry : lists.entrySet()) {
+                List<Neighbor> list = entry.getValue();
+                float distance = distances.get(entry.getKey());
+                if (list.stream().anyMatch(neighbor -> neighbor.articleId() == articleId)
+                        || (list.size() >= NEIGHBOR_COUNT && distance >= list.getLast().distance())) {
+                    continue;
+                }
+                list.add(new Neighbor(articleId, distance));
+                list.sort(Comparator.comparingDouble(Neighbor::distance));
+                if (list.size() > NEIGHBOR_COUNT) {
+                    list.removeLast();
+                }
+                changed.add(entry);
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate("UPDATE " + TABLE + " SET neighbor_ids = ?, distances = ? WHERE article_id = ?",
+                    changed, changed.size(), (statement, entry) -> {
+                        List<Neighbor> list = entry.getValue();
+                        statement.setArray(1, statement.getConnection().createArrayOf("bigint",
+                                list.stream().map(Neighbor::articleId).toArray()));
+                        statement.setArray(2, statement.getConnection().createArrayOf("real",
+                                list.stream().map(Neighbor::distance).toArray()));
+                        statement.setLong(3, entry.getKey());
+                    });
+        });
+    }
+
+    private static List<Long> toLongList(Array array) throws SQLException {
+        List<Long> result = new ArrayList<>();
+        for (Object value : (Object[]) array.getArray()) {
+            result.add(((Number) value).longValue());
+        }
+        return result;
+    }
+
+    private static List<Neighbor> toNeighbors(Array ids, Array distances) throws SQLException {
+        Object[] idValues = (Object[]) ids.getArray();
+        Object[] distanceValues = (Object[]) distances.getArray();
+        List<Neighbor> result = new ArrayList<>(idValues.length);
+        for (int i = 0; i < idValues.length; i++) {
+            result.add(new Neighbor(((Number) idValues[i]).longValue(), ((Number) distanceValues[i]).floatValue()));
+        }
+        return result;
+    }
+}
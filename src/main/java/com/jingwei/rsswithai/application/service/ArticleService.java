@@ -4,29 +4,32 @@ import com.jingwei.rsswithai.application.dto.*;
 import com.jingwei.rsswithai.domain.model.Article;
 import com.jingwei.rsswithai.domain.model.ArticleFavorite;
 import com.jingwei.rsswithai.domain.model.RssSource;
-import com.jingwei.rsswithai.domain.model.SubscriptionType;
 import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
 import com.jingwei.rsswithai.domain.repository.ArticleFavoriteRepository;
 import com.jingwei.rsswithai.domain.repository.ArticleRepository;
-import com.jingwei.rsswithai.domain.repository.SubscriptionRepository;
 import com.jingwei.rsswithai.interfaces.front.FrontArticleController;
+import com.jingwei.rsswithai.utils.ChineseSegmentUtils;
 import com.qianxinyao.analysis.jieba.keyword.Keyword;
-import com.qianxinyao.analysis.jieba.keyword.TFIDFAnalyzer;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.function.SingletonSupplier;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -43,12 +46,35 @@ public class ArticleService {
     private final ArticleExtraRepository articleExtraRepository;
     private final ArticleFavoriteRepository articleFavoriteRepository;
     private final LlmProcessService llmProcessService;
-    private final SubscriptionRepository subscriptionRepository;
+    private final VectorSearchService vectorSearchService;
+    private final SubscriptionSnapshotCache subscriptionSnapshotCache;
+    private final SearchResultCache searchResultCache;
+    private final HybridSearchService hybridSearchService;
+    private final ArticleNeighborService articleNeighborService;
+    private final TimelineCache timelineCache;
+    private final FullTextSearchService fullTextSearchService;
+    private final ReadStateService readStateService;
 
     private static final double VECTOR_SIMILARITY_THRESHOLD = 0.4D;
     private static final int FUZZY_RECALL_LIMIT = 20;
     private static final int VECTOR_RECALL_LIMIT = 50;
     private static final int TFIDF_TOP_N = 1;
+    private static final int RECOMMEND_LIMIT = 2;
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 10;
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
+    private static final int MAX_PAGED_FUZZY_RECALL = 200;
+    private static final int MAX_PAGED_VECTOR_RECALL = 400;
+    /**
+     * 游标记录的召回深度上限：超过后两路召回量均已封顶；返回的游标不超过它，更大的值视为非法游标（否则 pageSize * depth 可能溢出）
+     */
+    private static final int MAX_SEARCH_CURSOR_PAGE = MAX_PAGED_VECTOR_RECALL;
+    /**
+     * 按源"只看未读"与"全部标为已读"时最多处理的最新文章数
+     */
+    private static final int READ_STATE_SOURCE_LIMIT = 10000;
+    private static final Comparator<ScoredFeed> SCORED_FEED_ORDER = Comparator
+            .comparingDouble(ScoredFeed::score).reversed()
+            .thenComparing(scored -> scored.feed().getId(), Comparator.reverseOrder());
     private static final ExecutorService SEARCH_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
 
     /**
@@ -74,7 +100,7 @@ public class ArticleService {
      * 根据RSS源ID分页获取文章
      */
     public Page<ArticleDTO> getArticlesBySource(Long sourceId, Pageable pageable) {
-        return articleRepository.findBySourceIdOrderByPubDateDesc(sourceId, pageable)
+        return articleRepository.findSummaryBySourceId(sourceId, pageable)
                 .map(ArticleDTO::from);
     }
 
@@ -85,7 +111,7 @@ public class ArticleService {
         if (searchWord == null || searchWord.trim().isEmpty()) {
             return getArticlesBySource(sourceId, pageable);
         }
-        return articleRepository.findBySourceIdAndSearchWordOrderByPubDateDesc(sourceId, searchWord.trim(), pageable)
+        return articleRepository.findSummaryBySourceIdAndSearchWord(sourceId, searchWord.trim(), pageable)
                 .map(ArticleDTO::from);
     }
 
@@ -93,7 +119,7 @@ public class ArticleService {
      * 分页获取所有文章
      */
     public Page<ArticleDTO> getArticles(Pageable pageable) {
-        return articleRepository.findAllByOrderByPubDateDesc(pageable)
+        return articleRepository.findAllSummaries(pageable)
                 .map(ArticleDTO::from);
     }
 
@@ -104,7 +130,7 @@ public class ArticleService {
         if (searchWord == null || searchWord.trim().isEmpty()) {
             return getArticles(pageable);
         }
-        return articleRepository.findAllBySearchWordOrderByPubDateDesc(searchWord.trim(), pageable)
+        return articleRepository.findSummaryBySearchWord(searchWord.trim(), pageable)
                 .map(ArticleDTO::from);
     }
 
@@ -140,6 +166,7 @@ public class ArticleService {
                 .userId(userId)
                 .article(article)
                 .build());
+        searchResultCache.evictUser(userId);
     }
 
     @Transactional
@@ -148,13 +175,16 @@ public class ArticleService {
             throw new IllegalArgumentException("articleId must be positive");
         }
         articleFavoriteRepository.findByUserIdAndArticle_Id(userId, articleId)
-                .ifPresent(articleFavoriteRepository::delete);
+                .ifPresent(favorite -> {
+                    articleFavoriteRepository.delete(favorite);
+                    searchResultCache.evictUser(userId);
+                });
     }
 
     @Transactional(readOnly = true)
     public Page<ArticleFeedDTO> listFavoriteArticles(Long userId, Pageable pageable) {
         return articleRepository.findFavoriteFeedByUserId(userId, pageable)
-                .map(this::toFeedDto);
+                .map(article -> toFeedDto(article).withFavorite(true));
     }
 
     @Transactional(readOnly = true)
@@ -163,7 +193,9 @@ public class ArticleService {
         String normalizedQuery = normalizeSearchQuery(query);
 
         if (isSourceScopedSearch(sourceId)) {
-            return searchInSource(normalizedQuery, sourceId);
+            RecallChannels channels = sourceChannels(normalizedQuery, List.of(sourceId));
+            return searchResultCache.get(SearchResultCache.Key.source(normalizedQuery, sourceId), Set.of(sourceId),
+                    () -> executeSearch(channels));
         }
 
         if (requiresAuthenticatedUser(scope) && userId == null) {
@@ -175,9 +207,90 @@ public class ArticleService {
 
     private List<ArticleFeedDTO> searchByScope(String query, FrontArticleController.SearchScope scope, Long userId) {
         return switch (scope) {
-            case SUBSCRIBED -> searchInSubscriptions(query, userId);
-            case FAVORITE -> searchInFavorites(query, userId);
-            case ALL -> searchAll(query);
+            case SUBSCRIBED -> {
+                List<Long> sourceIds = findSubscribedSourceIds(userId);
+                if (sourceIds.isEmpty()) {
+                    yield List.of();
+                }
+                // 订阅源集合参与命中判断，订阅变化后旧结果自然失效
+                yield searchResultCache.get(SearchResultCache.Key.user(query, scope, userId),
+                        new HashSet<>(sourceIds), () -> executeSearch(sourceChannels(query, sourceIds)));
+            }
+            case FAVORITE -> searchResultCache.get(SearchResultCache.Key.user(query, scope, userId), Set.of(),
+                    () -> executeSearch(favoriteChannels(query, userId)));
+            // ALL范围与用户无关，缓存在所有用户间共享
+            case ALL -> searchResultCache.get(SearchResultCache.Key.all(query), null,
+                    () -> executeSearch(allChannels(query)));
+        };
+    }
+
+    /**
+     * 游标分页搜索
+     * 按得分降序分页，游标记录上一页末条的得分与ID；越往后的页向两路召回要的候选越多，首页召回量最小以降低延迟
+     */
+    @Transactional(readOnly = true)
+    public SearchPageDTO searchArticlesPage(String query, FrontArticleController.SearchScope scope, Long sourceId,
+            Long userId, String cursor, Integer size) {
+        String normalizedQuery = normalizeSearchQuery(query);
+        SearchCursor searchCursor = parseSearchCursor(cursor);
+        int pageSize = (size == null || size <= 0) ? DEFAULT_SEARCH_PAGE_SIZE : Math.min(size, MAX_SEARCH_PAGE_SIZE);
+
+        RecallChannels channels = resolveChannels(normalizedQuery, scope, sourceId, userId);
+        if (channels == null) {
+            return SearchPageDTO.empty();
+        }
+
+        // 查询向量每次请求只生成一次，加深召回的各轮共用
+        CompletableFuture<float[]> queryVector = embedQuery(normalizedQuery);
+        int depth = searchCursor.page() + 1;
+        while (true) {
+            int fuzzyLimit = Math.min(pageSize * depth, MAX_PAGED_FUZZY_RECALL);
+            int vectorLimit = Math.min(pageSize * depth * 2, MAX_PAGED_VECTOR_RECALL);
+            RankedResult ranked = recallAndRank(channels, queryVector, fuzzyLimit, vectorLimit,
+                    searchCursor.referenceTime());
+
+            List<ScoredFeed> remaining = ranked.feeds().stream()
+                    .filter(searchCursor::precedes)
+                    .toList();
+            boolean moreCandidates = ranked.truncated()
+                    && (fuzzyLimit < MAX_PAGED_FUZZY_RECALL || vectorLimit < MAX_PAGED_VECTOR_RECALL);
+
+            // 新增候选可能全部排在游标之前，此时继续加深召回，避免返回空页但hasMore=true
+            if (remaining.size() < pageSize && moreCandidates) {
+                depth++;
+                continue;
+            }
+
+            List<ScoredFeed> page = remaining.subList(0, Math.min(pageSize, remaining.size()));
+            boolean hasMore = remaining.size() > pageSize || moreCandidates;
+            String nextCursor = null;
+            if (hasMore && !page.isEmpty()) {
+                ScoredFeed last = page.getLast();
+                nextCursor = new SearchCursor(last.score(), last.feed().getId(),
+                        Math.min(depth, MAX_SEARCH_CURSOR_PAGE), searchCursor.referenceTime()).format();
+            }
+            return new SearchPageDTO(
+                    page.stream().map(scored -> toFeedDto(scored.feed())).toList(),
+                    nextCursor,
+                    nextCursor != null);
+        }
+    }
+
+    private RecallChannels resolveChannels(String query, FrontArticleController.SearchScope scope, Long sourceId,
+            Long userId) {
+        if (isSourceScopedSearch(sourceId)) {
+            return sourceChannels(query, List.of(sourceId));
+        }
+        if (requiresAuthenticatedUser(scope) && userId == null) {
+            return null;
+        }
+        return switch (scope) {
+            case SUBSCRIBED -> {
+                List<Long> sourceIds = findSubscribedSourceIds(userId);
+                yield sourceIds.isEmpty() ? null : sourceChannels(query, sourceIds);
+            }
+            case FAVORITE -> favoriteChannels(query, userId);
+            case ALL -> allChannels(query);
         };
     }
 
@@ -197,59 +310,117 @@ public class ArticleService {
         return scope != FrontArticleController.SearchScope.ALL;
     }
 
-    private List<ArticleFeedDTO> searchAll(String query) {
-        return executeSearchParallel(() -> searchIdsByFuzzyAll(query), () -> searchIdsByVectorAll(query));
+    private List<Long> findSubscribedSourceIds(Long userId) {
+        return subscriptionSnapshotCache.get(userId).sourceIds();
     }
 
-    private List<ArticleFeedDTO> searchInSource(String query, Long sourceId) {
-        List<Long> sourceIds = List.of(sourceId);
-        return executeSearchParallel(
-                () -> searchIdsByFuzzyInSources(query, sourceIds),
-                () -> searchIdsByVectorInSources(query, sourceIds));
+    private RecallChannels allChannels(String query) {
+        HybridSearchService.Scope scope = HybridSearchService.Scope.all();
+        Supplier<Optional<String>> keyword = topKeyword(query);
+        return new RecallChannels(query, scope,
+                limit -> keywordRecall(query, scope, limit, () -> searchIdsByFuzzyAll(query, keyword, limit)),
+                (vector, limit) -> vectorSearchService.searchAll(vector, VECTOR_SIMILARITY_THRESHOLD, limit));
     }
 
-    private List<ArticleFeedDTO> searchInSubscriptions(String query, Long userId) {
-        List<Long> sourceIds = subscriptionRepository.findByUserIdAndTypeWithSource(userId, SubscriptionType.RSS)
-                .stream()
-                .filter(sub -> sub.getSource() != null)
-                .map(sub -> sub.getSource().getId())
-                .toList();
+    private RecallChannels sourceChannels(String query, List<Long> sourceIds) {
+        HybridSearchService.Scope scope = HybridSearchService.Scope.sources(sourceIds);
+        Supplier<Optional<String>> keyword = topKeyword(query);
+        return new RecallChannels(query, scope,
+                limit -> keywordRecall(query, scope, limit,
+                        () -> searchIdsByFuzzyInSources(query, keyword, sourceIds, limit)),
+                (vector, limit) -> vectorSearchService.searchInSources(vector, sourceIds,
+                        VECTOR_SIMILARITY_THRESHOLD, limit));
+    }
 
-        if (sourceIds.isEmpty()) {
-            return List.of();
+    private RecallChannels favoriteChannels(String query, Long userId) {
+        HybridSearchService.Scope scope = HybridSearchService.Scope.favorites(userId);
+        Supplier<Optional<String>> keyword = topKeyword(query);
+        return new RecallChannels(query, scope,
+                limit -> keywordRecall(query, scope, limit,
+                        () -> searchIdsByFuzzyInFavorites(query, keyword, userId, limit)),
+                (vector, limit) -> vectorSearchService.searchInFavorites(vector, userId,
+                        VECTOR_SIMILARITY_THRESHOLD, limit));
+    }
+
+    /**
+     * TF-IDF首个关键词，同一组召回通道内只提取一次
+     */
+    private Supplier<Optional<String>> topKeyword(String query) {
+        return SingletonSupplier.of(() -> Optional.ofNullable(extractTopKeyword(query)));
+    }
+
+    /**
+     * 关键词召回：全文索引就绪时走全文检索（切词后按相关度排序），否则使用ILIKE模糊匹配
+     */
+    private List<Long> keywordRecall(String query, HybridSearchService.Scope scope, int limit,
+            Supplier<List<Long>> ilikeRecall) {
+        if (fullTextSearchService.isActive()) {
+            return fullTextSearchService.searchIds(scope, query, limit);
         }
+        return ilikeRecall.get();
+    }
 
-        return executeSearchParallel(
-                () -> searchIdsByFuzzyInSources(query, sourceIds),
-                () -> searchIdsByVectorInSources(query, sourceIds));
+    private List<ArticleFeedDTO> executeSearch(RecallChannels channels) {
+        if (hybridSearchService.isEnabled()) {
+            try {
+                return executeHybridSearch(channels);
+            } catch (Exception e) {
+                log.warn("Hybrid SQL search failed, fallback to parallel recall", e);
+            }
+        }
+        return recallAndRank(channels, embedQuery(channels.query()), FUZZY_RECALL_LIMIT, VECTOR_RECALL_LIMIT,
+                LocalDateTime.now())
+                .feeds().stream()
+                .map(scored -> toFeedDto(scored.feed()))
+                .toList();
     }
 
-    private List<ArticleFeedDTO> searchInFavorites(String query, Long userId) {
-        return executeSearchParallel(
-                () -> searchIdsByFuzzyInFavorites(query, userId),
-                () -> searchIdsByVectorInFavorites(query, userId));
+    /**
+     * 单SQL召回+RRF融合（search_fusion_mode=RRF_SQL）
+     */
+    private List<ArticleFeedDTO> executeHybridSearch(RecallChannels channels) {
+        String query = channels.query();
+        var keywordFuture = CompletableFuture.supplyAsync(() -> extractTopKeyword(query), SEARCH_EXECUTOR);
+        float[] vector = llmProcessService.generateVector(query);
+        if (vector == null || vector.length == 0) {
+            log.warn("Vector generation failed, fallback to keyword search only");
+        }
+        String keyword = keywordFuture.join();
+        if (keyword != null && keyword.equalsIgnoreCase(query)) {
+            keyword = null;
+        }
+        return hybridSearchService.search(channels.scope(), query, keyword, vector, VECTOR_SIMILARITY_THRESHOLD,
+                FUZZY_RECALL_LIMIT, VECTOR_RECALL_LIMIT, LocalDateTime.now());
     }
 
-    private List<ArticleFeedDTO> executeSearchParallel(
-            Supplier<List<Long>> fuzzySupplier,
-            Supplier<List<ArticleExtraRepository.IdWithDistance>> vectorSupplier) {
-        var fuzzyFuture = CompletableFuture.supplyAsync(fuzzySupplier, SEARCH_EXECUTOR)
+    /**
+     * 两路并行召回后按最终得分降序排列（同分按ID降序，保证游标稳定）
+     */
+    private RankedResult recallAndRank(RecallChannels channels, CompletableFuture<float[]> queryVector,
+            int fuzzyLimit, int vectorLimit, LocalDateTime referenceTime) {
+        var fuzzyFuture = CompletableFuture.supplyAsync(() -> channels.fuzzy().apply(fuzzyLimit), SEARCH_EXECUTOR)
                 .exceptionally(ex -> {
                     log.warn("Fuzzy recall failed, fallback to vector only", ex);
                     return List.of();
                 });
 
-        var vectorFuture = CompletableFuture.supplyAsync(vectorSupplier, SEARCH_EXECUTOR)
+        var vectorFuture = queryVector
+                .thenApplyAsync(vector -> vector == null
+                        ? Collections.<ArticleExtraRepository.IdWithDistance>emptyList()
+                        : channels.vector().search(vector, vectorLimit), SEARCH_EXECUTOR)
                 .exceptionally(ex -> {
                     log.warn("Vector recall failed, fallback to fuzzy only", ex);
                     return Collections.emptyList();
                 });
 
-        return executeSearch(fuzzyFuture.join(), vectorFuture.join());
+        List<Long> fuzzyIds = fuzzyFuture.join();
+        List<ArticleExtraRepository.IdWithDistance> vectorResults = vectorFuture.join();
+        boolean truncated = fuzzyIds.size() >= fuzzyLimit || vectorResults.size() >= vectorLimit;
+        return new RankedResult(rank(fuzzyIds, vectorResults, referenceTime), truncated);
     }
 
-    private List<ArticleFeedDTO> executeSearch(List<Long> fuzzyIds,
-            List<ArticleExtraRepository.IdWithDistance> vectorResults) {
+    private List<ScoredFeed> rank(List<Long> fuzzyIds, List<ArticleExtraRepository.IdWithDistance> vectorResults,
+            LocalDateTime referenceTime) {
         Set<Long> fuzzyIdSet = fuzzyIds == null ? Set.of() : new HashSet<>(fuzzyIds);
         Set<Long> allIds = new HashSet<>();
         allIds.addAll(fuzzyIdSet);
@@ -271,16 +442,17 @@ public class ArticleService {
         return allIds.stream()
                 .map(feedMap::get)
                 .filter(Objects::nonNull)
-                .map(feed -> Map.entry(feed, calculateFinalScore(feed, fuzzyIdSet, vectorDistanceMap)))
-                .sorted(Map.Entry.<ArticleRepository.ArticleFeedView, Double>comparingByValue().reversed())
-                .map(entry -> toFeedDto(entry.getKey()))
+                .map(feed -> new ScoredFeed(feed,
+                        calculateFinalScore(feed, fuzzyIdSet, vectorDistanceMap, referenceTime)))
+                .sorted(SCORED_FEED_ORDER)
                 .toList();
     }
 
     private double calculateFinalScore(
             ArticleRepository.ArticleFeedView feed,
             Set<Long> fuzzyIdSet,
-            Map<Long, Double> vectorDistanceMap) {
+            Map<Long, Double> vectorDistanceMap,
+            LocalDateTime referenceTime) {
         double score = 0.0;
 
         Double distance = vectorDistanceMap.get(feed.getId());
@@ -294,48 +466,77 @@ public class ArticleService {
 
         // 以小时为单位做平滑衰减，避免天粒度的粗糙跳变
         // 系数 0.002/h ≈ 20天衰减一半，平滑窗口更大
-        long hoursDiff = getHoursDiff(feed.getPubDate());
+        long hoursDiff = getHoursDiff(feed.getPubDate(), referenceTime);
         double decay = 1.0 / (1.0 + hoursDiff * 0.002);
         return score * decay;
     }
 
-    private long getHoursDiff(LocalDateTime pubDate) {
+    private long getHoursDiff(LocalDateTime pubDate, LocalDateTime referenceTime) {
         long hoursDiff = pubDate == null ? 0
-                : java.time.temporal.ChronoUnit.HOURS.between(pubDate, LocalDateTime.now());
+                : java.time.temporal.ChronoUnit.HOURS.between(pubDate, referenceTime);
         return Math.max(hoursDiff, 0);
     }
 
-    private List<Long> searchIdsByFuzzyAll(String query) {
+    private SearchCursor parseSearchCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new SearchCursor(Double.POSITIVE_INFINITY, Long.MAX_VALUE, 0,
+                    LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        }
+        String[] parts = cursor.split(",", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid cursor format");
+        }
+        try {
+            double score = Double.parseDouble(parts[0]);
+            long articleId = Long.parseLong(parts[1]);
+            int page = Integer.parseInt(parts[2]);
+            LocalDateTime referenceTime = LocalDateTime.parse(parts[3]);
+            if (page < 0 || page > MAX_SEARCH_CURSOR_PAGE || Double.isNaN(score)) {
+                throw new IllegalArgumentException("Invalid cursor format");
+            }
+            return new SearchCursor(score, articleId, page, referenceTime);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor format", e);
+        }
+    }
+
+    private List<Long> searchIdsByFuzzyAll(String query, Supplier<Optional<String>> topKeyword, int limit) {
         return searchIdsByFuzzyWithKeyword(
-                () -> articleRepository.searchIdsByFuzzy(query, FUZZY_RECALL_LIMIT),
-                keyword -> articleRepository.searchIdsByFuzzy(keyword, FUZZY_RECALL_LIMIT),
+                () -> articleRepository.searchIdsByFuzzy(query, limit),
+                keyword -> articleRepository.searchIdsByFuzzy(keyword, limit),
                 query,
-                FUZZY_RECALL_LIMIT);
+                topKeyword,
+                limit);
     }
 
-    private List<Long> searchIdsByFuzzyInSources(String query, List<Long> sourceIds) {
+    private List<Long> searchIdsByFuzzyInSources(String query, Supplier<Optional<String>> topKeyword,
+            List<Long> sourceIds, int limit) {
         return searchIdsByFuzzyWithKeyword(
-                () -> articleRepository.searchIdsByFuzzyInSources(query, sourceIds, FUZZY_RECALL_LIMIT),
-                keyword -> articleRepository.searchIdsByFuzzyInSources(keyword, sourceIds, FUZZY_RECALL_LIMIT),
+                () -> articleRepository.searchIdsByFuzzyInSources(query, sourceIds, limit),
+                keyword -> articleRepository.searchIdsByFuzzyInSources(keyword, sourceIds, limit),
                 query,
-                FUZZY_RECALL_LIMIT);
+                topKeyword,
+                limit);
     }
 
-    private List<Long> searchIdsByFuzzyInFavorites(String query, Long userId) {
+    private List<Long> searchIdsByFuzzyInFavorites(String query, Supplier<Optional<String>> topKeyword, Long userId,
+            int limit) {
         return searchIdsByFuzzyWithKeyword(
-                () -> articleRepository.searchIdsByFuzzyInFavorites(query, userId, FUZZY_RECALL_LIMIT),
-                keyword -> articleRepository.searchIdsByFuzzyInFavorites(keyword, userId, FUZZY_RECALL_LIMIT),
+                () -> articleRepository.searchIdsByFuzzyInFavorites(query, userId, limit),
+                keyword -> articleRepository.searchIdsByFuzzyInFavorites(keyword, userId, limit),
                 query,
-                FUZZY_RECALL_LIMIT);
+                topKeyword,
+                limit);
     }
 
     private List<Long> searchIdsByFuzzyWithKeyword(
             Supplier<List<Long>> querySearch,
             Function<String, List<Long>> keywordSearch,
             String query,
+            Supplier<Optional<String>> keywordSupplier,
             int limit) {
         List<Long> queryIds = Optional.ofNullable(querySearch.get()).orElseGet(List::of);
-        String topKeyword = extractTopKeyword(query);
+        String topKeyword = keywordSupplier.get().orElse(null);
         if (topKeyword == null || topKeyword.equalsIgnoreCase(query)) {
             return queryIds;
         }
@@ -360,8 +561,7 @@ public class ArticleService {
             return null;
         }
         try {
-            TFIDFAnalyzer tfidfAnalyzer = new TFIDFAnalyzer();
-            List<Keyword> keywords = tfidfAnalyzer.analyze(query, TFIDF_TOP_N);
+            List<Keyword> keywords = ChineseSegmentUtils.extractKeywords(query, TFIDF_TOP_N);
             if (keywords == null || keywords.isEmpty()) {
                 return null;
             }
@@ -377,34 +577,21 @@ public class ArticleService {
         }
     }
 
-    private List<ArticleExtraRepository.IdWithDistance> searchIdsByVectorAll(String query) {
-        float[] vector = llmProcessService.generateVector(query);
-        if (vector == null || vector.length == 0) {
-            log.warn("Vector generation failed, fallback to keyword search only");
-            return Collections.emptyList();
-        }
-        return articleExtraRepository.searchIdsByVector(toPgVectorLiteral(vector), VECTOR_SIMILARITY_THRESHOLD,
-                VECTOR_RECALL_LIMIT);
-    }
-
-    private List<ArticleExtraRepository.IdWithDistance> searchIdsByVectorInSources(String query, List<Long> sourceIds) {
-        float[] vector = llmProcessService.generateVector(query);
-        if (vector == null || vector.length == 0) {
-            log.warn("Vector generation failed, fallback to keyword search only");
-            return Collections.emptyList();
-        }
-        return articleExtraRepository.searchIdsByVectorInSources(toPgVectorLiteral(vector), sourceIds,
-                VECTOR_SIMILARITY_THRESHOLD, VECTOR_RECALL_LIMIT);
-    }
-
-    private List<ArticleExtraRepository.IdWithDistance> searchIdsByVectorInFavorites(String query, Long userId) {
-        float[] vector = llmProcessService.generateVector(query);
-        if (vector == null || vector.length == 0) {
-            log.warn("Vector generation failed, fallback to keyword search only");
-            return Collections.emptyList();
-        }
-        return articleExtraRepository.searchIdsByVectorInFavorites(toPgVectorLiteral(vector), userId,
-                VECTOR_SIMILARITY_THRESHOLD, VECTOR_RECALL_LIMIT);
+    /**
+     * 异步生成查询向量；生成失败时结果为null，向量通道返回空，只用关键词召回
+     */
+    private CompletableFuture<float[]> embedQuery(String query) {
+        return CompletableFuture.supplyAsync(() -> {
+            float[] vector = llmProcessService.generateVector(query);
+            if (vector == null || vector.length == 0) {
+                log.warn("Vector generation failed, fallback to keyword search only");
+                return null;
+            }
+            return vector;
+        }, SEARCH_EXECUTOR).exceptionally(ex -> {
+            log.warn("Vector generation failed, fallback to keyword search only", ex);
+            return null;
+        });
     }
 
     @Transactional(readOnly = true)
@@ -416,11 +603,14 @@ public class ArticleService {
         articleRepository.findById(articleId)
                 .orElseThrow(() -> new EntityNotFoundException("文章不存在: " + articleId));
 
-        if (!hasVector(articleId)) {
+        // 优先读预计算的近邻表，列表中可能有已删除的文章，回表后按顺序取前几条
+        Optional<List<Long>> neighborIds = articleNeighborService.findNeighborIds(articleId);
+        if (neighborIds.isEmpty() && !hasVector(articleId)) {
             return List.of();
         }
 
-        List<Long> similarIds = articleExtraRepository.findSimilarArticleIds(articleId, 2);
+        List<Long> similarIds = neighborIds.orElseGet(
+                () -> vectorSearchService.findSimilarArticleIds(articleId, RECOMMEND_LIMIT));
         if (similarIds.isEmpty()) {
             return List.of();
         }
@@ -429,6 +619,7 @@ public class ArticleService {
         return similarIds.stream()
                 .map(feedMap::get)
                 .filter(Objects::nonNull)
+                .limit(RECOMMEND_LIMIT)
                 .map(this::toFeedDto)
                 .toList();
     }
@@ -474,7 +665,12 @@ public class ArticleService {
             return null;
         }
         try {
-            return articleRepository.save(article);
+            Article saved = articleRepository.save(article);
+            Long sourceId = article.getSource() == null ? null : article.getSource().getId();
+            searchResultCache.evictSource(sourceId);
+            timelineCache.onArticle(sourceId, saved.getId(), saved.getPubDate());
+            fullTextSearchService.indexArticleAsync(saved.getId());
+            return saved;
         } catch (Exception e) {
             log.debug("文章报错失败: title={}", article.getTitle());
             return null;
@@ -483,10 +679,56 @@ public class ArticleService {
 
     /**
      * 根据RSS源ID分页获取文章（FeedDTO）
+     *
+     * @param unreadOnly 只看未读：取该源最新的文章ID按已读位图过滤后再分页，总数为未读数
      */
-    public Page<ArticleFeedDTO> getArticleFeedsBySource(Long sourceId, Pageable pageable) {
-        return articleRepository.findFeedBySourceId(sourceId, pageable)
-                .map(this::toFeedDto);
+    public Page<ArticleFeedDTO> getArticleFeedsBySource(Long sourceId, Pageable pageable, Long userId,
+            boolean unreadOnly) {
+        if (!unreadOnly || userId == null) {
+            return articleRepository.findFeedBySourceId(sourceId, pageable)
+                    .map(this::toFeedDto);
+        }
+        List<Long> unreadIds = readStateService.filterUnread(userId,
+                articleRepository.findRecentIdsBySourceId(sourceId, READ_STATE_SOURCE_LIMIT));
+        int from = (int) Math.min(pageable.getOffset(), unreadIds.size());
+        int to = Math.min(from + pageable.getPageSize(), unreadIds.size());
+        List<Long> pageIds = unreadIds.subList(from, to);
+        Map<Long, ArticleRepository.ArticleFeedView> feeds = toFeedViewMap(pageIds);
+        List<ArticleFeedDTO> content = pageIds.stream()
+                .map(feeds::get)
+                .filter(Objects::nonNull)
+                .map(this::toFeedDto)
+                .toList();
+        return new PageImpl<>(content, pageable, unreadIds.size());
+    }
+
+    public void markArticleRead(Long userId, Long articleId) {
+        if (articleId == null || articleId <= 0) {
+            throw new IllegalArgumentException("articleId must be positive");
+        }
+        if (!articleRepository.existsById(articleId)) {
+            throw new EntityNotFoundException("文章不存在: " + articleId);
+        }
+        readStateService.markRead(userId, List.of(articleId));
+    }
+
+    public void markArticleUnread(Long userId, Long articleId) {
+        if (articleId == null || articleId <= 0) {
+            throw new IllegalArgumentException("articleId must be positive");
+        }
+        readStateService.markUnread(userId, articleId);
+    }
+
+    /**
+     * 把该源位于游标处及更早的文章标记为已读（最多READ_STATE_SOURCE_LIMIT篇）
+     *
+     * @param cursor 用户已看到的最新一条的游标（pubDate,id），为空时表示当前时刻
+     * @return 新标记的文章数
+     */
+    public int markSourceRead(Long userId, Long sourceId, String cursor) {
+        FeedCursor position = FeedCursor.parse(cursor);
+        return readStateService.markRead(userId,
+                articleRepository.findIdsBySourceIdUpTo(sourceId, position.pubDate(), position.id(), READ_STATE_SOURCE_LIMIT));
     }
 
     private ArticleFeedDTO toFeedDto(ArticleRepository.ArticleFeedView view) {
@@ -514,16 +756,38 @@ public class ArticleService {
                 .collect(Collectors.toMap(ArticleRepository.ArticleFeedView::getId, feed -> feed));
     }
 
-    private String toPgVectorLiteral(float[] vector) {
-        StringBuilder sb = new StringBuilder();
-        sb.append('[');
-        for (int i = 0; i < vector.length; i++) {
-            if (i > 0) {
-                sb.append(',');
-            }
-            sb.append(vector[i]);
+    private record RecallChannels(String query, HybridSearchService.Scope scope, IntFunction<List<Long>> fuzzy,
+            VectorRecall vector) {
+    }
+
+    /**
+     * 向量通道：以已生成的查询向量召回
+     */
+    @FunctionalInterface
+    private interface VectorRecall {
+
+        List<ArticleExtraRepository.IdWithDistance> search(float[] vector, int limit);
+    }
+
+    private record ScoredFeed(ArticleRepository.ArticleFeedView feed, double score) {
+    }
+
+    private record RankedResult(List<ScoredFeed> feeds, boolean truncated) {
+    }
+
+    /**
+     * 搜索游标：上一页末条的得分与文章ID、已加载页数，以及首页时刻（时间衰减以此为准，翻页期间得分保持不变）
+     * 格式：score,articleId,page,referenceTime
+     */
+    private record SearchCursor(double score, long articleId, int page, LocalDateTime referenceTime) {
+
+        boolean precedes(ScoredFeed scored) {
+            int compare = Double.compare(scored.score(), score);
+            return compare < 0 || (compare == 0 && scored.feed().getId() < articleId);
+        }
+
+        String format() {
+            return score + "," + articleId + "," + page + "," + referenceTime;
         }
-        sb.append(']');
-        return sb.toString();
     }
-}
\ No newline at end of file
+}
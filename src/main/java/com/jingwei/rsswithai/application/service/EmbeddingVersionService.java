@@ -0,0 +1,354 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.Event.ConfigUpdateEvent;
+import com.jingwei.rsswithai.application.Event.EmbeddingModelSwitchedEvent;
+import com.jingwei.rsswithai.application.dto.EmbeddingMigrationStatusDTO;
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.domain.model.VectorStorageMode;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 向量版本管理服务
+ * 修改embedding_model_id后，查询仍使用旧模型（serving model），后台按批用新模型回填next_vector；
+ * 覆盖完成后在next_vector上建好索引，再在一个事务内通过列重命名原子切换，并更新serving model
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@DependsOn("settingsService")
+public class EmbeddingVersionService {
+
+    static final String SERVING_MODEL_KEY = "embedding_serving_model";
+    private static final String PENDING_INDEX_NAME = "idx_article_extra_next_vector_hnsw";
+    private static final int MAX_CONSECUTIVE_ERRORS = 5;
+    private static final long ERROR_BACKOFF_MILLIS = 30_000;
+
+    private final AppConfig appConfig;
+    private final SettingsService settingsService;
+    private final LlmEndpointPool llmEndpointPool;
+    private final VectorSearchService vectorSearchService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile MigrationState state = MigrationState.IDLE;
+    private volatile LocalDateTime startedAt;
+    private volatile String lastError;
+
+    public enum MigrationState {
+        IDLE,
+        BACKFILLING,
+        INDEXING,
+        SWITCHING,
+        FAILED
+    }
+
+    /**
+     * 首次启用版本记录时，把当前模型记为serving model（已有向量视为由它生成）
+     */
+    @PostConstruct
+    public void init() {
+        recordServingModelIfMissing();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            // next_vector不映射到实体，由这里维护
+            jdbcTemplate.execute("ALTER TABLE article_extra ADD COLUMN IF NOT EXISTS next_vector vector(" +
+                    VectorSearchService.DIMENSIONS + ")");
+            jdbcTemplate.execute("ALTER TABLE article_extra ADD COLUMN IF NOT EXISTS next_vector_model VARCHAR(255)");
+            jdbcTemplate.execute("ALTER TABLE topics ADD COLUMN IF NOT EXISTS next_vector vector(" +
+                    VectorSearchService.DIMENSIONS + ")");
+            jdbcTemplate.execute("ALTER TABLE topics ADD COLUMN IF NOT EXISTS next_vector_model VARCHAR(255)");
+        } catch (Exception e) {
+            log.error("Failed to prepare pending vector columns", e);
+            return;
+        }
+        startIfNeeded();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onConfigUpdateEvent(ConfigUpdateEvent event) {
+        recordServingModelIfMissing();
+        startIfNeeded();
+    }
+
+    /**
+     * 查询与入库向量当前应使用的模型
+     */
+    public String getServingModel() {
+        return servingModel(appConfig);
+    }
+
+    /**
+     * serving model的唯一解析规则：未记录时取当前配置的模型
+     * 供因依赖顺序无法注入本服务的组件（近期向量索引、主题匹配）直接使用
+     */
+    static String servingModel(AppConfig appConfig) {
+        String serving = appConfig.getEmbeddingServingModel();
+        return (serving == null || serving.isBlank()) ? appConfig.getEmbeddingModel() : serving;
+    }
+
+    /**
+     * 正在迁移的目标模型，未在迁移时为空
+     */
+    public Optional<String> getPendingModel() {
+        String target = appConfig.getEmbeddingModel();
+        if (target == null || target.isBlank() || target.equals(getServingModel())) {
+            return Optional.empty();
+        }
+        return Optional.of(target);
+    }
+
+    /**
+     * 迁移期间新入库文章同时写入目标模型的向量，避免回填追不上新增
+     */
+    public void storePendingArticleVector(Long articleId, float[] vector, String model) {
+        jdbcTemplate.update("UPDATE article_extra SET next_vector = CAST(? AS vector), next_vector_model = ? " +
+                "WHERE article_id = ?", VectorSearchService.toPgVectorLiteral(vector), model, articleId);
+    }
+
+    public void storePendingTopicVector(Long topicId, float[] vector, String model) {
+        jdbcTemplate.update("UPDATE topics SET next_vector = CAST(? AS vector), next_vector_model = ? WHERE id = ?",
+                VectorSearchService.toPgVectorLiteral(vector), model, topicId);
+    }
+
+    public EmbeddingMigrationStatusDTO getStatus() {
+        Optional<String> pending = getPendingModel();
+        long articlesTotal = count("SELECT COUNT(*) FROM article_extra WHERE vector IS NOT NULL");
+        long topicsTotal = count("SELECT COUNT(*) FROM topics WHERE vector IS NOT NULL");
+        long articlesDone = pending.map(model -> count("SELECT COUNT(*) FROM article_extra " +
+                "WHERE vector IS NOT NULL AND next_vector IS NOT NULL AND next_vector_model = ?", model)).orElse(0L);
+        long topicsDone = pending.map(model -> count("SELECT COUNT(*) FROM topics " +
+                "WHERE vector IS NOT NULL AND next_vector IS NOT NULL AND next_vector_model = ?", model)).orElse(0L);
+        long total = articlesTotal + topicsTotal;
+        double progress = pending.isEmpty() ? 1.0 : (total == 0 ? 1.0 : (double) (articlesDone + topicsDone) / total);
+        return new EmbeddingMigrationStatusDTO(getServingModel(), pending.orElse(null), state.name(),
+                articlesTotal, articlesDone, topicsTotal, topicsDone, progress, startedAt, lastError);
+    }
+
+    private void recordServingModelIfMissing() {
+        String serving = appConfig.getEmbeddingServingModel();
+        String current = appConfig.getEmbeddingModel();
+        if ((serving == null || serving.isBlank()) && current != null && !current.isBlank()) {
+            settingsService.saveInternalSetting(SERVING_MODEL_KEY, current);
+            log.info("Recorded embedding serving model: {}", current);
+        }
+    }
+
+    private void startIfNeeded() {
+        if (getPendingModel().isEmpty()) {
+            if (state == MigrationState.FAILED) {
+                state = MigrationState.IDLE;
+            }
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("embedding-migration").start(() -> {
+            try {
+                runMigration();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    private void runMigration() {
+        startedAt = LocalDateTime.now();
+        lastError = null;
+        int consecutiveErrors = 0;
+        log.info("Embedding migration started: {} -> {}", getServingModel(), getPendingModel().orElse(null));
+
+        while (true) {
+            Optional<String> pending = getPendingModel();
+            if (pending.isEmpty()) {
+                state = MigrationState.IDLE;
+                log.info("Embedding migration cancelled, target equals serving model {}", getServingModel());
+                return;
+            }
+            String target = pending.get();
+            try {
+                state = MigrationState.BACKFILLING;
+                int processed = backfillArticleBatch(target);
+                if (processed == 0) {
+                    processed = backfillTopicBatch(target);
+                }
+                if (processed == 0) {
+                    if (buildIndexAndSwitch(target)) {
+                        state = MigrationState.IDLE;
+                        return;
+                    }
+                    // 切换前发现未覆盖的新数据，继续回填
+                    continue;
+                }
+                consecutiveErrors = 0;
+                sleep(Math.max(0, Objects.requireNonNullElse(appConfig.getEmbeddingBackfillIntervalMillis(), 1000)));
+            } catch (Exception e) {
+                consecutiveErrors++;
+                lastError = e.getMessage();
+                log.error("Embedding migration error ({} in a row)", consecutiveErrors, e);
+                if (consecutiveErrors >= MAX_CONSECUTIVE_ERRORS) {
+                    state = MigrationState.FAILED;
+                    log.error("Embedding migration to {} stopped, will resume on next config update or restart",
+                            target);
+                    return;
+                }
+                sleep(ERROR_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * 回填一批文章向量，返回处理条数；向量文本与增强流程一致（概览+关键信息，缺失时用标题）
+     */
+    private int backfillArticleBatch(String target) {
+        List<Long> ids = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        jdbcTemplate.query("SELECT ae.article_id, ae.overview, ae.key_information, a.title " +
+                        "FROM article_extra ae JOIN articles a ON a.id = ae.article_id WHERE ae.vector IS NOT NULL " +
+                        "AND (ae.next_vector IS NULL OR ae.next_vector_model IS DISTINCT FROM ?) " +
+                        "ORDER BY ae.article_id LIMIT ?",
+                rs -> {
+                    ids.add(rs.getLong("article_id"));
+                    Array keyInfo = rs.getArray("key_information");
+                    texts.add(LlmProcessService.buildVectorText(rs.getString("title"), rs.getString("overview"),
+                            keyInfo == null ? List.of() : Arrays.asList((String[]) keyInfo.getArray())));
+                }, target, batchSize());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<float[]> vectors = llmEndpointPool.embed(texts, target);
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            args.add(new Object[]{VectorSearchService.toPgVectorLiteral(vectors.get(i)), target, ids.get(i)});
+        }
+        jdbcTemplate.batchUpdate("UPDATE article_extra SET next_vector = CAST(? AS vector), next_vector_model = ? " +
+                "WHERE article_id = ?", args);
+        return ids.size();
+    }
+
+    private int backfillTopicBatch(String target) {
+        List<Long> ids = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, content FROM topics WHERE vector IS NOT NULL " +
+                        "AND (next_vector IS NULL OR next_vector_model IS DISTINCT FROM ?) ORDER BY id LIMIT ?",
+                rs -> {
+                    ids.add(rs.getLong("id"));
+                    texts.add(rs.getString("content"));
+                }, target, batchSize());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<float[]> vectors = llmEndpointPool.embed(texts, target);
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            args.add(new Object[]{VectorSearchService.toPgVectorLiteral(vectors.get(i)), target, ids.get(i)});
+        }
+        jdbcTemplate.batchUpdate("UPDATE topics SET next_vector = CAST(? AS vector), next_vector_model = ? " +
+                "WHERE id = ?", args);
+        return ids.size();
+    }
+
+    /**
+     * 在next_vector上并发建立与当前存储模式一致的索引，然后在一个事务内锁表复核覆盖率并交换列
+     *
+     * @return 覆盖率复核未通过时返回false
+     */
+    private boolean buildIndexAndSwitch(String target) {
+        if (vectorSearchService.isMigrating()) {
+            log.info("Vector index migration in progress, delay embedding switch");
+            sleep(ERROR_BACKOFF_MILLIS);
+            return false;
+        }
+        VectorStorageMode mode = vectorSearchService.getActiveMode();
+
+        state = MigrationState.INDEXING;
+        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + PENDING_INDEX_NAME);
+        long start = System.currentTimeMillis();
+        jdbcTemplate.execute(VectorSearchService.indexDdl(mode, PENDING_INDEX_NAME, "article_extra", "next_vector"));
+        log.info("Pending vector index built in {}ms", System.currentTimeMillis() - start);
+
+        state = MigrationState.SWITCHING;
+        Boolean switched = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL lock_timeout = '10s'");
+            jdbcTemplate.execute("LOCK TABLE article_extra, topics IN ACCESS EXCLUSIVE MODE");
+            long uncovered = count("SELECT COUNT(*) FROM article_extra WHERE vector IS NOT NULL " +
+                    "AND (next_vector IS NULL OR next_vector_model IS DISTINCT FROM ?)", target)
+                    + count("SELECT COUNT(*) FROM topics WHERE vector IS NOT NULL " +
+                    "AND (next_vector IS NULL OR next_vector_model IS DISTINCT FROM ?)", target);
+            if (uncovered > 0) {
+                status.setRollbackOnly();
+                return false;
+            }
+
+            // 列重命名只改元数据，旧列上的索引随旧列一起删除
+            jdbcTemplate.execute("ALTER TABLE article_extra RENAME COLUMN vector TO vector_retired");
+            jdbcTemplate.execute("ALTER TABLE article_extra RENAME COLUMN vector_model TO vector_model_retired");
+            jdbcTemplate.execute("ALTER TABLE article_extra RENAME COLUMN next_vector TO vector");
+            jdbcTemplate.execute("ALTER TABLE article_extra RENAME COLUMN next_vector_model TO vector_model");
+            jdbcTemplate.execute("ALTER TABLE article_extra DROP COLUMN vector_retired, " +
+                    "DROP COLUMN vector_model_retired");
+            jdbcTemplate.execute("ALTER INDEX " + PENDING_INDEX_NAME + " RENAME TO " +
+                    VectorSearchService.indexName(mode));
+            jdbcTemplate.execute("ALTER TABLE article_extra ADD COLUMN next_vector vector(" +
+                    VectorSearchService.DIMENSIONS + "), ADD COLUMN next_vector_model VARCHAR(255)");
+
+            // 主题数量少且无向量索引，直接更新
+            jdbcTemplate.update("UPDATE topics SET vector = next_vector, vector_model = next_vector_model, " +
+                    "next_vector = NULL, next_vector_model = NULL WHERE next_vector IS NOT NULL");
+
+            settingsService.saveInternalSetting(SERVING_MODEL_KEY, target);
+            // 内部配置不发布ConfigUpdateEvent，主题矩阵、时间线缓存等依赖模型的状态由该事件在提交后刷新
+            eventPublisher.publishEvent(new EmbeddingModelSwitchedEvent(this, target));
+            return true;
+        });
+
+        if (!Boolean.TRUE.equals(switched)) {
+            log.info("New vectors appeared during indexing, continue backfilling");
+            return false;
+        }
+        log.info("Embedding model switched to {}", target);
+        return true;
+    }
+
+    private int batchSize() {
+        return Math.max(1, Objects.requireNonNullElse(appConfig.getEmbeddingBackfillBatchSize(), 32));
+    }
+
+    private long count(String sql, Object... args) {
+        Long result = jdbcTemplate.queryForObject(sql, Long.class, args);
+        return result == null ? 0 : result;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.dto.ArticleFeedDTO;
+import com.jingwei.rsswithai.application.dto.SearchPageDTO;
+import com.jingwei.rsswithai.domain.repository.ArticleFavoriteRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 列表的收藏状态标注
+ * 一页文章只查询一次收藏表（按 (user_id, article_id) 唯一索引），得到收藏ID集合后为每条DTO填入isFavorite；
+ * 未登录时全部为false，不查询
+ */
+@Service
+@RequiredArgsConstructor
+public class FavoriteStateService {
+
+    private final ArticleFavoriteRepository articleFavoriteRepository;
+
+    public List<ArticleFeedDTO> decorate(Long userId, List<ArticleFeedDTO> feeds) {
+        Set<Long> favorites = findFavorites(userId, feeds);
+        return feeds.stream().map(feed -> feed.withFavorite(favorites.contains(feed.id()))).toList();
+    }
+
+    public Page<ArticleFeedDTO> decorate(Long userId, Page<ArticleFeedDTO> page) {
+        Set<Long> favorites = findFavorites(userId, page.getContent());
+        return page.map(feed -> feed.withFavorite(favorites.contains(feed.id())));
+    }
+
+    public SearchPageDTO decorate(Long userId, SearchPageDTO page) {
+        return new SearchPageDTO(decorate(userId, page.items()), page.nextCursor(), page.hasMore());
+    }
+
+    private Set<Long> findFavorites(Long userId, List<ArticleFeedDTO> feeds) {
+        if (userId == null || feeds.isEmpty()) {
+            return Set.of();
+        }
+        List<Long> articleIds = feeds.stream().map(ArticleFeedDTO::id).filter(Objects::nonNull).distinct().toList();
+        if (articleIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(articleFavoriteRepository.findFavoriteArticleIds(userId, articleIds));
+    }
+}
@@ -0,0 +1,48 @@
+package com.jingwei.rsswithai.application.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 按 pub_date DESC, id DESC 翻页的游标，格式：pubDate,id
+ * 订阅时间线、文章列表与按源标记已读共用同一解析；pubDate为空（",id"）表示已进入无发布时间的文章
+ */
+record FeedCursor(LocalDateTime pubDate, long id) {
+
+    /**
+     * 时间线与标记已读使用：为空时从当前时刻开始，且游标必须带发布时间
+     */
+    static FeedCursor parse(String cursor) {
+        FeedCursor parsed = parse(cursor, null);
+        if (parsed == null) {
+            return new FeedCursor(LocalDateTime.now(), Long.MAX_VALUE);
+        }
+        if (parsed.pubDate() == null) {
+            throw new IllegalArgumentException("Invalid cursor format");
+        }
+        return parsed;
+    }
+
+    /**
+     * @param start 游标为空时返回的起点
+     */
+    static FeedCursor parse(String cursor, FeedCursor start) {
+        if (cursor == null || cursor.isBlank()) {
+            return start;
+        }
+        String[] parts = cursor.split(",", 2);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid cursor format");
+        }
+        try {
+            LocalDateTime pubDate = parts[0].isEmpty() ? null : LocalDateTime.parse(parts[0]);
+            return new FeedCursor(pubDate, Long.parseLong(parts[1]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor format", e);
+        }
+    }
+
+    String format() {
+        return (pubDate == null ? "" : pubDate.toString()) + "," + id;
+    }
+}
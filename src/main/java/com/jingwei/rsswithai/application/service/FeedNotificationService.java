@@ -0,0 +1,365 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.dto.NewFeedItemDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 时间线新文章推送（SSE）
+ * 文章增强完成（主题匹配之后）时，向订阅了该源或命中主题的在线用户推送轻量通知（文章ID与发布时间），客户端收到后再拉取时间线；
+ * 空闲连接不占线程（SseEmitter异步持有），发送与心跳在虚拟线程上执行。
+ * 最近的事件保存在定长环形缓冲中，事件ID全局递增；断线重连携带Last-Event-ID时补发之后与当前订阅匹配的事件，
+ * 超出缓冲范围（或服务重启）时发送reset事件，客户端应重新拉取时间线
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FeedNotificationService {
+
+    private static final long EMITTER_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final int MAX_CONNECTIONS_PER_USER = 5;
+    private static final int HISTORY_SIZE = 4096;
+    private static final String EVENT_NEW_ITEMS = "new-items";
+    private static final String EVENT_READY = "ready";
+    private static final String EVENT_RESET = "reset";
+
+    private final SubscriptionSnapshotCache subscriptionSnapshotCache;
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> usersBySource = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> usersByTopic = new ConcurrentHashMap<>();
+    private final Map<Long, Interests> interests = new ConcurrentHashMap<>();
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    /**
+     * 以启动时刻为起点，重启后的事件ID大于重启前的，旧ID可识别为超出缓冲范围
+     */
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final long firstSequence = sequence.get() + 1;
+    private final Notification[] history = new Notification[HISTORY_SIZE];
+
+    /**
+     * 一篇新文章：所属源与命中的主题
+     */
+    private record Notification(long sequence, long articleId, LocalDateTime pubDate, Long sourceId,
+            Set<Long> topicIds) {
+
+        boolean matches(Interests interests) {
+            if (sourceId != null && interests.sourceIds().contains(sourceId)) {
+                return true;
+            }
+            for (Long topicId : topicIds) {
+                if (interests.topicIds().contains(topicId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 缓冲快照：事件按序号升序，latest为取快照时的最新序号
+     */
+    private record History(List<Notification> recent, long latest) {
+    }
+
+    /**
+     * 在线用户订阅的源与主题
+     */
+    private record Interests(Set<Long> sourceIds, Set<Long> topicIds) {
+    }
+
+    /**
+     * 单个SSE连接；发送在实例锁内执行，补发完成前到达的事件按replayedUpTo去重
+     */
+    private final class Connection {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final long connectedAt = System.currentTimeMillis();
+        private long replayedUpTo;
+        private boolean closed;
+
+        private Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        synchronized void send(Notification notification) {
+            if (closed || notification.sequence() <= replayedUpTo) {
+                return;
+            }
+            trySend(SseEmitter.event()
+                    .id(Long.toString(notification.sequence()))
+                    .name(EVENT_NEW_ITEMS)
+                    .data(List.of(new NewFeedItemDTO(notification.articleId(), notification.pubDate()))));
+        }
+
+        synchronized void heartbeat() {
+            if (!closed) {
+                trySend(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+
+        /**
+         * 发送失败（客户端已断开）时关闭连接
+         */
+        private void trySend(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unregister(this);
+        }
+    }
+
+    /**
+     * 建立推送连接
+     *
+     * @param lastEventId 断线重连时客户端最后收到的事件ID，可为空
+     */
+    public SseEmitter connect(Long userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Connection connection = new Connection(userId, emitter);
+        emitter.onCompletion(connection::close);
+        emitter.onTimeout(() -> {
+            connection.close();
+            emitter.complete();
+        });
+        emitter.onError(error -> connection.close());
+
+        // 同一用户连接过多时关闭最早的，多为未正常断开的旧标签页
+        connections.getOrDefault(userId, Set.of()).stream()
+                .sorted(Comparator.comparingLong((Connection existing) -> existing.connectedAt).reversed())
+                .skip(MAX_CONNECTIONS_PER_USER - 1)
+                .forEach(oldest -> {
+                    oldest.close();
+                    oldest.emitter.complete();
+                });
+
+        synchronized (connection) {
+            // 先加入索引再取缓冲快照：快照之前发布的事件在补发中，之后发布的事件走实时推送
+            connections.compute(userId, (key, userConnections) -> {
+                Set<Connection> updated = userConnections != null ? userConnections : ConcurrentHashMap.newKeySet();
+                updated.add(connection);
+                return updated;
+            });
+            refreshInterests(userId);
+            Long lastSequence = parseEventId(lastEventId);
+            // 最新序号与缓冲在同一把锁内读取，避免其间追加的事件既不在补发中又因replayedUpTo被实时推送跳过
+            History history = snapshotHistory();
+            List<Notification> recent = history.recent();
+            long latest = history.latest();
+            if (lastSequence == null) {
+                // 新连接：告知当前序号，之后断线重连从这里补发
+                connection.replayedUpTo = latest;
+                connection.trySend(SseEmitter.event().id(Long.toString(latest)).name(EVENT_READY).data(List.of()));
+            } else if (lastSequence + 1 < oldestSequence(recent)) {
+                connection.replayedUpTo = latest;
+                connection.trySend(SseEmitter.event().id(Long.toString(latest)).name(EVENT_RESET).data(List.of()));
+            } else {
+                replay(connection, recent, lastSequence, latest);
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * 文章增强完成后发布；处于事务中时提交后才发布
+     *
+     * @param topicIds 命中的主题
+     */
+    public void publish(Long articleId, Long sourceId, LocalDateTime pubDate, Collection<Long> topicIds) {
+        if (articleId == null) {
+            return;
+        }
+        Set<Long> matchedTopicIds = Set.copyOf(topicIds);
+        afterCommit(() -> {
+            Notification notification = append(articleId, sourceId, pubDate, matchedTopicIds);
+            Set<Long> userIds = new HashSet<>();
+            if (sourceId != null) {
+                userIds.addAll(usersBySource.getOrDefault(sourceId, Set.of()));
+            }
+            for (Long topicId : matchedTopicIds) {
+                userIds.addAll(usersByTopic.getOrDefault(topicId, Set.of()));
+            }
+            for (Long userId : userIds) {
+                for (Connection connection : connections.getOrDefault(userId, Set.of())) {
+                    sendExecutor.submit(() -> connection.send(notification));
+                }
+            }
+        });
+    }
+
+    /**
+     * 订阅变化：提交后按新的订阅快照更新在线用户的索引
+     */
+    public void onSubscriptionChanged(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            if (connections.containsKey(userId)) {
+                refreshInterests(userId);
+            }
+        });
+    }
+
+    /**
+     * 每20秒发送心跳注释，防止代理断开空闲连接，并及时发现已断开的客户端
+     */
+    @Scheduled(initialDelay = 20, fixedDelay = 20, timeUnit = TimeUnit.SECONDS)
+    public void heartbeat() {
+        for (Set<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                sendExecutor.submit(connection::heartbeat);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Set<Connection> userConnections : connections.values()) {
+            for (Connection connection : userConnections) {
+                connection.close();
+                connection.emitter.complete();
+            }
+        }
+        sendExecutor.shutdown();
+    }
+
+    private void replay(Connection connection, List<Notification> recent, long lastSequence, long latest) {
+        Interests userInterests = interests.get(connection.userId);
+        List<NewFeedItemDTO> items = new ArrayList<>();
+        for (Notification notification : recent) {
+            if (notification.sequence() > lastSequence && userInterests != null && notification.matches(userInterests)) {
+                items.add(new NewFeedItemDTO(notification.articleId(), notification.pubDate()));
+            }
+        }
+        connection.replayedUpTo = latest;
+        // 补发合并为一个事件，ID取补发时的最新序号；没有匹配的事件时同样推进客户端的Last-Event-ID
+        connection.trySend(SseEmitter.event().id(Long.toString(latest))
+                .name(items.isEmpty() ? EVENT_READY : EVENT_NEW_ITEMS).data(items));
+    }
+
+    private synchronized Notification append(Long articleId, Long sourceId, LocalDateTime pubDate,
+            Set<Long> topicIds) {
+        Notification notification = new Notification(sequence.incrementAndGet(), articleId, pubDate, sourceId,
+                topicIds);
+        history[(int) (notification.sequence() % HISTORY_SIZE)] = notification;
+        return notification;
+    }
+
+    /**
+     * 缓冲中的事件（按序号升序）与当前最新序号；append在同一把锁内推进序号
+     */
+    private synchronized History snapshotHistory() {
+        List<Notification> recent = new ArrayList<>(HISTORY_SIZE);
+        for (Notification notification : history) {
+            if (notification != null) {
+                recent.add(notification);
+            }
+        }
+        recent.sort(Comparator.comparingLong(Notification::sequence));
+        return new History(recent, sequence.get());
+    }
+
+    /**
+     * 可补发的最早序号；缓冲未写满时为启动后的第一个序号
+     */
+    private long oldestSequence(List<Notification> recent) {
+        return recent.size() < HISTORY_SIZE ? firstSequence : recent.getFirst().sequence();
+    }
+
+    private void refreshInterests(Long userId) {
+        SubscriptionSnapshotCache.Snapshot snapshot = subscriptionSnapshotCache.get(userId);
+        Interests updated = new Interests(Set.copyOf(snapshot.sourceIds()), snapshot.topics().stream()
+                .map(SubscriptionSnapshotCache.TopicRef::id)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet()));
+        Interests previous = interests.put(userId, updated);
+        if (previous != null) {
+            previous.sourceIds().stream().filter(id -> !updated.sourceIds().contains(id))
+                    .forEach(id -> removeUser(usersBySource, id, userId));
+            previous.topicIds().stream().filter(id -> !updated.topicIds().contains(id))
+                    .forEach(id -> removeUser(usersByTopic, id, userId));
+        }
+        for (Long sourceId : updated.sourceIds()) {
+            usersBySource.computeIfAbsent(sourceId, key -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+        for (Long topicId : updated.topicIds()) {
+            usersByTopic.computeIfAbsent(topicId, key -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+    }
+
+    private void unregister(Connection connection) {
+        Long userId = connection.userId;
+        connections.computeIfPresent(userId, (key, userConnections) -> {
+            userConnections.remove(connection);
+            if (!userConnections.isEmpty()) {
+                return userConnections;
+            }
+            // 最后一个连接断开时移出索引
+            Interests removed = interests.remove(userId);
+            if (removed != null) {
+                removed.sourceIds().forEach(id -> removeUser(usersBySource, id, userId));
+                removed.topicIds().forEach(id -> removeUser(usersByTopic, id, userId));
+            }
+            return null;
+        });
+    }
+
+    private static void removeUser(Map<Long, Set<Long>> index, Long key, Long userId) {
+        index.computeIfPresent(key, (k, users) -> {
+            users.remove(userId);
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.config.AppConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 带过滤条件的向量检索规划
+ * HNSW先按距离取ef_search个候选再应用WHERE，过滤范围越小，返回的行越可能不足limit；
+ * 按估算的选择性（范围内向量数 / 全部向量数）为每次查询选择：
+ * <ul>
+ *     <li>INDEX：过滤宽松，默认ef_search即可取够</li>
+ *     <li>OVERFETCH：调大ef_search，多取候选再过滤</li>
+ *     <li>ITERATIVE：pgvector ≥ 0.8 的迭代扫描，候选不足时继续沿图扫描直到取够或达到max_scan_tuples</li>
+ *     <li>EXACT：范围足够小，或无法通过索引取够（不支持迭代扫描、所需候选超过扫描上限）时，对范围内的向量精确计算距离</li>
+ * </ul>
+ * 各RSS源的向量数与总向量数由后台定期统计，收藏数按用户实时查询（有索引）
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FilteredAnnPlanner {
+
+    static final int DEFAULT_EF_SEARCH = 40;
+    static final int MAX_EF_SEARCH = 1000;
+    /**
+     * 按选择性换算所需候选数时的余量，抵消源内向量在图中分布不均
+     */
+    private static final double OVERFETCH_MARGIN = 1.5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AppConfig appConfig;
+
+    private volatile Statistics statistics = Statistics.EMPTY;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    enum Strategy {
+        INDEX, OVERFETCH, ITERATIVE, EXACT
+    }
+
+    /**
+     * 检索范围：全库、若干RSS源或某用户的收藏
+     */
+    public record Filter(List<Long> sourceIds, Long userId) {
+
+        public static Filter none() {
+            return new Filter(null, null);
+        }
+
+        public static Filter sources(List<Long> sourceIds) {
+            return new Filter(sourceIds, null);
+        }
+
+        public static Filter favorites(Long userId) {
+            return new Filter(null, userId);
+        }
+    }
+
+    /**
+     * @param efSearch       本次查询使用的hnsw.ef_search
+     * @param maxScanTuples  ITERATIVE时的hnsw.max_scan_tuples，其他策略为0
+     * @param estimatedRows  范围内的估算向量数，全库检索为-1
+     */
+    public record Plan(Strategy strategy, int efSearch, int maxScanTuples, long estimatedRows, double selectivity) {
+
+        public boolean exact() {
+            return strategy == Strategy.EXACT;
+        }
+    }
+
+    record Statistics(long totalVectors, Map<Long, Long> sourceVectors, boolean iterativeScan,
+            LocalDateTime refreshedAt) {
+
+        static final Statistics EMPTY = new Statistics(0, Map.of(), false, null);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refreshAsync();
+    }
+
+    @Scheduled(initialDelay = 30, fixedDelay = 30, timeUnit = TimeUnit.MINUTES)
+    public void scheduledRefresh() {
+        refreshAsync();
+    }
+
+    /**
+     * @param candidateLimit 需要从索引取出的候选数（BINARY模式已乘以精排倍数）
+     */
+    public Plan plan(Filter filter, int candidateLimit) {
+        int baseEf = Math.max(DEFAULT_EF_SEARCH, Math.min(candidateLimit, MAX_EF_SEARCH));
+        Statistics stats = statistics;
+        if (filter.sourceIds() == null && filter.userId() == null) {
+            return new Plan(Strategy.INDEX, baseEf, 0, -1, 1);
+        }
+        long rows = filter.userId() != null ? favoriteVectors(filter.userId()) : sourceVectors(stats,
+                filter.sourceIds());
+        if (rows < 0) {
+            // 尚未统计：保持原行为，只按候选数调整ef_search
+            return new Plan(Strategy.INDEX, baseEf, 0, -1, 1);
+        }
+        double selectivity = stats.totalVectors() > 0 ? Math.min(1, (double) rows / stats.totalVectors()) : 1;
+        if (rows <= exactRows()) {
+            return new Plan(Strategy.EXACT, baseEf, 0, rows, selectivity);
+        }
+        long needed = (long) Math.ceil(candidateLimit / selectivity * OVERFETCH_MARGIN);
+        if (needed <= baseEf) {
+            return new Plan(Strategy.INDEX, baseEf, 0, rows, selectivity);
+        }
+        if (needed <= MAX_EF_SEARCH) {
+            return new Plan(Strategy.OVERFETCH, (int) needed, 0, rows, selectivity);
+        }
+        // 迭代扫描最多访问vector_filter_max_scan_tuples个元组，所需候选超过它时索引取不够，改为精确扫描
+        int maxScanTuples = maxScanTuples();
+        if (stats.iterativeScan() && needed <= maxScanTuples) {
+            return new Plan(Strategy.ITERATIVE, baseEf, (int) Math.min(needed * 2, maxScanTuples), rows,
+                    selectivity);
+        }
+        return new Plan(Strategy.EXACT, baseEf, 0, rows, selectivity);
+    }
+
+    /**
+     * 强制使用指定策略，供基准测试对比
+     */
+    Plan force(Strategy strategy, Filter filter, int candidateLimit) {
+        Plan planned = plan(filter, candidateLimit);
+        int baseEf = Math.max(DEFAULT_EF_SEARCH, Math.min(candidateLimit, MAX_EF_SEARCH));
+        return switch (strategy) {
+            case INDEX -> new Plan(strategy, baseEf, 0, planned.estimatedRows(), planned.selectivity());
+            case OVERFETCH -> new Plan(strategy, MAX_EF_SEARCH, 0, planned.estimatedRows(), planned.selectivity());
+            case ITERATIVE -> new Plan(strategy, baseEf,
+                    planned.maxScanTuples() > 0 ? planned.maxScanTuples() : maxScanTuples(),
+                    planned.estimatedRows(), planned.selectivity());
+            case EXACT -> new Plan(strategy, baseEf, 0, planned.estimatedRows(), planned.selectivity());
+        };
+    }
+
+    boolean isIterativeScanSupported() {
+        return statistics.iterativeScan();
+    }
+
+    Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 同步刷新统计，供基准测试使用
+     */
+    void refresh() {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> sourceVectors = new HashMap<>();
+        long[] total = {0};
+        jdbcTemplate.query("SELECT a.source_id, count(*) AS vectors FROM article_extra ae " +
+                "JOIN articles a ON a.id = ae.article_id WHERE ae.vector IS NOT NULL GROUP BY a.source_id", rs -> {
+            long count = rs.getLong("vectors");
+            sourceVectors.put(rs.getLong("source_id"), count);
+            total[0] += count;
+        });
+        List<String> versions = jdbcTemplate.queryForList(
+                "SELECT extversion FROM pg_extension WHERE extname = 'vector'", String.class);
+        boolean iterativeScan = !versions.isEmpty() && supportsIterativeScan(versions.getFirst());
+        statistics = new Statistics(total[0], Map.copyOf(sourceVectors), iterativeScan, LocalDateTime.now());
+        log.info("Filtered ANN statistics refreshed in {}ms: {} vectors in {} sources, iterative scan {}",
+                System.currentTimeMillis() - start, total[0], sourceVectors.size(),
+                iterativeScan ? "supported" : "unsupported");
+    }
+
+    private void refreshAsync() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("filtered-ann-statistics").start(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                log.warn("Failed to refresh filtered ANN statistics", e);
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    /**
+     * @return 尚未统计时返回-1
+     */
+    private long sourceVectors(Statistics stats, Collection<Long> sourceIds) {
+        if (stats.refreshedAt() == null) {
+            return -1;
+        }
+        long rows = 0;
+        for (Long sourceId : sourceIds) {
+            rows += stats.sourceVectors().getOrDefault(sourceId, 0L);
+        }
+        return rows;
+    }
+
+    /**
+     * 收藏量很小且有user_id索引，按收藏数估算（上界，未排除无向量的文章）
+     */
+    private long favoriteVectors(Long userId) {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM article_favorites WHERE user_id = ?",
+                Long.class, userId);
+        return count == null ? 0 : count;
+    }
+
+    private int exactRows() {
+        return Math.max(0, Objects.requireNonNullElse(appConfig.getVectorFilterExactRows(), 5000));
+    }
+
+    private int maxScanTuples() {
+        return Math.max(1, Objects.requireNonNullElse(appConfig.getVectorFilterMaxScanTuples(), 20000));
+    }
+
+    static boolean supportsIterativeScan(String version) {
+        String[] parts = version.split("\\.");
+        try {
+            int major = Integer.parseInt(parts[0]);
+            int minor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            return major > 0 || minor >= 8;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.utils.ChineseSegmentUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * 全文检索服务
+ * 入库时用jieba切词，按 标题(A) / 标签、概览(B) / 作者、来源(C) / 正文(D) 加权生成tsvector存入article_search；
+ * 查询按相关度排序：安装了rum扩展时使用RUM索引按距离有序扫描，否则使用GIN索引匹配后按ts_rank_cd排序
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FullTextSearchService {
+
+    static final String KEYWORD_MODE_FULLTEXT = "FULLTEXT";
+    private static final String TABLE = "article_search";
+    private static final String INDEX_NAME = "idx_article_search_document";
+    private static final int MAX_BODY_CHARS = 20_000;
+    private static final int BACKFILL_BATCH_SIZE = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final AppConfig appConfig;
+    private final ExecutorService indexExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile boolean ready = false;
+    private volatile boolean rumIndex = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread.ofVirtual().name("fulltext-backfill").start(() -> {
+            try {
+                initialize();
+                backfill();
+                ready = true;
+                log.info("Full-text index ready (index type: {})", rumIndex ? "RUM" : "GIN");
+            } catch (Exception e) {
+                log.error("Full-text index initialization failed, keyword search keeps using ILIKE", e);
+            }
+        });
+    }
+
+    /**
+     * 全文索引可用且配置为FULLTEXT时，关键词召回走全文检索；回填完成前仍使用ILIKE
+     */
+    public boolean isActive() {
+        return ready && KEYWORD_MODE_FULLTEXT.equalsIgnoreCase(appConfig.getSearchKeywordMode());
+    }
+
+    /**
+     * 文章入库或增强结果更新后异步重建该文章的tsvector；处于事务中时提交后才执行
+     */
+    public void indexArticleAsync(Long articleId) {
+        if (articleId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submitIndex(articleId);
+                }
+            });
+        } else {
+            submitIndex(articleId);
+        }
+    }
+
+    private void submitIndex(Long articleId) {
+        indexExecutor.submit(() -> {
+            try {
+                indexArticle(articleId);
+            } catch (Exception e) {
+                log.warn("Failed to index article {} for full-text search", articleId, e);
+            }
+        });
+    }
+
+    /**
+     * 范围内按相关度召回文章ID
+     */
+    public List<Long> searchIds(HybridSearchService.Scope scope, String query, int limit) {
+        String tsQuery = toTsQuery(query);
+        if (tsQuery == null) {
+            return List.of();
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource(scope.params())
+                .addValue("tsQuery", tsQuery)
+                .addValue("limit", limit);
+        return namedParameterJdbcTemplate.queryForList(
+                "SELECT t.id FROM (" + recallSql(scope, ":limit") + ") t", params, Long.class);
+    }
+
+    /**
+     * 全文召回SQL（返回id与ft_rank，ft_rank越小越相关），需要参数:tsQuery与limitParam
+     */
+    String recallSql(HybridSearchService.Scope scope, String limitParam) {
+        String query = "to_tsquery('simple', :tsQuery)";
+        String rank = rumIndex
+                ? "(s.document <=> " + query + ")"
+                : "(-ts_rank_cd(s.document, " + query + "))";
+        return "SELECT a.id, " + rank + " AS ft_rank FROM " + TABLE + " s JOIN articles a ON a.id = s.article_id" +
+                scope.articleJoins() + " WHERE " + scope.filter() + " AND s.document @@ " + query +
+                " ORDER BY ft_rank, a.id DESC LIMIT " + limitParam;
+    }
+
+    /**
+     * 查询词切词后以AND连接；拉丁字母词加前缀匹配，近似原ILIKE对英文片段的匹配效果
+     *
+     * @return 没有可用词时返回null
+     */
+    static String toTsQuery(String query) {
+        List<String> words = ChineseSegmentUtils.segmentForQuery(query);
+        if (words.isEmpty()) {
+            return null;
+        }
+        return words.stream()
+                .map(word -> word.chars().allMatch(c -> c < 128) ? word + ":*" : word)
+                .collect(Collectors.joining(" & "));
+    }
+
+    private void initialize() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                "article_id BIGINT PRIMARY KEY REFERENCES articles(id) ON DELETE CASCADE, " +
+                "document TSVECTOR NOT NULL, " +
+                "updated_at TIMESTAMP NOT NULL DEFAULT now())");
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS rum");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + INDEX_NAME + "_rum ON " + TABLE +
+                    " USING rum (document rum_tsvector_ops)");
+            rumIndex = true;
+        } catch (Exception e) {
+            log.info("rum extension unavailable ({}), using GIN index for full-text search", e.getMessage());
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + INDEX_NAME + "_gin ON " + TABLE +
+                    " USING GIN (document)");
+        }
+    }
+
+    private void backfill() {
+        long total = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT a.id FROM articles a LEFT JOIN " + TABLE + " s ON s.article_id = a.id " +
+                            "WHERE s.article_id IS NULL ORDER BY a.id DESC LIMIT ?",
+                    Long.class, BACKFILL_BATCH_SIZE);
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (Long id : ids) {
+                try {
+                    indexArticle(id);
+                } catch (Exception e) {
+                    // 写入空文档，避免反复重试同一篇
+                    log.warn("Failed to index article {}, storing empty document", id, e);
+                    jdbcTemplate.update("INSERT INTO " + TABLE + " (article_id, document) " +
+                            "SELECT id, ''::tsvector FROM articles WHERE id = ? ON CONFLICT (article_id) DO NOTHING", id);
+                }
+            }
+            total += ids.size();
+            log.info("Full-text backfill progress: {} articles indexed", total);
+        }
+    }
+
+    void indexArticle(Long articleId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT a.title, a.author, a.source_name, a.content, ae.overview, " +
+                        "array_to_string(ae.tags, ' ') AS tags " +
+                        "FROM articles a LEFT JOIN article_extra ae ON ae.article_id = a.id WHERE a.id = ?",
+                articleId);
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<String, Object> row = rows.getFirst();
+        String body = (String) row.get("content");
+        if (body != null && body.length() > MAX_BODY_CHARS) {
+            body = body.substring(0, MAX_BODY_CHARS);
+        }
+
+        jdbcTemplate.update("INSERT INTO " + TABLE + " (article_id, document, updated_at) VALUES (?, " +
+                        "setweight(to_tsvector('simple', ?), 'A') || setweight(to_tsvector('simple', ?), 'B') || " +
+                        "setweight(to_tsvector('simple', ?), 'C') || setweight(to_tsvector('simple', ?), 'D'), now()) " +
+                        "ON CONFLICT (article_id) DO UPDATE SET document = EXCLUDED.document, " +
+                        "updated_at = EXCLUDED.updated_at",
+                articleId,
+                ChineseSegmentUtils.segmentForIndex((String) row.get("title")),
+                ChineseSegmentUtils.segmentForIndex(nullToEmpty(row.get("tags")) + " " +
+                        nullToEmpty(row.get("overview"))),
+                ChineseSegmentUtils.segmentForIndex(nullToEmpty(row.get("author")) + " " +
+                        nullToEmpty(row.get("source_name"))),
+                ChineseSegmentUtils.segmentForIndex(body));
+    }
+
+    private static String nullToEmpty(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
@@ -0,0 +1,152 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.dto.ArticleFeedDTO;
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.domain.model.VectorStorageMode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单SQL混合检索
+ * 模糊召回与向量召回作为两个CTE在同一条SQL中执行，按倒数排名融合（RRF）并乘以时间衰减，
+ * 直接返回feed投影，省去分别查询ID再按ID回表的多次往返
+ */
+@Service
+@RequiredArgsConstructor
+public class HybridSearchService {
+
+    static final String FUSION_MODE_RRF_SQL = "RRF_SQL";
+    static final int RRF_K = 60;
+    static final double VECTOR_WEIGHT = 1.5;
+    static final double FUZZY_WEIGHT = 0.6;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final VectorSearchService vectorSearchService;
+    private final FullTextSearchService fullTextSearchService;
+    private final AppConfig appConfig;
+
+    /**
+     * 检索范围：追加到articles a之后的JOIN与WHERE条件，两路召回共用
+     */
+    public record Scope(String articleJoins, String filter, Map<String, Object> params,
+            FilteredAnnPlanner.Filter annFilter) {
+
+        public static Scope all() {
+            return new Scope("", "TRUE", Map.of(), FilteredAnnPlanner.Filter.none());
+        }
+
+        public static Scope sources(List<Long> sourceIds) {
+            return new Scope("", "a.source_id IN (:sourceIds)", Map.of("sourceIds", sourceIds),
+                    FilteredAnnPlanner.Filter.sources(sourceIds));
+        }
+
+        public static Scope favorites(Long userId) {
+            return new Scope(" JOIN article_favorites af ON af.article_id = a.id", "af.user_id = :userId",
+                    Map.of("userId", userId), FilteredAnnPlanner.Filter.favorites(userId));
+        }
+    }
+
+    public boolean isEnabled() {
+        return FUSION_MODE_RRF_SQL.equalsIgnoreCase(appConfig.getSearchFusionMode());
+    }
+
+    /**
+     * @param keyword 辅助召回的关键词，可为null
+     * @param vector  查询向量，为null时仅做模糊召回
+     */
+    public List<ArticleFeedDTO> search(Scope scope, String query, String keyword, float[] vector, double threshold,
+            int fuzzyLimit, int vectorLimit, LocalDateTime referenceTime) {
+        VectorStorageMode mode = vectorSearchService.getActiveMode();
+        int candidateLimit = vectorSearchService.candidateLimit(mode, vectorLimit);
+        boolean withVector = vector != null && vector.length > 0;
+        FilteredAnnPlanner.Plan plan = withVector ? vectorSearchService.plan(scope.annFilter(), vectorLimit) : null;
+        String tsQuery = fullTextSearchService.isActive() ? FullTextSearchService.toTsQuery(query) : null;
+
+        MapSqlParameterSource params = new MapSqlParameterSource(scope.params())
+                .addValue("fuzzyLimit", fuzzyLimit)
+                .addValue("referenceTime", Timestamp.valueOf(referenceTime));
+        if (tsQuery != null) {
+            params.addValue("tsQuery", tsQuery);
+        } else {
+            params.addValue("query", query)
+                    .addValue("keyword", keyword == null ? query : keyword);
+        }
+        if (withVector) {
+            params.addValue("queryVector", VectorSearchService.toPgVectorLiteral(vector))
+                    .addValue("threshold", threshold)
+                    .addValue("vectorLimit", vectorLimit)
+                    .addValue("candidateLimit", candidateLimit);
+        }
+
+        String sql = buildSql(mode, scope, withVector, plan != null && plan.exact(), tsQuery != null);
+        if (!withVector) {
+            return namedParameterJdbcTemplate.query(sql, params, (rs, rowNum) -> mapRow(rs));
+        }
+        return vectorSearchService.withPlan(plan,
+                () -> namedParameterJdbcTemplate.query(sql, params, (rs, rowNum) -> mapRow(rs)));
+    }
+
+    String buildSql(VectorStorageMode mode, Scope scope, boolean withVector, boolean exactVector, boolean fullText) {
+        StringBuilder sql = new StringBuilder("WITH fuzzy AS (");
+        if (fullText) {
+            sql.append("SELECT t.id, ROW_NUMBER() OVER (ORDER BY t.ft_rank, t.id DESC) AS rnk FROM (")
+                    .append(fullTextSearchService.recallSql(scope, ":fuzzyLimit")).append(") t)");
+        } else {
+            // 原query命中的排在仅关键词命中之前，与分两次查询再合并的顺序一致
+            sql.append("SELECT a.id, ROW_NUMBER() OVER (ORDER BY ").append(likeMatch(":query"))
+                    .append(" DESC, a.pub_date DESC, a.id DESC) AS rnk ")
+                    .append("FROM articles a").append(scope.articleJoins())
+                    .append(" WHERE ").append(scope.filter())
+                    .append(" AND (").append(likeMatch(":query")).append(" OR ").append(likeMatch(":keyword"))
+                    .append(")")
+                    .append(" ORDER BY rnk LIMIT :fuzzyLimit)");
+        }
+        if (withVector) {
+            String recall = vectorSearchService.recallSql(mode,
+                    "JOIN articles a ON a.id = ae.article_id" + scope.articleJoins(), scope.filter(),
+                    ":vectorLimit", exactVector);
+            sql.append(", vec AS (SELECT v.article_id AS id, ROW_NUMBER() OVER (ORDER BY v.distance) AS rnk FROM (")
+                    .append(recall).append(") v)");
+        }
+        sql.append(", fused AS (SELECT id, SUM(score) AS rrf FROM (")
+                .append("SELECT id, ").append(FUZZY_WEIGHT).append(" / (").append(RRF_K)
+                .append(" + rnk) AS score FROM fuzzy");
+        if (withVector) {
+            sql.append(" UNION ALL SELECT id, ").append(VECTOR_WEIGHT).append(" / (").append(RRF_K)
+                    .append(" + rnk) AS score FROM vec");
+        }
+        sql.append(") s GROUP BY id) ")
+                .append("SELECT a.id, a.source_id, a.source_name, a.title, a.link, a.cover_image, a.pub_date, ")
+                .append("a.word_count, f.rrf / (1.0 + GREATEST(COALESCE(FLOOR(EXTRACT(EPOCH FROM ")
+                .append("(CAST(:referenceTime AS timestamp) - a.pub_date)) / 3600), 0), 0) * 0.002) AS score ")
+                .append("FROM fused f JOIN articles a ON a.id = f.id ORDER BY score DESC, a.id DESC");
+        return sql.toString();
+    }
+
+    private static String likeMatch(String param) {
+        return "(a.title ILIKE CONCAT('%', " + param + ", '%') OR a.author ILIKE CONCAT('%', " + param +
+                ", '%') OR a.source_name ILIKE CONCAT('%', " + param + ", '%'))";
+    }
+
+    private static ArticleFeedDTO mapRow(ResultSet rs) throws SQLException {
+        Timestamp pubDate = rs.getTimestamp("pub_date");
+        return ArticleFeedDTO.of(
+                rs.getLong("id"),
+                rs.getObject("source_id") == null ? null : rs.getLong("source_id"),
+                rs.getString("source_name"),
+                rs.getString("title"),
+                rs.getString("link"),
+                rs.getString("cover_image"),
+                pubDate == null ? null : pubDate.toLocalDateTime(),
+                rs.getObject("word_count") == null ? null : rs.getLong("word_count"));
+    }
+}
@@ -0,0 +1,426 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.Event.ConfigUpdateEvent;
+import com.jingwei.rsswithai.application.dto.LlmEndpointStatusDTO;
+import com.jingwei.rsswithai.config.AppConfig;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
+import org.springframework.ai.openai.OpenAiEmbeddingOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.ai.retry.RetryUtils;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.retry.RetryPolicy;
+import org.springframework.core.retry.RetryTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LLM端点池
+ * 管理多个聊天/向量端点，按"在途请求数 × 平均延迟 / 权重"选择端点，
+ * 连续失败或被限流的端点被动摘除一段时间，调用失败时自动切换到下一个端点
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@DependsOn("settingsService")
+public class LlmEndpointPool {
+
+    private static final Pattern STATUS_PATTERN = Pattern.compile("^(\\d{3}) - ");
+    private static final int EJECT_AFTER_CONSECUTIVE_FAILURES = 3;
+    private static final Duration BASE_EJECTION = Duration.ofSeconds(30);
+    private static final Duration MAX_EJECTION = Duration.ofMinutes(5);
+    // 延迟滑动平均的平滑系数
+    private static final double LATENCY_EWMA_ALPHA = 0.2;
+    // 由请求内容导致的错误，换端点也不会成功，不计入端点健康度
+    private static final Set<Integer> REQUEST_ERROR_STATUSES = Set.of(400, 413, 422);
+
+    private final AppConfig appConfig;
+    private final ObjectMapper objectMapper;
+
+    private volatile List<Endpoint<ChatModel>> chatEndpoints = List.of();
+    private volatile List<Endpoint<EmbeddingModel>> embeddingEndpoints = List.of();
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * 配置更新后重建端点（进行中的请求仍使用旧端点完成）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onConfigUpdateEvent(ConfigUpdateEvent event) {
+        log.info("Received config update event, rebuilding LLM endpoint pool");
+        rebuild();
+    }
+
+    /**
+     * 在聊天端点上执行调用，失败时切换端点
+     */
+    public <T> T callChat(Function<ChatModel, T> call) {
+        return execute(chatEndpoints, call, "chat");
+    }
+
+    /**
+     * 使用指定模型批量生成向量：优先选择配置了该模型的端点，没有时在任意向量端点上按请求指定模型
+     */
+    public List<float[]> embed(List<String> texts, String model) {
+        List<Endpoint<EmbeddingModel>> endpoints = embeddingEndpoints;
+        List<Endpoint<EmbeddingModel>> matching = endpoints.stream()
+                .filter(endpoint -> Objects.equals(endpoint.modelName, model))
+                .toList();
+        EmbeddingRequest request = new EmbeddingRequest(texts, OpenAiEmbeddingOptions.builder()
+                .model(model)
+                .dimensions(1024)
+                .build());
+        EmbeddingResponse response = execute(matching.isEmpty() ? endpoints : matching,
+                embeddingModel -> embeddingModel.call(request), "embedding");
+        return response.getResults().stream()
+                .map(Embedding::getOutput)
+                .toList();
+    }
+
+    public List<LlmEndpointStatusDTO> getStatus() {
+        List<LlmEndpointStatusDTO> result = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        chatEndpoints.forEach(endpoint -> result.add(endpoint.toStatus("chat", now)));
+        embeddingEndpoints.forEach(endpoint -> result.add(endpoint.toStatus("embedding", now)));
+        return result;
+    }
+
+    private <M, T> T execute(List<Endpoint<M>> endpoints, Function<M, T> call, String type) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalStateException("No " + type + " endpoint configured");
+        }
+
+        Set<Endpoint<M>> tried = new HashSet<>();
+        RuntimeException lastError = null;
+        while (tried.size() < endpoints.size()) {
+            Endpoint<M> endpoint = select(endpoints, tried);
+            tried.add(endpoint);
+
+            endpoint.outstanding.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                T result = call.apply(endpoint.model);
+                endpoint.recordSuccess((System.nanoTime() - start) / 1_000_000);
+                return result;
+            } catch (RuntimeException e) {
+                Integer status = statusOf(e);
+                if (status != null && REQUEST_ERROR_STATUSES.contains(status)) {
+                    throw e;
+                }
+                endpoint.recordFailure(status);
+                lastError = e;
+                if (tried.size() < endpoints.size()) {
+                    log.warn("{} endpoint {} failed ({}), failing over", type, endpoint.name, e.getMessage());
+                }
+            } finally {
+                endpoint.outstanding.decrementAndGet();
+            }
+        }
+        throw lastError;
+    }
+
+    /**
+     * 在未尝试的端点中选择得分最低者；全部被摘除时选择最先恢复的端点（半开探测），保证请求不被丢弃
+     */
+    private <M> Endpoint<M> select(List<Endpoint<M>> endpoints, Set<Endpoint<M>> excluded) {
+        long now = System.currentTimeMillis();
+        double defaultLatency = endpoints.stream()
+                .mapToDouble(endpoint -> endpoint.latencyMillis)
+                .filter(latency -> latency > 0)
+                .average()
+                .orElse(1);
+
+        Endpoint<M> best = null;
+        double bestScore = Double.MAX_VALUE;
+        Endpoint<M> soonest = null;
+        // 随机起点，得分相同时在端点间均匀分布
+        int offset = ThreadLocalRandom.current().nextInt(endpoints.size());
+        for (int i = 0; i < endpoints.size(); i++) {
+            Endpoint<M> endpoint = endpoints.get((offset + i) % endpoints.size());
+            if (excluded.contains(endpoint)) {
+                continue;
+            }
+            if (endpoint.ejectedUntil > now) {
+                if (soonest == null || endpoint.ejectedUntil < soonest.ejectedUntil) {
+                    soonest = endpoint;
+                }
+                continue;
+            }
+            double latency = endpoint.latencyMillis > 0 ? endpoint.latencyMillis : defaultLatency;
+            double score = (endpoint.outstanding.get() + 1) * latency / endpoint.weight;
+            if (score < bestScore) {
+                bestScore = score;
+                best = endpoint;
+            }
+        }
+        return best != null ? best : soonest;
+    }
+
+    private static Integer statusOf(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null) {
+                Matcher matcher = STATUS_PATTERN.matcher(t.getMessage());
+                if (matcher.find()) {
+                    return Integer.parseInt(matcher.group(1));
+                }
+            }
+        }
+        return null;
+    }
+
+    private void rebuild() {
+        List<EndpointConfig> configs = parsePoolConfig();
+        List<EndpointConfig> chatConfigs = configs.stream().filter(c -> "chat".equals(c.type())).toList();
+        List<EndpointConfig> embeddingConfigs = configs.stream().filter(c -> "embedding".equals(c.type())).toList();
+
+        // 未配置端点池时沿用单端点配置
+        if (chatConfigs.isEmpty()) {
+            chatConfigs = List.of(new EndpointConfig("chat", "default", appConfig.getLlmBaseUrl(),
+                    appConfig.getLlmApiKey(), appConfig.getLanguageModel(), 1));
+        }
+        if (embeddingConfigs.isEmpty()) {
+            embeddingConfigs = List.of(new EndpointConfig("embedding", "default", resolveEmbeddingBaseUrl(),
+                    resolveEmbeddingApiKey(), appConfig.getEmbeddingModel(), 1));
+        }
+        if (embeddingConfigs.stream().map(EndpointConfig::model).distinct().count() > 1) {
+            log.warn("Embedding endpoints use different models, vectors may not be comparable");
+        }
+
+        List<Endpoint<ChatModel>> chats = new ArrayList<>();
+        RetryTemplate chatRetry = retryTemplateFor(chatConfigs.size());
+        for (EndpointConfig config : chatConfigs) {
+            try {
+                chats.add(new Endpoint<>(config, createChatModel(config, chatRetry)));
+            } catch (Exception e) {
+                log.error("Failed to initialize chat endpoint {}", config.name(), e);
+            }
+        }
+        List<Endpoint<EmbeddingModel>> embeddings = new ArrayList<>();
+        RetryTemplate embeddingRetry = retryTemplateFor(embeddingConfigs.size());
+        for (EndpointConfig config : embeddingConfigs) {
+            try {
+                embeddings.add(new Endpoint<>(config, createEmbeddingModel(config, embeddingRetry)));
+            } catch (Exception e) {
+                log.error("Failed to initialize embedding endpoint {}", config.name(), e);
+            }
+        }
+
+        this.chatEndpoints = List.copyOf(chats);
+        this.embeddingEndpoints = List.copyOf(embeddings);
+        log.info("LLM endpoint pool initialized: {} chat, {} embedding", chats.size(), embeddings.size());
+    }
+
+    /**
+     * 单端点时保留默认的长重试；多端点时只做一次快速重试，尽快切换到其他端点
+     */
+    private RetryTemplate retryTemplateFor(int endpointCount) {
+        if (endpointCount <= 1) {
+            return RetryUtils.DEFAULT_RETRY_TEMPLATE;
+        }
+        return new RetryTemplate(RetryPolicy.builder()
+                .maxRetries(1)
+                .delay(Duration.ofMillis(500))
+                .includes(TransientAiException.class)
+                .build());
+    }
+
+    private ChatModel createChatModel(EndpointConfig config, RetryTemplate retryTemplate) {
+        OpenAiApi openAiApi = OpenAiApi.builder()
+                .apiKey(config.apiKey())
+                .baseUrl(config.baseUrl())
+                .build();
+        return OpenAiChatModel.builder()
+                .openAiApi(openAiApi)
+                .defaultOptions(buildChatOptions(config.model()))
+                .retryTemplate(retryTemplate)
+                .build();
+    }
+
+    private EmbeddingModel createEmbeddingModel(EndpointConfig config, RetryTemplate retryTemplate) {
+        OpenAiApi openAiApi = OpenAiApi.builder()
+                .apiKey(config.apiKey())
+                .baseUrl(config.baseUrl())
+                .build();
+        return new OpenAiEmbeddingModel(
+                openAiApi,
+                MetadataMode.EMBED,
+                OpenAiEmbeddingOptions.builder()
+                        .model(config.model())
+                        .dimensions(1024)
+                        .build(),
+                retryTemplate);
+    }
+
+    /**
+     * 构建聊天选项：端点自身的模型 + llm_gen_model_config中的模型参数
+     */
+    private OpenAiChatOptions buildChatOptions(String model) {
+        OpenAiChatOptions.Builder builder = OpenAiChatOptions.builder()
+                .model(model);
+
+        // 从配置中读取模型参数
+        JsonNode config = appConfig.getLlmGenModelConfig();
+        if (config != null) {
+            if (config.has("temperature")) {
+                builder.temperature(config.get("temperature").asDouble());
+            }
+            if (config.has("top_p")) {
+                builder.topP(config.get("top_p").asDouble());
+            }
+            if (config.has("max_tokens")) {
+                builder.maxTokens(config.get("max_tokens").asInt());
+            }
+            if (config.has("seed")) {
+                builder.seed(config.get("seed").asInt());
+            }
+            if (config.has("top_k")) {
+                Map<String, Object> extraBody = Map.of("topK", config.get("top_k").asInt());
+                builder.extraBody(extraBody);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 解析llm_endpoint_pool配置（JSON数组），非法条目跳过
+     */
+    private List<EndpointConfig> parsePoolConfig() {
+        String raw = appConfig.getLlmEndpointPool();
+        if (raw == null || raw.isBlank()) {
+            return List.of();
+        }
+        List<EndpointConfig> result = new ArrayList<>();
+        try {
+            JsonNode root = objectMapper.readTree(raw);
+            int index = 0;
+            for (JsonNode node : root) {
+                index++;
+                String type = node.path("type").asString("").trim().toLowerCase();
+                String baseUrl = node.path("base_url").asString("").trim();
+                String model = node.path("model").asString("").trim();
+                if (!Set.of("chat", "embedding").contains(type) || baseUrl.isBlank() || model.isBlank()) {
+                    log.warn("Skip invalid LLM endpoint #{}: type, base_url and model are required", index);
+                    continue;
+                }
+                result.add(new EndpointConfig(type,
+                        node.path("name").asString(type + "-" + index),
+                        baseUrl,
+                        node.path("api_key").asString(""),
+                        model,
+                        Math.max(1, node.path("weight").asInt(1))));
+            }
+        } catch (Exception e) {
+            log.error("Failed to parse llm_endpoint_pool, falling back to single endpoint", e);
+            return List.of();
+        }
+        return result;
+    }
+
+    private String resolveEmbeddingBaseUrl() {
+        String embeddingBaseUrl = appConfig.getEmbeddingBaseUrl();
+        return (embeddingBaseUrl == null || embeddingBaseUrl.isBlank())
+                ? appConfig.getLlmBaseUrl()
+                : embeddingBaseUrl;
+    }
+
+    private String resolveEmbeddingApiKey() {
+        String embeddingApiKey = appConfig.getEmbeddingApiKey();
+        return (embeddingApiKey == null || embeddingApiKey.isBlank())
+                ? appConfig.getLlmApiKey()
+                : embeddingApiKey;
+    }
+
+    private record EndpointConfig(String type, String name, String baseUrl, String apiKey, String model,
+            int weight) {
+    }
+
+    /**
+     * 端点及其运行时健康状态
+     */
+    private static final class Endpoint<M> {
+        private final String name;
+        private final String baseUrl;
+        private final String modelName;
+        private final int weight;
+        private final M model;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong successCount = new AtomicLong();
+        private final AtomicLong failureCount = new AtomicLong();
+        private volatile double latencyMillis = -1;
+        private int consecutiveFailures;
+        private int ejections;
+        private volatile long ejectedUntil;
+
+        Endpoint(EndpointConfig config, M model) {
+            this.name = config.name();
+            this.baseUrl = config.baseUrl();
+            this.modelName = config.model();
+            this.weight = config.weight();
+            this.model = Objects.requireNonNull(model);
+        }
+
+        synchronized void recordSuccess(long millis) {
+            successCount.incrementAndGet();
+            latencyMillis = latencyMillis < 0 ? millis : latencyMillis + LATENCY_EWMA_ALPHA * (millis - latencyMillis);
+            consecutiveFailures = 0;
+            ejections = 0;
+            ejectedUntil = 0;
+        }
+
+        /**
+         * 被限流立即摘除；其他错误连续达到阈值后摘除，摘除时长随次数指数增长
+         */
+        synchronized void recordFailure(Integer status) {
+            failureCount.incrementAndGet();
+            consecutiveFailures++;
+            boolean rateLimited = status != null && status == 429;
+            if (!rateLimited && consecutiveFailures < EJECT_AFTER_CONSECUTIVE_FAILURES) {
+                return;
+            }
+            ejections++;
+            long ejectMillis = Math.min(BASE_EJECTION.toMillis() << Math.min(ejections - 1, 10),
+                    MAX_EJECTION.toMillis());
+            ejectedUntil = System.currentTimeMillis() + ejectMillis;
+            consecutiveFailures = 0;
+            log.warn("LLM endpoint {} ejected for {}s (status={}, ejections={})", name, ejectMillis / 1000, status,
+                    ejections);
+        }
+
+        LlmEndpointStatusDTO toStatus(String type, long now) {
+            return new LlmEndpointStatusDTO(type, name, baseUrl, modelName, weight, outstanding.get(),
+                    latencyMillis < 0 ? null : Math.round(latencyMillis), successCount.get(), failureCount.get(),
+                    ejectedUntil > now);
+        }
+    }
+}
@@ -8,20 +8,13 @@ import com.jingwei.rsswithai.domain.model.Article;
 import com.jingwei.rsswithai.domain.model.ArticleExtra;
 import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
 import com.jingwei.rsswithai.domain.repository.ArticleRepository;
+import com.jingwei.rsswithai.utils.TokenBudgetUtils;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
-import org.springframework.ai.document.MetadataMode;
-import org.springframework.ai.embedding.EmbeddingResponse;
-import org.springframework.ai.openai.OpenAiChatModel;
-import org.springframework.ai.openai.OpenAiChatOptions;
-import org.springframework.ai.openai.OpenAiEmbeddingModel;
-import org.springframework.ai.openai.OpenAiEmbeddingOptions;
-import org.springframework.ai.openai.api.OpenAiApi;
-import org.springframework.ai.retry.RetryUtils;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
@@ -30,14 +23,18 @@ import org.springframework.transaction.event.TransactionalEventListener;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -50,105 +47,39 @@ import java.util.concurrent.atomic.AtomicInteger;
 @DependsOn("settingsService")
 public class LlmProcessService {
 
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(24);
+    /**
+     * 领取重试后推迟next_retry_at，处理期间不会被再次领取；进程中断时租约到期后重新到期
+     */
+    private static final Duration RETRY_LEASE = Duration.ofMinutes(30);
+    private static final int MIN_CONTENT_TOKEN_BUDGET = 1000;
+    private static final int MAX_SUMMARY_CHUNKS = 8;
+
     private final ArticleRepository articleRepository;
     private final ArticleExtraRepository articleExtraRepository;
     private final AppConfig appConfig;
     private final ObjectMapper objectMapper;
+    private final LlmEndpointPool llmEndpointPool;
+    private final EmbeddingVersionService embeddingVersionService;
+    private final SearchResultCache searchResultCache;
+    private final FullTextSearchService fullTextSearchService;
+    private final RecentVectorIndexService recentVectorIndexService;
+    private final ArticleNeighborService articleNeighborService;
+    private final TopicMatchService topicMatchService;
+    private final FeedNotificationService feedNotificationService;
     private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
     private final AtomicInteger currentLimit = new AtomicInteger();
+    private final Set<Long> inFlightRetries = ConcurrentHashMap.newKeySet();
     private ResizableSemaphore semaphore;
-    private OpenAiChatModel chatModel;
-    private OpenAiEmbeddingModel embeddingModel;
 
     /**
-     * 初始化时创建AI客户端和信号量
+     * 初始化时创建信号量
      */
     @PostConstruct
     public void init() {
         int limit = appConfig.getConcurrentLimit();
         currentLimit.set(limit);
         semaphore = new ResizableSemaphore(limit);
-        initializeOpenAiClient();
-    }
-
-    /**
-     * 初始化OpenAI客户端
-     */
-    private void initializeOpenAiClient() {
-        try {
-            OpenAiApi chatOpenAiApi = OpenAiApi.builder()
-                    .apiKey(appConfig.getLlmApiKey())
-                    .baseUrl(appConfig.getLlmBaseUrl())
-                    .build();
-
-            OpenAiChatOptions options = buildChatOptions();
-            this.chatModel = OpenAiChatModel.builder()
-                    .openAiApi(chatOpenAiApi)
-                    .defaultOptions(options)
-                    .build();
-
-            OpenAiApi embeddingOpenAiApi = OpenAiApi.builder()
-                    .apiKey(resolveEmbeddingApiKey())
-                    .baseUrl(resolveEmbeddingBaseUrl())
-                    .build();
-
-            this.embeddingModel = new OpenAiEmbeddingModel(
-                    embeddingOpenAiApi,
-                    MetadataMode.EMBED,
-                    OpenAiEmbeddingOptions.builder()
-                            .model(appConfig.getEmbeddingModel())
-                            .dimensions(1024)
-                            .build(),
-                    RetryUtils.DEFAULT_RETRY_TEMPLATE);
-
-            log.info("OpenAI client initialized successfully");
-        } catch (Exception e) {
-            log.error("Failed to initialize OpenAI client", e);
-        }
-    }
-
-    private String resolveEmbeddingBaseUrl() {
-        String embeddingBaseUrl = appConfig.getEmbeddingBaseUrl();
-        return (embeddingBaseUrl == null || embeddingBaseUrl.isBlank())
-                ? appConfig.getLlmBaseUrl()
-                : embeddingBaseUrl;
-    }
-
-    private String resolveEmbeddingApiKey() {
-        String embeddingApiKey = appConfig.getEmbeddingApiKey();
-        return (embeddingApiKey == null || embeddingApiKey.isBlank())
-                ? appConfig.getLlmApiKey()
-                : embeddingApiKey;
-    }
-
-    /**
-     * 构建聊天选项
-     */
-    private OpenAiChatOptions buildChatOptions() {
-        OpenAiChatOptions.Builder builder = OpenAiChatOptions.builder()
-                .model(appConfig.getLanguageModel());
-
-        // 从配置中读取模型参数
-        JsonNode config = appConfig.getLlmGenModelConfig();
-        if (config != null) {
-            if (config.has("temperature")) {
-                builder.temperature(config.get("temperature").asDouble());
-            }
-            if (config.has("top_p")) {
-                builder.topP(config.get("top_p").asDouble());
-            }
-            if (config.has("max_tokens")) {
-                builder.maxTokens(config.get("max_tokens").asInt());
-            }
-            if (config.has("seed")) {
-                builder.seed(config.get("seed").asInt());
-            }
-            if (config.has("top_k")) {
-                Map<String, Object> extraBody = Map.of("topK", config.get("top_k").asInt());
-                builder.extraBody(extraBody);
-            }
-        }
-        return builder.build();
     }
 
     /**
@@ -166,12 +97,7 @@ public class LlmProcessService {
      */
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void onConfigUpdateEvent(ConfigUpdateEvent event) {
-        log.info("Received config update event, reinitializing OpenAI client");
-
-        // 重建API客户端
-        initializeOpenAiClient();
-
-        // 调整信号量大小
+        // AI客户端由LlmEndpointPool自行重建，这里只调整信号量大小
         int newLimit = appConfig.getConcurrentLimit();
         int oldLimit = currentLimit.getAndSet(newLimit);
         int delta = newLimit - oldLimit;
@@ -197,44 +123,198 @@ public class LlmProcessService {
             // 检查是否已处理过
             if (articleExtraRepository.existsByArticleId(articleId)) {
                 log.info("Article {} already processed, skipping", articleId);
-                semaphore.release();
                 return;
             }
 
             Article article = articleRepository.findById(articleId).orElse(null);
             if (article == null) {
                 log.warn("Article not found: {}", articleId);
-                semaphore.release();
                 return;
             }
 
             log.info("Processing article: {} - {}", articleId, article.getTitle());
 
-            // 生成内容
-            ArticleExtra articleExtra = generateContent(article);
-
-            // 生成向量
-            if (articleExtra.getOverview() != null && !articleExtra.getOverview().isBlank()) {
-                String vectorText = articleExtra.getOverview() + "\n" +
-                        String.join("\n", articleExtra.getKeyInformation());
-                articleExtra.setVector(generateVector(vectorText));
-            } else {
-                articleExtra.setVector(generateVector(article.getTitle()));
-            }
+            ArticleExtra articleExtra = buildArticleExtra(article);
+            applyRetryPolicy(articleExtra, 0);
 
             // 保存结果
             articleExtraRepository.save(articleExtra);
-            log.info("Article {} processing completed successfully", articleId);
+            afterExtraSaved(article, articleExtra);
+            log.info("Article {} processing completed with status {}", articleId, articleExtra.getStatus());
 
         } catch (Exception e) {
             log.error("Error processing article {}", articleId, e);
-            saveFailedResult(articleId, e.getMessage());
+            saveFailedResult(articleId, e.getMessage(), 0);
         } finally {
             semaphore.release();
             // log.debug("Released semaphore permit for article: {}", articleId);
         }
     }
 
+    /**
+     * 提交失败文章的重试任务，与新文章共用虚拟线程执行器和并发信号量
+     *
+     * @return 该文章已有重试任务在排队或执行中时返回false
+     */
+    public boolean submitRetry(Long articleId) {
+        if (!inFlightRetries.add(articleId)) {
+            return false;
+        }
+        try {
+            executorService.submit(() -> {
+                try {
+                    retryArticle(articleId);
+                } finally {
+                    inFlightRetries.remove(articleId);
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            inFlightRetries.remove(articleId);
+            throw e;
+        }
+    }
+
+    /**
+     * 当前排队或执行中的重试任务数
+     */
+    public int getInFlightRetryCount() {
+        return inFlightRetries.size();
+    }
+
+    private void retryArticle(Long articleId) {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        int previousAttempts = 0;
+        try {
+            // 排队期间可能已被手动重新生成，或已由其他实例领取；仍为已到期的FAILED时才领取并处理
+            LocalDateTime now = LocalDateTime.now();
+            if (articleExtraRepository.claimRetry(articleId, now, now.plus(RETRY_LEASE)) == 0) {
+                log.debug("Article {} is no longer due for retry, skipping", articleId);
+                return;
+            }
+            previousAttempts = articleExtraRepository.findAttemptCountByArticleId(articleId).orElse(0);
+
+            Article article = articleRepository.findById(articleId).orElse(null);
+            if (article == null) {
+                log.warn("Article not found: {}", articleId);
+                return;
+            }
+
+            log.info("Retrying article {} (attempt {})", articleId, previousAttempts + 1);
+            ArticleExtra articleExtra = buildArticleExtra(article);
+            applyRetryPolicy(articleExtra, previousAttempts);
+
+            articleExtraRepository.replaceByArticleId(articleExtra);
+            afterExtraSaved(article, articleExtra);
+            log.info("Article {} retry completed with status {}", articleId, articleExtra.getStatus());
+
+        } catch (Exception e) {
+            log.error("Error retrying article {}", articleId, e);
+            saveFailedResult(articleId, e.getMessage(), previousAttempts);
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * 生成内容与向量，得到待保存的增强结果
+     */
+    private ArticleExtra buildArticleExtra(Article article) {
+        // 生成内容
+        ArticleExtra articleExtra = generateContent(article);
+
+        // 生成向量
+        String servingModel = embeddingVersionService.getServingModel();
+        articleExtra.setVector(generateVector(vectorTextOf(article, articleExtra), servingModel));
+        if (articleExtra.getVector() != null) {
+            articleExtra.setVectorModel(servingModel);
+        }
+        return articleExtra;
+    }
+
+    /**
+     * 向量化文本：概览 + 关键信息，概览缺失时使用标题（回填新模型向量时复用）
+     */
+    static String buildVectorText(String title, String overview, List<String> keyInformation) {
+        if (overview != null && !overview.isBlank()) {
+            return overview + "\n" + String.join("\n", Objects.requireNonNullElse(keyInformation, List.of()));
+        }
+        return title;
+    }
+
+    private String vectorTextOf(Article article, ArticleExtra articleExtra) {
+        return buildVectorText(article.getTitle(), articleExtra.getOverview(), articleExtra.getKeyInformation());
+    }
+
+    /**
+     * 增强结果落库后：双写迁移目标模型的向量，用概览与标签更新全文索引，并失效该源相关的搜索缓存
+     */
+    private void afterExtraSaved(Article article, ArticleExtra articleExtra) {
+        savePendingVector(article, articleExtra);
+        fullTextSearchService.indexArticleAsync(article.getId());
+        Long sourceId = article.getSource() != null ? article.getSource().getId() : null;
+        recentVectorIndexService.onArticleVector(article.getId(), sourceId, article.getPubDate(),
+                articleExtra.getVector());
+        if (articleExtra.getVector() != null) {
+            articleNeighborService.onArticleVector(article.getId());
+            topicMatchService.onArticleVector(article.getId(), sourceId, article.getPubDate(),
+                    articleExtra.getVector());
+        } else if (articleExtra.getStatus() == AnalysisStatus.SUCCESS) {
+            // 没有向量时不做主题匹配，只推送给订阅了该源的用户
+            feedNotificationService.publish(article.getId(), sourceId, article.getPubDate(), List.of());
+        }
+        searchResultCache.evictSource(sourceId);
+    }
+
+    /**
+     * 向量模型迁移期间，同时写入目标模型的向量；失败不影响增强结果，由后台回填兜底
+     */
+    private void savePendingVector(Article article, ArticleExtra articleExtra) {
+        if (articleExtra.getVector() == null) {
+            return;
+        }
+        embeddingVersionService.getPendingModel().ifPresent(model -> {
+            try {
+                float[] vector = llmEndpointPool.embed(List.of(vectorTextOf(article, articleExtra)), model)
+                        .getFirst();
+                embeddingVersionService.storePendingArticleVector(article.getId(), vector, model);
+            } catch (Exception e) {
+                log.warn("Failed to generate pending vector for article {} with model {}", article.getId(), model, e);
+            }
+        });
+    }
+
+    /**
+     * 记录处理次数；失败时按指数退避（带抖动）计算下一次重试时间，次数耗尽后标记为DEAD
+     */
+    private void applyRetryPolicy(ArticleExtra articleExtra, int previousAttempts) {
+        int attempts = previousAttempts + 1;
+        articleExtra.setAttemptCount(attempts);
+        articleExtra.setNextRetryAt(null);
+        if (articleExtra.getStatus() != AnalysisStatus.FAILED) {
+            return;
+        }
+
+        int maxAttempts = Math.max(1, Objects.requireNonNullElse(appConfig.getLlmRetryMaxAttempts(), 5));
+        if (attempts >= maxAttempts) {
+            articleExtra.setStatus(AnalysisStatus.DEAD);
+            log.warn("Article {} failed {} times, moved to dead letter", articleExtra.getArticleId(), attempts);
+            return;
+        }
+
+        long baseMinutes = Math.max(1, Objects.requireNonNullElse(appConfig.getLlmRetryBaseDelayMinutes(), 10));
+        long delayMinutes = Math.min(baseMinutes << Math.min(attempts - 1, 20), MAX_RETRY_DELAY.toMinutes());
+        // ±20%抖动，避免故障恢复后大量失败文章在同一时刻集中重试
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        articleExtra.setNextRetryAt(LocalDateTime.now().plusSeconds((long) (delayMinutes * 60 * jitter)));
+    }
+
     /**
      * 生成文章内容（概览、关键信息、标签）
      */
@@ -244,8 +324,11 @@ public class LlmProcessService {
                 .status(AnalysisStatus.FAILED);
 
         try {
-            Prompt prompt = buildPrompt(article);
-            ChatResponse response = chatModel.call(prompt);
+            PreparedContent prepared = prepareContent(article);
+            Prompt prompt = buildPrompt(article, prepared.content());
+            long chatStart = System.nanoTime();
+            ChatResponse response = llmEndpointPool.callChat(chatModel -> chatModel.call(prompt));
+            logContentBudget(article.getId(), prepared, response, (System.nanoTime() - chatStart) / 1_000_000);
 
             String content = response.getResult().getOutput().getText();
             // 解析JSON响应
@@ -270,7 +353,9 @@ public class LlmProcessService {
                         objectMapper.getTypeFactory().constructCollectionType(List.class, String.class));
             }
 
-            if (jsonResponse.has("toc") && jsonResponse.get("toc").isArray()) {
+            // 分片摘要后的正文不是原文，模型给出的锚点无法在原文中定位，丢弃toc
+            if (prepared.mode() != ContentMode.MAP_REDUCE
+                    && jsonResponse.has("toc") && jsonResponse.get("toc").isArray()) {
                 tocList = parseTocList(jsonResponse.get("toc"));
             }
 
@@ -309,7 +394,7 @@ public class LlmProcessService {
     /**
      * 构建提示词
      */
-    private Prompt buildPrompt(Article article) {
+    private Prompt buildPrompt(Article article, String content) {
         PromptTemplate promptTemplate = PromptTemplate.builder()
                 .template(appConfig.getLlmGenPrompt())
                 .build();
@@ -317,26 +402,125 @@ public class LlmProcessService {
         return new Prompt(promptTemplate.createMessage(Map.of(
                 "title", article.getTitle(),
                 "source", article.getSourceName(),
-                "content", article.getContent())));
+                "content", content)));
+    }
+
+    /**
+     * 按Token预算准备正文：预算内原样发送；超出预算按Markdown结构裁剪；远超预算时分片摘要后再发送
+     */
+    private PreparedContent prepareContent(Article article) {
+        String content = Objects.requireNonNullElse(article.getContent(), "");
+        int budget = Math.max(MIN_CONTENT_TOKEN_BUDGET,
+                Objects.requireNonNullElse(appConfig.getLlmContentTokenBudget(), 12000));
+        int mapReduceThreshold = Objects.requireNonNullElse(appConfig.getLlmContentMapReduceTokens(), budget * 4);
+        int originalTokens = TokenBudgetUtils.estimateTokens(content);
+
+        if (originalTokens <= budget) {
+            return new PreparedContent(content, ContentMode.FULL, originalTokens, originalTokens, 0);
+        }
+
+        long start = System.nanoTime();
+        ContentMode mode;
+        String prepared;
+        if (originalTokens > mapReduceThreshold) {
+            mode = ContentMode.MAP_REDUCE;
+            prepared = summarizeInChunks(article, content, budget);
+        } else {
+            mode = ContentMode.TRUNCATED;
+            prepared = TokenBudgetUtils.fitToBudget(content, budget);
+        }
+        long prepareMillis = (System.nanoTime() - start) / 1_000_000;
+        return new PreparedContent(prepared, mode, originalTokens, TokenBudgetUtils.estimateTokens(prepared),
+                prepareMillis);
     }
 
     /**
-     * 生成向量表示
+     * 分片摘要（map-reduce）：逐片调用模型概括，拼接各片摘要作为正文；单片失败时退化为裁剪该片
+     */
+    private String summarizeInChunks(Article article, String content, int budget) {
+        List<String> chunks = TokenBudgetUtils.splitIntoChunks(content, budget);
+        if (chunks.size() > MAX_SUMMARY_CHUNKS) {
+            chunks = TokenBudgetUtils.splitIntoChunks(
+                    TokenBudgetUtils.fitToBudget(content, budget * MAX_SUMMARY_CHUNKS), budget);
+            chunks = chunks.subList(0, Math.min(chunks.size(), MAX_SUMMARY_CHUNKS));
+        }
+
+        int perChunkLimit = Math.max(200, budget / chunks.size());
+        PromptTemplate promptTemplate = PromptTemplate.builder()
+                .template(appConfig.getLlmChunkSummaryPrompt())
+                .build();
+        List<String> summaries = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+            try {
+                Prompt prompt = new Prompt(promptTemplate.createMessage(Map.of(
+                        "title", article.getTitle(),
+                        "index", i + 1,
+                        "total", chunks.size(),
+                        "limit", perChunkLimit,
+                        "content", chunk)));
+                String summary = llmEndpointPool.callChat(chatModel -> chatModel.call(prompt))
+                        .getResult().getOutput().getText();
+                summaries.add(Objects.requireNonNullElse(summary, "").trim());
+            } catch (Exception e) {
+                log.warn("Chunk summary failed for article {} part {}, fallback to truncation", article.getId(),
+                        i + 1, e);
+                summaries.add(TokenBudgetUtils.fitToBudget(chunk, perChunkLimit));
+            }
+        }
+        return TokenBudgetUtils.fitToBudget(String.join("\n\n", summaries), budget);
+    }
+
+    private void logContentBudget(Long articleId, PreparedContent prepared, ChatResponse response, long chatMillis) {
+        Integer promptTokens = null;
+        if (response.getMetadata() != null && response.getMetadata().getUsage() != null) {
+            promptTokens = response.getMetadata().getUsage().getPromptTokens();
+        }
+        if (prepared.mode() == ContentMode.FULL) {
+            log.debug("Content budget for article {}: mode=FULL, estTokens={}, promptTokens={}, chat={}ms",
+                    articleId, prepared.originalTokens(), promptTokens, chatMillis);
+            return;
+        }
+        int saved = prepared.originalTokens() - prepared.sentTokens();
+        log.info("Content budget for article {}: mode={}, estTokens {} -> {} (saved {}, {}%), promptTokens={}, "
+                        + "prepare={}ms, chat={}ms",
+                articleId, prepared.mode(), prepared.originalTokens(), prepared.sentTokens(), saved,
+                prepared.originalTokens() == 0 ? 0 : saved * 100 / prepared.originalTokens(),
+                promptTokens, prepared.prepareMillis(), chatMillis);
+    }
+
+    /**
+     * 生成向量表示（使用当前提供服务的模型，模型迁移完成前与库中向量保持一致）
      */
     public float[] generateVector(String text) {
+        return generateVector(text, embeddingVersionService.getServingModel());
+    }
+
+    /**
+     * 使用指定模型生成向量
+     */
+    public float[] generateVector(String text, String model) {
         try {
-            EmbeddingResponse embeddingResponse = embeddingModel.embedForResponse(List.of(text));
-            return embeddingResponse.getResult().getOutput();
+            return llmEndpointPool.embed(List.of(text), model).getFirst();
         } catch (Exception e) {
             log.error("Error generating vector for text", e);
         }
         return null;
     }
 
+    private boolean hasSuccessfulResult(Long articleId) {
+        try {
+            return articleExtraRepository.existsByArticleIdAndStatus(articleId, AnalysisStatus.SUCCESS);
+        } catch (Exception e) {
+            log.warn("Failed to check previous result for article {}", articleId, e);
+            return false;
+        }
+    }
+
     /**
-     * 保存失败结果
+     * 保存失败结果（覆盖已有记录）
      */
-    private void saveFailedResult(Long articleId, String errorMessage) {
+    private void saveFailedResult(Long articleId, String errorMessage, int previousAttempts) {
         try {
             ArticleExtra articleExtra = ArticleExtra.builder()
                     .articleId(articleId)
@@ -345,48 +529,59 @@ public class LlmProcessService {
                     .createdAt(LocalDateTime.now())
                     .updatedAt(LocalDateTime.now())
                     .build();
+            applyRetryPolicy(articleExtra, previousAttempts);
 
-            articleExtraRepository.save(articleExtra);
+            articleExtraRepository.replaceByArticleId(articleExtra);
             log.error("Saved failed result for article {}: {}", articleId, errorMessage);
         } catch (Exception e) {
             log.error("Error saving failed result for article {}", articleId, e);
         }
     }
 
+    /**
+     * 手动重新生成，重置重试计数
+     * 新结果生成后再替换；生成失败且原记录是成功结果时保留原记录，没有成功结果时写入失败结果进入自动重试
+     */
     public void regenerateArticleExtra(Long articleId) {
         try {
             semaphore.acquire();
-            articleExtraRepository.deleteByArticleId(articleId);
-            log.info("Cleaned up existing article extra for article: {}", articleId);
-
             Article article = articleRepository.findById(articleId).orElse(null);
             if (article == null) {
                 log.warn("Article not found: {}", articleId);
                 return;
             }
-            ArticleExtra articleExtra = generateContent(article);
-
-            // 生成向量
-            if (articleExtra.getOverview() != null && !articleExtra.getOverview().isBlank()) {
-                String vectorText = articleExtra.getOverview() + "\n" +
-                        String.join("\n", articleExtra.getKeyInformation());
-                articleExtra.setVector(generateVector(vectorText));
-            } else {
-                articleExtra.setVector(generateVector(article.getTitle()));
+            ArticleExtra articleExtra = buildArticleExtra(article);
+            if (articleExtra.getStatus() != AnalysisStatus.SUCCESS && hasSuccessfulResult(articleId)) {
+                log.warn("Article {} regeneration failed, keeping previous result: {}", articleId,
+                        articleExtra.getErrorMessage());
+                return;
             }
+            applyRetryPolicy(articleExtra, 0);
 
-
-            articleExtraRepository.save(articleExtra);
-            log.info("Article {} regeneration completed successfully", articleId);
+            articleExtraRepository.replaceByArticleId(articleExtra);
+            afterExtraSaved(article, articleExtra);
+            log.info("Article {} regeneration completed with status {}", articleId, articleExtra.getStatus());
 
         } catch (Exception e) {
             log.error("Error regenerating article {}", articleId, e);
-            saveFailedResult(articleId, e.getMessage());
+            if (!hasSuccessfulResult(articleId)) {
+                saveFailedResult(articleId, e.getMessage(), 0);
+            }
         } finally {
             semaphore.release();
         }
     }
 
+    private enum ContentMode {
+        FULL,
+        TRUNCATED,
+        MAP_REDUCE
+    }
+
+    private record PreparedContent(String content, ContentMode mode, int originalTokens, int sentTokens,
+            long prepareMillis) {
+    }
+
     static final class ResizableSemaphore extends Semaphore {
         ResizableSemaphore(int permits) {
             super(permits);
@@ -0,0 +1,256 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.config.AppConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 文章已读状态
+ * 每个用户一个Roaring压缩位图（文章ID集合），存于read_states(user_id, bitmap BYTEA)，使用中的用户缓存在内存；
+ * 标记已读只修改内存中的位图并置脏，后台每隔几秒把脏位图序列化写回（淘汰、停机时同样写回），进程崩溃最多丢失最近几秒的标记。
+ * 列表的"只看未读"在取出的每一页上按位图过滤，不与已读表逐行关联
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReadStateService {
+
+    private static final String TABLE = "read_states";
+    /**
+     * 位图按无符号32位存储文章ID，超出范围的ID视为未读
+     */
+    private static final long MAX_ARTICLE_ID = 0xFFFF_FFFFL;
+    private static final int IDLE_MINUTES = 30;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AppConfig appConfig;
+    private final Map<Long, ReadState> states = new ConcurrentHashMap<>();
+    /**
+     * 淘汰次数，在写回之后、移出缓存之前递增；加载期间有淘汰时，刚读出的位图可能早于淘汰时的写回
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    private volatile boolean ready = false;
+
+    /**
+     * 单个用户的位图，读写与写回均持有实例锁；淘汰后不再修改，调用方重新加载
+     */
+    private static final class ReadState {
+
+        private final RoaringBitmap bitmap;
+        private boolean dirty;
+        private boolean evicted;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private ReadState(RoaringBitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+
+        boolean contains(long articleId) {
+            return articleId <= MAX_ARTICLE_ID && bitmap.contains((int) articleId);
+        }
+
+        int add(Collection<Long> articleIds) {
+            int added = 0;
+            for (Long articleId : articleIds) {
+                if (articleId != null && articleId > 0 && articleId <= MAX_ARTICLE_ID
+                        && bitmap.checkedAdd(articleId.intValue())) {
+                    added++;
+                }
+            }
+            dirty |= added > 0;
+            return added;
+        }
+
+        boolean remove(long articleId) {
+            boolean removed = articleId <= MAX_ARTICLE_ID && bitmap.checkedRemove((int) articleId);
+            dirty |= removed;
+            return removed;
+        }
+
+        byte[] serialize() {
+            bitmap.runOptimize();
+            ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+            bitmap.serialize(buffer);
+            return buffer.array();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                    "user_id BIGINT PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE, " +
+                    "bitmap BYTEA NOT NULL, " +
+                    "updated_at TIMESTAMP NOT NULL DEFAULT now())");
+            ready = true;
+        } catch (Exception e) {
+            log.error("Read state table initialization failed, read state is unavailable", e);
+        }
+    }
+
+    public boolean isRead(Long userId, Long articleId) {
+        return articleId != null && withState(userId, state -> state.contains(articleId));
+    }
+
+    /**
+     * 标记已读
+     *
+     * @return 新标记的文章数
+     */
+    public int markRead(Long userId, Collection<Long> articleIds) {
+        return withState(userId, state -> state.add(articleIds));
+    }
+
+    public void markUnread(Long userId, Long articleId) {
+        withState(userId, state -> state.remove(articleId));
+    }
+
+    /**
+     * 过滤掉已读的文章ID，保持原顺序
+     */
+    public List<Long> filterUnread(Long userId, List<Long> articleIds) {
+        return withState(userId, state -> articleIds.stream().filter(id -> !state.contains(id)).toList());
+    }
+
+    /**
+     * 每5秒写回脏位图，并淘汰30分钟未访问的用户
+     */
+    @Scheduled(initialDelay = 5, fixedDelay = 5, timeUnit = TimeUnit.SECONDS)
+    public void flush() {
+        if (!ready) {
+            return;
+        }
+        long idleBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(IDLE_MINUTES);
+        for (Map.Entry<Long, ReadState> entry : states.entrySet()) {
+            try {
+                if (entry.getValue().lastAccess < idleBefore) {
+                    evict(entry.getKey(), entry.getValue());
+                } else {
+                    persist(entry.getKey(), entry.getValue());
+                }
+            } catch (Exception e) {
+                // 仍为脏，下一轮重试
+                log.warn("Failed to persist read state for user {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private <R> R withState(Long userId, Function<ReadState, R> action) {
+        while (true) {
+            ReadState state = states.get(userId);
+            if (state == null) {
+                // 在映射锁之外读库，加载较慢时不阻塞同一分段上其他用户的访问
+                ensureCapacity();
+                long evictionsBefore = evictions.get();
+                ReadState loaded = load(userId);
+                // 发布前持有实例锁：其他线程拿到后须等校验完成，不会修改随即丢弃的位图
+                synchronized (loaded) {
+                    state = states.putIfAbsent(userId, loaded);
+                    if (state == null && evictions.get() != evictionsBefore) {
+                        // 加载期间可能有该用户的位图写回后被淘汰，读到的是旧数据，丢弃后重新加载
+                        loaded.evicted = true;
+                        states.remove(userId, loaded);
+                        continue;
+                    }
+                }
+                if (state == null) {
+                    state = loaded;
+                }
+            }
+            synchronized (state) {
+                if (!state.evicted) {
+                    state.lastAccess = System.currentTimeMillis();
+                    return action.apply(state);
+                }
+            }
+        }
+    }
+
+    private ReadState load(Long userId) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        if (ready) {
+            List<byte[]> rows = jdbcTemplate.query("SELECT bitmap FROM " + TABLE + " WHERE user_id = ?",
+                    (rs, rowNum) -> rs.getBytes("bitmap"), userId);
+            if (!rows.isEmpty()) {
+                try {
+                    bitmap.deserialize(ByteBuffer.wrap(rows.getFirst()));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Corrupted read state for user " + userId, e);
+                }
+            }
+        }
+        return new ReadState(bitmap);
+    }
+
+    /**
+     * 脏时写回；在实例锁内执行，保证写回顺序与修改顺序一致
+     */
+    private void persist(Long userId, ReadState state) {
+        synchronized (state) {
+            if (!state.dirty || !ready) {
+                return;
+            }
+            jdbcTemplate.update("INSERT INTO " + TABLE + " (user_id, bitmap, updated_at) VALUES (?, ?, now()) " +
+                    "ON CONFLICT (user_id) DO UPDATE SET bitmap = EXCLUDED.bitmap, updated_at = now()",
+                    userId, state.serialize());
+            state.dirty = false;
+        }
+    }
+
+    /**
+     * 写回后移出缓存；写回失败时保留，下一轮重试
+     */
+    private void evict(Long userId, ReadState state) {
+        synchronized (state) {
+            persist(userId, state);
+            state.evicted = true;
+        }
+        evictions.incrementAndGet();
+        states.remove(userId, state);
+    }
+
+    /**
+     * 超出用户数上限时淘汰最久未访问的用户
+     */
+    private void ensureCapacity() {
+        int maxUsers = maxUsers();
+        while (states.size() >= maxUsers) {
+            Map.Entry<Long, ReadState> oldest = states.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+                    .orElse(null);
+            if (oldest == null) {
+                return;
+            }
+            evict(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private int maxUsers() {
+        Integer max = appConfig.getReadStateCacheMaxUsers();
+        return max == null || max <= 0 ? 10000 : max;
+    }
+}
@@ -0,0 +1,360 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.Event.ConfigUpdateEvent;
+import com.jingwei.rsswithai.application.dto.RecentVectorIndexStatsDTO;
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
+import com.jingwei.rsswithai.utils.HnswIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 近期文章的进程内向量索引
+ * 启动时从数据库加载最近N天（按pub_date）的文章向量建立HNSW索引，增强结果写入后增量更新，每6小时整体重建以滚动窗口、回收删除标记。
+ * 检索、相似推荐与主题订阅流先查窗口内，窗口之前的数据仍由pgvector负责；serving model变化后索引失效并重建
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RecentVectorIndexService {
+
+    private static final int HNSW_M = 16;
+    private static final int HNSW_EF_CONSTRUCTION = 100;
+    private static final int EF_SEARCH = 100;
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AppConfig appConfig;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param articles 窗口内文章的源与发布时间，用于按源过滤和按订阅流顺序截取
+     */
+    private record Snapshot(HnswIndex index, Map<Long, ArticleMeta> articles, LocalDateTime coverageStart,
+                            int windowDays, String model, LocalDateTime builtAt, long buildMillis) {
+    }
+
+    private record ArticleMeta(Long sourceId, LocalDateTime pubDate) {
+    }
+
+    /**
+     * 窗口内的召回结果；pub_date早于coverageStart（或为空）的文章不在索引中，需要由pgvector补充
+     */
+    public record Recall(List<ArticleExtraRepository.IdWithDistance> hits, LocalDateTime coverageStart) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAsync("startup");
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onConfigUpdateEvent(ConfigUpdateEvent event) {
+        Snapshot current = snapshot;
+        int days = windowDays();
+        if (current == null ? days > 0 : current.windowDays() != days) {
+            rebuildAsync("window changed to " + days + " days");
+        }
+    }
+
+    @Scheduled(initialDelay = 6, fixedDelay = 6, timeUnit = TimeUnit.HOURS)
+    public void rollWindow() {
+        rebuildAsync("scheduled");
+    }
+
+    /**
+     * 窗口内全库近似k近邻
+     *
+     * @return 索引不可用时返回null
+     */
+    public Recall search(float[] vector, double threshold, int limit) {
+        Snapshot current = usableSnapshot();
+        if (current == null) {
+            return null;
+        }
+        try {
+            return toRecall(current, current.index().search(vector, limit, Math.max(EF_SEARCH, limit), null),
+                    threshold);
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 窗口内指定源范围的检索；按源过滤的选择性通常很高，直接对窗口做精确扫描，避免图遍历漏召回
+     */
+    public Recall searchInSources(float[] vector, Collection<Long> sourceIds, double threshold, int limit) {
+        Snapshot current = usableSnapshot();
+        if (current == null) {
+            return null;
+        }
+        Set<Long> allowed = new HashSet<>(sourceIds);
+        try {
+            List<HnswIndex.Hit> hits = current.index().rangeSearch(vector, threshold,
+                    articleId -> {
+                        ArticleMeta meta = current.articles().get(articleId);
+                        return meta != null && allowed.contains(meta.sourceId());
+                    });
+            return toRecall(current, hits.subList(0, Math.min(limit, hits.size())), threshold);
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 与窗口内文章最相似的文章
+     *
+     * @return 索引不可用或文章不在窗口内时返回null
+     */
+    public Recall findSimilar(Long articleId, int limit) {
+        Snapshot current = usableSnapshot();
+        if (current == null) {
+            return null;
+        }
+        try {
+            float[] vector = current.index().vectorOf(articleId);
+            if (vector == null) {
+                return null;
+            }
+            List<HnswIndex.Hit> hits = current.index().search(vector, limit, Math.max(EF_SEARCH, limit),
+                    key -> key != articleId);
+            return toRecall(current, hits, Double.MAX_VALUE);
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 窗口内与任一主题向量距离小于对应阈值的文章（对窗口精确扫描一遍、每篇与全部主题批量计算，与SQL中的阈值条件等价），
+     * 按订阅流顺序（pub_date、id倒序）取游标之后的前limit篇
+     */
+    public Recall matchTopics(List<float[]> vectors, List<Double> thresholds, LocalDateTime cursorTime,
+            long cursorId, int limit) {
+        Snapshot current = usableSnapshot();
+        if (current == null) {
+            return null;
+        }
+        try {
+            double[] maxDistances = thresholds.stream().mapToDouble(Double::doubleValue).toArray();
+            // 游标条件在扫描时过滤，只对命中的文章排序
+            List<HnswIndex.Hit> matched = current.index().rangeSearchAny(vectors, maxDistances, articleId -> {
+                ArticleMeta meta = current.articles().get(articleId);
+                return meta != null && (meta.pubDate().isBefore(cursorTime)
+                        || (meta.pubDate().isEqual(cursorTime) && articleId < cursorId));
+            });
+            List<ArticleExtraRepository.IdWithDistance> hits = matched.stream()
+                    .sorted(Comparator.<HnswIndex.Hit, LocalDateTime>comparing(
+                                    hit -> current.articles().get(hit.key()).pubDate())
+                            .thenComparingLong(HnswIndex.Hit::key)
+                            .reversed())
+                    .limit(limit)
+                    .<ArticleExtraRepository.IdWithDistance>map(
+                            hit -> new VectorSearchService.VectorHit(hit.key(), hit.distance()))
+                    .toList();
+            return new Recall(hits, current.coverageStart());
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 增强结果（含向量）保存后调用；处于事务中时提交后才写入索引
+     */
+    public void onArticleVector(Long articleId, Long sourceId, LocalDateTime pubDate, float[] vector) {
+        if (articleId == null || vector == null || pubDate == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addToIndex(articleId, sourceId, pubDate, vector);
+                }
+            });
+        } else {
+            addToIndex(articleId, sourceId, pubDate, vector);
+        }
+    }
+
+    public RecentVectorIndexStatsDTO getStats() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return new RecentVectorIndexStatsDTO(false, rebuilding.get(), windowDays(), null, null, 0, 0, 0, 0,
+                    null, 0);
+        }
+        return new RecentVectorIndexStatsDTO(
+                usableSnapshot() != null,
+                rebuilding.get(),
+                current.windowDays(),
+                current.coverageStart(),
+                current.model(),
+                current.index().size(),
+                current.index().deletedCount(),
+                current.index().offHeapBytes(),
+                heapBytes(current),
+                current.builtAt(),
+                current.buildMillis());
+    }
+
+    private void addToIndex(Long articleId, Long sourceId, LocalDateTime pubDate, float[] vector) {
+        Snapshot current = snapshot;
+        if (current == null || pubDate.isBefore(current.coverageStart())) {
+            return;
+        }
+        try {
+            current.articles().put(articleId, new ArticleMeta(sourceId, pubDate));
+            current.index().add(articleId, vector);
+        } catch (Exception e) {
+            log.warn("Failed to add article {} to recent vector index", articleId, e);
+        }
+    }
+
+    /**
+     * serving model与建索引时不一致（向量模型已切换）时视为不可用并触发重建
+     */
+    private Snapshot usableSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        if (!Objects.equals(current.model(), servingModel())) {
+            rebuildAsync("serving model changed to " + servingModel());
+            return null;
+        }
+        return current;
+    }
+
+    private Recall toRecall(Snapshot current, List<HnswIndex.Hit> hits, double threshold) {
+        List<ArticleExtraRepository.IdWithDistance> result = new ArrayList<>(hits.size());
+        for (HnswIndex.Hit hit : hits) {
+            if (hit.distance() < threshold) {
+                result.add(new VectorSearchService.VectorHit(hit.key(), hit.distance()));
+            }
+        }
+        return new Recall(result, current.coverageStart());
+    }
+
+    private void rebuildAsync(String reason) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("recent-vector-index-rebuild").start(() -> {
+            try {
+                rebuild(reason);
+            } catch (Exception e) {
+                log.error("Recent vector index rebuild failed, vector queries keep using {}",
+                        snapshot == null ? "pgvector only" : "the previous index", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    private void rebuild(String reason) {
+        int days = windowDays();
+        Snapshot previous = snapshot;
+        if (days <= 0) {
+            snapshot = null;
+            if (previous != null) {
+                previous.index().close();
+                log.info("Recent vector index disabled");
+            }
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        LocalDateTime rebuildStart = LocalDateTime.now();
+        LocalDateTime coverageStart = rebuildStart.minusDays(days);
+        String model = servingModel();
+        HnswIndex index = new HnswIndex(VectorSearchService.DIMENSIONS, HNSW_M, HNSW_EF_CONSTRUCTION);
+        Map<Long, ArticleMeta> articles = new ConcurrentHashMap<>();
+        try {
+            long lastId = 0;
+            while (true) {
+                long batchLastId = addRows(index, articles,
+                        "a.pub_date >= ? AND ae.article_id > ? ORDER BY ae.article_id LIMIT " + LOAD_BATCH_SIZE,
+                        Timestamp.valueOf(coverageStart), lastId);
+                if (batchLastId < 0) {
+                    break;
+                }
+                lastId = batchLastId;
+            }
+        } catch (RuntimeException e) {
+            index.close();
+            throw e;
+        }
+
+        Snapshot built = new Snapshot(index, articles, coverageStart, days, model, LocalDateTime.now(),
+                System.currentTimeMillis() - start);
+        snapshot = built;
+        // 切换前已提交、但加载时尚未读到的增强结果；切换后提交的会直接写入新索引
+        addRows(index, articles, "a.pub_date >= ? AND ae.updated_at >= ?", Timestamp.valueOf(coverageStart),
+                Timestamp.valueOf(rebuildStart.minusMinutes(1)));
+        if (previous != null) {
+            previous.index().close();
+        }
+        log.info("Recent vector index rebuilt ({}): {} vectors since {}, {} ms, off-heap {} KB, heap ~{} KB",
+                reason, index.size(), coverageStart, built.buildMillis(), index.offHeapBytes() / 1024,
+                heapBytes(built) / 1024);
+    }
+
+    /**
+     * @return 最后一行的article_id，没有数据时返回-1
+     */
+    private long addRows(HnswIndex index, Map<Long, ArticleMeta> articles, String condition, Object... args) {
+        long[] lastId = {-1};
+        jdbcTemplate.query("SELECT ae.article_id, a.source_id, a.pub_date, CAST(ae.vector AS text) AS vector " +
+                        "FROM article_extra ae JOIN articles a ON a.id = ae.article_id " +
+                        "WHERE ae.vector IS NOT NULL AND " + condition,
+                rs -> {
+                    long articleId = rs.getLong("article_id");
+                    long sourceId = rs.getLong("source_id");
+                    articles.put(articleId, new ArticleMeta(rs.wasNull() ? null : sourceId,
+                            rs.getTimestamp("pub_date").toLocalDateTime()));
+                    index.add(articleId, VectorSearchService.fromPgVectorLiteral(rs.getString("vector")));
+                    lastId[0] = articleId;
+                },
+                args);
+        return lastId[0];
+    }
+
+    /**
+     * 图结构与key映射之外，文章元数据按每项约120字节估算
+     */
+    private static long heapBytes(Snapshot current) {
+        return current.index().heapBytes() + 120L * current.articles().size();
+    }
+
+    private int windowDays() {
+        return Objects.requireNonNullElse(appConfig.getRecentVectorIndexDays(), 0);
+    }
+
+    private String servingModel() {
+        return EmbeddingVersionService.servingModel(appConfig);
+    }
+}
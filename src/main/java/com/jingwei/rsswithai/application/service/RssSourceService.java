@@ -35,6 +35,7 @@ public class RssSourceService {
     private final RssSourceRepository rssSourceRepository;
     private final ArticleRepository articleRepository;
     private final RssFetcherService rssFetcherService;
+    private final SearchResultCache searchResultCache;
 
     @Value("${collector.fetch.interval:30}")
     private int defaultFetchInterval;
@@ -125,6 +126,7 @@ public class RssSourceService {
         }
         articleRepository.detachSource(id);
         rssSourceRepository.deleteById(id);
+        searchResultCache.evictSource(id);
         log.info("RSS源删除成功: id={}", id);
     }
 
@@ -0,0 +1,250 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.Event.ConfigUpdateEvent;
+import com.jingwei.rsswithai.application.dto.ArticleFeedDTO;
+import com.jingwei.rsswithai.application.dto.SearchCacheStatsDTO;
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.interfaces.front.FrontArticleController;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 搜索结果缓存
+ * 按（归一化查询词, 范围, 源ID, 用户ID）缓存搜索结果，短TTL兜底；
+ * 源下有新文章或增强结果写入时按源失效，ALL范围的结果不区分用户、所有用户共享
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SearchResultCache {
+
+    private final AppConfig appConfig;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    /**
+     * 失效版本：清空、任意源、单个源、单个用户各自计数；加载前后该键所依赖的版本不一致说明期间有相关写入，
+     * 结果不入缓存，避免把旧结果写回；无关的源或用户失效不影响其他键的加载
+     */
+    private final AtomicLong clearVersion = new AtomicLong();
+    private final AtomicLong anySourceVersion = new AtomicLong();
+    private final Map<Long, AtomicLong> sourceVersions = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> userVersions = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存键，scope为null表示单源搜索（与用户无关）；userId仅在SUBSCRIBED/FAVORITE范围下参与
+     */
+    public record Key(String query, FrontArticleController.SearchScope scope, Long sourceId, Long userId) {
+
+        public static Key all(String query) {
+            return new Key(normalize(query), FrontArticleController.SearchScope.ALL, null, null);
+        }
+
+        public static Key source(String query, Long sourceId) {
+            return new Key(normalize(query), null, sourceId, null);
+        }
+
+        public static Key user(String query, FrontArticleController.SearchScope scope, Long userId) {
+            return new Key(normalize(query), scope, null, userId);
+        }
+
+        private static String normalize(String query) {
+            return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * @param sourceIds 结果依赖的源，null表示依赖全部源；空集合表示不随源失效（仅TTL和按用户失效）
+     */
+    private record Entry(List<ArticleFeedDTO> results, Set<Long> sourceIds, long expiresAt) {
+
+        boolean dependsOn(Long sourceId) {
+            return sourceIds == null || sourceIds.contains(sourceId);
+        }
+    }
+
+    /**
+     * 某个键所依赖的失效版本；各计数只增不减，依赖的源版本以求和表示
+     */
+    private record Version(long cleared, long sources, long user) {
+    }
+
+    /**
+     * 查询缓存，未命中时调用loader加载并缓存
+     *
+     * @param sourceIds 结果依赖的源集合；命中时若与缓存记录的不同（如用户订阅发生变化）视为未命中
+     */
+    public List<ArticleFeedDTO> get(Key key, Set<Long> sourceIds, Supplier<List<ArticleFeedDTO>> loader) {
+        int ttlSeconds = ttlSeconds();
+        if (ttlSeconds <= 0) {
+            return loader.get();
+        }
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() > System.currentTimeMillis()
+                && Objects.equals(entry.sourceIds(), sourceIds)) {
+            hits.incrementAndGet();
+            return entry.results();
+        }
+
+        misses.incrementAndGet();
+        Version startVersion = versionOf(key, sourceIds);
+        List<ArticleFeedDTO> results = loader.get();
+        if (versionOf(key, sourceIds).equals(startVersion)) {
+            ensureCapacity();
+            entries.put(key, new Entry(List.copyOf(results),
+                    sourceIds == null ? null : Set.copyOf(sourceIds),
+                    System.currentTimeMillis() + ttlSeconds * 1000L));
+        }
+        return results;
+    }
+
+    /**
+     * 源下文章或增强结果发生写入：失效ALL范围、该源的单源搜索及订阅了该源的SUBSCRIBED结果
+     */
+    public void evictSource(Long sourceId) {
+        if (sourceId == null) {
+            return;
+        }
+        Runnable bump = () -> {
+            anySourceVersion.incrementAndGet();
+            counter(sourceVersions, sourceId).incrementAndGet();
+        };
+        afterCommit(bump, () -> {
+            bump.run();
+            evictIf(entry -> entry.getValue().dependsOn(sourceId));
+        });
+    }
+
+    /**
+     * 用户收藏变化：失效该用户的个人范围结果
+     */
+    public void evictUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        Runnable bump = () -> counter(userVersions, userId).incrementAndGet();
+        afterCommit(bump, () -> {
+            bump.run();
+            evictIf(entry -> userId.equals(entry.getKey().userId()));
+        });
+    }
+
+    public void clear() {
+        clearVersion.incrementAndGet();
+        int size = entries.size();
+        entries.clear();
+        invalidations.addAndGet(size);
+    }
+
+    public SearchCacheStatsDTO getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        return new SearchCacheStatsDTO(
+                hitCount,
+                missCount,
+                total == 0 ? 0 : (double) hitCount / total,
+                invalidations.get(),
+                entries.size(),
+                maxEntries(),
+                ttlSeconds());
+    }
+
+    /**
+     * 配置变化（向量存储方式、模型等）可能影响结果，直接清空
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onConfigUpdateEvent(ConfigUpdateEvent event) {
+        clear();
+        log.info("Search result cache cleared after config update");
+    }
+
+    private void evictIf(Predicate<Map.Entry<Key, Entry>> predicate) {
+        entries.entrySet().removeIf(entry -> {
+            if (predicate.test(entry)) {
+                invalidations.incrementAndGet();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void ensureCapacity() {
+        int maxEntries = maxEntries();
+        if (entries.size() < maxEntries) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(entry -> entry.getValue().expiresAt() <= now);
+        while (entries.size() >= maxEntries) {
+            entries.entrySet().stream()
+                    .min(Map.Entry.comparingByValue(Comparator.comparingLong(Entry::expiresAt)))
+                    .ifPresent(oldest -> entries.remove(oldest.getKey()));
+        }
+    }
+
+    private Version versionOf(Key key, Set<Long> sourceIds) {
+        long sources;
+        if (sourceIds == null) {
+            sources = anySourceVersion.get();
+        } else {
+            sources = 0;
+            for (Long sourceId : sourceIds) {
+                AtomicLong version = sourceVersions.get(sourceId);
+                sources += version == null ? 0 : version.get();
+            }
+        }
+        AtomicLong user = key.userId() == null ? null : userVersions.get(key.userId());
+        return new Version(clearVersion.get(), sources, user == null ? 0 : user.get());
+    }
+
+    private static AtomicLong counter(Map<Long, AtomicLong> versions, Long id) {
+        return versions.computeIfAbsent(id, key -> new AtomicLong());
+    }
+
+    /**
+     * @param bump   提交前先推进相关版本，阻止进行中的加载写入缓存
+     * @param action 提交后再推进一次并删除，避免提交前开始的加载读到旧数据后写回
+     */
+    private void afterCommit(Runnable bump, Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump.run();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private int ttlSeconds() {
+        Integer ttl = appConfig.getSearchCacheTtlSeconds();
+        return ttl == null ? 0 : ttl;
+    }
+
+    private int maxEntries() {
+        Integer max = appConfig.getSearchCacheMaxEntries();
+        return max == null || max <= 0 ? 1000 : max;
+    }
+}
@@ -11,12 +11,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -31,7 +34,8 @@ public class SettingsService {
             "trends_word_cloud_prompt",
             "subscription_topic_threshold",
             "trends_hot_events_map_prompt",
-            "trends_hot_events_reduce_prompt");
+            "trends_hot_events_reduce_prompt",
+            "embedding_serving_model");
 
     private final SettingRepository settingRepository;
     private final AppConfig appConfig;
@@ -95,6 +99,8 @@ public class SettingsService {
 
     @Transactional
     public void updateSettings(Map<String, String> newSettings) {
+        // 只把实际保存的配置写入内存，跳过的不可编辑项不能绕过数据库改到AppConfig
+        Map<String, String> saved = new LinkedHashMap<>();
         for (Map.Entry<String, String> entry : newSettings.entrySet()) {
             String key = entry.getKey();
             String value = entry.getValue();
@@ -108,11 +114,34 @@ public class SettingsService {
                     .orElse(new Setting(key, value, null));
             setting.setValue(value);
             settingRepository.save(setting);
+            saved.put(key, value);
         }
-        updateAppConfig(newSettings);
+        updateAppConfig(saved);
         eventPublisher.publishEvent(new ConfigUpdateEvent(this));
     }
 
+    /**
+     * 保存由系统维护的配置：不发布ConfigUpdateEvent；处于事务中时提交后才更新内存配置
+     */
+    @Transactional
+    public void saveInternalSetting(String key, String value) {
+        Setting setting = settingRepository.findByKey(key)
+                .orElse(new Setting(key, value, null));
+        setting.setValue(value);
+        settingRepository.save(setting);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    updateAppConfig(Map.of(key, value));
+                }
+            });
+        } else {
+            updateAppConfig(Map.of(key, value));
+        }
+    }
+
     private void updateAppConfig(Map<String, String> settings) {
         Field[] fields = AppConfig.class.getDeclaredFields();
         for (Field field : fields) {
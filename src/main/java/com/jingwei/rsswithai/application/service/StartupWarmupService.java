@@ -0,0 +1,125 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.dto.WarmupReportDTO;
+import com.jingwei.rsswithai.utils.ChineseSegmentUtils;
+import com.jingwei.rsswithai.utils.RssUtils;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 启动预热
+ * ApplicationRunner在ApplicationReadyEvent（就绪状态切换为ACCEPTING_TRAFFIC）之前同步执行，
+ * 预热完成后应用才对外报告就绪：加载jieba词典与共享TF-IDF分析器、初始化HTML转换器、填满连接池、
+ * 用pg_prewarm把HNSW/trigram/全文索引读入shared_buffers。单步失败只记录，不阻止启动
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StartupWarmupService implements ApplicationRunner {
+
+    private static final int DEFAULT_POOL_WARM_CONNECTIONS = 10;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile WarmupReportDTO report = new WarmupReportDTO(false, 0, null, List.of());
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long begin = System.currentTimeMillis();
+        List<WarmupReportDTO.Step> steps = new ArrayList<>();
+        steps.add(step("jieba", () -> {
+            ChineseSegmentUtils.warmUp();
+            return null;
+        }));
+        steps.add(step("html-converter", () -> {
+            RssUtils.warmUp();
+            return null;
+        }));
+        steps.add(step("jdbc-pool", this::primeConnectionPool));
+        steps.add(step("pg-prewarm", this::prewarmIndexes));
+
+        long total = System.currentTimeMillis() - begin;
+        report = new WarmupReportDTO(true, total, LocalDateTime.now(), List.copyOf(steps));
+        log.info("Startup warm-up finished in {} ms: {}", total, steps.stream()
+                .map(s -> s.name() + "=" + s.millis() + "ms" + (s.success() ? "" : "(failed)"))
+                .toList());
+    }
+
+    public WarmupReportDTO getReport() {
+        return report;
+    }
+
+    private WarmupReportDTO.Step step(String name, Callable<String> action) {
+        long begin = System.currentTimeMillis();
+        try {
+            String detail = action.call();
+            return new WarmupReportDTO.Step(name, System.currentTimeMillis() - begin, true, detail);
+        } catch (Exception e) {
+            log.warn("Warm-up step {} failed: {}", name, e.getMessage());
+            return new WarmupReportDTO.Step(name, System.currentTimeMillis() - begin, false, e.getMessage());
+        }
+    }
+
+    /**
+     * 并发借出最小空闲数量的连接，迫使连接池立即建立物理连接，而不是等第一批请求到来时逐个建立
+     */
+    private String primeConnectionPool() throws Exception {
+        int connections = dataSource instanceof HikariDataSource hikari
+                ? Math.max(1, Math.min(hikari.getMinimumIdle(), hikari.getMaximumPoolSize()))
+                : DEFAULT_POOL_WARM_CONNECTIONS;
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        return connection.isValid(5);
+                    }
+                }));
+            }
+        }
+        int valid = 0;
+        for (Future<Boolean> future : futures) {
+            if (Boolean.TRUE.equals(future.get())) {
+                valid++;
+            }
+        }
+        return valid + "/" + connections + " connections";
+    }
+
+    /**
+     * 索引在首次启动时由各自的初始化器在就绪后创建，因此这里只预热已经存在的索引
+     */
+    private String prewarmIndexes() {
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_prewarm");
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE schemaname = current_schema() " +
+                        "AND tablename IN ('articles', 'article_extra', 'article_search') " +
+                        "AND (indexname LIKE '%\\_trgm\\_gin' OR indexname LIKE '%\\_hnsw' " +
+                        "OR indexname LIKE 'idx\\_article\\_search\\_document\\_%')",
+                String.class);
+        long blocks = 0;
+        for (String index : indexes) {
+            Long loaded = jdbcTemplate.queryForObject("SELECT pg_prewarm(CAST(? AS regclass))", Long.class,
+                    index);
+            blocks += loaded == null ? 0 : loaded;
+            log.info("pg_prewarm {}: {} blocks", index, loaded);
+        }
+        return indexes.size() + " indexes, " + blocks + " blocks";
+    }
+}
@@ -1,16 +1,12 @@
 package com.jingwei.rsswithai.application.service;
 
 import com.jingwei.rsswithai.application.dto.*;
-import com.jingwei.rsswithai.config.AppConfig;
 import com.jingwei.rsswithai.domain.model.*;
 import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
 import com.jingwei.rsswithai.domain.repository.RssSourceRepository;
 import com.jingwei.rsswithai.domain.repository.SubscriptionRepository;
 import com.jingwei.rsswithai.domain.repository.TopicRepository;
-import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.Query;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -18,12 +14,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -35,16 +32,23 @@ public class SubscriptionService {
 
     private static final int DEFAULT_FEED_SIZE = 20;
     private static final int MAX_FEED_SIZE = 100;
+    private static final int MAX_UNREAD_SCAN_ROUNDS = 10;
+    private static final int MARK_ALL_READ_BATCH = 1000;
+    private static final int MARK_ALL_READ_LIMIT = 10000;
 
     private final RssSourceRepository rssSourceRepository;
     private final SubscriptionRepository subscriptionRepository;
     private final TopicRepository topicRepository;
-    private final ArticleExtraRepository articleExtraRepository;
     private final LlmProcessService llmProcessService;
-    private final AppConfig appConfig;
-
-    @PersistenceContext
-    private EntityManager entityManager;
+    private final EmbeddingVersionService embeddingVersionService;
+    private final RecentVectorIndexService recentVectorIndexService;
+    private final TopicMatchService topicMatchService;
+    private final TimelineCache timelineCache;
+    private final TopicCanonicalizer topicCanonicalizer;
+    private final ReadStateService readStateService;
+    private final SubscriptionSnapshotCache subscriptionSnapshotCache;
+    private final FeedNotificationService feedNotificationService;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
     public Page<UserRssSourceDTO> listRssSources(Long userId, SourceCategory category, Pageable pageable) {
         Pageable sortedPageable = PageRequest.of(
@@ -54,16 +58,9 @@ public class SubscriptionService {
                         Sort.Order.desc("latestArticlePubDate").nullsLast(),
                         Sort.Order.desc("id")));
 
-        Map<Long, Long> subscriptionMap;
-        if (userId != null) {
-            subscriptionMap = subscriptionRepository
-                    .findByUserIdAndTypeWithSource(userId, SubscriptionType.RSS).stream()
-                    .filter(sub -> sub.getSource() != null)
-                    .collect(Collectors.toMap(sub -> sub.getSource().getId(), Subscription::getId, (a, b) -> a,
-                            LinkedHashMap::new));
-        } else {
-            subscriptionMap = Collections.emptyMap();
-        }
+        Map<Long, Long> subscriptionMap = userId != null
+                ? subscriptionSnapshotCache.get(userId).subscriptionIdBySource()
+                : Collections.emptyMap();
 
         Page<RssSource> page = category != null
                 ? rssSourceRepository.findByStatusAndCategory(SourceStatus.ENABLED, category, sortedPageable)
@@ -101,6 +98,17 @@ public class SubscriptionService {
         Subscription subscription = subscriptionRepository.findByIdAndUserId(subscriptionId, userId)
                 .orElseThrow(() -> new EntityNotFoundException("Subscription not found: " + subscriptionId));
         subscriptionRepository.delete(subscription);
+        onSubscriptionsChanged(userId);
+    }
+
+    /**
+     * 订阅变化：失效订阅快照与时间线，更新推送连接的订阅索引（均在提交后生效）
+     * 先失效快照：时间线重建依赖快照，反过来会在两次失效之间按旧快照重建并写回时间线缓存
+     */
+    private void onSubscriptionsChanged(Long userId) {
+        subscriptionSnapshotCache.evictUser(userId);
+        timelineCache.evictUser(userId);
+        feedNotificationService.onSubscriptionChanged(userId);
     }
 
     @Transactional(readOnly = true)
@@ -170,43 +178,171 @@ public class SubscriptionService {
     }
 
     @Transactional(readOnly = true)
-    public List<ArticleFeedDTO> getFeed(Long userId, Long subscriptionId, String cursor, Integer size) {
-        FeedCursor feedCursor = parseCursor(cursor);
+    public List<ArticleFeedDTO> getFeed(Long userId, Long subscriptionId, String cursor, Integer size,
+            boolean unreadOnly) {
+        FeedCursor feedCursor = FeedCursor.parse(cursor);
         int pageSize = (size == null || size <= 0) ? DEFAULT_FEED_SIZE : Math.min(size, MAX_FEED_SIZE);
+        if (!unreadOnly) {
+            return fetchFeed(userId, subscriptionId, feedCursor, pageSize);
+        }
+
+        // 按页取出后用已读位图过滤，直到凑满一页或扫描达到上限；返回不足一页时客户端以最后一条为游标继续
+        List<ArticleFeedDTO> result = new ArrayList<>(pageSize);
+        FeedCursor position = feedCursor;
+        for (int round = 0; round < MAX_UNREAD_SCAN_ROUNDS && result.size() < pageSize; round++) {
+            List<ArticleFeedDTO> page = fetchFeed(userId, subscriptionId, position, MAX_FEED_SIZE);
+            Set<Long> unread = new HashSet<>(readStateService.filterUnread(userId,
+                    page.stream().map(ArticleFeedDTO::id).toList()));
+            for (ArticleFeedDTO feed : page) {
+                if (unread.contains(feed.id()) && result.size() < pageSize) {
+                    result.add(feed);
+                }
+            }
+            if (page.size() < MAX_FEED_SIZE || page.getLast().pubDate() == null) {
+                break;
+            }
+            position = new FeedCursor(page.getLast().pubDate(), page.getLast().id());
+        }
+        return result;
+    }
+
+    /**
+     * 把时间线中位于游标处及更早的文章标记为已读（最多MARK_ALL_READ_LIMIT篇）
+     *
+     * @param cursor 用户已看到的最新一条的游标（pubDate,id），为空时表示当前时刻
+     * @return 新标记的文章数
+     */
+    @Transactional(readOnly = true)
+    public int markFeedRead(Long userId, Long subscriptionId, String cursor) {
+        FeedCursor feedCursor = FeedCursor.parse(cursor);
+        FeedScope scope = resolveScope(userId, subscriptionId);
+        if (scope.isEmpty()) {
+            return 0;
+        }
+        // 查询游标不含自身，ID加一使游标处的文章也被标记
+        FeedCursor position = new FeedCursor(feedCursor.pubDate(),
+                feedCursor.id() == Long.MAX_VALUE ? Long.MAX_VALUE : feedCursor.id() + 1);
+        List<Long> articleIds = new ArrayList<>();
+        while (articleIds.size() < MARK_ALL_READ_LIMIT) {
+            List<ArticleFeedDTO> page = queryHybridFeed(scope.sourceIds(), scope.topics(), position.pubDate(),
+                    position.id(), MARK_ALL_READ_BATCH, false);
+            page.forEach(feed -> articleIds.add(feed.id()));
+            if (page.size() < MARK_ALL_READ_BATCH || page.getLast().pubDate() == null) {
+                break;
+            }
+            position = new FeedCursor(page.getLast().pubDate(), page.getLast().id());
+        }
+        return readStateService.markRead(userId, articleIds);
+    }
+
+    private List<ArticleFeedDTO> fetchFeed(Long userId, Long subscriptionId, FeedCursor feedCursor, int pageSize) {
+        if (subscriptionId == null && timelineCache.isEnabled()) {
+            List<ArticleFeedDTO> cached = readTimeline(userId, feedCursor, pageSize);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        FeedScope scope = resolveScope(userId, subscriptionId);
+        if (scope.isEmpty()) {
+            return List.of();
+        }
+        return executeHybridFeed(scope.sourceIds(), scope.topics(), feedCursor.pubDate(), feedCursor.id(),
+                pageSize);
+    }
 
-        List<Long> sourceIds = new ArrayList<>();
-        List<Topic> topics = new ArrayList<>();
+    /**
+     * 单个订阅或全部订阅对应的RSS源与主题，取自订阅快照
+     */
+    private FeedScope resolveScope(Long userId, Long subscriptionId) {
+        SubscriptionSnapshotCache.Snapshot snapshot = subscriptionSnapshotCache.get(userId);
+        List<Long> sourceIds;
+        List<SubscriptionSnapshotCache.TopicRef> topicRefs;
 
         if (subscriptionId != null) {
-            Subscription subscription = subscriptionRepository.findByIdAndUserId(subscriptionId, userId)
+            SubscriptionSnapshotCache.Entry entry = snapshot.find(subscriptionId)
                     .orElseThrow(() -> new EntityNotFoundException("Subscription not found: " + subscriptionId));
-            if (subscription.getType() == SubscriptionType.RSS) {
-                if (subscription.getSource() != null) {
-                    sourceIds.add(subscription.getSource().getId());
-                }
-            } else if (subscription.getType() == SubscriptionType.TOPIC) {
-                if (subscription.getTopic() != null && subscription.getTopic().getVector() != null) {
-                    topics.add(subscription.getTopic());
-                }
-            }
+            sourceIds = entry.sourceId() != null ? List.of(entry.sourceId()) : List.of();
+            topicRefs = entry.topic() != null ? List.of(entry.topic()) : List.of();
         } else {
-            for (Subscription subscription : subscriptionRepository.findByUserIdWithDetails(userId)) {
-                if (subscription.getType() == SubscriptionType.RSS && subscription.getSource() != null) {
-                    sourceIds.add(subscription.getSource().getId());
-                } else if (subscription.getType() == SubscriptionType.TOPIC && subscription.getTopic() != null
-                        && subscription.getTopic().getVector() != null) {
-                    topics.add(subscription.getTopic());
-                }
-            }
+            sourceIds = snapshot.sourceIds();
+            topicRefs = snapshot.topics();
         }
 
-        if (sourceIds.isEmpty() && topics.isEmpty()) {
+        List<Topic> topics = topicRefs.stream()
+                .filter(topic -> topic.vector() != null)
+                .map(SubscriptionSnapshotCache.TopicRef::toTopic)
+                .toList();
+        return new FeedScope(sourceIds, topics);
+    }
+
+    /**
+     * 从用户时间线缓存读取"全部订阅"的一页，未缓存时先加载
+     *
+     * @return 缓存无法提供这一页（加载中、游标超出缓存范围）时返回null，由调用方查询数据库
+     */
+    private List<ArticleFeedDTO> readTimeline(Long userId, FeedCursor feedCursor, int pageSize) {
+        TimelineCache.Timeline timeline = timelineCache.get(userId);
+        if (timeline == null) {
+            timeline = loadTimeline(userId);
+            if (timeline == null) {
+                return null;
+            }
+        }
+        List<Long> ids = timeline.page(feedCursor.pubDate(), feedCursor.id(), pageSize);
+        if (ids == null) {
+            return null;
+        }
+        if (ids.isEmpty()) {
             return List.of();
         }
+        Map<Long, ArticleFeedDTO> feeds = namedParameterJdbcTemplate.query(
+                        "SELECT " + ArticleFeedRowMapper.ARTICLE_COLUMNS + ", " + ArticleFeedRowMapper.EXTRA_COLUMNS +
+                                " FROM articles a LEFT JOIN article_extra ae ON ae.article_id = a.id " +
+                                "WHERE a.id IN (:ids)",
+                        new MapSqlParameterSource("ids", ids), ArticleFeedRowMapper.INSTANCE).stream()
+                .collect(Collectors.toMap(ArticleFeedDTO::id, feed -> feed));
+        List<ArticleFeedDTO> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            // 缓存中的文章可能已被删除
+            ArticleFeedDTO feed = feeds.get(id);
+            if (feed != null) {
+                result.add(feed);
+            }
+        }
+        return result;
+    }
 
-        Set<Long> dedupSourceIds = new LinkedHashSet<>(sourceIds);
-        return executeHybridFeed(new ArrayList<>(dedupSourceIds), topics, feedCursor.cursorTime(),
-                feedCursor.cursorId(), pageSize);
+    /**
+     * 注册并加载用户时间线：先注册使加载期间的扇出被暂存，再查询最新的若干条
+     *
+     * @return 其他请求正在加载，或有主题尚未进入匹配表时返回null
+     */
+    private TimelineCache.Timeline loadTimeline(Long userId) {
+        FeedScope scope = resolveScope(userId, null);
+        // 尚未进入主题匹配表的主题没有入库扇出，缓存会漏掉其新文章
+        if (!scope.topics().stream().allMatch(topicMatchService::isReady)) {
+            return null;
+        }
+        TimelineCache.Timeline timeline = timelineCache.register(userId, scope.sourceIds(),
+                scope.topics().stream().map(Topic::getId).toList());
+        if (timeline == null) {
+            return null;
+        }
+        try {
+            List<TimelineCache.Entry> entries = new ArrayList<>();
+            if (!scope.isEmpty()) {
+                for (ArticleFeedDTO dto : queryHybridFeed(scope.sourceIds(), scope.topics(), LocalDateTime.now(),
+                        Long.MAX_VALUE, timeline.capacity(), false)) {
+                    entries.add(new TimelineCache.Entry(dto.id(), dto.pubDate()));
+                }
+            }
+            timelineCache.load(timeline, entries);
+            return timeline;
+        } catch (RuntimeException e) {
+            timelineCache.discard(userId, timeline);
+            throw e;
+        }
     }
 
     @Transactional
@@ -221,28 +357,60 @@ public class SubscriptionService {
             throw new IllegalStateException("Topic vector is unavailable");
         }
 
-        FeedCursor feedCursor = parseCursor(cursor);
+        FeedCursor feedCursor = FeedCursor.parse(cursor);
         int pageSize = (size == null || size <= 0) ? DEFAULT_FEED_SIZE : Math.min(size, MAX_FEED_SIZE);
-        return executeHybridFeed(List.of(), List.of(topic), feedCursor.cursorTime(), feedCursor.cursorId(), pageSize);
+        return executeHybridFeed(List.of(), List.of(topic), feedCursor.pubDate(), feedCursor.id(), pageSize);
     }
 
+    /**
+     * 依次按原始内容（规范化之前创建的主题）、规范化内容、已记录的别名查找；
+     * 都没有时生成向量，与已有主题足够接近则链接到该主题，否则以规范化内容新建
+     */
     private Topic getOrCreateTopic(String content) {
+        String normalized = TopicCanonicalizer.normalize(content);
+        if (normalized.isBlank()) {
+            throw new IllegalArgumentException("Topic content cannot be blank");
+        }
         return topicRepository.findByContent(content)
-                .orElseGet(() -> createNewTopic(content));
+                .or(() -> topicRepository.findByContent(normalized))
+                .or(() -> topicCanonicalizer.findAlias(normalized).flatMap(topicRepository::findById))
+                .orElseGet(() -> createOrLinkTopic(normalized));
     }
 
-    private Topic createNewTopic(String content) {
-        float[] vector = llmProcessService.generateVector(content);
+    private Topic createOrLinkTopic(String content) {
+        String servingModel = embeddingVersionService.getServingModel();
+        float[] vector = llmProcessService.generateVector(content, servingModel);
         if (vector == null) {
             throw new IllegalStateException("Failed to generate topic vector");
         }
 
+        Optional<Topic> canonical = topicCanonicalizer.findCanonical(vector, servingModel)
+                .flatMap(nearest -> topicRepository.findById(nearest.topicId()).map(topic -> {
+                    topicCanonicalizer.recordAlias(content, nearest);
+                    log.info("Topic '{}' linked to existing topic {} '{}' (distance {})", content, topic.getId(),
+                            topic.getContent(), nearest.distance());
+                    return topic;
+                }));
+        return canonical.orElseGet(() -> createNewTopic(content, vector, servingModel));
+    }
+
+    private Topic createNewTopic(String content, float[] vector, String servingModel) {
         Topic topic = Topic.builder()
                 .content(content)
                 .vector(vector)
+                .vectorModel(servingModel)
                 .build();
         try {
-            return topicRepository.save(topic);
+            Topic saved = topicRepository.save(topic);
+            topicMatchService.onTopicCreated(saved);
+            // 向量模型迁移期间同时写入目标模型的向量，失败时由后台回填
+            embeddingVersionService.getPendingModel().ifPresent(model -> {
+                float[] pendingVector = llmProcessService.generateVector(content, model);
+                if (pendingVector != null) {
+                    embeddingVersionService.storePendingTopicVector(saved.getId(), pendingVector, model);
+                }
+            });
+            return saved;
         } catch (DataIntegrityViolationException e) {
             log.warn("Topic concurrent creation detected for content: {}", content);
             return topicRepository.findByContent(content)
@@ -263,6 +431,7 @@ public class SubscriptionService {
                             .type(SubscriptionType.RSS)
                             .source(source)
                             .build();
+                    onSubscriptionsChanged(userId);
                     return SubscriptionDTO.from(subscriptionRepository.save(subscription));
                 });
     }
@@ -279,121 +448,137 @@ public class SubscriptionService {
                             .type(SubscriptionType.TOPIC)
                             .topic(topic)
                             .build();
+                    onSubscriptionsChanged(userId);
                     return SubscriptionDTO.from(subscriptionRepository.save(subscription));
                 });
     }
 
+    /**
+     * 匹配表已覆盖的主题走topic_matches的索引游标读取；其余主题（刚创建、回填中）先查近期向量索引，再按向量阈值扫描
+     */
     private List<ArticleFeedDTO> executeHybridFeed(List<Long> sourceIds,
             List<Topic> topics,
             LocalDateTime cursorTime,
             long cursorId,
             int size) {
+        return queryHybridFeed(sourceIds, topics, cursorTime, cursorId, size, true);
+    }
+
+    /**
+     * @param withExtra 是否同时查询增强结果（单查询LEFT JOIN article_extra）
+     */
+    private List<ArticleFeedDTO> queryHybridFeed(List<Long> sourceIds,
+            List<Topic> topics,
+            LocalDateTime cursorTime,
+            long cursorId,
+            int size,
+            boolean withExtra) {
+        List<Topic> matchedTopics = topics.stream().filter(topicMatchService::isReady).toList();
+        List<Topic> scanTopics = topics.stream().filter(topic -> !topicMatchService.isReady(topic)).toList();
+        List<Double> thresholds = scanTopics.stream().map(topicMatchService::threshold).toList();
+        RecentVectorIndexService.Recall recent = scanTopics.isEmpty() ? null
+                : recentVectorIndexService.matchTopics(scanTopics.stream().map(Topic::getVector).toList(),
+                        thresholds, cursorTime, cursorId, size);
+
+        List<ArticleFeedDTO> result;
+        if (recent == null) {
+            result = queryFeed(sourceIds, matchedTopics, List.of(), scanTopics, thresholds, null, cursorTime,
+                    cursorId, size, withExtra);
+        } else {
+            List<Long> recentIds = recent.hits().stream()
+                    .map(ArticleExtraRepository.IdWithDistance::getArticleId)
+                    .toList();
+            // 先不带向量条件查询：整页都不早于窗口起点时，窗口之前的主题命中不可能排进本页
+            result = queryFeed(sourceIds, matchedTopics, recentIds, List.of(), thresholds, null, cursorTime,
+                    cursorId, size, withExtra);
+            if (result.size() < size || result.getLast().pubDate() == null
+                    || result.getLast().pubDate().isBefore(recent.coverageStart())) {
+                result = queryFeed(sourceIds, matchedTopics, recentIds, scanTopics, thresholds,
+                        recent.coverageStart(), cursorTime, cursorId, size, withExtra);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param matchedTopics  从主题匹配表读取的主题，每个主题一个按索引有序、带LIMIT的分支
+     * @param recentTopicIds 进程内索引命中的窗口内主题文章
+     * @param topics         需要在数据库中按向量阈值匹配的主题
+     * @param olderThan      不为空时，数据库向量匹配只覆盖该时间之前的文章
+     * @param withExtra      为true时对排序截断后的一页LEFT JOIN article_extra，一次查询得到带增强结果的DTO
+     */
+    private List<ArticleFeedDTO> queryFeed(List<Long> sourceIds,
+            List<Topic> matchedTopics,
+            List<Long> recentTopicIds,
+            List<Topic> topics,
+            List<Double> thresholds,
+            LocalDateTime olderThan,
+            LocalDateTime cursorTime,
+            long cursorId,
+            int size,
+            boolean withExtra) {
+        String columns = "SELECT " + ArticleFeedRowMapper.ARTICLE_COLUMNS + " ";
+        String cursorCondition = "(a.pub_date < :cursorTime OR (a.pub_date = :cursorTime AND a.id < :cursorId))";
         List<String> branches = new ArrayList<>();
         if (!sourceIds.isEmpty()) {
-            branches.add(
-                    "SELECT a.id, a.source_id, a.source_name, a.title, a.link, a.cover_image, a.pub_date, a.word_count "
-                            +
-                            "FROM articles a WHERE a.source_id IN (:sourceIds) " +
-                            "AND (a.pub_date < :cursorTime OR (a.pub_date = :cursorTime AND a.id < :cursorId))");
+            branches.add(columns + "FROM articles a WHERE a.source_id IN (:sourceIds) AND " + cursorCondition);
+        }
+        for (int i = 0; i < matchedTopics.size(); i++) {
+            branches.add("(" + columns + "FROM topic_matches tm JOIN articles a ON a.id = tm.article_id " +
+                    "WHERE tm.topic_id = :matchedTopic" + i + " AND tm.distance < :matchedThreshold" + i +
+                    " AND (tm.pub_date < :cursorTime OR (tm.pub_date = :cursorTime AND tm.article_id < :cursorId)) " +
+                    "ORDER BY tm.pub_date DESC, tm.article_id DESC LIMIT :size)");
+        }
+        if (!recentTopicIds.isEmpty()) {
+            branches.add(columns + "FROM articles a WHERE a.id IN (:recentTopicIds) AND " + cursorCondition);
         }
         if (!topics.isEmpty()) {
             String vectorConditions = IntStream.range(0, topics.size())
                     .mapToObj(i -> "(ae.vector <=> CAST(:vector" + i + " AS vector)) < :threshold" + i)
                     .collect(Collectors.joining(" OR "));
-            branches.add(
-                    "SELECT a.id, a.source_id, a.source_name, a.title, a.link, a.cover_image, a.pub_date, a.word_count "
-                            +
-                            "FROM articles a JOIN article_extra ae ON a.id = ae.article_id WHERE (" + vectorConditions
-                            + ") " +
-                            "AND (a.pub_date < :cursorTime OR (a.pub_date = :cursorTime AND a.id < :cursorId))");
+            branches.add(columns + "FROM articles a JOIN article_extra ae ON a.id = ae.article_id WHERE (" +
+                    vectorConditions + ") AND " + cursorCondition +
+                    (olderThan != null ? " AND a.pub_date < :olderThan" : ""));
         }
 
         if (branches.isEmpty()) {
             return List.of();
         }
 
-        String sql = "SELECT * FROM (" + String.join(" UNION ", branches) + ") AS feed " +
-                "ORDER BY pub_date DESC, id DESC";
-
-        Query query = entityManager.createNativeQuery(sql);
-        query.setParameter("cursorTime", Timestamp.valueOf(cursorTime));
-        query.setParameter("cursorId", cursorId);
-        query.setMaxResults(size);
+        String page = "SELECT * FROM (" + String.join(" UNION ", branches) + ") AS feed " +
+                "ORDER BY pub_date DESC, id DESC LIMIT :size";
+        String sql = withExtra
+                ? "SELECT " + ArticleFeedRowMapper.ARTICLE_COLUMNS + ", " + ArticleFeedRowMapper.EXTRA_COLUMNS +
+                " FROM (" + page + ") AS a LEFT JOIN article_extra ae ON ae.article_id = a.id " +
+                "ORDER BY a.pub_date DESC, a.id DESC"
+                : page;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cursorTime", Timestamp.valueOf(cursorTime))
+                .addValue("cursorId", cursorId)
+                .addValue("size", size);
         if (!sourceIds.isEmpty()) {
-            query.setParameter("sourceIds", sourceIds);
+            params.addValue("sourceIds", sourceIds);
+        }
+        for (int i = 0; i < matchedTopics.size(); i++) {
+            params.addValue("matchedTopic" + i, matchedTopics.get(i).getId());
+            params.addValue("matchedThreshold" + i, topicMatchService.threshold(matchedTopics.get(i)));
+        }
+        if (!recentTopicIds.isEmpty()) {
+            params.addValue("recentTopicIds", recentTopicIds);
         }
         if (!topics.isEmpty()) {
-            double baseThreshold = appConfig.getTopicThreshold();
             for (int i = 0; i < topics.size(); i++) {
-                Topic topic = topics.get(i);
-                double threshold = baseThreshold;
-                if (topic.getContent() != null && topic.getContent().length() < 16) {
-                    threshold += 0.5;
-                }
-                query.setParameter("threshold" + i, threshold);
-                query.setParameter("vector" + i, toPgVectorLiteral(topic.getVector()));
+                params.addValue("threshold" + i, thresholds.get(i));
+                params.addValue("vector" + i, toPgVectorLiteral(topics.get(i).getVector()));
             }
-        }
-
-        List<?> rows = query.getResultList();
-        List<ArticleFeedDTO> result = new ArrayList<>(rows.size());
-        for (Object row : rows) {
-            if (row instanceof Object[] columns) {
-                result.add(mapRow(columns));
+            if (olderThan != null) {
+                params.addValue("olderThan", Timestamp.valueOf(olderThan));
             }
         }
 
-        List<Long> articleIds = result.stream().map(ArticleFeedDTO::id).toList();
-        if (!articleIds.isEmpty()) {
-            Map<Long, ArticleExtraDTO> extraMap = articleExtraRepository.findByArticleIdIn(articleIds).stream()
-                    .map(ArticleExtraDTO::from)
-                    .collect(Collectors.toMap(ArticleExtraDTO::articleId, e -> e));
-
-            result = result.stream()
-                    .map(dto -> ArticleFeedDTO.of(dto.id(), dto.sourceId(), dto.sourceName(), dto.title(), dto.link(),
-                            dto.coverImage(), dto.pubDate(), dto.wordCount(), extraMap.get(dto.id())))
-                    .toList();
-        }
-
-        return result;
-    }
-
-    private FeedCursor parseCursor(String cursor) {
-        if (cursor == null || cursor.isBlank()) {
-            return new FeedCursor(LocalDateTime.now(), Long.MAX_VALUE);
-        }
-        String[] parts = cursor.split(",", 2);
-        if (parts.length != 2) {
-            throw new IllegalArgumentException("Invalid cursor format");
-        }
-        try {
-            LocalDateTime cursorTime = LocalDateTime.parse(parts[0]);
-            long cursorId = Long.parseLong(parts[1]);
-            return new FeedCursor(cursorTime, cursorId);
-        } catch (DateTimeParseException | NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid cursor format", e);
-        }
-    }
-
-    private ArticleFeedDTO mapRow(Object[] row) {
-        Long id = row[0] != null ? ((Number) row[0]).longValue() : null;
-        Long sourceId = row[1] != null ? ((Number) row[1]).longValue() : null;
-        String sourceName = row[2] != null ? row[2].toString() : null;
-        String title = row[3] != null ? row[3].toString() : null;
-        String link = row[4] != null ? row[4].toString() : null;
-        String coverImage = row[5] != null ? row[5].toString() : null;
-
-        LocalDateTime pubDate = null;
-        Object dateObj = row[6];
-        if (dateObj instanceof Timestamp timestamp) {
-            pubDate = timestamp.toLocalDateTime();
-        } else if (dateObj instanceof LocalDateTime time) {
-            pubDate = time;
-        }
-
-        Long wordCount = row.length > 7 && row[7] != null ? ((Number) row[7]).longValue() : null;
-
-        return ArticleFeedDTO.of(id, sourceId, sourceName, title, link, coverImage, pubDate, wordCount);
+        return namedParameterJdbcTemplate.query(sql, params,
+                withExtra ? ArticleFeedRowMapper.INSTANCE : ArticleFeedRowMapper.WITHOUT_EXTRA);
     }
 
     private String toPgVectorLiteral(float[] vector) {
@@ -409,6 +594,10 @@ public class SubscriptionService {
         return sb.toString();
     }
 
-    private record FeedCursor(LocalDateTime cursorTime, long cursorId) {
+    private record FeedScope(List<Long> sourceIds, List<Topic> topics) {
+
+        boolean isEmpty() {
+            return sourceIds.isEmpty() && topics.isEmpty();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.domain.model.Subscription;
+import com.jingwei.rsswithai.domain.model.SubscriptionType;
+import com.jingwei.rsswithai.domain.model.Topic;
+import com.jingwei.rsswithai.domain.repository.SubscriptionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户订阅快照缓存
+ * 每个用户一份不可变快照（订阅的RSS源ID、主题ID与向量），订阅列表、时间线、订阅内搜索与词云共用，
+ * 不再各自按不同的查询重新加载订阅；创建/删除订阅时删除（提交后再删除一次，避免提交前并发加载写入旧快照），
+ * 向量模型切换后主题向量会被整体替换，快照记录加载时的向量模型，不一致时重新加载。用户数有上限，超出时淘汰最久未访问的
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SubscriptionSnapshotCache {
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final EmbeddingVersionService embeddingVersionService;
+    private final AppConfig appConfig;
+    private final Map<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 快照中的主题，向量为加载时的副本
+     */
+    public record TopicRef(Long id, String content, float[] vector, String vectorModel) {
+
+        /**
+         * 供按Topic计算阈值、检索的方法使用的游离实体，每次返回新实例，修改不影响快照
+         */
+        public Topic toTopic() {
+            return Topic.builder()
+                    .id(id)
+                    .content(content)
+                    .vector(vector == null ? null : vector.clone())
+                    .vectorModel(vectorModel)
+                    .build();
+        }
+    }
+
+    /**
+     * 单个订阅：RSS订阅sourceId不为空，主题订阅topic不为空（源或主题已删除时均为空）
+     */
+    public record Entry(Long subscriptionId, SubscriptionType type, Long sourceId, TopicRef topic) {
+    }
+
+    /**
+     * 用户的全部订阅
+     */
+    public static final class Snapshot {
+
+        private final String servingModel;
+        private final Map<Long, Entry> entries;
+        private final Map<Long, Long> subscriptionIdBySource;
+        private final List<Long> sourceIds;
+        private final List<TopicRef> topics;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Snapshot(String servingModel, List<Entry> entries) {
+            this.servingModel = servingModel;
+            Map<Long, Entry> byId = new LinkedHashMap<>();
+            Map<Long, Long> bySource = new LinkedHashMap<>();
+            List<TopicRef> topicRefs = new ArrayList<>();
+            for (Entry entry : entries) {
+                byId.put(entry.subscriptionId(), entry);
+                if (entry.sourceId() != null) {
+                    bySource.putIfAbsent(entry.sourceId(), entry.subscriptionId());
+                }
+                if (entry.topic() != null) {
+                    topicRefs.add(entry.topic());
+                }
+            }
+            this.entries = Collections.unmodifiableMap(byId);
+            this.subscriptionIdBySource = Collections.unmodifiableMap(bySource);
+            this.sourceIds = List.copyOf(bySource.keySet());
+            this.topics = List.copyOf(topicRefs);
+        }
+
+        public Optional<Entry> find(Long subscriptionId) {
+            return Optional.ofNullable(entries.get(subscriptionId));
+        }
+
+        /**
+         * RSS源ID到订阅ID
+         */
+        public Map<Long, Long> subscriptionIdBySource() {
+            return subscriptionIdBySource;
+        }
+
+        /**
+         * 订阅的RSS源ID（去重，按订阅顺序）
+         */
+        public List<Long> sourceIds() {
+            return sourceIds;
+        }
+
+        /**
+         * 订阅的全部主题（含尚无向量的）
+         */
+        public List<TopicRef> topics() {
+            return topics;
+        }
+    }
+
+    public Snapshot get(Long userId) {
+        String servingModel = embeddingVersionService.getServingModel();
+        Snapshot snapshot = snapshots.get(userId);
+        if (snapshot != null && !Objects.equals(snapshot.servingModel, servingModel)) {
+            snapshots.remove(userId, snapshot);
+            snapshot = null;
+        }
+        if (snapshot == null) {
+            ensureCapacity();
+            // 加载在映射锁内执行，删除会等待进行中的加载完成，不会留下提交前读到的旧快照
+            snapshot = snapshots.computeIfAbsent(userId, id -> load(id, servingModel));
+        }
+        snapshot.lastAccess = System.currentTimeMillis();
+        return snapshot;
+    }
+
+    /**
+     * 订阅变化：立即删除，提交后再删除一次
+     */
+    public void evictUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        snapshots.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    snapshots.remove(userId);
+                }
+            });
+        }
+    }
+
+    private Snapshot load(Long userId, String servingModel) {
+        List<Entry> entries = new ArrayList<>();
+        for (Subscription subscription : subscriptionRepository.findByUserIdWithDetails(userId)) {
+            Long sourceId = subscription.getType() == SubscriptionType.RSS && subscription.getSource() != null
+                    ? subscription.getSource().getId()
+                    : null;
+            Topic topic = subscription.getType() == SubscriptionType.TOPIC ? subscription.getTopic() : null;
+            TopicRef topicRef = topic == null ? null : new TopicRef(topic.getId(), topic.getContent(),
+                    topic.getVector() == null ? null : topic.getVector().clone(), topic.getVectorModel());
+            entries.add(new Entry(subscription.getId(), subscription.getType(), sourceId, topicRef));
+        }
+        return new Snapshot(servingModel, entries);
+    }
+
+    private void ensureCapacity() {
+        int maxUsers = maxUsers();
+        while (snapshots.size() >= maxUsers) {
+            Map.Entry<Long, Snapshot> oldest = snapshots.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+                    .orElse(null);
+            if (oldest == null) {
+                return;
+            }
+            snapshots.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private int maxUsers() {
+        Integer max = appConfig.getSubscriptionCacheMaxUsers();
+        return max == null || max <= 0 ? 10000 : max;
+    }
+}
@@ -0,0 +1,406 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.Event.ConfigUpdateEvent;
+import com.jingwei.rsswithai.application.Event.EmbeddingModelSwitchedEvent;
+import com.jingwei.rsswithai.application.dto.TimelineCacheStatsDTO;
+import com.jingwei.rsswithai.config.AppConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户时间线缓存
+ * 每个用户保存"全部订阅"时间线最新的若干条 (pub_date, article_id)，按 pub_date DESC, id DESC 有序；
+ * 首次请求时由数据库加载，之后由入库扇出维护：RSS文章保存后写入订阅了该源的用户，主题匹配写入后写入订阅了该主题的用户；
+ * 订阅变化时删除，下次请求重新加载。用户数与每个用户的条数都有上限，长时间未访问的用户定期清除。
+ * 源/主题索引直接指向时间线实例：删除旧实例只移除它自己的索引项，不会误删同一用户随后注册的新实例
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TimelineCache {
+
+    private final AppConfig appConfig;
+    private final Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Timeline>> timelinesBySource = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Timeline>> timelinesByTopic = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * 时间线中的一条，内部按pubDate的纪元微秒存储
+     */
+    public record Entry(long articleId, LocalDateTime pubDate) {
+    }
+
+    /**
+     * 单个用户的时间线，方法均在实例锁内执行
+     */
+    public static final class Timeline {
+
+        private final Set<Long> sourceIds;
+        private final Set<Long> topicIds;
+        private final int capacity;
+        private final long[] times;
+        private final long[] ids;
+        private int size;
+        private boolean loaded;
+        /**
+         * 加载时数据库中的条数不足capacity，之后未因容量淘汰过：缓存即完整时间线
+         */
+        private boolean complete;
+        private List<long[]> pending = new ArrayList<>();
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Timeline(Set<Long> sourceIds, Set<Long> topicIds, int capacity) {
+            this.sourceIds = Set.copyOf(sourceIds);
+            this.topicIds = Set.copyOf(topicIds);
+            this.capacity = capacity;
+            this.times = new long[capacity];
+            this.ids = new long[capacity];
+        }
+
+        public Set<Long> sourceIds() {
+            return sourceIds;
+        }
+
+        public Set<Long> topicIds() {
+            return topicIds;
+        }
+
+        public int capacity() {
+            return capacity;
+        }
+
+        /**
+         * 写入数据库加载的结果，合并加载期间扇出的条目
+         *
+         * @param entries 按 pub_date DESC, id DESC 排序的前capacity条
+         */
+        synchronized void load(List<Entry> entries) {
+            for (Entry entry : entries) {
+                if (entry.pubDate() != null) {
+                    insert(epochMicros(entry.pubDate()), entry.articleId());
+                }
+            }
+            complete = entries.size() < capacity && size < capacity;
+            for (long[] entry : pending) {
+                insert(entry[0], entry[1]);
+            }
+            pending = null;
+            loaded = true;
+        }
+
+        synchronized void offer(long time, long articleId) {
+            if (!loaded) {
+                pending.add(new long[]{time, articleId});
+                return;
+            }
+            insert(time, articleId);
+        }
+
+        /**
+         * 游标之后的一页文章ID
+         *
+         * @return 未加载完成，或缓存内不足一页且缓存不是完整时间线时返回null
+         */
+        synchronized List<Long> page(LocalDateTime cursorTime, long cursorId, int pageSize) {
+            lastAccess = System.currentTimeMillis();
+            if (!loaded) {
+                return null;
+            }
+            long cursor = epochMicros(cursorTime);
+            int start = 0;
+            while (start < size && (times[start] > cursor || (times[start] == cursor && ids[start] >= cursorId))) {
+                start++;
+            }
+            int end = Math.min(size, start + pageSize);
+            if (end - start < pageSize && !complete) {
+                return null;
+            }
+            List<Long> page = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                page.add(ids[i]);
+            }
+            return page;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * 有序插入；已存在则忽略，已满且比最旧的一条还旧则丢弃
+         */
+        private void insert(long time, long articleId) {
+            int position = 0;
+            while (position < size && (times[position] > time || (times[position] == time && ids[position] > articleId))) {
+                position++;
+            }
+            if (position < size && times[position] == time && ids[position] == articleId) {
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == articleId) {
+                    return;
+                }
+            }
+            if (position >= capacity) {
+                complete = false;
+                return;
+            }
+            int moved = Math.min(size, capacity - 1) - position;
+            if (moved > 0) {
+                System.arraycopy(times, position, times, position + 1, moved);
+                System.arraycopy(ids, position, ids, position + 1, moved);
+            }
+            if (size == capacity) {
+                complete = false;
+            } else {
+                size++;
+            }
+            times[position] = time;
+            ids[position] = articleId;
+        }
+    }
+
+    public boolean isEnabled() {
+        return capacity() > 0;
+    }
+
+    /**
+     * 当前用户的时间线，未缓存时返回null
+     */
+    public Timeline get(Long userId) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return timeline;
+    }
+
+    /**
+     * 注册一个待加载的时间线，之后的扇出会先暂存，load时合并；并发注册时返回已存在的
+     *
+     * @return 由调用方负责加载的新时间线；已有其他请求注册时返回null
+     */
+    public Timeline register(Long userId, Collection<Long> sourceIds, Collection<Long> topicIds) {
+        ensureCapacity();
+        Timeline created = new Timeline(Set.copyOf(sourceIds), Set.copyOf(topicIds), capacity());
+        if (timelines.putIfAbsent(userId, created) != null) {
+            return null;
+        }
+        for (Long sourceId : created.sourceIds()) {
+            addTimeline(timelinesBySource, sourceId, created);
+        }
+        for (Long topicId : created.topicIds()) {
+            addTimeline(timelinesByTopic, topicId, created);
+        }
+        return created;
+    }
+
+    public void load(Timeline timeline, List<Entry> entries) {
+        timeline.load(entries);
+    }
+
+    /**
+     * 加载失败时丢弃注册的时间线（仍是同一实例时）
+     */
+    public void discard(Long userId, Timeline timeline) {
+        remove(userId, timeline);
+    }
+
+    /**
+     * 订阅变化：删除该用户的时间线，提交后生效
+     */
+    public void evictUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            Timeline timeline = timelines.get(userId);
+            if (timeline != null) {
+                remove(userId, timeline);
+            }
+        });
+    }
+
+    /**
+     * RSS文章入库：写入订阅了该源的用户
+     */
+    public void onArticle(Long sourceId, Long articleId, LocalDateTime pubDate) {
+        if (sourceId == null || articleId == null || pubDate == null) {
+            return;
+        }
+        afterCommit(() -> fanOut(timelinesBySource.get(sourceId), articleId, pubDate));
+    }
+
+    /**
+     * 主题匹配写入：写入订阅了这些主题的用户
+     */
+    public void onTopicMatches(Collection<Long> topicIds, Long articleId, LocalDateTime pubDate) {
+        if (articleId == null || pubDate == null) {
+            return;
+        }
+        for (Long topicId : topicIds) {
+            fanOut(timelinesByTopic.get(topicId), articleId, pubDate);
+        }
+    }
+
+    @Scheduled(initialDelay = 5, fixedDelay = 5, timeUnit = TimeUnit.MINUTES)
+    public void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleMinutes());
+        for (Map.Entry<Long, Timeline> entry : timelines.entrySet()) {
+            if (entry.getValue().lastAccess < idleBefore) {
+                remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 配置变化（主题阈值、缓存容量等）影响时间线内容，全部删除后按需重新加载
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onConfigUpdateEvent(ConfigUpdateEvent event) {
+        clear();
+        log.info("Timeline cache cleared after config update");
+    }
+
+    /**
+     * 向量模型切换：切换前后扇出未写入的主题文章由回填补到topic_matches，缓存的时间线不再完整，全部删除
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEmbeddingModelSwitched(EmbeddingModelSwitchedEvent event) {
+        clear();
+        log.info("Timeline cache cleared after embedding model switched to {}", event.getModel());
+    }
+
+    public void clear() {
+        for (Map.Entry<Long, Timeline> entry : timelines.entrySet()) {
+            remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public TimelineCacheStatsDTO getStats() {
+        long entries = 0;
+        for (Timeline timeline : timelines.values()) {
+            entries += timeline.size();
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        return new TimelineCacheStatsDTO(
+                hitCount,
+                missCount,
+                total == 0 ? 0 : (double) hitCount / total,
+                evictions.get(),
+                timelines.size(),
+                maxUsers(),
+                entries,
+                capacity(),
+                // 每条两个long
+                entries * 16);
+    }
+
+    private void fanOut(Set<Timeline> targets, long articleId, LocalDateTime pubDate) {
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        long time = epochMicros(pubDate);
+        for (Timeline timeline : targets) {
+            timeline.offer(time, articleId);
+        }
+    }
+
+    /**
+     * 仅当该用户当前仍是这个实例时删除，并移除该实例的索引项
+     */
+    private void remove(Long userId, Timeline timeline) {
+        if (!timelines.remove(userId, timeline)) {
+            return;
+        }
+        evictions.incrementAndGet();
+        for (Long sourceId : timeline.sourceIds()) {
+            removeTimeline(timelinesBySource, sourceId, timeline);
+        }
+        for (Long topicId : timeline.topicIds()) {
+            removeTimeline(timelinesByTopic, topicId, timeline);
+        }
+    }
+
+    private static void addTimeline(Map<Long, Set<Timeline>> index, Long key, Timeline timeline) {
+        index.compute(key, (k, targets) -> {
+            Set<Timeline> updated = targets == null ? ConcurrentHashMap.newKeySet() : targets;
+            updated.add(timeline);
+            return updated;
+        });
+    }
+
+    private static void removeTimeline(Map<Long, Set<Timeline>> index, Long key, Timeline timeline) {
+        index.computeIfPresent(key, (k, targets) -> {
+            targets.remove(timeline);
+            return targets.isEmpty() ? null : targets;
+        });
+    }
+
+    private void ensureCapacity() {
+        int maxUsers = maxUsers();
+        while (timelines.size() >= maxUsers) {
+            timelines.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastAccess))
+                    .ifPresent(oldest -> remove(oldest.getKey(), oldest.getValue()));
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private int capacity() {
+        Integer size = appConfig.getTimelineCacheSize();
+        return size == null ? 0 : Math.max(0, size);
+    }
+
+    private int maxUsers() {
+        Integer max = appConfig.getTimelineCacheMaxUsers();
+        return max == null || max <= 0 ? 10000 : max;
+    }
+
+    private int idleMinutes() {
+        Integer minutes = appConfig.getTimelineCacheIdleMinutes();
+        return minutes == null || minutes <= 0 ? 30 : minutes;
+    }
+
+    private static long epochMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1000;
+    }
+}
@@ -0,0 +1,137 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.config.AppConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * 主题规范化
+ * 内容先做字面规范化（NFKC统一全角/半角与兼容字符、转小写、合并空白，去掉中文与其他字符之间的空格），
+ * 字面不同但向量与已有主题的余弦距离小于topic_canonical_distance的新主题不再新建，而是链接到已有主题，
+ * 订阅共用同一个主题行、同一份向量与主题匹配；链接关系记录在topic_aliases，同一说法再次出现时无需再调用嵌入
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TopicCanonicalizer {
+
+    private static final String ALIAS_TABLE = "topic_aliases";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AppConfig appConfig;
+
+    private volatile boolean ready = false;
+
+    /**
+     * 与已有主题的最近距离
+     */
+    public record Nearest(long topicId, double distance) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + ALIAS_TABLE + " (" +
+                    "alias VARCHAR(255) PRIMARY KEY, " +
+                    "topic_id BIGINT NOT NULL REFERENCES topics(id) ON DELETE CASCADE, " +
+                    "distance REAL NOT NULL, " +
+                    "created_at TIMESTAMP NOT NULL DEFAULT now())");
+            ready = true;
+        } catch (Exception e) {
+            log.error("Topic alias table initialization failed, topics are deduplicated by content only", e);
+        }
+    }
+
+    /**
+     * 字面规范化：NFKC、小写、空白合并为一个空格，中日韩文字（汉字、平假名、片假名、谚文）两侧的空格去掉，
+     * 使"AI 芯片"、"ＡＩ芯片"、"ai芯片"得到相同的内容；其他文字（英文、带重音的拉丁字母、西里尔字母等）的单词之间保留一个空格
+     */
+    public static String normalize(String content) {
+        if (content == null) {
+            return "";
+        }
+        String text = Normalizer.normalize(content, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).strip();
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        int previous = -1;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isWhitespace(codePoint) || Character.isSpaceChar(codePoint)) {
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace && previous >= 0 && !isCjk(previous) && !isCjk(codePoint)) {
+                sb.append(' ');
+            }
+            pendingSpace = false;
+            previous = codePoint;
+            sb.appendCodePoint(codePoint);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 不以空格分词的文字
+     */
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 已记录的别名对应的主题
+     */
+    public Optional<Long> findAlias(String normalized) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        List<Long> ids = jdbcTemplate.queryForList("SELECT topic_id FROM " + ALIAS_TABLE + " WHERE alias = ?",
+                Long.class, normalized);
+        return ids.isEmpty() ? Optional.empty() : Optional.of(ids.getFirst());
+    }
+
+    /**
+     * 同一向量模型下与给定向量最近、且距离小于topic_canonical_distance的已有主题
+     * vector_model为空的旧主题视为同一模型参与比较（与TopicMatchService一致）
+     * 主题数量有限（订阅数受限），直接精确计算
+     */
+    public Optional<Nearest> findCanonical(float[] vector, String model) {
+        double maxDistance = canonicalDistance();
+        if (maxDistance <= 0) {
+            return Optional.empty();
+        }
+        String literal = VectorSearchService.toPgVectorLiteral(vector);
+        List<Nearest> nearest = jdbcTemplate.query("SELECT id, vector <=> CAST(? AS vector) AS distance FROM topics " +
+                        "WHERE vector IS NOT NULL AND (vector_model IS NULL OR vector_model = ?) " +
+                        "ORDER BY vector <=> CAST(? AS vector) LIMIT 1",
+                (rs, rowNum) -> new Nearest(rs.getLong("id"), rs.getDouble("distance")), literal, model, literal);
+        return nearest.stream().filter(candidate -> candidate.distance() < maxDistance).findFirst();
+    }
+
+    /**
+     * 记录别名；并发写入同一别名时保留先写入的
+     */
+    public void recordAlias(String normalized, Nearest canonical) {
+        if (!ready) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO " + ALIAS_TABLE + " (alias, topic_id, distance) VALUES (?, ?, ?) " +
+                "ON CONFLICT (alias) DO NOTHING", normalized, canonical.topicId(), (float) canonical.distance());
+    }
+
+    private double canonicalDistance() {
+        return Objects.requireNonNullElse(appConfig.getTopicCanonicalDistance(), 0.08);
+    }
+}
@@ -0,0 +1,388 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.Event.ConfigUpdateEvent;
+import com.jingwei.rsswithai.application.Event.EmbeddingModelSwitchedEvent;
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.domain.model.Topic;
+import com.jingwei.rsswithai.utils.VectorMath;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 主题匹配表（写时扇出）
+ * 文章写入向量后，在内存中与全部主题向量逐一计算余弦距离，低于主题阈值的写入topic_matches(topic_id, article_id, distance, pub_date)；
+ * 主题订阅流改为按 (topic_id, pub_date, article_id) 索引的游标读取，不再扫描article_extra。
+ * 新主题、向量模型切换或阈值调高后，在后台对存量文章回填一次该主题的匹配；回填完成前该主题仍走向量扫描
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TopicMatchService {
+
+    private static final String TABLE = "topic_matches";
+    private static final String STATE_TABLE = "topic_match_state";
+    private static final int SHORT_TOPIC_LENGTH = 16;
+    private static final double SHORT_TOPIC_THRESHOLD_BONUS = 0.5;
+    /**
+     * 阈值以REAL存储，比较时留出浮点误差
+     */
+    private static final double THRESHOLD_EPSILON = 1e-6;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfig appConfig;
+    private final TimelineCache timelineCache;
+    private final FeedNotificationService feedNotificationService;
+    private final ExecutorService fanOutExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile TopicMatrix matrix = TopicMatrix.EMPTY;
+    private final Map<Long, BackfillState> states = new ConcurrentHashMap<>();
+    private final AtomicBoolean maintaining = new AtomicBoolean(false);
+    private volatile boolean ready = false;
+
+    /**
+     * 全部主题的归一化向量，按行连续存放
+     */
+    private record TopicMatrix(long[] ids, String[] contents, float[] vectors, String model) {
+
+        static final TopicMatrix EMPTY = new TopicMatrix(new long[0], new String[0], new float[0], null);
+
+        int indexOf(long topicId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == topicId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * 已回填的主题：按threshold回填，向量模型为model
+     */
+    private record BackfillState(double threshold, String model) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread.ofVirtual().name("topic-match-init").start(() -> {
+            try {
+                initialize();
+                ready = true;
+                maintain();
+            } catch (Exception e) {
+                log.error("Topic match table initialization failed, topic feeds keep scanning vectors", e);
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onConfigUpdateEvent(ConfigUpdateEvent event) {
+        maintainAsync();
+    }
+
+    /**
+     * 向量模型切换后立即按新模型重载主题矩阵，否则扇出在下一次定时维护前不会命中任何主题
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onEmbeddingModelSwitched(EmbeddingModelSwitchedEvent event) {
+        maintainAsync();
+    }
+
+    /**
+     * 兜底：发现新主题、向量模型切换后重新回填
+     */
+    @Scheduled(initialDelay = 10, fixedDelay = 10, timeUnit = TimeUnit.MINUTES)
+    public void scheduledMaintain() {
+        maintainAsync();
+    }
+
+    /**
+     * 主题的匹配阈值（余弦距离），短主题语义宽泛，阈值放宽
+     */
+    public double threshold(Topic topic) {
+        return threshold(topic.getContent());
+    }
+
+    /**
+     * 匹配表已完整覆盖该主题（按当前阈值与向量模型回填完成）时，订阅流可只读匹配表
+     */
+    public boolean isReady(Topic topic) {
+        if (!ready || topic.getId() == null) {
+            return false;
+        }
+        BackfillState state = states.get(topic.getId());
+        return state != null && Objects.equals(state.model(), servingModel())
+                && state.threshold() + THRESHOLD_EPSILON >= threshold(topic);
+    }
+
+    /**
+     * 新建主题后调用：加入内存矩阵并在后台回填；处于事务中时提交后才执行
+     */
+    public void onTopicCreated(Topic topic) {
+        if (topic == null || topic.getId() == null || topic.getVector() == null) {
+            return;
+        }
+        afterCommit(() -> {
+            if (ready) {
+                addTopic(topic.getId(), topic.getContent(), topic.getVector(), topic.getVectorModel());
+                maintainAsync();
+            }
+        });
+    }
+
+    /**
+     * 文章向量写入后与全部主题匹配，再向订阅了该源或命中主题的在线用户推送；处于事务中时提交后才执行
+     */
+    public void onArticleVector(Long articleId, Long sourceId, LocalDateTime pubDate, float[] vector) {
+        if (articleId == null || vector == null) {
+            return;
+        }
+        afterCommit(() -> fanOutExecutor.submit(() -> {
+            List<Long> matchedTopicIds = List.of();
+            try {
+                matchedTopicIds = fanOut(articleId, pubDate, vector);
+            } catch (Exception e) {
+                log.warn("Failed to match article {} against topics", articleId, e);
+            }
+            feedNotificationService.publish(articleId, sourceId, pubDate, matchedTopicIds);
+        }));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * @return 命中的主题ID
+     */
+    private List<Long> fanOut(Long articleId, LocalDateTime pubDate, float[] vector) {
+        TopicMatrix current = matrix;
+        if (!ready || current.ids().length == 0 || !Objects.equals(current.model(), servingModel())) {
+            // 模型切换期间内存矩阵尚未重载，由回填兜底
+            return List.of();
+        }
+        float[] scores = VectorMath.dotAll(normalize(vector), current.vectors());
+        List<Object[]> rows = new ArrayList<>();
+        List<Long> matchedTopicIds = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            double distance = 1 - scores[i];
+            if (distance < threshold(current.contents()[i])) {
+                rows.add(new Object[]{current.ids()[i], articleId, (float) distance,
+                        pubDate == null ? null : Timestamp.valueOf(pubDate)});
+                matchedTopicIds.add(current.ids()[i]);
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " (topic_id, article_id, distance, pub_date) " +
+                    "VALUES (?, ?, ?, ?) ON CONFLICT (topic_id, article_id) DO UPDATE SET " +
+                    "distance = EXCLUDED.distance, pub_date = EXCLUDED.pub_date", rows);
+            timelineCache.onTopicMatches(matchedTopicIds, articleId, pubDate);
+        }
+        return matchedTopicIds;
+    }
+
+    private void initialize() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                "topic_id BIGINT NOT NULL REFERENCES topics(id) ON DELETE CASCADE, " +
+                "article_id BIGINT NOT NULL REFERENCES articles(id) ON DELETE CASCADE, " +
+                "distance REAL NOT NULL, " +
+                "pub_date TIMESTAMP, " +
+                "PRIMARY KEY (topic_id, article_id))");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_topic_matches_feed ON " + TABLE +
+                " (topic_id, pub_date DESC, article_id DESC)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_topic_matches_article ON " + TABLE + " (article_id)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + STATE_TABLE + " (" +
+                "topic_id BIGINT PRIMARY KEY REFERENCES topics(id) ON DELETE CASCADE, " +
+                "threshold REAL NOT NULL, " +
+                "vector_model VARCHAR(255), " +
+                "backfilled_at TIMESTAMP NOT NULL DEFAULT now())");
+        jdbcTemplate.query("SELECT topic_id, threshold, vector_model FROM " + STATE_TABLE, rs -> {
+            states.put(rs.getLong("topic_id"),
+                    new BackfillState(rs.getDouble("threshold"), rs.getString("vector_model")));
+        });
+    }
+
+    private void maintainAsync() {
+        if (ready) {
+            Thread.ofVirtual().name("topic-match-maintain").start(this::maintain);
+        }
+    }
+
+    /**
+     * 重新加载主题矩阵，移除已不在矩阵中的主题的回填状态，并回填所有未就绪的主题
+     */
+    private void maintain() {
+        if (!maintaining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            reloadMatrix();
+            TopicMatrix current = matrix;
+            pruneStates(current);
+            for (int i = 0; i < current.ids().length; i++) {
+                long topicId = current.ids()[i];
+                double threshold = threshold(current.contents()[i]);
+                BackfillState state = states.get(topicId);
+                if (state != null && Objects.equals(state.model(), current.model())
+                        && state.threshold() + THRESHOLD_EPSILON >= threshold) {
+                    continue;
+                }
+                try {
+                    backfill(topicId, current.vectors(), i, threshold, current.model());
+                } catch (Exception e) {
+                    log.warn("Failed to backfill matches for topic {}", topicId, e);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Topic match maintenance failed", e);
+        } finally {
+            maintaining.set(false);
+        }
+    }
+
+    private void reloadMatrix() {
+        String model = servingModel();
+        List<Long> ids = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        List<float[]> vectors = new ArrayList<>();
+        // 主题向量与文章向量在模型切换时同一事务内替换，只加载当前模型的主题
+        jdbcTemplate.query("SELECT id, content, CAST(vector AS text) AS vector FROM topics " +
+                "WHERE vector IS NOT NULL AND (vector_model IS NULL OR vector_model = ?) ORDER BY id", rs -> {
+            ids.add(rs.getLong("id"));
+            contents.add(rs.getString("content"));
+            vectors.add(VectorSearchService.fromPgVectorLiteral(rs.getString("vector")));
+        }, model);
+        matrix = buildMatrix(ids, contents, vectors, model);
+    }
+
+    /**
+     * 已删除或向量不属于当前模型的主题不会再被判定为就绪，回填状态随矩阵收缩，内存中的条目数不超过主题矩阵的行数；
+     * topic_match_state 中的行由外键级联删除，模型切换后的重新回填会覆盖
+     */
+    private void pruneStates(TopicMatrix current) {
+        Set<Long> topicIds = new HashSet<>(current.ids().length * 2);
+        for (long topicId : current.ids()) {
+            topicIds.add(topicId);
+        }
+        int before = states.size();
+        states.keySet().retainAll(topicIds);
+        if (states.size() < before) {
+            log.info("Pruned {} topic match states no longer in the topic matrix", before - states.size());
+        }
+    }
+
+    private synchronized void addTopic(long topicId, String content, float[] vector, String model) {
+        TopicMatrix current = matrix;
+        if (current.indexOf(topicId) >= 0 || !Objects.equals(model, current.model())) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(Arrays.stream(current.ids()).boxed().toList());
+        List<String> contents = new ArrayList<>(Arrays.asList(current.contents()));
+        List<float[]> vectors = new ArrayList<>();
+        int dimensions = VectorSearchService.DIMENSIONS;
+        for (int i = 0; i < current.ids().length; i++) {
+            vectors.add(Arrays.copyOfRange(current.vectors(), i * dimensions, (i + 1) * dimensions));
+        }
+        ids.add(topicId);
+        contents.add(content);
+        vectors.add(vector);
+        matrix = buildMatrix(ids, contents, vectors, model);
+    }
+
+    private static TopicMatrix buildMatrix(List<Long> ids, List<String> contents, List<float[]> vectors,
+            String model) {
+        int dimensions = VectorSearchService.DIMENSIONS;
+        float[] data = new float[ids.size() * dimensions];
+        for (int i = 0; i < vectors.size(); i++) {
+            System.arraycopy(normalize(vectors.get(i)), 0, data, i * dimensions, dimensions);
+        }
+        return new TopicMatrix(ids.stream().mapToLong(Long::longValue).toArray(), contents.toArray(String[]::new),
+                data, model);
+    }
+
+    /**
+     * 删除该主题旧的匹配后，对存量文章做一次精确扫描写入；扫描期间扇出写入的行由ON CONFLICT合并
+     */
+    private void backfill(long topicId, float[] vectors, int row, double threshold, String model) {
+        int dimensions = VectorSearchService.DIMENSIONS;
+        String vector = VectorSearchService.toPgVectorLiteral(
+                Arrays.copyOfRange(vectors, row * dimensions, (row + 1) * dimensions));
+        long start = System.currentTimeMillis();
+        Integer inserted = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE topic_id = ?", topicId);
+            int count = jdbcTemplate.update("INSERT INTO " + TABLE + " (topic_id, article_id, distance, pub_date) " +
+                    "SELECT ?, m.article_id, m.distance, m.pub_date FROM (" +
+                    "SELECT ae.article_id, " + VectorSearchService.exactDistance("ae.vector", "?") + " AS distance, " +
+                    "a.pub_date FROM article_extra ae JOIN articles a ON a.id = ae.article_id " +
+                    "WHERE ae.vector IS NOT NULL OFFSET 0) m WHERE m.distance < ? " +
+                    "ON CONFLICT (topic_id, article_id) DO NOTHING", topicId, vector, threshold);
+            jdbcTemplate.update("INSERT INTO " + STATE_TABLE + " (topic_id, threshold, vector_model, backfilled_at) " +
+                    "VALUES (?, ?, ?, now()) ON CONFLICT (topic_id) DO UPDATE SET threshold = EXCLUDED.threshold, " +
+                    "vector_model = EXCLUDED.vector_model, backfilled_at = EXCLUDED.backfilled_at",
+                    topicId, threshold, model);
+            return count;
+        });
+        states.put(topicId, new BackfillState(threshold, model));
+        log.info("Topic {} matches backfilled: {} articles in {}ms", topicId, inserted,
+                System.currentTimeMillis() - start);
+    }
+
+    private double threshold(String content) {
+        double threshold = Objects.requireNonNullElse(appConfig.getTopicThreshold(), 0.4);
+        if (content != null && content.length() < SHORT_TOPIC_LENGTH) {
+            threshold += SHORT_TOPIC_THRESHOLD_BONUS;
+        }
+        return threshold;
+    }
+
+    private String servingModel() {
+        return EmbeddingVersionService.servingModel(appConfig);
+    }
+
+    private static float[] normalize(float[] vector) {
+        float norm = (float) Math.sqrt(VectorMath.dot(vector, vector));
+        float[] normalized = new float[vector.length];
+        if (norm == 0) {
+            return normalized;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] / norm;
+        }
+        return normalized;
+    }
+}
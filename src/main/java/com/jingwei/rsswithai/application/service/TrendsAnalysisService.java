@@ -1,24 +1,18 @@
 package com.jingwei.rsswithai.application.service;
 
-import com.jingwei.rsswithai.application.Event.ConfigUpdateEvent;
 import com.jingwei.rsswithai.config.AppConfig;
-import com.jingwei.rsswithai.domain.model.Article;
 import com.jingwei.rsswithai.domain.model.RssSource;
 import com.jingwei.rsswithai.domain.model.TrendsData;
 import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
 import com.jingwei.rsswithai.domain.repository.ArticleRepository;
 import com.jingwei.rsswithai.domain.repository.RssSourceRepository;
 import com.jingwei.rsswithai.domain.repository.TrendsDataRepository;
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
-import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
-import org.springframework.ai.openai.api.OpenAiApi;
-import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -43,42 +37,7 @@ public class TrendsAnalysisService {
     private final RssSourceRepository rssSourceRepository;
     private final AppConfig appConfig;
     private final ObjectMapper objectMapper;
-
-    private OpenAiChatModel chatModel;
-
-    @PostConstruct
-    public void init() {
-        initializeOpenAiClient();
-    }
-
-    private void initializeOpenAiClient() {
-        try {
-            OpenAiApi openAiApi = OpenAiApi.builder()
-                    .apiKey(appConfig.getLlmApiKey())
-                    .baseUrl(appConfig.getLlmBaseUrl())
-                    .build();
-
-            OpenAiChatOptions options = OpenAiChatOptions.builder()
-                    .model(appConfig.getLanguageModel())
-                    .temperature(0.3)
-                    .build();
-
-            this.chatModel = OpenAiChatModel.builder()
-                    .openAiApi(openAiApi)
-                    .defaultOptions(options)
-                    .build();
-        } catch (Exception e) {
-            log.error("Failed to initialize OpenAI client for TrendsAnalysisService", e);
-        }
-    }
-
-    /**
-     * Re-initialize capability similar to LlmProcessService
-     */
-    @EventListener
-    public void onConfigUpdateEvent(ConfigUpdateEvent event) {
-        initializeOpenAiClient();
-    }
+    private final LlmEndpointPool llmEndpointPool;
 
     // --- Word Cloud Logic ---
 
@@ -87,7 +46,7 @@ public class TrendsAnalysisService {
         log.info("Starting Word Cloud generation for source: {}", sourceId);
         try {
             // 1. Data Preparation
-            List<Article> articles = fetchArticlesForWordCloud(sourceId);
+            List<ArticleRepository.ArticleSummaryView> articles = fetchArticlesForWordCloud(sourceId);
             if (articles.isEmpty()) {
                 log.info("No articles found for source {}, skipping word cloud.", sourceId);
                 return;
@@ -95,7 +54,7 @@ public class TrendsAnalysisService {
 
             // 2. Initial Statistics (Java)
             Map<String, Integer> rawTagCounts = new HashMap<>();
-            for (Article article : articles) {
+            for (ArticleRepository.ArticleSummaryView article : articles) {
                 articleExtraRepository.findByArticleId(article.getId())
                         .ifPresent(extra -> {
                             if (extra.getTags() != null) {
@@ -135,21 +94,22 @@ public class TrendsAnalysisService {
         }
     }
 
-    private List<Article> fetchArticlesForWordCloud(Long sourceId) {
+    private List<ArticleRepository.ArticleSummaryView> fetchArticlesForWordCloud(Long sourceId) {
         Pageable limit = PageRequest.of(0, 50);
-        List<Article> candidates = articleRepository.findBySourceIdOrderByPubDateDesc(sourceId, limit).getContent();
+        List<ArticleRepository.ArticleSummaryView> candidates = articleRepository.findSummaryBySourceId(sourceId, limit)
+                .getContent();
 
         if (candidates.isEmpty())
             return Collections.emptyList();
 
         LocalDateTime threeDaysAgo = LocalDateTime.now().minusDays(3);
-        Article latest = candidates.getFirst();
+        ArticleRepository.ArticleSummaryView latest = candidates.getFirst();
         if (latest.getPubDate() == null || latest.getPubDate().isBefore(threeDaysAgo)) {
             return Collections.emptyList();
         }
 
         LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
-        List<Article> recent = candidates.stream()
+        List<ArticleRepository.ArticleSummaryView> recent = candidates.stream()
                 .filter(a -> a.getPubDate() != null && a.getPubDate().isAfter(sevenDaysAgo))
                 .collect(Collectors.toList());
 
@@ -165,9 +125,9 @@ public class TrendsAnalysisService {
 
         try {
             PromptTemplate promptTemplate = new PromptTemplate(appConfig.getTrendsWordCloudPrompt());
-            Prompt prompt = promptTemplate.create(Map.of("tags", tagsInput));
+            Prompt prompt = promptTemplate.create(Map.of("tags", tagsInput), trendsChatOptions());
 
-            ChatResponse response = chatModel.call(prompt);
+            ChatResponse response = llmEndpointPool.callChat(chatModel -> chatModel.call(prompt));
             String content = response.getResult().getOutput().getText();
             return parseJsonToMap(content);
         } catch (Exception e) {
@@ -212,14 +172,15 @@ public class TrendsAnalysisService {
             Map<String, List<String>> sourceEvents = new LinkedHashMap<>();
 
             for (RssSource source : rssSourceRepository.findAllEnabled()) {
-                List<Article> articles = fetchArticlesForHotEvents(source.getId());
+                List<ArticleRepository.ArticleSummaryView> articles = fetchArticlesForHotEvents(source.getId());
                 if (articles.isEmpty())
                     continue;
                 String sourceName = resolveSourceName(source);
 
-                List<List<Article>> chunks = splitArticlesIntoChunks(articles, HOT_EVENTS_MAP_CHUNK_SIZE);
+                List<List<ArticleRepository.ArticleSummaryView>> chunks = splitArticlesIntoChunks(articles,
+                        HOT_EVENTS_MAP_CHUNK_SIZE);
                 for (int i = 0; i < chunks.size(); i++) {
-                    List<Article> chunk = chunks.get(i);
+                    List<ArticleRepository.ArticleSummaryView> chunk = chunks.get(i);
                     String mapSourceName = chunks.size() > 1
                             ? sourceName + "-part" + (i + 1)
                             : sourceName;
@@ -261,17 +222,18 @@ public class TrendsAnalysisService {
         }
     }
 
-    private List<Article> fetchArticlesForHotEvents(Long sourceId) {
-        return articleRepository.findBySourceIdAndPubDateSinceOrderByPubDateDesc(
+    private List<ArticleRepository.ArticleSummaryView> fetchArticlesForHotEvents(Long sourceId) {
+        return articleRepository.findSummaryBySourceIdSince(
                 sourceId,
                 LocalDateTime.now().minusHours(40));
     }
 
-    private List<List<Article>> splitArticlesIntoChunks(List<Article> articles, int chunkSize) {
+    private List<List<ArticleRepository.ArticleSummaryView>> splitArticlesIntoChunks(
+            List<ArticleRepository.ArticleSummaryView> articles, int chunkSize) {
         if (articles.isEmpty()) {
             return Collections.emptyList();
         }
-        List<List<Article>> chunks = new ArrayList<>();
+        List<List<ArticleRepository.ArticleSummaryView>> chunks = new ArrayList<>();
         for (int i = 0; i < articles.size(); i += chunkSize) {
             int end = Math.min(i + chunkSize, articles.size());
             chunks.add(articles.subList(i, end));
@@ -284,8 +246,9 @@ public class TrendsAnalysisService {
             return "[]";
         try {
             PromptTemplate template = new PromptTemplate(appConfig.getTrendsHotEventsMapPrompt());
-            Prompt prompt = template.create(Map.of("articles", articlesDetails, "sourcename", sourceName));
-            ChatResponse response = chatModel.call(prompt);
+            Prompt prompt = template.create(Map.of("articles", articlesDetails, "sourcename", sourceName),
+                    trendsChatOptions());
+            ChatResponse response = llmEndpointPool.callChat(chatModel -> chatModel.call(prompt));
             return cleanJsonBlock(response.getResult().getOutput().getText());
         } catch (Exception e) {
             log.error("LLM Map error", e);
@@ -298,8 +261,8 @@ public class TrendsAnalysisService {
             return "[]";
         try {
             PromptTemplate template = new PromptTemplate(appConfig.getTrendsHotEventsReducePrompt());
-            Prompt prompt = template.create(Map.of("events", allEvents));
-            ChatResponse response = chatModel.call(prompt);
+            Prompt prompt = template.create(Map.of("events", allEvents), trendsChatOptions());
+            ChatResponse response = llmEndpointPool.callChat(chatModel -> chatModel.call(prompt));
             return cleanJsonBlock(response.getResult().getOutput().getText());
         } catch (Exception e) {
             log.error("LLM Reduce error", e);
@@ -307,6 +270,15 @@ public class TrendsAnalysisService {
         }
     }
 
+    /**
+     * 趋势分析使用较低的温度，模型沿用端点配置
+     */
+    private OpenAiChatOptions trendsChatOptions() {
+        return OpenAiChatOptions.builder()
+                .temperature(0.3)
+                .build();
+    }
+
     private String resolveSourceName(RssSource source) {
         if (source.getName() != null && !source.getName().isBlank()) {
             return source.getName();
@@ -314,9 +286,9 @@ public class TrendsAnalysisService {
         return "source-" + source.getId();
     }
 
-    private String buildArticlesDetailsForMap(List<Article> articles) {
+    private String buildArticlesDetailsForMap(List<ArticleRepository.ArticleSummaryView> articles) {
         StringBuilder builder = new StringBuilder();
-        for (Article article : articles) {
+        for (ArticleRepository.ArticleSummaryView article : articles) {
             String overview = articleExtraRepository.findByArticleId(article.getId())
                     .map(ArticleExtraRepository.ArticleExtraNoVectorView::getOverview)
                     .orElse(null);
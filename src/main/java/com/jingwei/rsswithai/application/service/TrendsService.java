@@ -3,8 +3,6 @@ package com.jingwei.rsswithai.application.service;
 import com.jingwei.rsswithai.application.dto.HotEventDTO;
 import com.jingwei.rsswithai.application.dto.ArticleFeedDTO;
 import com.jingwei.rsswithai.application.dto.WordCloudItemDTO;
-import com.jingwei.rsswithai.domain.model.Subscription;
-import com.jingwei.rsswithai.domain.repository.SubscriptionRepository;
 import com.jingwei.rsswithai.domain.model.TrendsData;
 import com.jingwei.rsswithai.domain.repository.TrendsDataRepository;
 import lombok.RequiredArgsConstructor;
@@ -23,8 +21,8 @@ import java.util.stream.Collectors;
 public class TrendsService {
 
     private final TrendsDataRepository trendsDataRepository;
-    private final SubscriptionRepository subscriptionRepository;
     private final SubscriptionService subscriptionService;
+    private final SubscriptionSnapshotCache subscriptionSnapshotCache;
     private final ObjectMapper objectMapper;
 
     @Transactional(readOnly = true)
@@ -36,11 +34,7 @@ public class TrendsService {
                     .orElse(Collections.emptyList());
         } else if (userId != null) {
             // Aggregate user subscriptions
-            List<Subscription> subs = subscriptionRepository.findByUserId(userId);
-            List<Long> sourceIds = subs.stream()
-                    .filter(s -> s.getSource() != null)
-                    .map(s -> s.getSource().getId())
-                    .toList();
+            List<Long> sourceIds = subscriptionSnapshotCache.get(userId).sourceIds();
 
             if (sourceIds.isEmpty())
                 return Collections.emptyList();
@@ -0,0 +1,428 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.Event.ConfigUpdateEvent;
+import com.jingwei.rsswithai.application.dto.VectorStorageStatusDTO;
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.domain.model.VectorStorageMode;
+import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * 文章向量检索服务
+ * 根据vector_storage_mode选择float32、halfvec或二值量化索引执行检索；
+ * 切换模式时在后台并发建立新索引，建好之前继续使用旧索引，建好后原子切换；
+ * 全库与按源检索、相似推荐先查近期文章的进程内索引（{@link RecentVectorIndexService}），不足时再查pgvector；
+ * 按源与收藏范围的检索由{@link FilteredAnnPlanner}按选择性决定走索引（调大ef_search/迭代扫描）还是精确扫描
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class VectorSearchService {
+
+    static final int DIMENSIONS = 1024;
+    private static final String TABLE = "article_extra";
+    private static final String COLUMN = "vector";
+    private static final String OLDER_THAN_WINDOW = "(a.pub_date < :coverageStart OR a.pub_date IS NULL)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfig appConfig;
+    private final RecentVectorIndexService recentVectorIndexService;
+    private final FilteredAnnPlanner filteredAnnPlanner;
+
+    private volatile VectorStorageMode activeMode = VectorStorageMode.FLOAT32;
+    private final AtomicBoolean migrating = new AtomicBoolean(false);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        migrateAsync();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onConfigUpdateEvent(ConfigUpdateEvent event) {
+        if (configuredMode() != activeMode) {
+            migrateAsync();
+        }
+    }
+
+    /**
+     * 全库向量检索
+     */
+    public List<ArticleExtraRepository.IdWithDistance> searchAll(float[] vector, double threshold, int limit) {
+        String joins = "JOIN articles a ON a.id = ae.article_id";
+        RecentVectorIndexService.Recall recent = recentVectorIndexService.search(vector, threshold, limit);
+        if (recent == null) {
+            return search(vector, joins, "TRUE", new MapSqlParameterSource(), FilteredAnnPlanner.Filter.none(),
+                    threshold, limit);
+        }
+        return recentFirst(recent, limit, remaining -> search(vector, joins, OLDER_THAN_WINDOW,
+                new MapSqlParameterSource("coverageStart", Timestamp.valueOf(recent.coverageStart())),
+                FilteredAnnPlanner.Filter.none(), threshold, remaining));
+    }
+
+    /**
+     * 指定RSS源范围内的向量检索
+     */
+    public List<ArticleExtraRepository.IdWithDistance> searchInSources(float[] vector, List<Long> sourceIds,
+            double threshold, int limit) {
+        String joins = "JOIN articles a ON a.id = ae.article_id";
+        RecentVectorIndexService.Recall recent = recentVectorIndexService.searchInSources(vector, sourceIds,
+                threshold, limit);
+        if (recent == null) {
+            return search(vector, joins, "a.source_id IN (:sourceIds)",
+                    new MapSqlParameterSource("sourceIds", sourceIds), FilteredAnnPlanner.Filter.sources(sourceIds),
+                    threshold, limit);
+        }
+        return recentFirst(recent, limit, remaining -> search(vector, joins,
+                "a.source_id IN (:sourceIds) AND " + OLDER_THAN_WINDOW,
+                new MapSqlParameterSource("sourceIds", sourceIds)
+                        .addValue("coverageStart", Timestamp.valueOf(recent.coverageStart())),
+                FilteredAnnPlanner.Filter.sources(sourceIds), threshold, remaining));
+    }
+
+    /**
+     * 用户收藏范围内的向量检索
+     */
+    public List<ArticleExtraRepository.IdWithDistance> searchInFavorites(float[] vector, Long userId,
+            double threshold, int limit) {
+        return search(vector,
+                "JOIN article_favorites af ON ae.article_id = af.article_id JOIN articles a ON a.id = ae.article_id",
+                "af.user_id = :userId", new MapSqlParameterSource("userId", userId),
+                FilteredAnnPlanner.Filter.favorites(userId), threshold, limit);
+    }
+
+    /**
+     * 与指定文章最相似的文章ID（目标向量以标量子查询给出，便于走索引）
+     */
+    public List<Long> findSimilarArticleIds(Long articleId, int limit) {
+        RecentVectorIndexService.Recall recent = recentVectorIndexService.findSimilar(articleId, limit);
+        if (recent != null && recent.hits().size() >= limit) {
+            return recent.hits().stream().map(ArticleExtraRepository.IdWithDistance::getArticleId).toList();
+        }
+        return nearestToArticle(articleId, limit).stream()
+                .map(ArticleExtraRepository.IdWithDistance::getArticleId)
+                .toList();
+    }
+
+    /**
+     * 全库中与指定文章向量最近的文章及余弦距离，只查pgvector（不区分近期窗口），供近邻表预计算
+     */
+    public List<ArticleExtraRepository.IdWithDistance> nearestToArticle(Long articleId, int limit) {
+        VectorStorageMode mode = activeMode;
+        String target = "(SELECT t.vector FROM article_extra t WHERE t.article_id = :articleId)";
+        String sql;
+        if (mode == VectorStorageMode.BINARY) {
+            sql = "SELECT c.article_id, c.distance FROM (" +
+                    "SELECT ae.article_id, ae.vector <=> " + target + " AS distance FROM article_extra ae " +
+                    "WHERE ae.article_id != :articleId AND ae.vector IS NOT NULL " +
+                    "ORDER BY binary_quantize(ae.vector)::bit(" + DIMENSIONS + ") <~> binary_quantize(" + target + ") " +
+                    "LIMIT :candidateLimit) c ORDER BY c.distance LIMIT :limit";
+        } else {
+            String order = mode == VectorStorageMode.HALFVEC
+                    ? "ae.vector::halfvec(" + DIMENSIONS + ") <=> " + target + "::halfvec(" + DIMENSIONS + ")"
+                    : "ae.vector <=> " + target;
+            sql = "SELECT ae.article_id, ae.vector <=> " + target + " AS distance FROM article_extra ae " +
+                    "WHERE ae.article_id != :articleId AND ae.vector IS NOT NULL " +
+                    "ORDER BY " + order + " LIMIT :limit";
+        }
+        int candidateLimit = candidateLimit(mode, limit);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("articleId", articleId)
+                .addValue("limit", limit)
+                .addValue("candidateLimit", candidateLimit);
+        return withEfSearch(candidateLimit, () -> namedParameterJdbcTemplate.query(sql, params,
+                (rs, rowNum) -> new VectorHit(rs.getLong("article_id"), rs.getDouble("distance"))));
+    }
+
+    public VectorStorageMode getActiveMode() {
+        return activeMode;
+    }
+
+    public boolean isMigrating() {
+        return migrating.get();
+    }
+
+    public VectorStorageStatusDTO getStatus() {
+        Map<String, Long> indexSizes = new LinkedHashMap<>();
+        for (VectorStorageMode mode : VectorStorageMode.values()) {
+            List<Long> sizes = jdbcTemplate.queryForList(
+                    "SELECT pg_relation_size(c.oid) FROM pg_class c WHERE c.relname = ?", Long.class,
+                    indexName(mode));
+            if (!sizes.isEmpty()) {
+                indexSizes.put(indexName(mode), sizes.getFirst());
+            }
+        }
+        return new VectorStorageStatusDTO(configuredMode().name(), activeMode.name(), migrating.get(), indexSizes);
+    }
+
+    private List<ArticleExtraRepository.IdWithDistance> search(float[] vector, String joins, String filter,
+            MapSqlParameterSource params, FilteredAnnPlanner.Filter annFilter, double threshold, int limit) {
+        FilteredAnnPlanner.Plan plan = filteredAnnPlanner.plan(annFilter, candidateLimit(activeMode, limit));
+        return search(vector, joins, filter, params, plan, threshold, limit);
+    }
+
+    /**
+     * 按给定规划检索，基准测试可借此强制使用某种策略
+     */
+    List<ArticleExtraRepository.IdWithDistance> search(float[] vector, String joins, String filter,
+            MapSqlParameterSource params, FilteredAnnPlanner.Plan plan, double threshold, int limit) {
+        VectorStorageMode mode = activeMode;
+        params.addValue("queryVector", toPgVectorLiteral(vector))
+                .addValue("threshold", threshold)
+                .addValue("limit", limit)
+                .addValue("candidateLimit", candidateLimit(mode, limit));
+
+        String sql = recallSql(mode, joins, filter, ":limit", plan.exact());
+        log.debug("Vector search plan {}", plan);
+        return withPlan(plan, () -> namedParameterJdbcTemplate.query(sql, params,
+                (rs, rowNum) -> new VectorHit(rs.getLong("article_id"), rs.getDouble("distance"))));
+    }
+
+    /**
+     * 与给定范围对应的检索规划，供混合检索在同一条SQL中复用
+     */
+    FilteredAnnPlanner.Plan plan(FilteredAnnPlanner.Filter annFilter, int limit) {
+        return filteredAnnPlanner.plan(annFilter, candidateLimit(activeMode, limit));
+    }
+
+    /**
+     * 近期索引的结果凑满limit时不再查询pgvector，否则只在窗口之前的文章中补足
+     * 窗口内命中足够时不再与更早的文章比较距离：检索排序本身带时间衰减，近期优先与之一致
+     */
+    private List<ArticleExtraRepository.IdWithDistance> recentFirst(RecentVectorIndexService.Recall recent,
+            int limit, IntFunction<List<ArticleExtraRepository.IdWithDistance>> older) {
+        if (recent.hits().size() >= limit) {
+            return recent.hits();
+        }
+        List<ArticleExtraRepository.IdWithDistance> merged = new ArrayList<>(recent.hits());
+        merged.addAll(older.apply(limit - recent.hits().size()));
+        merged.sort(Comparator.comparing(ArticleExtraRepository.IdWithDistance::getDistance));
+        return merged;
+    }
+
+    /**
+     * 向量召回SQL（返回article_id、distance，按距离升序），供单独检索与混合检索共用
+     * 需要参数:queryVector、:threshold、:candidateLimit以及limitParam
+     *
+     * @param exact 为true时对过滤后的行精确计算距离，不走HNSW索引
+     */
+    String recallSql(VectorStorageMode mode, String joins, String filter, String limitParam, boolean exact) {
+        if (exact) {
+            // OFFSET 0 阻止子查询上提，排序无法匹配索引表达式，规划器只能在过滤后的行上计算距离
+            return "SELECT s.article_id, s.distance FROM (" +
+                    "SELECT ae.article_id, " + exactDistance("ae." + COLUMN, ":queryVector") + " AS distance " +
+                    "FROM article_extra ae " + joins + " WHERE " + filter + " AND ae.vector IS NOT NULL OFFSET 0) s " +
+                    "WHERE s.distance < :threshold ORDER BY s.distance LIMIT " + limitParam;
+        }
+        if (mode == VectorStorageMode.BINARY) {
+            // 二值索引召回候选，再用原始向量计算精确距离并过滤、重排
+            return "SELECT c.article_id, c.distance FROM (" +
+                    "SELECT ae.article_id, " + exactDistance("ae." + COLUMN, ":queryVector") + " AS distance " +
+                    "FROM article_extra ae " + joins + " WHERE " + filter + " AND ae.vector IS NOT NULL " +
+                    "ORDER BY " + orderExpression(mode, "ae." + COLUMN, ":queryVector") +
+                    " LIMIT :candidateLimit) c WHERE c.distance < :threshold ORDER BY c.distance LIMIT " + limitParam;
+        }
+        String distance = orderExpression(mode, "ae." + COLUMN, ":queryVector");
+        return "SELECT ae.article_id, (" + distance + ") AS distance FROM article_extra ae " + joins +
+                " WHERE " + filter + " AND ae.vector IS NOT NULL AND (" + distance + ") < :threshold " +
+                "ORDER BY distance ASC LIMIT " + limitParam;
+    }
+
+    /**
+     * hnsw.ef_search默认40，会截断更大的LIMIT；在事务内按候选数临时调大
+     */
+    <T> T withEfSearch(int candidates, Supplier<T> query) {
+        if (candidates <= FilteredAnnPlanner.DEFAULT_EF_SEARCH) {
+            return query.get();
+        }
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL hnsw.ef_search = " +
+                    Math.min(candidates, FilteredAnnPlanner.MAX_EF_SEARCH));
+            return query.get();
+        });
+    }
+
+    /**
+     * 按规划在事务内设置ef_search与迭代扫描参数，精确扫描不涉及索引参数
+     */
+    <T> T withPlan(FilteredAnnPlanner.Plan plan, Supplier<T> query) {
+        boolean iterative = plan.strategy() == FilteredAnnPlanner.Strategy.ITERATIVE;
+        if (plan.exact() || (!iterative && plan.efSearch() <= FilteredAnnPlanner.DEFAULT_EF_SEARCH)) {
+            return query.get();
+        }
+        StringBuilder settings = new StringBuilder("SET LOCAL hnsw.ef_search = ").append(plan.efSearch());
+        if (iterative) {
+            settings.append("; SET LOCAL hnsw.iterative_scan = strict_order; SET LOCAL hnsw.max_scan_tuples = ")
+                    .append(plan.maxScanTuples());
+        }
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(settings.toString());
+            return query.get();
+        });
+    }
+
+    int candidateLimit(VectorStorageMode mode, int limit) {
+        if (mode != VectorStorageMode.BINARY) {
+            return limit;
+        }
+        int factor = Math.max(1, Objects.requireNonNullElse(appConfig.getVectorBinaryRerankFactor(), 4));
+        return limit * factor;
+    }
+
+    private VectorStorageMode configuredMode() {
+        try {
+            return VectorStorageMode.valueOf(
+                    Objects.requireNonNullElse(appConfig.getVectorStorageMode(), "FLOAT32").trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown vector_storage_mode {}, using FLOAT32", appConfig.getVectorStorageMode());
+            return VectorStorageMode.FLOAT32;
+        }
+    }
+
+    /**
+     * 在后台建立目标模式的索引（CONCURRENTLY，不阻塞写入），建好后切换检索模式；旧索引保留以便回退
+     */
+    private void migrateAsync() {
+        if (!migrating.compareAndSet(false, true)) {
+            log.info("Vector index migration already running, skip");
+            return;
+        }
+        Thread.ofVirtual().name("vector-index-migration").start(() -> {
+            VectorStorageMode target = configuredMode();
+            try {
+                jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
+                String indexName = indexName(target);
+                Boolean valid = indexValidity(indexName);
+                if (Boolean.FALSE.equals(valid)) {
+                    // 上次并发建索引中断留下的无效索引
+                    jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+                }
+                if (!Boolean.TRUE.equals(valid)) {
+                    log.info("Building vector index {} for mode {}, queries keep using {}", indexName, target,
+                            activeMode);
+                    long start = System.currentTimeMillis();
+                    jdbcTemplate.execute(indexDdl(target, indexName, TABLE, COLUMN));
+                    log.info("Vector index {} built in {}ms", indexName, System.currentTimeMillis() - start);
+                }
+                if (Boolean.TRUE.equals(indexValidity(indexName))) {
+                    VectorStorageMode previous = activeMode;
+                    activeMode = target;
+                    if (previous != target) {
+                        log.info("Vector search switched from {} to {}; drop index {} manually once satisfied",
+                                previous, target, indexName(previous));
+                    }
+                } else {
+                    log.error("Vector index {} is not valid, keep using {}", indexName, activeMode);
+                }
+            } catch (Exception e) {
+                log.error("Vector index migration to {} failed, keep using {}", target, activeMode, e);
+            } finally {
+                migrating.set(false);
+            }
+            // 迁移期间配置再次变化
+            if (configuredMode() != activeMode && configuredMode() != target) {
+                migrateAsync();
+            }
+        });
+    }
+
+    /**
+     * @return 索引不存在时返回null
+     */
+    private Boolean indexValidity(String indexName) {
+        List<Boolean> result = jdbcTemplate.queryForList(
+                "SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid WHERE c.relname = ?",
+                Boolean.class, indexName);
+        return result.isEmpty() ? null : result.getFirst();
+    }
+
+    static String indexName(VectorStorageMode mode) {
+        return switch (mode) {
+            case FLOAT32 -> "idx_article_extra_vector_hnsw";
+            case HALFVEC -> "idx_article_extra_vector_halfvec_hnsw";
+            case BINARY -> "idx_article_extra_vector_binary_hnsw";
+        };
+    }
+
+    static String indexDdl(VectorStorageMode mode, String indexName, String table, String column) {
+        String expression = switch (mode) {
+            case FLOAT32 -> column + " vector_cosine_ops";
+            case HALFVEC -> "(" + column + "::halfvec(" + DIMENSIONS + ")) halfvec_cosine_ops";
+            case BINARY -> "(binary_quantize(" + column + ")::bit(" + DIMENSIONS + ")) bit_hamming_ops";
+        };
+        return "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + indexName + " ON " + table +
+                " USING hnsw (" + expression + ") WITH (m = 16, ef_construction = 64)";
+    }
+
+    /**
+     * 与索引表达式一致的排序表达式，保证能命中对应索引
+     */
+    static String orderExpression(VectorStorageMode mode, String column, String vectorParam) {
+        return switch (mode) {
+            case FLOAT32 -> exactDistance(column, vectorParam);
+            case HALFVEC -> column + "::halfvec(" + DIMENSIONS + ") <=> CAST(" + vectorParam + " AS halfvec(" +
+                    DIMENSIONS + "))";
+            case BINARY -> "binary_quantize(" + column + ")::bit(" + DIMENSIONS + ") <~> binary_quantize(CAST(" +
+                    vectorParam + " AS vector))";
+        };
+    }
+
+    static String exactDistance(String column, String vectorParam) {
+        return column + " <=> CAST(" + vectorParam + " AS vector)";
+    }
+
+    static String toPgVectorLiteral(float[] vector) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(vector[i]);
+        }
+        return builder.append(']').toString();
+    }
+
+    static float[] fromPgVectorLiteral(String text) {
+        String[] parts = text.substring(1, text.length() - 1).split(",");
+        float[] vector = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            vector[i] = Float.parseFloat(parts[i]);
+        }
+        return vector;
+    }
+
+    record VectorHit(Long articleId, Double distance) implements ArticleExtraRepository.IdWithDistance {
+
+        @Override
+        public Long getArticleId() {
+            return articleId;
+        }
+
+        @Override
+        public Double getDistance() {
+            return distance;
+        }
+    }
+}
@@ -78,21 +78,84 @@ public class AppConfig {
             ```
             """;
 
+    @SettingKey("llm_content_token_budget")
+    private Integer llmContentTokenBudget = 12000;
+
+    @SettingKey("llm_content_map_reduce_tokens")
+    private Integer llmContentMapReduceTokens = 48000;
+
+    @SettingKey("llm_chunk_summary_prompt")
+    private String llmChunkSummaryPrompt = """
+            你是一个专业的内容编辑。以下是一篇长文章的第 {index}/{total} 部分。
+            请用简体中文概括该部分的核心事实、观点与关键实体（人名、公司名、技术名词、数据），
+            保留原有的 Markdown 小标题结构，不超过 {limit} 字，仅输出概括内容，严禁任何开场白。
+            
+            文章标题：{title}
+            
+            内容片段：
+            {content}
+            """;
+
     @SettingKey("llm_gen_model_config")
     private JsonNode llmGenModelConfig;
 
     @SettingKey("embedding_model_id")
     private String embeddingModel;
 
+    @SettingKey("embedding_serving_model")
+    private String embeddingServingModel;
+
+    @SettingKey("embedding_backfill_batch_size")
+    private Integer embeddingBackfillBatchSize = 32;
+
+    @SettingKey("embedding_backfill_interval_ms")
+    private Integer embeddingBackfillIntervalMillis = 1000;
+
     @SettingKey("embedding_base_url")
     private String embeddingBaseUrl;
 
     @SettingKey("embedding_api_key")
     private String embeddingApiKey;
 
+    @SettingKey("llm_endpoint_pool")
+    private String llmEndpointPool = "[]";
+
+    @SettingKey("vector_storage_mode")
+    private String vectorStorageMode = "FLOAT32";
+
+    @SettingKey("vector_binary_rerank_factor")
+    private Integer vectorBinaryRerankFactor = 4;
+
+    @SettingKey("vector_filter_exact_rows")
+    private Integer vectorFilterExactRows = 5000;
+
+    @SettingKey("vector_filter_max_scan_tuples")
+    private Integer vectorFilterMaxScanTuples = 20000;
+
+    @SettingKey("search_keyword_mode")
+    private String searchKeywordMode = "FULLTEXT";
+
+    @SettingKey("search_fusion_mode")
+    private String searchFusionMode = "WEIGHTED";
+
+    @SettingKey("search_cache_ttl_seconds")
+    private Integer searchCacheTtlSeconds = 60;
+
+    @SettingKey("search_cache_max_entries")
+    private Integer searchCacheMaxEntries = 1000;
+
+    @SettingKey("recent_vector_index_days")
+    private Integer recentVectorIndexDays = 7;
+
     @SettingKey("concurrent_limit")
     private Integer concurrentLimit = 1;
 
+    @SettingKey("llm_retry_max_attempts")
+    private Integer llmRetryMaxAttempts = 5;
+
+    @SettingKey("llm_retry_base_delay_minutes")
+    private Integer llmRetryBaseDelayMinutes = 10;
+
     @SettingKey("admin_username")
     private String adminUsername = "admin";
 
@@ -121,6 +184,24 @@ public class AppConfig {
     @SettingKey("subscription_topic_threshold")
     private Double topicThreshold = 0.4;
 
+    @SettingKey("topic_canonical_distance")
+    private Double topicCanonicalDistance = 0.08;
+
+    @SettingKey("timeline_cache_size")
+    private Integer timelineCacheSize = 200;
+
+    @SettingKey("timeline_cache_max_users")
+    private Integer timelineCacheMaxUsers = 10000;
+
+    @SettingKey("timeline_cache_idle_minutes")
+    private Integer timelineCacheIdleMinutes = 30;
+
+    @SettingKey("read_state_cache_max_users")
+    private Integer readStateCacheMaxUsers = 10000;
+
+    @SettingKey("subscription_cache_max_users")
+    private Integer subscriptionCacheMaxUsers = 10000;
+
     @SettingKey("trends_hot_events_map_prompt")
     private String trendsHotEventsMapPrompt = """
              你是一个专业的新闻分析师。请基于以下RSS源最近文章的“标题+概览”，提炼 0-10 个具有**明确时效性**的客观事件。
@@ -1,5 +1,6 @@
 package com.jingwei.rsswithai.config;
 
+import com.jingwei.rsswithai.domain.model.AnalysisStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -7,6 +8,9 @@ import org.springframework.context.ApplicationListener;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
 @Component
 public class DatabaseIndexInitializer implements ApplicationListener<ApplicationReadyEvent> {
 
@@ -20,6 +24,8 @@ public class DatabaseIndexInitializer implements ApplicationListener<Application
 
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
+        migrateStatusConstraint();
+
         logger.info("Starting database index initialization...");
 
         try {
@@ -42,10 +48,7 @@ public class DatabaseIndexInitializer implements ApplicationListener<Application
             // 4. pgvector extension
             jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS vector");
 
-            // 5. HNSW index for vector search (Idempotent)
-            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_article_extra_vector_hnsw ON article_extra " +
-                    "USING hnsw (vector vector_cosine_ops) " +
-                    "WITH (m = 16, ef_construction = 64)");
+            // 5. HNSW index for vector search is managed by VectorSearchService (depends on vector_storage_mode)
 
             logger.info("Database index initialization completed successfully.");
         } catch (Exception e) {
@@ -54,4 +57,21 @@ public class DatabaseIndexInitializer implements ApplicationListener<Application
             // already exists but different definition)
         }
     }
+
+    /**
+     * Hibernate为枚举列生成的检查约束只在建表时写入，ddl-auto=update不会随枚举新增取值更新；
+     * 按当前AnalysisStatus重建article_extra的状态约束，否则写入DEAD会失败
+     */
+    private void migrateStatusConstraint() {
+        String allowed = Arrays.stream(AnalysisStatus.values())
+                .map(status -> "'" + status.name() + "'")
+                .collect(Collectors.joining(", "));
+        try {
+            jdbcTemplate.execute("ALTER TABLE article_extra DROP CONSTRAINT IF EXISTS article_extra_status_check, " +
+                    "ADD CONSTRAINT article_extra_status_check CHECK (status IN (" + allowed + "))");
+            logger.info("article_extra status constraint migrated: {}", allowed);
+        } catch (Exception e) {
+            logger.error("Failed to migrate article_extra status constraint: {}", e.getMessage());
+        }
+    }
 }
\ No newline at end of file
@@ -2,5 +2,7 @@ package com.jingwei.rsswithai.domain.model;
 
 public enum AnalysisStatus {
     SUCCESS,
-    FAILED
+    FAILED,
+    // 重试次数耗尽，不再自动重试（仅文章增强使用）
+    DEAD
 }
@@ -20,7 +20,8 @@ import java.util.List;
  */
 @Entity
 @Table(name = "article_extra", indexes = {
-        @Index(name = "idx_article_extra_article_id", columnList = "article_id", unique = true)
+        @Index(name = "idx_article_extra_article_id", columnList = "article_id", unique = true),
+        @Index(name = "idx_article_extra_status_retry", columnList = "status, next_retry_at")
 })
 @Data
 @NoArgsConstructor
@@ -74,7 +75,14 @@ public class ArticleExtra {
     private float[] vector;
 
     /**
-     * 最终状态：SUCCESS, FAILED
+     * 生成vector所用的embedding模型，为空表示引入版本记录之前生成的向量
+     * 切换模型时新向量先写入next_vector/next_vector_model（仅由原生SQL读写），覆盖完成后整体切换
+     */
+    @Column(name = "vector_model")
+    private String vectorModel;
+
+    /**
+     * 最终状态：SUCCESS, FAILED, DEAD
      */
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -86,6 +94,18 @@ public class ArticleExtra {
     @Column(columnDefinition = "TEXT")
     private String errorMessage;
 
+    /**
+     * 累计处理次数（含首次处理），用于失败重试的指数退避
+     */
+    @Column(name = "attempt_count")
+    private Integer attemptCount;
+
+    /**
+     * 下一次允许自动重试的时间，仅FAILED状态有效
+     */
+    @Column(name = "next_retry_at")
+    private LocalDateTime nextRetryAt;
+
     /**
      * 创建时间
      */
@@ -28,6 +28,9 @@ public class Topic {
     @Array(length = 1024)
     private float[] vector;
 
+    @Column(name = "vector_model")
+    private String vectorModel;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 }
\ No newline at end of file
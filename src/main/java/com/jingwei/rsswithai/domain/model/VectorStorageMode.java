@@ -0,0 +1,13 @@
+package com.jingwei.rsswithai.domain.model;
+
+/**
+ * 文章向量的索引存储方式（表中始终保存float32原始向量）
+ */
+public enum VectorStorageMode {
+    // vector(1024) 上的HNSW索引
+    FLOAT32,
+    // 半精度表达式索引，索引体积约为FLOAT32的一半
+    HALFVEC,
+    // 二值量化表达式索引召回候选，再用原始向量精排
+    BINARY
+}
@@ -55,27 +55,40 @@ public interface ArticleExtraRepository extends JpaRepository<ArticleExtra, Long
     @Query(value = "DELETE FROM article_extra WHERE article_id = :articleId", nativeQuery = true)
     void deleteByArticleId(@Param("articleId") Long articleId);
 
-    @Query(value = "SELECT ae.article_id as articleId, (ae.vector <=> CAST(:queryVector AS vector)) as distance FROM article_extra ae JOIN articles a ON a.id = ae.article_id WHERE ae.vector IS NOT NULL AND (ae.vector <=> CAST(:queryVector AS vector)) < :threshold ORDER BY distance ASC LIMIT :limit", nativeQuery = true)
-    List<IdWithDistance> searchIdsByVector(@Param("queryVector") String queryVector,
-            @Param("threshold") double threshold, @Param("limit") int limit);
-
-    @Query(value = "SELECT ae.article_id as articleId, (ae.vector <=> CAST(:queryVector AS vector)) as distance FROM article_extra ae JOIN articles a ON a.id = ae.article_id WHERE a.source_id IN (:sourceIds) AND ae.vector IS NOT NULL AND (ae.vector <=> CAST(:queryVector AS vector)) < :threshold ORDER BY distance ASC LIMIT :limit", nativeQuery = true)
-    List<IdWithDistance> searchIdsByVectorInSources(@Param("queryVector") String queryVector,
-            @Param("sourceIds") List<Long> sourceIds, @Param("threshold") double threshold, @Param("limit") int limit);
-
-    @Query(value = "SELECT ae.article_id as articleId, (ae.vector <=> CAST(:queryVector AS vector)) as distance FROM article_extra ae "
-            +
-            "JOIN article_favorites af ON ae.article_id = af.article_id " +
-            "JOIN articles a ON a.id = ae.article_id " +
-            "WHERE af.user_id = :userId AND ae.vector IS NOT NULL AND (ae.vector <=> CAST(:queryVector AS vector)) < :threshold "
-            +
-            "ORDER BY distance ASC LIMIT :limit", nativeQuery = true)
-    List<IdWithDistance> searchIdsByVectorInFavorites(@Param("queryVector") String queryVector,
-            @Param("userId") Long userId, @Param("threshold") double threshold, @Param("limit") int limit);
-
-    @Query("SELECT ae.articleId FROM ArticleExtra ae WHERE ae.status = :status AND ae.updatedAt >= :since")
-    List<Long> findArticleIdsByStatusSince(@Param("status") AnalysisStatus status,
-            @Param("since") LocalDateTime since);
+    /**
+     * 覆盖文章的增强结果：删除与插入在同一事务内，插入失败时删除一并回滚，原记录不会丢失
+     */
+    @Transactional
+    default ArticleExtra replaceByArticleId(ArticleExtra articleExtra) {
+        deleteByArticleId(articleExtra.getArticleId());
+        return saveAndFlush(articleExtra);
+    }
+
+    /**
+     * 查询已到重试时间的失败文章（按到期时间先后），仅限指定时间之后入库的文章
+     */
+    @Query(value = "SELECT ae.article_id FROM article_extra ae JOIN articles a ON a.id = ae.article_id " +
+            "WHERE ae.status = 'FAILED' AND (ae.next_retry_at IS NULL OR ae.next_retry_at <= :now) " +
+            "AND a.created_at >= :since ORDER BY ae.next_retry_at ASC NULLS FIRST LIMIT :limit", nativeQuery = true)
+    List<Long> findRetryableArticleIds(@Param("now") LocalDateTime now, @Param("since") LocalDateTime since,
+            @Param("limit") int limit);
+
+    boolean existsByArticleIdAndStatus(Long articleId, AnalysisStatus status);
+
+    /**
+     * 领取一次重试：仍为已到期的FAILED时把next_retry_at推迟到leaseUntil
+     *
+     * @return 领取成功时为1；已不是FAILED、未到期或已被领取时为0
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE article_extra SET next_retry_at = :leaseUntil WHERE article_id = :articleId " +
+            "AND status = 'FAILED' AND (next_retry_at IS NULL OR next_retry_at <= :now)", nativeQuery = true)
+    int claimRetry(@Param("articleId") Long articleId, @Param("now") LocalDateTime now,
+            @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Query("SELECT ae.attemptCount FROM ArticleExtra ae WHERE ae.articleId = :articleId")
+    Optional<Integer> findAttemptCountByArticleId(@Param("articleId") Long articleId);
 
     interface IdWithDistance {
         Long getArticleId();
@@ -83,9 +96,6 @@ public interface ArticleExtraRepository extends JpaRepository<ArticleExtra, Long
         Double getDistance();
     }
 
-    @Query(value = "SELECT ae_other.article_id FROM article_extra ae_target JOIN article_extra ae_other ON ae_other.article_id != :articleId AND ae_other.vector IS NOT NULL WHERE ae_target.article_id = :articleId AND ae_target.vector IS NOT NULL ORDER BY ae_other.vector <=> ae_target.vector ASC LIMIT :limit", nativeQuery = true)
-    List<Long> findSimilarArticleIds(@Param("articleId") Long articleId, @Param("limit") int limit);
-
     /**
      * getArticleExtra 场景专用：不读取 vector，避免 vector 为 null 时的映射异常/无用大字段读取
      */
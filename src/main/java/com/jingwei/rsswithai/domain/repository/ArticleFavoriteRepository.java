@@ -2,8 +2,12 @@ package com.jingwei.rsswithai.domain.repository;
 
 import com.jingwei.rsswithai.domain.model.ArticleFavorite;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +17,7 @@ public interface ArticleFavoriteRepository extends JpaRepository<ArticleFavorite
 
     Optional<ArticleFavorite> findByUserIdAndArticle_Id(Long userId, Long articleId);
 
+    @Query("select f.article.id from ArticleFavorite f where f.userId = :userId and f.article.id in :articleIds")
+    List<Long> findFavoriteArticleIds(@Param("userId") Long userId, @Param("articleIds") Collection<Long> articleIds);
+
 }
\ No newline at end of file
@@ -15,14 +15,28 @@ import java.util.List;
 @Repository
 public interface ArticleRepository extends JpaRepository<Article, Long> {
 
+    /**
+     * 列表与趋势分析用的列，不含 description/content 两个大文本列
+     */
+    String SUMMARY_COLUMNS = "a.id as id, a.source_id as sourceId, a.source_name as sourceName, a.title as title, " +
+            "a.link as link, a.guid as guid, a.author as author, a.pub_date as pubDate, a.categories as categories, " +
+            "a.word_count as wordCount, a.cover_image as coverImage, a.fetched_at as fetchedAt, " +
+            "a.created_at as createdAt";
+
     @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END FROM Article a WHERE a.source.id = :sourceId AND (a.guid = :guid OR a.link = :link)")
     boolean existsBySourceIdAndGuidOrLink(@Param("sourceId") Long sourceId, @Param("guid") String guid, @Param("link") String link);
 
-    Page<Article> findBySourceIdOrderByPubDateDesc(Long sourceId, Pageable pageable);
+    @Query(value = "SELECT " + SUMMARY_COLUMNS + " FROM articles a WHERE a.source_id = :sourceId " +
+            "ORDER BY a.pub_date DESC, a.id DESC",
+            countQuery = "SELECT count(*) FROM articles a WHERE a.source_id = :sourceId",
+            nativeQuery = true)
+    Page<ArticleSummaryView> findSummaryBySourceId(@Param("sourceId") Long sourceId, Pageable pageable);
 
-            @Query("SELECT a FROM Article a WHERE a.source.id = :sourceId AND a.pubDate IS NOT NULL AND a.pubDate >= :since ORDER BY a.pubDate DESC, a.id DESC")
-            List<Article> findBySourceIdAndPubDateSinceOrderByPubDateDesc(@Param("sourceId") Long sourceId,
-                    @Param("since") LocalDateTime since);
+    @Query(value = "SELECT " + SUMMARY_COLUMNS + " FROM articles a WHERE a.source_id = :sourceId " +
+            "AND a.pub_date IS NOT NULL AND a.pub_date >= :since ORDER BY a.pub_date DESC, a.id DESC",
+            nativeQuery = true)
+    List<ArticleSummaryView> findSummaryBySourceIdSince(@Param("sourceId") Long sourceId,
+            @Param("since") LocalDateTime since);
 
     @Query(value = "SELECT a.id as id, a.source_id as sourceId, a.source_name as sourceName, a.title as title, " +
             "a.link as link, a.cover_image as coverImage, a.pub_date as pubDate, a.word_count as wordCount " +
@@ -31,14 +45,31 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
             nativeQuery = true)
     Page<ArticleFeedView> findFeedBySourceId(@Param("sourceId") Long sourceId, Pageable pageable);
 
-    @Query(value = "SELECT * FROM articles WHERE source_id = :sourceId AND (title ILIKE CONCAT('%', :searchWord, '%') OR author ILIKE CONCAT('%', :searchWord, '%')) ORDER BY pub_date DESC", countQuery = "SELECT count(*) FROM articles WHERE source_id = :sourceId AND (title ILIKE CONCAT('%', :searchWord, '%') OR author ILIKE CONCAT('%', :searchWord, '%'))", nativeQuery = true)
-    Page<Article> findBySourceIdAndSearchWordOrderByPubDateDesc(@Param("sourceId") Long sourceId,
+    @Query(value = "SELECT a.id FROM articles a WHERE a.source_id = :sourceId " +
+            "ORDER BY a.pub_date DESC, a.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findRecentIdsBySourceId(@Param("sourceId") Long sourceId, @Param("limit") int limit);
+
+    @Query(value = "SELECT a.id FROM articles a WHERE a.source_id = :sourceId " +
+            "AND (a.pub_date < :cursorTime OR (a.pub_date = :cursorTime AND a.id <= :cursorId)) " +
+            "ORDER BY a.pub_date DESC, a.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findIdsBySourceIdUpTo(@Param("sourceId") Long sourceId,
+            @Param("cursorTime") LocalDateTime cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit);
+
+    @Query(value = "SELECT " + SUMMARY_COLUMNS + " FROM articles a WHERE a.source_id = :sourceId AND (a.title ILIKE CONCAT('%', :searchWord, '%') OR a.author ILIKE CONCAT('%', :searchWord, '%')) ORDER BY a.pub_date DESC", countQuery = "SELECT count(*) FROM articles WHERE source_id = :sourceId AND (title ILIKE CONCAT('%', :searchWord, '%') OR author ILIKE CONCAT('%', :searchWord, '%'))", nativeQuery = true)
+    Page<ArticleSummaryView> findSummaryBySourceIdAndSearchWord(@Param("sourceId") Long sourceId,
             @Param("searchWord") String searchWord, Pageable pageable);
 
-    Page<Article> findAllByOrderByPubDateDesc(Pageable pageable);
+    @Query(value = "SELECT " + SUMMARY_COLUMNS + " FROM articles a ORDER BY a.pub_date DESC",
+            countQuery = "SELECT count(*) FROM articles",
+            nativeQuery = true)
+    Page<ArticleSummaryView> findAllSummaries(Pageable pageable);
 
-    @Query(value = "SELECT * FROM articles WHERE title ILIKE CONCAT('%', :searchWord, '%') OR author ILIKE CONCAT('%', :searchWord, '%') OR source_name ILIKE CONCAT('%', :searchWord, '%') ORDER BY pub_date DESC", countQuery = "SELECT count(*) FROM articles WHERE title ILIKE CONCAT('%', :searchWord, '%') OR author ILIKE CONCAT('%', :searchWord, '%') OR source_name ILIKE CONCAT('%', :searchWord, '%')", nativeQuery = true)
-    Page<Article> findAllBySearchWordOrderByPubDateDesc(@Param("searchWord") String searchWord, Pageable pageable);
+    @Query(value = "SELECT " + SUMMARY_COLUMNS + " FROM articles a WHERE a.title ILIKE CONCAT('%', :searchWord, '%') OR a.author ILIKE CONCAT('%', :searchWord, '%') OR a.source_name ILIKE CONCAT('%', :searchWord, '%') ORDER BY a.pub_date DESC", countQuery = "SELECT count(*) FROM articles WHERE title ILIKE CONCAT('%', :searchWord, '%') OR author ILIKE CONCAT('%', :searchWord, '%') OR source_name ILIKE CONCAT('%', :searchWord, '%')", nativeQuery = true)
+    Page<ArticleSummaryView> findSummaryBySearchWord(@Param("searchWord") String searchWord, Pageable pageable);
 
     @Query(value = "SELECT id FROM articles WHERE title ILIKE CONCAT('%', :likePattern, '%') OR author ILIKE CONCAT('%', :likePattern, '%') OR source_name ILIKE CONCAT('%', :likePattern, '%') ORDER BY pub_date DESC LIMIT :limit", nativeQuery = true)
     List<Long> searchIdsByFuzzy(@Param("likePattern") String likePattern, @Param("limit") int limit);
@@ -94,4 +125,35 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
         Long getWordCount();
     }
 
+    /**
+     * 不含大文本列的文章投影
+     */
+    interface ArticleSummaryView {
+        Long getId();
+
+        Long getSourceId();
+
+        String getSourceName();
+
+        String getTitle();
+
+        String getLink();
+
+        String getGuid();
+
+        String getAuthor();
+
+        LocalDateTime getPubDate();
+
+        String getCategories();
+
+        Long getWordCount();
+
+        String getCoverImage();
+
+        LocalDateTime getFetchedAt();
+
+        LocalDateTime getCreatedAt();
+    }
+
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.jingwei.rsswithai.interfaces.admin;
 
+import com.jingwei.rsswithai.application.dto.ArticleCursorPageDTO;
 import com.jingwei.rsswithai.application.dto.ArticleDTO;
 import com.jingwei.rsswithai.application.dto.ArticleDetailDTO;
 import com.jingwei.rsswithai.application.dto.ArticleExtraDTO;
 import com.jingwei.rsswithai.application.dto.ArticleStatsDTO;
+import com.jingwei.rsswithai.application.service.ArticleListService;
 import com.jingwei.rsswithai.application.service.ArticleService;
 import com.jingwei.rsswithai.application.service.LlmProcessService;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +28,7 @@ public class ArticleController {
 
     private final ArticleService articleService;
     private final LlmProcessService llmProcessService;
+    private final ArticleListService articleListService;
 
     /**
      * 获取所有文章（分页）
@@ -40,6 +43,21 @@ public class ArticleController {
         return ResponseEntity.ok(articles);
     }
 
+    /**
+     * 获取所有文章（游标分页）
+     * 总数默认为估算值，exactCount=true时精确计数
+     * GET /api/admin/v1/articles/cursor?cursor=xxx&size=20&searchWord=keyword&exactCount=false
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ArticleCursorPageDTO> getArticlesByCursor(
+            @org.springframework.web.bind.annotation.RequestParam(required = false) String cursor,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "20") Integer size,
+            @org.springframework.web.bind.annotation.RequestParam(required = false) String searchWord,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "false") boolean exactCount) {
+        log.debug("游标获取所有文章, cursor={}, size={}, searchWord={}", cursor, size, searchWord);
+        return ResponseEntity.ok(articleListService.list(null, searchWord, cursor, size, exactCount));
+    }
+
     /**
      * 获取文章统计信息
      * GET /api/admin/v1/articles/stats
@@ -77,6 +95,21 @@ public class ArticleController {
         return ResponseEntity.ok(articles);
     }
 
+    /**
+     * 获取指定RSS源的文章（游标分页）
+     * GET /api/admin/v1/articles/source/{sourceId}/cursor?cursor=xxx&size=20&searchWord=keyword&exactCount=false
+     */
+    @GetMapping("/source/{sourceId}/cursor")
+    public ResponseEntity<ArticleCursorPageDTO> getArticlesBySourceByCursor(
+            @PathVariable Long sourceId,
+            @org.springframework.web.bind.annotation.RequestParam(required = false) String cursor,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "20") Integer size,
+            @org.springframework.web.bind.annotation.RequestParam(required = false) String searchWord,
+            @org.springframework.web.bind.annotation.RequestParam(defaultValue = "false") boolean exactCount) {
+        log.debug("游标获取RSS源文章: sourceId={}, cursor={}, size={}, searchWord={}", sourceId, cursor, size, searchWord);
+        return ResponseEntity.ok(articleListService.list(sourceId, searchWord, cursor, size, exactCount));
+    }
+
     /**
      * 获取文章增强信息
      * GET /api/v1/articles/{id}/extra
@@ -1,6 +1,20 @@
 package com.jingwei.rsswithai.interfaces.admin;
 
+import com.jingwei.rsswithai.application.dto.EmbeddingMigrationStatusDTO;
+import com.jingwei.rsswithai.application.dto.LlmEndpointStatusDTO;
+import com.jingwei.rsswithai.application.dto.RecentVectorIndexStatsDTO;
+import com.jingwei.rsswithai.application.dto.SearchCacheStatsDTO;
+import com.jingwei.rsswithai.application.dto.TimelineCacheStatsDTO;
+import com.jingwei.rsswithai.application.dto.VectorStorageStatusDTO;
+import com.jingwei.rsswithai.application.dto.WarmupReportDTO;
+import com.jingwei.rsswithai.application.service.EmbeddingVersionService;
+import com.jingwei.rsswithai.application.service.LlmEndpointPool;
+import com.jingwei.rsswithai.application.service.RecentVectorIndexService;
+import com.jingwei.rsswithai.application.service.SearchResultCache;
 import com.jingwei.rsswithai.application.service.SettingsService;
+import com.jingwei.rsswithai.application.service.StartupWarmupService;
+import com.jingwei.rsswithai.application.service.TimelineCache;
+import com.jingwei.rsswithai.application.service.VectorSearchService;
 import com.jingwei.rsswithai.domain.model.Setting;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -17,6 +31,13 @@ import java.util.stream.Collectors;
 public class SettingsController {
 
     private final SettingsService settingsService;
+    private final LlmEndpointPool llmEndpointPool;
+    private final VectorSearchService vectorSearchService;
+    private final EmbeddingVersionService embeddingVersionService;
+    private final SearchResultCache searchResultCache;
+    private final StartupWarmupService startupWarmupService;
+    private final RecentVectorIndexService recentVectorIndexService;
+    private final TimelineCache timelineCache;
 
     @GetMapping
     public ResponseEntity<List<Setting>> getAllSettings() {
@@ -35,4 +56,39 @@ public class SettingsController {
         settingsService.updateSettings(settingsMap);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    @GetMapping("/llm-endpoints")
+    public ResponseEntity<List<LlmEndpointStatusDTO>> getLlmEndpointStatus() {
+        return ResponseEntity.ok(llmEndpointPool.getStatus());
+    }
+
+    @GetMapping("/vector-storage")
+    public ResponseEntity<VectorStorageStatusDTO> getVectorStorageStatus() {
+        return ResponseEntity.ok(vectorSearchService.getStatus());
+    }
+
+    @GetMapping("/recent-vector-index")
+    public ResponseEntity<RecentVectorIndexStatsDTO> getRecentVectorIndexStats() {
+        return ResponseEntity.ok(recentVectorIndexService.getStats());
+    }
+
+    @GetMapping("/embedding-migration")
+    public ResponseEntity<EmbeddingMigrationStatusDTO> getEmbeddingMigrationStatus() {
+        return ResponseEntity.ok(embeddingVersionService.getStatus());
+    }
+
+    @GetMapping("/search-cache")
+    public ResponseEntity<SearchCacheStatsDTO> getSearchCacheStats() {
+        return ResponseEntity.ok(searchResultCache.getStats());
+    }
+
+    @GetMapping("/timeline-cache")
+    public ResponseEntity<TimelineCacheStatsDTO> getTimelineCacheStats() {
+        return ResponseEntity.ok(timelineCache.getStats());
+    }
+
+    @GetMapping("/warmup")
+    public ResponseEntity<WarmupReportDTO> getWarmupReport() {
+        return ResponseEntity.ok(startupWarmupService.getReport());
+    }
+}
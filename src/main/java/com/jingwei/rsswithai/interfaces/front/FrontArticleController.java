@@ -3,7 +3,9 @@ package com.jingwei.rsswithai.interfaces.front;
 import com.jingwei.rsswithai.application.dto.ArticleDetailDTO;
 import com.jingwei.rsswithai.application.dto.ArticleExtraDTO;
 import com.jingwei.rsswithai.application.dto.ArticleFeedDTO;
+import com.jingwei.rsswithai.application.dto.SearchPageDTO;
 import com.jingwei.rsswithai.application.service.ArticleService;
+import com.jingwei.rsswithai.application.service.FavoriteStateService;
 import com.jingwei.rsswithai.domain.model.AnalysisStatus;
 import com.jingwei.rsswithai.interfaces.context.UserContext;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +24,7 @@ import java.util.List;
 public class FrontArticleController {
 
     private final ArticleService articleService;
+    private final FavoriteStateService favoriteStateService;
 
     @GetMapping("/{id}")
     public ResponseEntity<ArticleDetailDTO> getArticle(@PathVariable Long id) {
@@ -32,7 +35,7 @@ public class FrontArticleController {
     @GetMapping("/{id}/extra")
     public ResponseEntity<ArticleExtraDTO> getArticleExtra(@PathVariable Long id) {
         ArticleExtraDTO extra = articleService.getArticleExtra(id);
-        if (extra == null || AnalysisStatus.FAILED == extra.status()) {
+        if (extra == null || AnalysisStatus.SUCCESS != extra.status()) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok(extra);
@@ -43,8 +46,21 @@ public class FrontArticleController {
             @RequestParam("query") String query,
             @RequestParam(value = "searchScope", defaultValue = "ALL") SearchScope searchScope,
             @RequestParam(value = "sourceId", required = false) Long sourceId) {
-        List<ArticleFeedDTO> results = articleService.searchArticles(query, searchScope, sourceId, UserContext.currentUserIdOrNull());
-        return ResponseEntity.ok(results);
+        Long userId = UserContext.currentUserIdOrNull();
+        List<ArticleFeedDTO> results = articleService.searchArticles(query, searchScope, sourceId, userId);
+        return ResponseEntity.ok(favoriteStateService.decorate(userId, results));
+    }
+
+    @GetMapping("/search/page")
+    public ResponseEntity<SearchPageDTO> searchArticlesPage(
+            @RequestParam("query") String query,
+            @RequestParam(value = "searchScope", defaultValue = "ALL") SearchScope searchScope,
+            @RequestParam(value = "sourceId", required = false) Long sourceId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        Long userId = UserContext.currentUserIdOrNull();
+        return ResponseEntity.ok(favoriteStateService.decorate(userId,
+                articleService.searchArticlesPage(query, searchScope, sourceId, userId, cursor, size)));
     }
 
     @PostMapping("/{id}/favorite")
@@ -59,6 +75,18 @@ public class FrontArticleController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/{id}/read")
+    public ResponseEntity<Void> markArticleRead(@PathVariable Long id) {
+        articleService.markArticleRead(UserContext.currentUserId(), id);
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/{id}/read")
+    public ResponseEntity<Void> markArticleUnread(@PathVariable Long id) {
+        articleService.markArticleUnread(UserContext.currentUserId(), id);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/favorites")
     public ResponseEntity<Page<ArticleFeedDTO>> listFavoriteArticles(
             @PageableDefault(size = 10, sort = "pubDate", direction = Sort.Direction.DESC) Pageable pageable) {
@@ -69,15 +97,25 @@ public class FrontArticleController {
     @GetMapping("/{id}/recommendations")
     public ResponseEntity<List<ArticleFeedDTO>> recommendArticles(@PathVariable Long id) {
         List<ArticleFeedDTO> results = articleService.recommendArticles(id);
-        return ResponseEntity.ok(results);
+        return ResponseEntity.ok(favoriteStateService.decorate(UserContext.currentUserIdOrNull(), results));
     }
 
     @GetMapping("/source/{sourceId}")
     public ResponseEntity<Page<ArticleFeedDTO>> getArticlesBySource(
             @PathVariable Long sourceId,
-            @PageableDefault(size = 10, sort = "pubDate", direction = Sort.Direction.DESC) Pageable pageable) {
-        Page<ArticleFeedDTO> page = articleService.getArticleFeedsBySource(sourceId, pageable);
-        return ResponseEntity.ok(page);
+            @PageableDefault(size = 10, sort = "pubDate", direction = Sort.Direction.DESC) Pageable pageable,
+            @RequestParam(value = "unreadOnly", defaultValue = "false") boolean unreadOnly) {
+        Long userId = UserContext.currentUserIdOrNull();
+        Page<ArticleFeedDTO> page = articleService.getArticleFeedsBySource(sourceId, pageable,
+                unreadOnly ? userId : null, unreadOnly);
+        return ResponseEntity.ok(favoriteStateService.decorate(userId, page));
+    }
+
+    @PostMapping("/source/{sourceId}/read")
+    public ResponseEntity<Integer> markSourceRead(
+            @PathVariable Long sourceId,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        return ResponseEntity.ok(articleService.markSourceRead(UserContext.currentUserId(), sourceId, cursor));
     }
 
     public enum SearchScope {
@@ -26,11 +26,17 @@ public class FrontJwtFilter extends OncePerRequestFilter {
             new PublicEndpoint("GET", "/api/front/v1/trends/wordcloud"),
             new PublicEndpoint("GET", "/api/front/v1/trends/hotevents"),
             new PublicEndpoint("GET", "/api/front/v1/articles/search"),
+            new PublicEndpoint("GET", "/api/front/v1/articles/search/page"),
             new PublicEndpoint("GET", "/api/front/v1/articles/source/**"),
             new PublicEndpoint("GET", "/api/front/v1/articles/*"),
             new PublicEndpoint("GET", "/api/front/v1/articles/*/extra"),
             new PublicEndpoint("GET", "/api/front/v1/articles/*/recommendations")
     );
+    /**
+     * 浏览器EventSource无法设置请求头，推送流允许通过查询参数传递令牌
+     */
+    private static final String QUERY_TOKEN_PATH = "/api/front/v1/articles/feed/stream";
+    private static final String QUERY_TOKEN_PARAM = "access_token";
 
     public FrontJwtFilter(JwtUtils jwtUtils) {
         this.jwtUtils = jwtUtils;
@@ -66,6 +72,9 @@ public class FrontJwtFilter extends OncePerRequestFilter {
 
         boolean isPublic = isPublicEndpoint(request);
         String token = extractBearerToken(request);
+        if (token == null) {
+            token = extractQueryToken(request);
+        }
         if (token == null) {
             if (isPublic) {
                 filterChain.doFilter(request, response);
@@ -133,4 +142,12 @@ public class FrontJwtFilter extends OncePerRequestFilter {
         }
         return authHeader.substring(7);
     }
+
+    private static String extractQueryToken(HttpServletRequest request) {
+        if (!"GET".equalsIgnoreCase(request.getMethod()) || !QUERY_TOKEN_PATH.equals(request.getRequestURI())) {
+            return null;
+        }
+        String token = request.getParameter(QUERY_TOKEN_PARAM);
+        return token == null || token.isBlank() ? null : token;
+    }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.jingwei.rsswithai.interfaces.front;
 import com.jingwei.rsswithai.application.dto.ArticleFeedDTO;
 import com.jingwei.rsswithai.application.dto.HotEventDTO;
 import com.jingwei.rsswithai.application.dto.WordCloudItemDTO;
+import com.jingwei.rsswithai.application.service.FavoriteStateService;
 import com.jingwei.rsswithai.application.service.TrendsService;
 import com.jingwei.rsswithai.interfaces.context.UserContext;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +21,7 @@ import java.util.List;
 public class FrontTrendsController {
 
     private final TrendsService trendsService;
+    private final FavoriteStateService favoriteStateService;
 
     @GetMapping("/wordcloud")
     public ResponseEntity<List<WordCloudItemDTO>> getWordCloud(@RequestParam(required = false) Long sourceId) {
@@ -39,6 +41,6 @@ public class FrontTrendsController {
                                                                     @RequestParam(value = "cursor", required = false) String cursor,
                                                                     @RequestParam(value = "size", required = false) Integer size) {
         List<ArticleFeedDTO> result = trendsService.getHotEventArticles(event, cursor, size);
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(favoriteStateService.decorate(UserContext.currentUserIdOrNull(), result));
     }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.jingwei.rsswithai.interfaces.front;
 
 import com.jingwei.rsswithai.application.dto.*;
+import com.jingwei.rsswithai.application.service.FavoriteStateService;
+import com.jingwei.rsswithai.application.service.FeedNotificationService;
 import com.jingwei.rsswithai.application.service.SubscriptionService;
 import com.jingwei.rsswithai.domain.model.SourceCategory;
 import com.jingwei.rsswithai.interfaces.context.UserContext;
@@ -10,8 +12,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -21,6 +25,8 @@ import java.util.List;
 public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
+    private final FeedNotificationService feedNotificationService;
+    private final FavoriteStateService favoriteStateService;
 
     @GetMapping("/rss-sources")
     public ResponseEntity<Page<UserRssSourceDTO>> getRssSources(@PageableDefault(size = 20, sort = "latestArticlePubDate", direction = Sort.Direction.DESC) Pageable pageable,
@@ -58,8 +64,24 @@ public class SubscriptionController {
     @GetMapping("/articles/feed")
     public ResponseEntity<List<ArticleFeedDTO>> getFeed(@RequestParam(value = "subscriptionId", required = false) Long subscriptionId,
                                                         @RequestParam(value = "cursor", required = false) String cursor,
-                                                        @RequestParam(value = "size", required = false) Integer size) {
+                                                        @RequestParam(value = "size", required = false) Integer size,
+                                                        @RequestParam(value = "unreadOnly", defaultValue = "false") boolean unreadOnly) {
         Long userId = UserContext.currentUserId();
-        return ResponseEntity.ok(subscriptionService.getFeed(userId, subscriptionId, cursor, size));
+        return ResponseEntity.ok(favoriteStateService.decorate(userId,
+                subscriptionService.getFeed(userId, subscriptionId, cursor, size, unreadOnly)));
     }
-}
\ No newline at end of file
+
+    @PostMapping("/articles/feed/read")
+    public ResponseEntity<Integer> markFeedRead(@RequestParam(value = "subscriptionId", required = false) Long subscriptionId,
+                                                @RequestParam(value = "cursor", required = false) String cursor) {
+        Long userId = UserContext.currentUserId();
+        return ResponseEntity.ok(subscriptionService.markFeedRead(userId, subscriptionId, cursor));
+    }
+
+    @GetMapping(value = "/articles/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFeed(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                 @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        Long userId = UserContext.currentUserId();
+        return feedNotificationService.connect(userId, lastEventId != null ? lastEventId : lastEventIdParam);
+    }
+}
@@ -0,0 +1,96 @@
+package com.jingwei.rsswithai.utils;
+
+import com.huaban.analysis.jieba.JiebaSegmenter;
+import com.huaban.analysis.jieba.SegToken;
+import com.qianxinyao.analysis.jieba.keyword.Keyword;
+import com.qianxinyao.analysis.jieba.keyword.TFIDFAnalyzer;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 基于jieba的中文分词工具，为PostgreSQL全文检索生成以空格分隔的词序列
+ * 数据库侧统一使用simple配置（不做词干化），中文切词在应用侧完成
+ * 分词器与TF-IDF分析器全局共享；词典在首次使用时加载，启动预热阶段会提前调用{@link #warmUp()}
+ */
+public final class ChineseSegmentUtils {
+
+    private static final JiebaSegmenter SEGMENTER = new JiebaSegmenter();
+    private static final Pattern URL_PATTERN = Pattern.compile("https?://\\S+");
+    private static final Pattern NON_WORD_PATTERN = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String WARM_UP_TEXT = "基于大语言模型的RSS阅读器，每天为你整理订阅源中值得关注的技术文章";
+    /**
+     * TFIDFAnalyzer的IDF表与停用词表是惰性加载的静态字段，并发首次调用时可能读到未加载完的表，
+     * 因此只在warmUp完成后才并发使用
+     */
+    private static final TFIDFAnalyzer TFIDF_ANALYZER = new TFIDFAnalyzer();
+    private static volatile boolean warmedUp = false;
+
+    private ChineseSegmentUtils() {
+    }
+
+    /**
+     * 建索引用：INDEX模式会额外切出长词中的短词，提高召回
+     */
+    public static String segmentForIndex(String text) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+        String cleaned = URL_PATTERN.matcher(text).replaceAll(" ");
+        StringBuilder builder = new StringBuilder(cleaned.length());
+        for (SegToken token : SEGMENTER.process(cleaned, JiebaSegmenter.SegMode.INDEX)) {
+            String word = normalize(token.word);
+            if (!word.isEmpty()) {
+                builder.append(word).append(' ');
+            }
+        }
+        return builder.toString().trim();
+    }
+
+    /**
+     * 查询用：SEARCH模式切分并去重，只保留字母与数字组成的词
+     */
+    public static List<String> segmentForQuery(String query) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        Set<String> words = new LinkedHashSet<>();
+        for (SegToken token : SEGMENTER.process(query, JiebaSegmenter.SegMode.SEARCH)) {
+            String word = normalize(token.word);
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return List.copyOf(words);
+    }
+
+    /**
+     * 按TF-IDF提取前topN个关键词
+     */
+    public static List<Keyword> extractKeywords(String text, int topN) {
+        if (!warmedUp) {
+            warmUp();
+        }
+        return TFIDF_ANALYZER.analyze(text, topN);
+    }
+
+    /**
+     * 加载jieba主词典、HMM模型以及TF-IDF的IDF表与停用词表，重复调用无开销
+     */
+    public static synchronized void warmUp() {
+        if (warmedUp) {
+            return;
+        }
+        SEGMENTER.process(WARM_UP_TEXT, JiebaSegmenter.SegMode.INDEX);
+        SEGMENTER.process(WARM_UP_TEXT, JiebaSegmenter.SegMode.SEARCH);
+        TFIDF_ANALYZER.analyze(WARM_UP_TEXT, 1);
+        warmedUp = true;
+    }
+
+    private static String normalize(String word) {
+        return word == null ? "" : NON_WORD_PATTERN.matcher(word).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
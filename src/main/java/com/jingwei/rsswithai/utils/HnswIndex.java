@@ -0,0 +1,498 @@
+package com.jingwei.rsswithai.utils;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * 进程内HNSW近似最近邻索引（余弦距离，与pgvector的 <=> 一致）
+ * 向量归一化后按块存放在堆外内存，图结构（各层邻居表）在堆内；写入串行、查询并发（读写锁）。
+ * 同一key再次写入或删除时只给旧节点打删除标记，旧节点仍参与图遍历但不出现在结果中，由调用方定期整体重建回收
+ */
+public final class HnswIndex implements AutoCloseable {
+
+    private static final int CHUNK_VECTORS = 4096;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final Comparator<Candidate> NEAREST_FIRST = Comparator.comparingDouble(Candidate::distance);
+
+    public record Hit(long key, double distance) {
+    }
+
+    private record Candidate(int node, double distance) {
+    }
+
+    private final int dimensions;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final long vectorBytes;
+    private final Arena arena = Arena.ofShared();
+    private final List<MemorySegment> chunks = new ArrayList<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final Map<Long, Integer> nodeByKey = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[][][] links = new int[INITIAL_CAPACITY][][];
+    private int size = 0;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private long linkBytes = 0;
+    private boolean closed = false;
+
+    /**
+     * @param m              每层邻居数（第0层为2m），与pgvector索引参数含义一致
+     * @param efConstruction 建图时的候选集大小
+     */
+    public HnswIndex(int dimensions, int m, int efConstruction) {
+        if (dimensions <= 0 || m < 2 || efConstruction < m) {
+            throw new IllegalArgumentException("Invalid HNSW parameters");
+        }
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.vectorBytes = (long) dimensions * Float.BYTES;
+    }
+
+    /**
+     * 写入向量；key已存在时替换。零向量无法计算余弦距离，直接忽略
+     */
+    public void add(long key, float[] vector) {
+        float[] normalized = normalize(vector);
+        if (normalized == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            Integer previous = nodeByKey.get(key);
+            if (previous != null) {
+                deleted.set(previous);
+            }
+            int node = allocate(key, normalized);
+            nodeByKey.put(key, node);
+            insert(node, normalized);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long key) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeByKey.remove(key);
+            if (node != null) {
+                deleted.set(node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(long key) {
+        lock.readLock().lock();
+        try {
+            return nodeByKey.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已归一化的向量副本，key不存在时返回null
+     */
+    public float[] vectorOf(long key) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            Integer node = nodeByKey.get(key);
+            if (node == null) {
+                return null;
+            }
+            float[] vector = new float[dimensions];
+            MemorySegment.copy(segment(node), ValueLayout.JAVA_FLOAT, offset(node), vector, 0, dimensions);
+            return vector;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 近似k近邻，按距离升序
+     *
+     * @param ef     第0层候选集大小，越大召回越高
+     * @param filter 结果过滤条件（按key），为null表示不过滤；被过滤的节点仍参与遍历
+     */
+    public List<Hit> search(float[] query, int k, int ef, LongPredicate filter) {
+        float[] normalized = normalize(query);
+        if (normalized == null || k <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            if (entryPoint < 0) {
+                return List.of();
+            }
+            int current = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                current = greedyClosest(normalized, current, level);
+            }
+            List<Hit> hits = new ArrayList<>(k);
+            for (Candidate candidate : searchLayer(normalized, current, Math.max(ef, k), 0)) {
+                if (deleted.get(candidate.node())) {
+                    continue;
+                }
+                long key = keys[candidate.node()];
+                if (filter != null && !filter.test(key)) {
+                    continue;
+                }
+                hits.add(new Hit(key, candidate.distance()));
+                if (hits.size() == k) {
+                    break;
+                }
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 精确范围查询：扫描全部节点，返回距离小于maxDistance的结果（按距离升序）
+     * 适合阈值过滤或高选择性过滤条件，此时图遍历容易漏召回
+     */
+    public List<Hit> rangeSearch(float[] query, double maxDistance, LongPredicate filter) {
+        float[] normalized = normalize(query);
+        if (normalized == null) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            List<Hit> hits = new ArrayList<>();
+            for (int node = 0; node < size; node++) {
+                if (deleted.get(node) || (filter != null && !filter.test(keys[node]))) {
+                    continue;
+                }
+                double distance = distance(normalized, node);
+                if (distance < maxDistance) {
+                    hits.add(new Hit(keys[node], distance));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(Hit::distance));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 多个查询的精确范围查询：只扫描一遍节点，每个节点与全部查询向量批量计算点积，
+     * 返回与任一查询距离小于其对应阈值的结果，距离取命中查询中的最小值（按距离升序）
+     *
+     * @param maxDistances 与queries一一对应的阈值
+     */
+    public List<Hit> rangeSearchAny(List<float[]> queries, double[] maxDistances, LongPredicate filter) {
+        if (queries.size() != maxDistances.length) {
+            throw new IllegalArgumentException("Queries and thresholds size mismatch");
+        }
+        // 零向量跳过，其余按行放入矩阵
+        float[] matrix = new float[queries.size() * dimensions];
+        double[] thresholds = new double[queries.size()];
+        int rows = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            float[] normalized = normalize(queries.get(i));
+            if (normalized != null) {
+                System.arraycopy(normalized, 0, matrix, rows * dimensions, dimensions);
+                thresholds[rows++] = maxDistances[i];
+            }
+        }
+        if (rows == 0) {
+            return List.of();
+        }
+        matrix = Arrays.copyOf(matrix, rows * dimensions);
+
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            List<Hit> hits = new ArrayList<>();
+            float[] vector = new float[dimensions];
+            for (int node = 0; node < size; node++) {
+                if (deleted.get(node) || (filter != null && !filter.test(keys[node]))) {
+                    continue;
+                }
+                MemorySegment.copy(segment(node), ValueLayout.JAVA_FLOAT, offset(node), vector, 0, dimensions);
+                float[] scores = VectorMath.dotAll(vector, matrix);
+                double best = Double.MAX_VALUE;
+                for (int i = 0; i < scores.length; i++) {
+                    double distance = 1 - scores[i];
+                    if (distance < thresholds[i] && distance < best) {
+                        best = distance;
+                    }
+                }
+                if (best != Double.MAX_VALUE) {
+                    hits.add(new Hit(keys[node], best));
+                }
+            }
+            hits.sort(Comparator.comparingDouble(Hit::distance));
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 有效向量数（不含删除标记）
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 堆外向量存储占用（按已分配的块计）
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return chunks.size() * CHUNK_VECTORS * vectorBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 堆内图结构与key映射的估算占用
+     */
+    public long heapBytes() {
+        lock.readLock().lock();
+        try {
+            // 邻居表 + 节点引用数组 + key数组 + key到节点的HashMap（每项约64字节）
+            return linkBytes + 8L * links.length + 8L * keys.length + 64L * nodeByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                arena.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("HNSW index is closed");
+        }
+    }
+
+    private int allocate(long key, float[] vector) {
+        int node = size;
+        if (node == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            links = Arrays.copyOf(links, capacity);
+        }
+        if (node / CHUNK_VECTORS == chunks.size()) {
+            chunks.add(arena.allocate(vectorBytes * CHUNK_VECTORS, 64));
+        }
+        MemorySegment.copy(vector, 0, segment(node), ValueLayout.JAVA_FLOAT, offset(node), dimensions);
+        keys[node] = key;
+        size++;
+        return node;
+    }
+
+    private void insert(int node, float[] vector) {
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        int[][] nodeLinks = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            // 下标0存放邻居数
+            nodeLinks[l] = new int[1 + maxLinks(l)];
+            linkBytes += 16 + 4L * nodeLinks[l].length;
+        }
+        links[node] = nodeLinks;
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(vector, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(vector, current, efConstruction, l);
+            int count = Math.min(m, candidates.size());
+            for (int i = 0; i < count; i++) {
+                int neighbor = candidates.get(i).node();
+                append(nodeLinks[l], neighbor);
+                connect(neighbor, node, l);
+            }
+            current = candidates.getFirst().node();
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * 反向连接；邻居表已满时与新节点一起按距离保留最近的若干个
+     */
+    private void connect(int from, int to, int level) {
+        int[] list = links[from][level];
+        if (list[0] < list.length - 1) {
+            append(list, to);
+            return;
+        }
+        int count = list[0];
+        Candidate[] all = new Candidate[count + 1];
+        for (int i = 0; i < count; i++) {
+            all[i] = new Candidate(list[i + 1], distance(from, list[i + 1]));
+        }
+        all[count] = new Candidate(to, distance(from, to));
+        Arrays.sort(all, NEAREST_FIRST);
+        for (int i = 0; i < count; i++) {
+            list[i + 1] = all[i].node();
+        }
+    }
+
+    private static void append(int[] list, int node) {
+        list[++list[0]] = node;
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        double best = distance(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] list = links[current][level];
+            for (int i = 1; i <= list[0]; i++) {
+                double distance = distance(query, list[i]);
+                if (distance < best) {
+                    best = distance;
+                    current = list[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 单层beam search，返回按距离升序的至多ef个节点（含删除标记节点）
+     */
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(NEAREST_FIRST);
+        PriorityQueue<Candidate> results = new PriorityQueue<>(NEAREST_FIRST.reversed());
+        Candidate start = new Candidate(entry, distance(query, entry));
+        visited.set(entry);
+        candidates.add(start);
+        results.add(start);
+
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (closest.distance() > results.peek().distance()) {
+                break;
+            }
+            int[] list = links[closest.node()][level];
+            for (int i = 1; i <= list[0]; i++) {
+                int neighbor = list[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                double distance = distance(query, neighbor);
+                if (results.size() < ef || distance < results.peek().distance()) {
+                    Candidate candidate = new Candidate(neighbor, distance);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(NEAREST_FIRST);
+        return sorted;
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? maxM0 : m;
+    }
+
+    private MemorySegment segment(int node) {
+        return chunks.get(node / CHUNK_VECTORS);
+    }
+
+    private long offset(int node) {
+        return (node % CHUNK_VECTORS) * vectorBytes;
+    }
+
+    private double distance(float[] query, int node) {
+        return 1 - VectorMath.dot(query, segment(node), offset(node));
+    }
+
+    private double distance(int left, int right) {
+        return 1 - VectorMath.dot(segment(left), offset(left), segment(right), offset(right), dimensions);
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Vector dimension mismatch: " + vector.length);
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return null;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+}
@@ -95,6 +95,18 @@ public final class RssUtils {
     private RssUtils() {
     }
 
+    /**
+     * 启动预热：触发XML解析器与HTML转Markdown转换器（含jsoup）的类加载和初始化，避免首次抓取时的冷启动耗时
+     */
+    public static void warmUp() {
+        parseChannelInfo("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <rss version="2.0"><channel><title>warm-up</title><link>https://example.com</link>
+                <description>warm-up</description></channel></rss>""");
+        converter.convert("<h1>标题</h1><p style=\"text-align: center\"><strong>小节</strong></p>" +
+                "<p>正文<a href=\"https://example.com\">链接</a></p><ul><li>列表</li></ul><pre><code>code</code></pre>");
+    }
+
     /**
      * 解析RSS/Atom的Channel元信息（title、description、link）
      *
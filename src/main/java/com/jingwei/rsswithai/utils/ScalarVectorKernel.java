@@ -0,0 +1,65 @@
+package com.jingwei.rsswithai.utils;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * 标量实现，未启用jdk.incubator.vector模块时使用
+ */
+final class ScalarVectorKernel implements VectorKernel {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public float dot(float[] a, float[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] a, MemorySegment b, long bOffset) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b.get(ValueLayout.JAVA_FLOAT, bOffset + (long) i * Float.BYTES);
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(MemorySegment a, long aOffset, MemorySegment b, long bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            long delta = (long) i * Float.BYTES;
+            sum += a.get(ValueLayout.JAVA_FLOAT, aOffset + delta) * b.get(ValueLayout.JAVA_FLOAT, bOffset + delta);
+        }
+        return sum;
+    }
+
+    @Override
+    public float cosine(float[] a, float[] b) {
+        float dot = 0;
+        float normA = 0;
+        float normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return VectorMath.cosineOf(dot, normA, normB);
+    }
+
+    @Override
+    public int dot(byte[] a, byte[] b, int bOffset, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i] * b[bOffset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,126 @@
+package com.jingwei.rsswithai.utils;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * 基于jdk.incubator.vector的SIMD实现，按平台首选宽度（AVX2为8路、AVX-512为16路）做FMA累加，尾部按标量处理
+ * int8点积先扩展为short相乘（127*127不溢出），再扩展为int累加；首选宽度不足256位时int8退回标量
+ */
+final class SimdVectorKernel implements VectorKernel {
+
+    private static final VectorSpecies<Float> FLOAT = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTE_64 = ByteVector.SPECIES_64;
+    private static final boolean INT8_SIMD = IntVector.SPECIES_PREFERRED.vectorBitSize() >= 256;
+    private static final ByteOrder ORDER = ByteOrder.nativeOrder();
+
+    @Override
+    public String name() {
+        return "simd-" + FLOAT.vectorBitSize();
+    }
+
+    @Override
+    public float dot(float[] a, float[] b, int bOffset, int length) {
+        FloatVector acc = FloatVector.zero(FLOAT);
+        int i = 0;
+        int bound = FLOAT.loopBound(length);
+        for (; i < bound; i += FLOAT.length()) {
+            acc = FloatVector.fromArray(FLOAT, a, i).fma(FloatVector.fromArray(FLOAT, b, bOffset + i), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] a, MemorySegment b, long bOffset) {
+        FloatVector acc = FloatVector.zero(FLOAT);
+        int i = 0;
+        int bound = FLOAT.loopBound(a.length);
+        for (; i < bound; i += FLOAT.length()) {
+            acc = FloatVector.fromArray(FLOAT, a, i)
+                    .fma(FloatVector.fromMemorySegment(FLOAT, b, bOffset + (long) i * Float.BYTES, ORDER), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * b.get(ValueLayout.JAVA_FLOAT, bOffset + (long) i * Float.BYTES);
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(MemorySegment a, long aOffset, MemorySegment b, long bOffset, int length) {
+        FloatVector acc = FloatVector.zero(FLOAT);
+        int i = 0;
+        int bound = FLOAT.loopBound(length);
+        for (; i < bound; i += FLOAT.length()) {
+            long delta = (long) i * Float.BYTES;
+            acc = FloatVector.fromMemorySegment(FLOAT, a, aOffset + delta, ORDER)
+                    .fma(FloatVector.fromMemorySegment(FLOAT, b, bOffset + delta, ORDER), acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            long delta = (long) i * Float.BYTES;
+            sum += a.get(ValueLayout.JAVA_FLOAT, aOffset + delta)
+                    * b.get(ValueLayout.JAVA_FLOAT, bOffset + delta);
+        }
+        return sum;
+    }
+
+    @Override
+    public float cosine(float[] a, float[] b) {
+        FloatVector dot = FloatVector.zero(FLOAT);
+        FloatVector normA = FloatVector.zero(FLOAT);
+        FloatVector normB = FloatVector.zero(FLOAT);
+        int i = 0;
+        int bound = FLOAT.loopBound(a.length);
+        for (; i < bound; i += FLOAT.length()) {
+            FloatVector va = FloatVector.fromArray(FLOAT, a, i);
+            FloatVector vb = FloatVector.fromArray(FLOAT, b, i);
+            dot = va.fma(vb, dot);
+            normA = va.fma(va, normA);
+            normB = vb.fma(vb, normB);
+        }
+        float sumDot = dot.reduceLanes(VectorOperators.ADD);
+        float sumA = normA.reduceLanes(VectorOperators.ADD);
+        float sumB = normB.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sumDot += a[i] * b[i];
+            sumA += a[i] * a[i];
+            sumB += b[i] * b[i];
+        }
+        return VectorMath.cosineOf(sumDot, sumA, sumB);
+    }
+
+    @Override
+    public int dot(byte[] a, byte[] b, int bOffset, int length) {
+        int i = 0;
+        int sum = 0;
+        if (INT8_SIMD) {
+            IntVector acc = IntVector.zero(IntVector.SPECIES_256);
+            int bound = BYTE_64.loopBound(length);
+            for (; i < bound; i += BYTE_64.length()) {
+                ShortVector va = (ShortVector) ByteVector.fromArray(BYTE_64, a, i)
+                        .convertShape(VectorOperators.B2S, ShortVector.SPECIES_128, 0);
+                ShortVector vb = (ShortVector) ByteVector.fromArray(BYTE_64, b, bOffset + i)
+                        .convertShape(VectorOperators.B2S, ShortVector.SPECIES_128, 0);
+                acc = acc.add(va.mul(vb).convertShape(VectorOperators.S2I, IntVector.SPECIES_256, 0));
+            }
+            sum = acc.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < length; i++) {
+            sum += a[i] * b[bOffset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,259 @@
+package com.jingwei.rsswithai.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 文章正文的Token估算与预算裁剪工具
+ * 按Markdown结构（标题、段落、代码块）切分正文，在不破坏块边界的前提下裁剪或分片
+ */
+public final class TokenBudgetUtils {
+
+    private static final Pattern HEADING_PATTERN = Pattern.compile("^#{1,6}\\s+.*");
+    private static final Pattern SENTENCE_END_PATTERN = Pattern.compile("(?<=[。！？!?；;.])");
+    private static final String OMISSION_MARK = "……";
+
+    private TokenBudgetUtils() {
+    }
+
+    /**
+     * 估算文本Token数：中日韩字符按1个Token计，其余字符按约4个字符1个Token计
+     */
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjkCount = 0;
+        int otherCount = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            if (isCjk(codePoint)) {
+                cjkCount++;
+            } else {
+                otherCount++;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return cjkCount + (otherCount + 3) / 4;
+    }
+
+    /**
+     * 将Markdown正文裁剪到预算内
+     * 优先保留每个章节的标题与首段（保证目录锚点仍能在原文中找到），再按原文顺序填充剩余段落，
+     * 被省略的位置以省略号标记
+     */
+    public static String fitToBudget(String markdown, int tokenBudget) {
+        if (markdown == null || markdown.isBlank() || estimateTokens(markdown) <= tokenBudget) {
+            return markdown;
+        }
+
+        List<Block> blocks = parseBlocks(markdown);
+        boolean[] selected = new boolean[blocks.size()];
+        int used = 0;
+
+        // 第一轮：标题 + 每个章节的首段
+        boolean leadTaken = false;
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            if (block.heading()) {
+                leadTaken = false;
+            } else if (leadTaken) {
+                continue;
+            } else {
+                leadTaken = true;
+            }
+            if (used + block.cost() <= tokenBudget) {
+                selected[i] = true;
+                used += block.cost();
+            }
+        }
+
+        // 第二轮：按原文顺序填充其余段落
+        for (int i = 0; i < blocks.size(); i++) {
+            if (!selected[i] && used + blocks.get(i).cost() <= tokenBudget) {
+                selected[i] = true;
+                used += blocks.get(i).cost();
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        boolean omitted = false;
+        for (int i = 0; i < blocks.size(); i++) {
+            if (!selected[i]) {
+                omitted = true;
+                continue;
+            }
+            if (omitted && !builder.isEmpty()) {
+                builder.append(OMISSION_MARK).append("\n\n");
+            }
+            omitted = false;
+            builder.append(blocks.get(i).text()).append("\n\n");
+        }
+
+        if (builder.isEmpty()) {
+            // 首个块本身就超出预算（例如没有分段的长文），在句子边界硬截断
+            return splitOversizedText(blocks.getFirst().text(), tokenBudget).getFirst();
+        }
+        if (omitted) {
+            builder.append(OMISSION_MARK);
+        }
+        return builder.toString().trim();
+    }
+
+    /**
+     * 按章节/段落边界把正文切分为若干不超过预算的分片，用于分片摘要
+     */
+    public static List<String> splitIntoChunks(String markdown, int chunkTokenBudget) {
+        List<String> chunks = new ArrayList<>();
+        if (markdown == null || markdown.isBlank()) {
+            return chunks;
+        }
+
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (Block block : parseBlocks(markdown)) {
+            List<String> pieces = block.tokens() > chunkTokenBudget
+                    ? splitOversizedText(block.text(), chunkTokenBudget)
+                    : List.of(block.text());
+            for (String piece : pieces) {
+                int pieceTokens = estimateTokens(piece);
+                // 超出预算，或在标题处且当前分片已过半时开启新分片，尽量让分片对齐章节
+                boolean overflow = currentTokens + pieceTokens > chunkTokenBudget;
+                boolean sectionBreak = block.heading() && currentTokens > chunkTokenBudget / 2;
+                if (!current.isEmpty() && (overflow || sectionBreak)) {
+                    chunks.add(current.toString().trim());
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+                current.append(piece).append("\n\n");
+                currentTokens += pieceTokens;
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current.toString().trim());
+        }
+        return chunks;
+    }
+
+    /**
+     * 按空行切分为块，代码块整体视为一个块
+     */
+    private static List<Block> parseBlocks(String markdown) {
+        List<Block> blocks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inFence = false;
+
+        for (String line : markdown.split("\n", -1)) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("```") || trimmed.startsWith("~~~")) {
+                inFence = !inFence;
+            }
+            if (!inFence && trimmed.isEmpty()) {
+                flushBlock(current, blocks);
+                continue;
+            }
+            // 标题单独成块，便于按章节识别
+            if (!inFence && HEADING_PATTERN.matcher(trimmed).matches()) {
+                flushBlock(current, blocks);
+                blocks.add(new Block(trimmed, true, estimateTokens(trimmed)));
+                continue;
+            }
+            current.append(line).append('\n');
+        }
+        flushBlock(current, blocks);
+        return blocks;
+    }
+
+    private static void flushBlock(StringBuilder current, List<Block> blocks) {
+        String text = current.toString().strip();
+        current.setLength(0);
+        if (!text.isEmpty()) {
+            blocks.add(new Block(text, false, estimateTokens(text)));
+        }
+    }
+
+    /**
+     * 将超长文本按句子边界切分为不超过预算的片段，单句仍超长时按字符截断
+     */
+    private static List<String> splitOversizedText(String text, int tokenBudget) {
+        List<String> pieces = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String sentence : SENTENCE_END_PATTERN.split(text)) {
+            int sentenceTokens = estimateTokens(sentence);
+            if (sentenceTokens > tokenBudget) {
+                if (!current.isEmpty()) {
+                    pieces.add(current.toString().trim());
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+                pieces.addAll(splitByCharacters(sentence, tokenBudget));
+                continue;
+            }
+            if (currentTokens + sentenceTokens > tokenBudget && !current.isEmpty()) {
+                pieces.add(current.toString().trim());
+                current.setLength(0);
+                currentTokens = 0;
+            }
+            current.append(sentence);
+            currentTokens += sentenceTokens;
+        }
+        if (!current.isEmpty()) {
+            pieces.add(current.toString().trim());
+        }
+        if (pieces.isEmpty()) {
+            pieces.add("");
+        }
+        return pieces;
+    }
+
+    private static List<String> splitByCharacters(String text, int tokenBudget) {
+        List<String> pieces = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = start;
+            int tokens = 0;
+            int otherCount = 0;
+            while (end < text.length()) {
+                int codePoint = text.codePointAt(end);
+                // 与estimateTokens一致：其余字符每4个向上取整为1个Token
+                if (isCjk(codePoint)) {
+                    tokens++;
+                } else if (++otherCount % 4 == 1) {
+                    tokens++;
+                }
+                if (tokens > tokenBudget) {
+                    break;
+                }
+                end += Character.charCount(codePoint);
+            }
+            if (end == start) {
+                end = start + Character.charCount(text.codePointAt(start));
+            }
+            pieces.add(text.substring(start, end));
+            start = end;
+        }
+        return pieces;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL
+                || (codePoint >= 0x3000 && codePoint <= 0x303F)
+                || (codePoint >= 0xFF00 && codePoint <= 0xFFEF);
+    }
+
+    private record Block(String text, boolean heading, int tokens) {
+
+        /**
+         * 计入分隔空行与省略标记的开销
+         */
+        int cost() {
+            return tokens + 2;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.jingwei.rsswithai.utils;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * 向量运算内核，SIMD实现与标量实现二选一，由{@link VectorMath}在启动时选择
+ */
+interface VectorKernel {
+
+    String name();
+
+    float dot(float[] a, float[] b, int bOffset, int length);
+
+    /**
+     * b为堆外向量，bOffset为字节偏移，长度取a.length
+     */
+    float dot(float[] a, MemorySegment b, long bOffset);
+
+    float dot(MemorySegment a, long aOffset, MemorySegment b, long bOffset, int length);
+
+    float cosine(float[] a, float[] b);
+
+    int dot(byte[] a, byte[] b, int bOffset, int length);
+}
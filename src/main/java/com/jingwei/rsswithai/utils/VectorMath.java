@@ -0,0 +1,233 @@
+package com.jingwei.rsswithai.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 向量运算：点积、余弦、连续矩阵上的批量top-k，以及int8量化版本
+ * 启动参数带 --add-modules jdk.incubator.vector 时使用SIMD内核，否则退回标量实现（结果一致，仅速度不同）
+ */
+@Slf4j
+public final class VectorMath {
+
+    private static final String SIMD_MODULE = "jdk.incubator.vector";
+    private static final VectorKernel KERNEL = selectKernel();
+
+    /**
+     * 矩阵中的行号及其得分
+     */
+    public record Scored(int index, float score) {
+    }
+
+    /**
+     * 对称int8量化向量：value ≈ values[i] * scale
+     */
+    public record QuantizedVector(byte[] values, float scale) {
+    }
+
+    private VectorMath() {
+    }
+
+    /**
+     * 当前使用的内核（scalar 或 simd-位宽）
+     */
+    public static String kernelName() {
+        return KERNEL.name();
+    }
+
+    public static float dot(float[] a, float[] b) {
+        checkLength(a.length, b.length);
+        return KERNEL.dot(a, b, 0, a.length);
+    }
+
+    /**
+     * 与堆外向量的点积，offset为字节偏移，长度取query.length
+     */
+    public static float dot(float[] query, MemorySegment segment, long offset) {
+        return KERNEL.dot(query, segment, offset);
+    }
+
+    public static float dot(MemorySegment a, long aOffset, MemorySegment b, long bOffset, int length) {
+        return KERNEL.dot(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * 余弦相似度，任一向量为零向量时返回0
+     */
+    public static float cosine(float[] a, float[] b) {
+        checkLength(a.length, b.length);
+        return KERNEL.cosine(a, b);
+    }
+
+    /**
+     * 按点积取前k行（行向量已归一化时即余弦相似度），按得分降序
+     *
+     * @param matrix 行优先存放的矩阵，行数为 matrix.length / query.length
+     */
+    public static List<Scored> topK(float[] query, float[] matrix, int k) {
+        return topK(KERNEL, query, matrix, k);
+    }
+
+    /**
+     * 查询向量与矩阵每一行的点积
+     *
+     * @param matrix 行优先存放的矩阵，行数为 matrix.length / query.length
+     */
+    public static float[] dotAll(float[] query, float[] matrix) {
+        int dimensions = query.length;
+        checkMatrix(matrix.length, dimensions);
+        float[] scores = new float[matrix.length / dimensions];
+        for (int row = 0; row < scores.length; row++) {
+            scores[row] = KERNEL.dot(query, matrix, row * dimensions, dimensions);
+        }
+        return scores;
+    }
+
+    /**
+     * 按最大绝对值对称量化到[-127, 127]
+     */
+    public static QuantizedVector quantize(float[] vector) {
+        float maxAbs = 0;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        byte[] values = new byte[vector.length];
+        if (maxAbs == 0) {
+            return new QuantizedVector(values, 0);
+        }
+        float scale = maxAbs / 127;
+        for (int i = 0; i < vector.length; i++) {
+            values[i] = (byte) Math.round(vector[i] / scale);
+        }
+        return new QuantizedVector(values, scale);
+    }
+
+    /**
+     * 量化向量的近似点积
+     */
+    public static float dot(QuantizedVector a, QuantizedVector b) {
+        checkLength(a.values().length, b.values().length);
+        return KERNEL.dot(a.values(), b.values(), 0, a.values().length) * a.scale() * b.scale();
+    }
+
+    /**
+     * 量化向量的近似余弦相似度
+     */
+    public static float cosine(QuantizedVector a, QuantizedVector b) {
+        checkLength(a.values().length, b.values().length);
+        int dot = KERNEL.dot(a.values(), b.values(), 0, a.values().length);
+        int normA = KERNEL.dot(a.values(), a.values(), 0, a.values().length);
+        int normB = KERNEL.dot(b.values(), b.values(), 0, b.values().length);
+        return cosineOf(dot, normA, normB);
+    }
+
+    /**
+     * int8矩阵上的批量top-k，scales为每行的量化系数
+     */
+    public static List<Scored> topK(QuantizedVector query, byte[] matrix, float[] scales, int k) {
+        return topK(KERNEL, query, matrix, scales, k);
+    }
+
+    static VectorKernel kernel() {
+        return KERNEL;
+    }
+
+    static List<Scored> topK(VectorKernel kernel, float[] query, float[] matrix, int k) {
+        int dimensions = query.length;
+        checkMatrix(matrix.length, dimensions);
+        TopK collector = new TopK(k);
+        for (int row = 0, rows = matrix.length / dimensions; row < rows; row++) {
+            collector.offer(row, kernel.dot(query, matrix, row * dimensions, dimensions));
+        }
+        return collector.sorted();
+    }
+
+    static List<Scored> topK(VectorKernel kernel, QuantizedVector query, byte[] matrix, float[] scales, int k) {
+        int dimensions = query.values().length;
+        checkMatrix(matrix.length, dimensions);
+        if (scales.length != matrix.length / dimensions) {
+            throw new IllegalArgumentException("Scales length does not match matrix rows");
+        }
+        TopK collector = new TopK(k);
+        for (int row = 0; row < scales.length; row++) {
+            int dot = kernel.dot(query.values(), matrix, row * dimensions, dimensions);
+            collector.offer(row, dot * query.scale() * scales[row]);
+        }
+        return collector.sorted();
+    }
+
+    static float cosineOf(float dot, float normA, float normB) {
+        if (normA == 0 || normB == 0) {
+            return 0;
+        }
+        return (float) (dot / Math.sqrt((double) normA * normB));
+    }
+
+    private static void checkLength(int left, int right) {
+        if (left != right) {
+            throw new IllegalArgumentException("Vector length mismatch: " + left + " vs " + right);
+        }
+    }
+
+    private static void checkMatrix(int matrixLength, int dimensions) {
+        if (dimensions == 0 || matrixLength % dimensions != 0) {
+            throw new IllegalArgumentException("Matrix length is not a multiple of vector length");
+        }
+    }
+
+    /**
+     * SIMD内核通过反射加载，未启用模块时不会触发jdk.incubator.vector的类加载
+     */
+    private static VectorKernel selectKernel() {
+        if (ModuleLayer.boot().findModule(SIMD_MODULE).isPresent()) {
+            try {
+                VectorKernel kernel = (VectorKernel) Class.forName(VectorMath.class.getPackageName() +
+                        ".SimdVectorKernel").getDeclaredConstructor().newInstance();
+                log.info("Vector math uses {} kernel", kernel.name());
+                return kernel;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Failed to load SIMD vector kernel, falling back to scalar", e);
+            }
+        } else {
+            log.info("Module {} not enabled, vector math uses scalar kernel", SIMD_MODULE);
+        }
+        return new ScalarVectorKernel();
+    }
+
+    /**
+     * 大小为k的小顶堆
+     */
+    private static final class TopK {
+
+        private final int k;
+        private final PriorityQueue<Scored> heap;
+
+        TopK(int k) {
+            this.k = Math.max(k, 0);
+            this.heap = new PriorityQueue<>(Math.max(this.k, 1), Comparator.comparingDouble(Scored::score));
+        }
+
+        void offer(int index, float score) {
+            if (k == 0) {
+                return;
+            }
+            if (heap.size() < k) {
+                heap.add(new Scored(index, score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.add(new Scored(index, score));
+            }
+        }
+
+        List<Scored> sorted() {
+            List<Scored> result = new ArrayList<>(heap);
+            result.sort(Comparator.<Scored>comparingDouble(Scored::score).reversed());
+            return result;
+        }
+    }
+}
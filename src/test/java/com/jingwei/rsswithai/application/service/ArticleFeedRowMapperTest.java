@@ -0,0 +1,122 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.dto.ArticleFeedDTO;
+import com.jingwei.rsswithai.domain.model.AnalysisStatus;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 时间线单查询投影的映射：LEFT JOIN命中与未命中增强结果、可空列，以及不取增强结果时不读取增强列
+ */
+class ArticleFeedRowMapperTest {
+
+    private static final LocalDateTime PUB_DATE = LocalDateTime.of(2026, 3, 1, 8, 30);
+
+    @Test
+    void mapsArticleWithExtra() throws SQLException {
+        Map<String, Object> row = articleRow(7L);
+        row.put("extra_id", 70L);
+        row.put("extra_overview", "概述");
+        row.put("extra_key_information", array("要点一", "要点二"));
+        row.put("extra_tags", array("Java"));
+        row.put("extra_toc", "[]");
+        row.put("extra_status", AnalysisStatus.SUCCESS.name());
+        row.put("extra_created_at", Timestamp.valueOf(PUB_DATE.plusMinutes(5)));
+        row.put("extra_updated_at", Timestamp.valueOf(PUB_DATE.plusMinutes(6)));
+
+        ArticleFeedDTO feed = ArticleFeedRowMapper.INSTANCE.mapRow(resultSet(row), 0);
+
+        assertThat(feed.id()).isEqualTo(7L);
+        assertThat(feed.sourceId()).isEqualTo(3L);
+        assertThat(feed.title()).isEqualTo("标题7");
+        assertThat(feed.pubDate()).isEqualTo(PUB_DATE);
+        assertThat(feed.wordCount()).isEqualTo(1200L);
+        assertThat(feed.isFavorite()).isNull();
+        assertThat(feed.aiExtra()).isNotNull();
+        assertThat(feed.aiExtra().id()).isEqualTo(70L);
+        assertThat(feed.aiExtra().articleId()).isEqualTo(7L);
+        assertThat(feed.aiExtra().overview()).isEqualTo("概述");
+        assertThat(feed.aiExtra().keyInformation()).containsExactly("要点一", "要点二");
+        assertThat(feed.aiExtra().tags()).containsExactly("Java");
+        assertThat(feed.aiExtra().toc()).isEmpty();
+        assertThat(feed.aiExtra().status()).isEqualTo(AnalysisStatus.SUCCESS);
+        assertThat(feed.aiExtra().errorMessage()).isNull();
+        assertThat(feed.aiExtra().updatedAt()).isEqualTo(PUB_DATE.plusMinutes(6));
+    }
+
+    @Test
+    void mapsArticleWithoutExtraRow() throws SQLException {
+        Map<String, Object> row = articleRow(8L);
+        row.remove("source_id");
+        row.remove("word_count");
+
+        ArticleFeedDTO feed = ArticleFeedRowMapper.INSTANCE.mapRow(resultSet(row), 0);
+
+        assertThat(feed.id()).isEqualTo(8L);
+        assertThat(feed.sourceId()).isNull();
+        assertThat(feed.wordCount()).isNull();
+        assertThat(feed.aiExtra()).isNull();
+    }
+
+    @Test
+    void withoutExtraSkipsExtraColumns() throws SQLException {
+        ResultSet rs = resultSet(articleRow(9L));
+
+        ArticleFeedDTO feed = ArticleFeedRowMapper.WITHOUT_EXTRA.mapRow(rs, 0);
+
+        assertThat(feed.id()).isEqualTo(9L);
+        assertThat(feed.aiExtra()).isNull();
+        verify(rs, never()).getLong("extra_id");
+    }
+
+    private static Map<String, Object> articleRow(long id) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("source_id", 3L);
+        row.put("source_name", "源");
+        row.put("title", "标题" + id);
+        row.put("link", "https://example.com/" + id);
+        row.put("pub_date", Timestamp.valueOf(PUB_DATE));
+        row.put("word_count", 1200L);
+        return row;
+    }
+
+    private static Array array(String... values) throws SQLException {
+        Array array = mock(Array.class);
+        when(array.getArray()).thenReturn(values);
+        return array;
+    }
+
+    /**
+     * 按列名取值；缺少的列视为NULL，wasNull反映最近一次读取
+     */
+    private static ResultSet resultSet(Map<String, Object> row) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        boolean[] lastNull = {false};
+        when(rs.getLong(anyString())).thenAnswer(invocation -> {
+            Object value = row.get(invocation.<String>getArgument(0));
+            lastNull[0] = value == null;
+            return value == null ? 0L : (Long) value;
+        });
+        when(rs.getString(anyString())).thenAnswer(invocation -> row.get(invocation.<String>getArgument(0)));
+        when(rs.getTimestamp(anyString())).thenAnswer(invocation -> row.get(invocation.<String>getArgument(0)));
+        when(rs.getArray(anyString())).thenAnswer(invocation -> row.get(invocation.<String>getArgument(0)));
+        when(rs.wasNull()).thenAnswer(invocation -> lastNull[0]);
+        return rs;
+    }
+}
@@ -0,0 +1,54 @@
+package com.jingwei.rsswithai.application.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 游标解析：空游标的起点、无发布时间段的 ",id" 形式，以及格式错误
+ */
+class FeedCursorTest {
+
+    private static final FeedCursor START = new FeedCursor(LocalDateTime.MAX, Long.MAX_VALUE);
+
+    @Test
+    void parsesAndFormatsRoundTrip() {
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2023, 10, 27, 10, 0), 500);
+
+        assertThat(cursor.format()).isEqualTo("2023-10-27T10:00,500");
+        assertThat(FeedCursor.parse(cursor.format())).isEqualTo(cursor);
+        assertThat(FeedCursor.parse("2023-10-27T10:00:00,500", START)).isEqualTo(cursor);
+    }
+
+    @Test
+    void blankCursorStartsFromGivenStartOrNow() {
+        assertThat(FeedCursor.parse(null, START)).isSameAs(START);
+        assertThat(FeedCursor.parse(" ", START)).isSameAs(START);
+
+        LocalDateTime before = LocalDateTime.now();
+        FeedCursor now = FeedCursor.parse("");
+        assertThat(now.pubDate()).isBetween(before, LocalDateTime.now());
+        assertThat(now.id()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void undatedCursorOnlyForArticleList() {
+        FeedCursor undated = FeedCursor.parse(",42", START);
+
+        assertThat(undated.pubDate()).isNull();
+        assertThat(undated.id()).isEqualTo(42L);
+        assertThat(undated.format()).isEqualTo(",42");
+        assertThatThrownBy(() -> FeedCursor.parse(",42")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> FeedCursor.parse("2023-10-27T10:00:00")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FeedCursor.parse("yesterday,1")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FeedCursor.parse("2023-10-27T10:00:00,x", START))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,149 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.dto.ArticleExtraDTO;
+import com.jingwei.rsswithai.application.dto.ArticleFeedDTO;
+import com.jingwei.rsswithai.domain.model.AnalysisStatus;
+import com.jingwei.rsswithai.support.BenchmarkSupport;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 时间线投影基准：同一页（默认100条，按 pub_date DESC, id DESC）分别用
+ * 两次查询（文章元信息 + 按ID批量查增强结果再重建DTO）与单查询（LEFT JOIN article_extra）取得，对比延迟与每页分配字节数
+ * 只读，直接使用库中已有的文章；先校验两种方式结果一致，且与按ID独立查询的页内顺序、增强结果归属一致。默认跳过，手动运行：
+ * <pre>
+ * mvn test -Dtest=FeedProjectionBenchmarkTest -Dbench.jdbcUrl=jdbc:postgresql://localhost:5432/rsswithai \
+ *          -Dbench.user=postgres -Dbench.password=postgres [-Dbench.pageSize=100] [-Dbench.iterations=500]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "bench.jdbcUrl", matches = "jdbc:postgresql:.+")
+class FeedProjectionBenchmarkTest {
+
+    private static final String PAGE_SQL = "SELECT " + ArticleFeedRowMapper.ARTICLE_COLUMNS +
+            " FROM articles a ORDER BY a.pub_date DESC, a.id DESC LIMIT :size";
+
+    @Test
+    void compareTwoQueriesWithSingleQuery() {
+        int pageSize = Integer.getInteger("bench.pageSize", 100);
+        int iterations = Integer.getInteger("bench.iterations", 500);
+        try (HikariDataSource dataSource = BenchmarkSupport.dataSource(2)) {
+            NamedParameterJdbcTemplate template = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource));
+            MapSqlParameterSource params = new MapSqlParameterSource("size", pageSize);
+
+            Supplier<List<ArticleFeedDTO>> twoQueries = () -> twoQueries(template, params);
+            Supplier<List<ArticleFeedDTO>> singleQuery = () -> template.query(
+                    "SELECT " + ArticleFeedRowMapper.ARTICLE_COLUMNS + ", " + ArticleFeedRowMapper.EXTRA_COLUMNS +
+                            " FROM (" + PAGE_SQL + ") AS a LEFT JOIN article_extra ae ON ae.article_id = a.id " +
+                            "ORDER BY a.pub_date DESC, a.id DESC",
+                    params, ArticleFeedRowMapper.INSTANCE);
+
+            List<ArticleFeedDTO> expected = twoQueries.get();
+            assertThat(expected).as("benchmark needs articles").isNotEmpty();
+            assertThat(singleQuery.get()).isEqualTo(expected);
+            assertProjection(template, pageSize, expected);
+
+            System.out.printf("%n===== feed projection benchmark: page=%d (%d with extras), %d iterations =====%n",
+                    expected.size(), expected.stream().filter(feed -> feed.aiExtra() != null).count(), iterations);
+            // 交替预热，避免先运行的一方承担JIT与连接预热
+            for (int i = 0; i < Math.min(iterations, 100); i++) {
+                twoQueries.get();
+                singleQuery.get();
+            }
+            run("two queries", twoQueries, iterations);
+            run("single query", singleQuery, iterations);
+        }
+    }
+
+    /**
+     * 页内顺序与ID独立查询一致；有增强结果的文章恰好是article_extra中存在的那些，且增强结果属于该文章
+     */
+    private void assertProjection(NamedParameterJdbcTemplate template, int pageSize, List<ArticleFeedDTO> page) {
+        List<Long> ids = template.queryForList("SELECT id FROM articles ORDER BY pub_date DESC, id DESC LIMIT :size",
+                new MapSqlParameterSource("size", pageSize), Long.class);
+        assertThat(page).extracting(ArticleFeedDTO::id).containsExactlyElementsOf(ids);
+
+        Set<Long> withExtra = new HashSet<>(template.queryForList(
+                "SELECT article_id FROM article_extra WHERE article_id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), Long.class));
+        for (ArticleFeedDTO feed : page) {
+            if (withExtra.contains(feed.id())) {
+                assertThat(feed.aiExtra()).as("extra of article %d", feed.id()).isNotNull();
+                assertThat(feed.aiExtra().articleId()).isEqualTo(feed.id());
+                assertThat(feed.aiExtra().status()).isNotNull();
+            } else {
+                assertThat(feed.aiExtra()).as("extra of article %d", feed.id()).isNull();
+            }
+        }
+    }
+
+    /**
+     * 原实现：先查一页文章，再按ID查增强结果，逐条重建DTO
+     */
+    private List<ArticleFeedDTO> twoQueries(NamedParameterJdbcTemplate template, MapSqlParameterSource params) {
+        List<ArticleFeedDTO> feeds = template.query(PAGE_SQL, params, ArticleFeedRowMapper.WITHOUT_EXTRA);
+        if (feeds.isEmpty()) {
+            return feeds;
+        }
+        Map<Long, ArticleExtraDTO> extras = template.query(
+                        "SELECT id, article_id, overview, key_information, tags, CAST(toc AS TEXT) AS toc, status, " +
+                                "error_message, created_at, updated_at FROM article_extra WHERE article_id IN (:ids)",
+                        new MapSqlParameterSource("ids", feeds.stream().map(ArticleFeedDTO::id).toList()),
+                        (rs, rowNum) -> ArticleExtraDTO.of(
+                                rs.getLong("id"),
+                                rs.getLong("article_id"),
+                                rs.getString("overview"),
+                                toList(rs.getArray("key_information")),
+                                toList(rs.getArray("tags")),
+                                rs.getString("toc"),
+                                AnalysisStatus.valueOf(rs.getString("status")),
+                                rs.getString("error_message"),
+                                toLocalDateTime(rs.getTimestamp("created_at")),
+                                toLocalDateTime(rs.getTimestamp("updated_at"))))
+                .stream()
+                .collect(Collectors.toMap(ArticleExtraDTO::articleId, extra -> extra));
+        return feeds.stream()
+                .map(dto -> ArticleFeedDTO.of(dto.id(), dto.sourceId(), dto.sourceName(), dto.title(), dto.link(),
+                        dto.coverImage(), dto.pubDate(), dto.wordCount(), extras.get(dto.id())))
+                .toList();
+    }
+
+    private void run(String name, Supplier<List<ArticleFeedDTO>> query, int iterations) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        BenchmarkSupport.Latencies latencies = new BenchmarkSupport.Latencies();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            latencies.time(query);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-13s %s  alloc/page=%8.1fKB%n", name, latencies.summary(),
+                allocated / (double) iterations / 1024);
+    }
+
+    private static List<String> toList(Array array) throws SQLException {
+        return array == null ? null : Arrays.asList((String[]) array.getArray());
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,119 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.config.AppConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 过滤检索的策略选择：按范围内向量数与所需候选数在各策略间切换，迭代扫描的元组数不超过vector_filter_max_scan_tuples
+ */
+class FilteredAnnPlannerTest {
+
+    private static final long TOTAL_VECTORS = 1_000_000;
+    /**
+     * 源ID即该源的向量数
+     */
+    private static final Map<Long, Long> SOURCE_VECTORS = Map.of(
+            3_000L, 3_000L, 100_000L, 100_000L, 20_000L, 20_000L, 5_000L, 5_000L, 6_000L, 6_000L);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private AppConfig appConfig;
+    private FilteredAnnPlanner planner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        appConfig = new AppConfig();
+        appConfig.setVectorFilterExactRows(5000);
+        appConfig.setVectorFilterMaxScanTuples(20000);
+        planner = new FilteredAnnPlanner(jdbcTemplate, appConfig);
+        refresh("0.8.0");
+    }
+
+    @Test
+    void unfilteredAndSmallScopes() {
+        assertThat(planner.plan(FilteredAnnPlanner.Filter.none(), 20).strategy())
+                .isEqualTo(FilteredAnnPlanner.Strategy.INDEX);
+        assertThat(plan(3_000L, 20).strategy()).isEqualTo(FilteredAnnPlanner.Strategy.EXACT);
+    }
+
+    @Test
+    void widensEfSearchBeforeIterating() {
+        // 选择性0.1：所需候选 20 / 0.1 × 1.5 = 300
+        FilteredAnnPlanner.Plan overfetch = plan(100_000L, 20);
+        assertThat(overfetch.strategy()).isEqualTo(FilteredAnnPlanner.Strategy.OVERFETCH);
+        assertThat(overfetch.efSearch()).isEqualTo(300);
+    }
+
+    @Test
+    void iterativeScanIsCappedByMaxScanTuples() {
+        // 选择性0.02：所需候选 20 / 0.02 × 1.5 = 1500，扫描 min(3000, 20000)
+        FilteredAnnPlanner.Plan iterative = plan(20_000L, 20);
+        assertThat(iterative.strategy()).isEqualTo(FilteredAnnPlanner.Strategy.ITERATIVE);
+        assertThat(iterative.maxScanTuples()).isEqualTo(3000);
+
+        // 所需候选 15000 ≤ 20000：扫描上限封顶为20000
+        FilteredAnnPlanner.Plan capped = plan(6_000L, 60);
+        assertThat(capped.strategy()).isEqualTo(FilteredAnnPlanner.Strategy.ITERATIVE);
+        assertThat(capped.maxScanTuples()).isEqualTo(20000);
+    }
+
+    @Test
+    void fallsBackToExactWhenNeededExceedsCap() {
+        // 所需候选 100 / 0.006 × 1.5 = 25000 > 20000
+        assertThat(plan(6_000L, 100).strategy()).isEqualTo(FilteredAnnPlanner.Strategy.EXACT);
+
+        appConfig.setVectorFilterMaxScanTuples(40000);
+        FilteredAnnPlanner.Plan iterative = plan(6_000L, 100);
+        assertThat(iterative.strategy()).isEqualTo(FilteredAnnPlanner.Strategy.ITERATIVE);
+        assertThat(iterative.maxScanTuples()).isEqualTo(40000);
+    }
+
+    @Test
+    void exactWithoutIterativeScan() throws Exception {
+        refresh("0.7.4");
+
+        assertThat(plan(20_000L, 20).strategy()).isEqualTo(FilteredAnnPlanner.Strategy.EXACT);
+    }
+
+    private FilteredAnnPlanner.Plan plan(long sourceId, int limit) {
+        return planner.plan(FilteredAnnPlanner.Filter.sources(List.of(sourceId)), limit);
+    }
+
+    /**
+     * 统计结果：各源向量数见SOURCE_VECTORS，其余向量归入另一个源，合计TOTAL_VECTORS
+     */
+    private void refresh(String pgvectorVersion) throws Exception {
+        long others = TOTAL_VECTORS - SOURCE_VECTORS.values().stream().mapToLong(Long::longValue).sum();
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<Long, Long> entry : SOURCE_VECTORS.entrySet()) {
+                handler.processRow(row(entry.getKey(), entry.getValue()));
+            }
+            handler.processRow(row(0L, others));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(pgvectorVersion));
+        planner.refresh();
+    }
+
+    private static ResultSet row(long sourceId, long vectors) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("source_id")).thenReturn(sourceId);
+        when(rs.getLong("vectors")).thenReturn(vectors);
+        return rs;
+    }
+}
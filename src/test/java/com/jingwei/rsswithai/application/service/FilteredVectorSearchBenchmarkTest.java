@@ -0,0 +1,226 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
+import com.jingwei.rsswithai.support.BenchmarkSupport;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 带过滤条件的向量检索基准：各检索范围下 INDEX / OVERFETCH / ITERATIVE / 规划结果 的recall@limit、返回行数与延迟
+ * 只读，直接使用库中已有的文章与向量：随机抽取文章向量作为查询，真值为范围内的精确扫描。默认跳过，手动运行：
+ * <pre>
+ * mvn test -Dtest=FilteredVectorSearchBenchmarkTest -Dbench.jdbcUrl=jdbc:postgresql://localhost:5432/rsswithai \
+ *          -Dbench.user=postgres -Dbench.password=postgres [-Dbench.queries=100] [-Dbench.limit=50]
+ * </pre>
+ * 使用FLOAT32索引（idx_article_extra_vector_hnsw），不经过进程内近期向量索引。
+ * 每种策略的结果都校验：不超过limit、距离小于阈值且升序、全部属于检索范围；EXACT结果与范围内逐行计算的最近邻一致。
+ */
+@EnabledIfSystemProperty(named = "bench.jdbcUrl", matches = "jdbc:postgresql:.+")
+class FilteredVectorSearchBenchmarkTest {
+
+    private static final double THRESHOLD = 0.4;
+    private static final String JOINS = "JOIN articles a ON a.id = ae.article_id";
+
+    private record Scope(String name, String joins, String filter, Map<String, Object> params,
+            FilteredAnnPlanner.Filter annFilter) {
+    }
+
+    @Test
+    void compareStrategiesPerScope() {
+        int queryCount = Integer.getInteger("bench.queries", 100);
+        int limit = Integer.getInteger("bench.limit", 50);
+        try (HikariDataSource dataSource = BenchmarkSupport.dataSource(2)) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+            AppConfig appConfig = new AppConfig();
+            FilteredAnnPlanner planner = new FilteredAnnPlanner(jdbcTemplate, appConfig);
+            planner.refresh();
+            VectorSearchService vectorSearchService = new VectorSearchService(jdbcTemplate, namedTemplate,
+                    new TransactionTemplate(new DataSourceTransactionManager(dataSource)), appConfig,
+                    new RecentVectorIndexService(jdbcTemplate, appConfig), planner);
+
+            List<float[]> queries = jdbcTemplate.queryForList(
+                            "SELECT CAST(vector AS text) FROM article_extra WHERE vector IS NOT NULL " +
+                                    "ORDER BY random() LIMIT ?", String.class, queryCount)
+                    .stream().map(VectorSearchService::fromPgVectorLiteral).toList();
+            assertThat(queries).as("benchmark needs articles with vectors").isNotEmpty();
+
+            List<FilteredAnnPlanner.Strategy> strategies = new ArrayList<>(List.of(
+                    FilteredAnnPlanner.Strategy.INDEX, FilteredAnnPlanner.Strategy.OVERFETCH));
+            if (planner.isIterativeScanSupported()) {
+                strategies.add(FilteredAnnPlanner.Strategy.ITERATIVE);
+            }
+
+            System.out.printf("%n===== filtered vector search benchmark: %d vectors, %d queries, limit=%d =====%n",
+                    planner.getStatistics().totalVectors(), queries.size(), limit);
+            for (Scope scope : scopes(jdbcTemplate, planner.getStatistics())) {
+                FilteredAnnPlanner.Plan planned = planner.plan(scope.annFilter(), limit);
+                System.out.printf("%n-- %s: ~%d vectors, selectivity=%.4f, planned=%s --%n", scope.name(),
+                        planned.estimatedRows(), planned.selectivity(), planned.strategy());
+
+                Set<Long> members = members(namedTemplate, scope);
+                List<Set<Long>> truth = new ArrayList<>();
+                BenchmarkSupport.Latencies exactLatencies = new BenchmarkSupport.Latencies();
+                FilteredAnnPlanner.Plan exact = planner.force(FilteredAnnPlanner.Strategy.EXACT,
+                        scope.annFilter(), limit);
+                for (float[] query : queries) {
+                    List<ArticleExtraRepository.IdWithDistance> hits = exactLatencies.time(
+                            () -> run(vectorSearchService, scope, query, exact, limit));
+                    assertResults(scope, "EXACT", hits, members, limit);
+                    // 按距离比较，距离相同的重复文章可能以不同顺序入选
+                    assertThat(hits).as("%s EXACT", scope.name())
+                            .extracting(ArticleExtraRepository.IdWithDistance::getDistance)
+                            .usingElementComparator((left, right) -> Math.abs(left - right) < 1e-6 ? 0
+                                    : Double.compare(left, right))
+                            .containsExactlyElementsOf(bruteForce(namedTemplate, scope, query, limit));
+                    truth.add(ids(hits));
+                }
+                print("EXACT", exactLatencies, 1, average(truth));
+
+                Map<String, FilteredAnnPlanner.Plan> plans = new LinkedHashMap<>();
+                for (FilteredAnnPlanner.Strategy strategy : strategies) {
+                    plans.put(strategy.name(), planner.force(strategy, scope.annFilter(), limit));
+                }
+                plans.put("planned", planned);
+                for (Map.Entry<String, FilteredAnnPlanner.Plan> entry : plans.entrySet()) {
+                    BenchmarkSupport.Latencies latencies = new BenchmarkSupport.Latencies();
+                    double recall = 0;
+                    double rows = 0;
+                    for (int i = 0; i < queries.size(); i++) {
+                        float[] query = queries.get(i);
+                        List<ArticleExtraRepository.IdWithDistance> hits = latencies.time(
+                                () -> run(vectorSearchService, scope, query, entry.getValue(), limit));
+                        assertResults(scope, entry.getKey(), hits, members, limit);
+                        Set<Long> result = ids(hits);
+                        recall += recall(truth.get(i), result);
+                        rows += result.size();
+                    }
+                    print(entry.getKey(), latencies, recall / queries.size(), rows / queries.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * 全库、最大的源、向量数居中的源、最小的源（≥limit条）、随机约10%的源，以及收藏最多的用户
+     */
+    private List<Scope> scopes(JdbcTemplate jdbcTemplate, FilteredAnnPlanner.Statistics statistics) {
+        List<Scope> scopes = new ArrayList<>();
+        scopes.add(new Scope("all", JOINS, "TRUE", Map.of(), FilteredAnnPlanner.Filter.none()));
+
+        List<Map.Entry<Long, Long>> sources = new ArrayList<>(statistics.sourceVectors().entrySet());
+        sources.sort(Map.Entry.comparingByValue());
+        if (!sources.isEmpty()) {
+            addSource(scopes, "largest source", sources.getLast().getKey());
+            addSource(scopes, "median source", sources.get(sources.size() / 2).getKey());
+            addSource(scopes, "smallest source", sources.getFirst().getKey());
+
+            List<Long> shuffled = new ArrayList<>(sources.stream().map(Map.Entry::getKey).toList());
+            Collections.shuffle(shuffled, new Random(7));
+            List<Long> tenth = shuffled.subList(0, Math.max(1, shuffled.size() / 10));
+            scopes.add(new Scope(tenth.size() + " sources (~10%)", JOINS, "a.source_id IN (:sourceIds)",
+                    Map.of("sourceIds", tenth), FilteredAnnPlanner.Filter.sources(tenth)));
+        }
+
+        List<Long> users = jdbcTemplate.queryForList("SELECT user_id FROM article_favorites GROUP BY user_id " +
+                "ORDER BY count(*) DESC LIMIT 1", Long.class);
+        if (!users.isEmpty()) {
+            scopes.add(new Scope("favorites of user " + users.getFirst(),
+                    "JOIN article_favorites af ON ae.article_id = af.article_id " + JOINS, "af.user_id = :userId",
+                    Map.of("userId", users.getFirst()), FilteredAnnPlanner.Filter.favorites(users.getFirst())));
+        }
+        return scopes;
+    }
+
+    private void addSource(List<Scope> scopes, String name, Long sourceId) {
+        List<Long> sourceIds = List.of(sourceId);
+        scopes.add(new Scope(name + " " + sourceId, JOINS, "a.source_id IN (:sourceIds)",
+                Map.of("sourceIds", sourceIds), FilteredAnnPlanner.Filter.sources(sourceIds)));
+    }
+
+    private List<ArticleExtraRepository.IdWithDistance> run(VectorSearchService vectorSearchService, Scope scope,
+            float[] query, FilteredAnnPlanner.Plan plan, int limit) {
+        return vectorSearchService.search(query, scope.joins(), scope.filter(),
+                new MapSqlParameterSource(scope.params()), plan, THRESHOLD, limit);
+    }
+
+    /**
+     * 范围内有向量的文章；全库范围返回null，不逐条校验
+     */
+    private Set<Long> members(NamedParameterJdbcTemplate namedTemplate, Scope scope) {
+        if (scope.annFilter().equals(FilteredAnnPlanner.Filter.none())) {
+            return null;
+        }
+        return new HashSet<>(namedTemplate.queryForList("SELECT ae.article_id FROM article_extra ae " +
+                        scope.joins() + " WHERE " + scope.filter() + " AND ae.vector IS NOT NULL",
+                scope.params(), Long.class));
+    }
+
+    /**
+     * 范围内逐行计算距离（不经过检索SQL与规划），距离小于阈值的最近limit篇的距离
+     */
+    private List<Double> bruteForce(NamedParameterJdbcTemplate namedTemplate, Scope scope, float[] query, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource(scope.params())
+                .addValue("queryVector", VectorSearchService.toPgVectorLiteral(query))
+                .addValue("threshold", THRESHOLD)
+                .addValue("limit", limit);
+        return namedTemplate.queryForList("SELECT s.distance FROM (SELECT ae.article_id, " +
+                VectorSearchService.exactDistance("ae.vector", ":queryVector") + " AS distance " +
+                "FROM article_extra ae " + scope.joins() + " WHERE " + scope.filter() +
+                " AND ae.vector IS NOT NULL) s WHERE s.distance < :threshold ORDER BY s.distance LIMIT :limit",
+                params, Double.class);
+    }
+
+    private void assertResults(Scope scope, String strategy, List<ArticleExtraRepository.IdWithDistance> hits,
+            Set<Long> members, int limit) {
+        String description = scope.name() + " " + strategy;
+        assertThat(hits).as(description).hasSizeLessThanOrEqualTo(limit)
+                .isSortedAccordingTo(Comparator.comparing(ArticleExtraRepository.IdWithDistance::getDistance))
+                .allSatisfy(hit -> assertThat(hit.getDistance()).isLessThan(THRESHOLD));
+        if (members != null) {
+            assertThat(ids(hits)).as(description).isSubsetOf(members);
+        }
+    }
+
+    private Set<Long> ids(List<ArticleExtraRepository.IdWithDistance> hits) {
+        Set<Long> ids = new HashSet<>();
+        for (ArticleExtraRepository.IdWithDistance hit : hits) {
+            ids.add(hit.getArticleId());
+        }
+        return ids;
+    }
+
+    private double recall(Set<Long> truth, Set<Long> result) {
+        if (truth.isEmpty()) {
+            return 1;
+        }
+        return (double) result.stream().filter(truth::contains).count() / truth.size();
+    }
+
+    private double average(List<Set<Long>> results) {
+        return results.stream().mapToInt(Set::size).average().orElse(0);
+    }
+
+    private void print(String name, BenchmarkSupport.Latencies latencies, double recall, double rows) {
+        System.out.printf("%-10s recall=%.3f  rows=%6.1f  %s%n", name, recall, rows, latencies.summary());
+    }
+}
@@ -0,0 +1,212 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.dto.ArticleFeedDTO;
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
+import com.jingwei.rsswithai.support.BenchmarkSupport;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 混合检索基准：现有三次查询路径（模糊ID + 向量ID并行，再findFeedByIds，Java内打分）对比单SQL RRF
+ * 只读，直接使用库中已有的文章与向量：随机抽取文章，以标题前几个字作为查询词、其向量作为查询向量。默认跳过，手动运行：
+ * <pre>
+ * mvn test -Dtest=HybridSearchBenchmarkTest -Dbench.jdbcUrl=jdbc:postgresql://localhost:5432/rsswithai \
+ *          -Dbench.user=postgres -Dbench.password=postgres [-Dbench.queries=200]
+ * </pre>
+ * 每个查询都校验单SQL的结果与排序：由两路召回各自的名次在Java内重算RRF得分与时间衰减，结果集合一致且按得分降序。
+ */
+@EnabledIfSystemProperty(named = "bench.jdbcUrl", matches = "jdbc:postgresql:.+")
+class HybridSearchBenchmarkTest {
+
+    private static final int FUZZY_LIMIT = 20;
+    private static final int VECTOR_LIMIT = 50;
+    private static final double THRESHOLD = 0.4;
+    private static final int QUERY_CHARS = 4;
+    private static final String FUZZY_SQL = "SELECT id FROM articles WHERE title ILIKE CONCAT('%', ?, '%') " +
+            "OR author ILIKE CONCAT('%', ?, '%') OR source_name ILIKE CONCAT('%', ?, '%') " +
+            "ORDER BY pub_date DESC, id DESC LIMIT ?";
+
+    @Test
+    void compareWithThreeQueryPath() {
+        int queryCount = Integer.getInteger("bench.queries", 200);
+        try (HikariDataSource dataSource = BenchmarkSupport.dataSource(4);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+            TransactionTemplate transactionTemplate = new TransactionTemplate(
+                    new DataSourceTransactionManager(dataSource));
+            AppConfig appConfig = new AppConfig();
+            // 近期向量索引未构建，向量召回全部走pgvector
+            VectorSearchService vectorSearchService = new VectorSearchService(jdbcTemplate, namedTemplate,
+                    transactionTemplate, appConfig, new RecentVectorIndexService(jdbcTemplate, appConfig),
+                    new FilteredAnnPlanner(jdbcTemplate, appConfig));
+            // 全文索引未初始化（isActive()为false），两条路径的关键词召回都使用ILIKE
+            FullTextSearchService fullTextSearchService = new FullTextSearchService(jdbcTemplate, namedTemplate,
+                    appConfig);
+            HybridSearchService hybridSearchService = new HybridSearchService(namedTemplate, vectorSearchService,
+                    fullTextSearchService, appConfig);
+
+            List<Map<String, Object>> samples = jdbcTemplate.queryForList(
+                    "SELECT a.title, CAST(ae.vector AS text) AS vector FROM articles a " +
+                            "JOIN article_extra ae ON ae.article_id = a.id " +
+                            "WHERE ae.vector IS NOT NULL AND length(a.title) >= ? ORDER BY random() LIMIT ?",
+                    QUERY_CHARS, queryCount);
+            assertThat(samples).as("benchmark needs articles with vectors").isNotEmpty();
+
+            List<String> queries = new ArrayList<>();
+            List<float[]> vectors = new ArrayList<>();
+            for (Map<String, Object> sample : samples) {
+                queries.add(((String) sample.get("title")).substring(0, QUERY_CHARS));
+                vectors.add(VectorSearchService.fromPgVectorLiteral((String) sample.get("vector")));
+            }
+
+            // 预热，同时校验融合排序
+            for (int i = 0; i < queries.size(); i++) {
+                LocalDateTime referenceTime = LocalDateTime.now();
+                List<ArticleFeedDTO> hybrid = hybridSearchService.search(HybridSearchService.Scope.all(),
+                        queries.get(i), null, vectors.get(i), THRESHOLD, FUZZY_LIMIT, VECTOR_LIMIT, referenceTime);
+                assertFusionOrder(jdbcTemplate, vectorSearchService, queries.get(i), vectors.get(i), referenceTime,
+                        hybrid);
+                if (i < 20) {
+                    threeQueryPath(jdbcTemplate, vectorSearchService, executor, queries.get(i), vectors.get(i));
+                }
+            }
+
+            BenchmarkSupport.Latencies legacyLatencies = new BenchmarkSupport.Latencies();
+            BenchmarkSupport.Latencies hybridLatencies = new BenchmarkSupport.Latencies();
+            double overlap = 0;
+            for (int i = 0; i < queries.size(); i++) {
+                String query = queries.get(i);
+                float[] vector = vectors.get(i);
+                List<Long> legacy = legacyLatencies.time(
+                        () -> threeQueryPath(jdbcTemplate, vectorSearchService, executor, query, vector));
+                List<Long> hybrid = hybridLatencies.time(() -> hybridSearchService.search(
+                                HybridSearchService.Scope.all(), query, null, vector, THRESHOLD, FUZZY_LIMIT,
+                                VECTOR_LIMIT, LocalDateTime.now()))
+                        .stream().map(ArticleFeedDTO::id).toList();
+                overlap += overlapAt(legacy, hybrid, 10);
+            }
+
+            System.out.printf("%n===== hybrid search benchmark: %d queries, fuzzy=%d, vector=%d =====%n",
+                    queries.size(), FUZZY_LIMIT, VECTOR_LIMIT);
+            System.out.printf("%-8s %s%n", "3-query", legacyLatencies.summary());
+            System.out.printf("%-8s %s%n", "rrf-sql", hybridLatencies.summary());
+            System.out.printf("top10 overlap (weighted vs rrf): %.3f%n", overlap / queries.size());
+        }
+    }
+
+    /**
+     * 两路召回分别查询，按名次计算 FUZZY_WEIGHT/(RRF_K+rank) + VECTOR_WEIGHT/(RRF_K+rank) 再乘以时间衰减；
+     * 单SQL的结果应与之同一集合，且按该得分降序（得分相同时按ID降序）
+     */
+    private void assertFusionOrder(JdbcTemplate jdbcTemplate, VectorSearchService vectorSearchService, String query,
+            float[] vector, LocalDateTime referenceTime, List<ArticleFeedDTO> hybrid) {
+        Map<Long, Double> rrf = new HashMap<>();
+        List<Long> fuzzy = jdbcTemplate.queryForList(FUZZY_SQL, Long.class, query, query, query, FUZZY_LIMIT);
+        for (int rank = 1; rank <= fuzzy.size(); rank++) {
+            rrf.merge(fuzzy.get(rank - 1), HybridSearchService.FUZZY_WEIGHT / (HybridSearchService.RRF_K + rank),
+                    Double::sum);
+        }
+        List<ArticleExtraRepository.IdWithDistance> nearest = vectorSearchService.searchAll(vector, THRESHOLD,
+                VECTOR_LIMIT);
+        for (int rank = 1; rank <= nearest.size(); rank++) {
+            rrf.merge(nearest.get(rank - 1).getArticleId(),
+                    HybridSearchService.VECTOR_WEIGHT / (HybridSearchService.RRF_K + rank), Double::sum);
+        }
+
+        assertThat(hybrid).extracting(ArticleFeedDTO::id).as("fused ids for %s", query)
+                .containsExactlyInAnyOrderElementsOf(rrf.keySet());
+        for (int i = 1; i < hybrid.size(); i++) {
+            ArticleFeedDTO previous = hybrid.get(i - 1);
+            ArticleFeedDTO current = hybrid.get(i);
+            double previousScore = decayed(rrf.get(previous.id()), previous.pubDate(), referenceTime);
+            double currentScore = decayed(rrf.get(current.id()), current.pubDate(), referenceTime);
+            assertThat(previousScore).as("fusion order for %s at %d", query, i)
+                    .isGreaterThanOrEqualTo(currentScore - 1e-9);
+            if (Math.abs(previousScore - currentScore) <= 1e-12) {
+                assertThat(previous.id()).isGreaterThan(current.id());
+            }
+        }
+    }
+
+    private static double decayed(double score, LocalDateTime pubDate, LocalDateTime referenceTime) {
+        long hours = pubDate == null ? 0 : Math.max(0, ChronoUnit.HOURS.between(pubDate, referenceTime));
+        return score / (1.0 + hours * 0.002);
+    }
+
+    /**
+     * 与ArticleService原有路径一致：模糊与向量并行召回，再按ID回表，Java内加权打分
+     */
+    private List<Long> threeQueryPath(JdbcTemplate jdbcTemplate, VectorSearchService vectorSearchService,
+            ExecutorService executor, String query, float[] vector) {
+        var fuzzyFuture = CompletableFuture.supplyAsync(() -> jdbcTemplate.queryForList(FUZZY_SQL, Long.class,
+                query, query, query, FUZZY_LIMIT), executor);
+        var vectorFuture = CompletableFuture.supplyAsync(
+                () -> vectorSearchService.searchAll(vector, THRESHOLD, VECTOR_LIMIT), executor);
+
+        Set<Long> fuzzyIds = new HashSet<>(fuzzyFuture.join());
+        Map<Long, Double> distances = new HashMap<>();
+        for (ArticleExtraRepository.IdWithDistance hit : vectorFuture.join()) {
+            distances.put(hit.getArticleId(), hit.getDistance());
+        }
+        Set<Long> ids = new HashSet<>(fuzzyIds);
+        ids.addAll(distances.keySet());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Double> scores = new HashMap<>();
+        new NamedParameterJdbcTemplate(jdbcTemplate).query(
+                "SELECT a.id, a.source_id, a.source_name, a.title, a.link, a.cover_image, a.pub_date, a.word_count " +
+                        "FROM articles a WHERE a.id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), rs -> {
+                    long id = rs.getLong("id");
+                    Timestamp pubDate = rs.getTimestamp("pub_date");
+                    double score = fuzzyIds.contains(id) ? 0.6 : 0;
+                    Double distance = distances.get(id);
+                    if (distance != null) {
+                        score += (1.0 - distance) * 1.5;
+                    }
+                    long hours = pubDate == null ? 0
+                            : Math.max(0, ChronoUnit.HOURS.between(pubDate.toLocalDateTime(), now));
+                    scores.put(id, score / (1.0 + hours * 0.002));
+                });
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private double overlapAt(List<Long> left, List<Long> right, int k) {
+        Set<Long> expected = new HashSet<>(left.subList(0, Math.min(k, left.size())));
+        if (expected.isEmpty()) {
+            return right.isEmpty() ? 1 : 0;
+        }
+        long hits = right.stream().limit(k).filter(expected::contains).count();
+        return (double) hits / expected.size();
+    }
+}
@@ -0,0 +1,303 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.application.Event.ArticleProcessEvent;
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.domain.model.AnalysisStatus;
+import com.jingwei.rsswithai.domain.model.Article;
+import com.jingwei.rsswithai.domain.model.ArticleExtra;
+import com.jingwei.rsswithai.domain.model.RssSource;
+import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
+import com.jingwei.rsswithai.domain.repository.ArticleRepository;
+import com.jingwei.rsswithai.support.OpenAiStubServer;
+import com.jingwei.rsswithai.support.OpenAiStubServer.LatencyProfile;
+import com.jingwei.rsswithai.utils.RssUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ArrayNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 离线LLM流水线压测：合成RSS → 入库解析 → AI增强（真实LlmProcessService + 本地桩服务）→ 向量检索
+ * 默认跳过，手动运行：
+ * <pre>
+ * mvn test -Dtest=LlmPipelineLoadTest -Dload.articles=500 [-Dload.concurrency=8] [-Dload.endpoints=1]
+ *          [-Dload.chatMedianMs=300] [-Dload.embeddingMedianMs=40] [-Dload.errorRate=0.01] [-Dload.rateLimitRate=0.02]
+ *          [-Dload.queries=200]
+ * </pre>
+ * 向量检索阶段使用内存暴力检索代替pgvector，衡量的是查询向量化 + 检索的端到端耗时与recall@10。
+ */
+@EnabledIfSystemProperty(named = "load.articles", matches = "\\d+")
+class LlmPipelineLoadTest {
+
+    private static final int TOP_K = 10;
+    private static final String[] SUBJECTS = {"OpenAI", "谷歌", "英伟达", "阿里云", "Spring", "PostgreSQL", "苹果",
+            "字节跳动", "Rust", "Kubernetes", "华为", "Meta", "微软", "Java", "特斯拉"};
+    private static final String[] ACTIONS = {"发布", "开源", "升级", "收购", "宣布", "推出", "修复", "下架"};
+    private static final String[] OBJECTS = {"大模型", "芯片", "数据库", "编译器", "操作系统", "浏览器", "向量检索",
+            "推理框架", "云服务", "开发者工具", "自动驾驶", "安全补丁"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private AppConfig appConfig;
+
+    @Test
+    void runPipeline() throws Exception {
+        int articleCount = Integer.getInteger("load.articles");
+        int concurrency = Integer.getInteger("load.concurrency", 8);
+        int queryCount = Math.min(articleCount, Integer.getInteger("load.queries", 200));
+        int endpointCount = Math.max(1, Integer.getInteger("load.endpoints", 1));
+
+        LatencyProfile chatLatency = LatencyProfile.logNormal(Integer.getInteger("load.chatMedianMs", 300), 0.5);
+        LatencyProfile embeddingLatency = LatencyProfile.logNormal(
+                Integer.getInteger("load.embeddingMedianMs", 40), 0.4);
+
+        List<OpenAiStubServer> stubs = new ArrayList<>();
+        try {
+            for (int i = 0; i < endpointCount; i++) {
+                stubs.add(OpenAiStubServer.builder()
+                        .chatLatency(chatLatency)
+                        .embeddingLatency(embeddingLatency)
+                        .errorRate(Double.parseDouble(System.getProperty("load.errorRate", "0")))
+                        .rateLimitRate(Double.parseDouble(System.getProperty("load.rateLimitRate", "0")))
+                        .build()
+                        .start());
+            }
+
+            // 1. 入库：解析合成RSS并转换为文章
+            RssSource source = RssSource.builder().id(1L).name("load-test").url("http://localhost/feed").build();
+            StageStats ingest = new StageStats("ingest");
+            Map<Long, Article> articles = new ConcurrentHashMap<>();
+            ingest.begin();
+            List<RssUtils.ParsedItem> items = RssUtils.parseItems(buildSyntheticFeed(articleCount), source);
+            long id = 1;
+            for (RssUtils.ParsedItem item : items) {
+                long start = System.nanoTime();
+                Article article = RssUtils.buildArticle(item, source);
+                ingest.record(start);
+                if (article != null) {
+                    article.setId(id++);
+                    articles.put(article.getId(), article);
+                }
+            }
+            ingest.end();
+
+            // 2. AI增强：走真实的事件入口、并发控制和重试逻辑
+            StageStats enrichment = new StageStats("enrichment");
+            Map<Long, Long> submittedAt = new ConcurrentHashMap<>();
+            Map<Long, ArticleExtra> extras = new ConcurrentHashMap<>();
+            CountDownLatch done = new CountDownLatch(articles.size());
+            LlmEndpointPool llmEndpointPool = createEndpointPool(stubs, concurrency);
+            LlmProcessService llmProcessService = createLlmProcessService(llmEndpointPool, articles, extras,
+                    submittedAt, enrichment, done);
+
+            enrichment.begin();
+            for (Long articleId : articles.keySet()) {
+                submittedAt.put(articleId, System.nanoTime());
+                llmProcessService.onArticleProcessEvent(new ArticleProcessEvent(this, articleId));
+            }
+            assertThat(done.await(30, TimeUnit.MINUTES)).isTrue();
+            enrichment.end();
+
+            // 3. 向量检索：以标题为查询，统计耗时与recall@10
+            List<Map.Entry<Long, float[]>> index = extras.values().stream()
+                    .filter(extra -> extra.getVector() != null)
+                    .map(extra -> Map.entry(extra.getArticleId(), extra.getVector()))
+                    .toList();
+            StageStats search = new StageStats("vector-search");
+            int hits = 0;
+            List<Long> queryIds = new ArrayList<>(articles.keySet()).subList(0, queryCount);
+            search.begin();
+            for (Long articleId : queryIds) {
+                long start = System.nanoTime();
+                float[] queryVector = llmProcessService.generateVector(articles.get(articleId).getTitle());
+                List<Long> topIds = queryVector == null ? List.of() : topK(index, queryVector);
+                search.record(start);
+                if (topIds.contains(articleId)) {
+                    hits++;
+                }
+            }
+            search.end();
+
+            long failed = extras.values().stream().filter(e -> e.getStatus() != AnalysisStatus.SUCCESS).count();
+            System.out.printf("%n===== LLM pipeline load test: %d articles, concurrency %d =====%n",
+                    articles.size(), concurrency);
+            ingest.print();
+            enrichment.print();
+            search.print();
+            System.out.printf("enrichment failures: %d, recall@%d: %.3f (%d queries)%n",
+                    failed, TOP_K, queryCount == 0 ? 0 : (double) hits / queryCount, queryCount);
+            stubs.forEach(stub -> System.out.println("stub " + stub.baseUrl() + ": " + stub.stats()));
+            llmEndpointPool.getStatus().forEach(status -> System.out.println("endpoint: " + status));
+        } finally {
+            stubs.forEach(OpenAiStubServer::close);
+        }
+    }
+
+    /**
+     * 单个桩服务时走单端点配置，多个时通过llm_endpoint_pool组成端点池
+     */
+    private LlmEndpointPool createEndpointPool(List<OpenAiStubServer> stubs, int concurrency) {
+        appConfig = new AppConfig();
+        appConfig.setLlmBaseUrl(stubs.getFirst().baseUrl());
+        appConfig.setLlmApiKey("stub-key");
+        appConfig.setLanguageModel("stub-chat");
+        appConfig.setEmbeddingModel("stub-embedding");
+        appConfig.setConcurrentLimit(concurrency);
+        if (stubs.size() > 1) {
+            ArrayNode pool = objectMapper.createArrayNode();
+            for (int i = 0; i < stubs.size(); i++) {
+                for (String type : List.of("chat", "embedding")) {
+                    pool.addObject()
+                            .put("type", type)
+                            .put("name", type + "-stub-" + i)
+                            .put("base_url", stubs.get(i).baseUrl())
+                            .put("api_key", "stub-key")
+                            .put("model", "stub-" + type);
+                }
+            }
+            appConfig.setLlmEndpointPool(objectMapper.writeValueAsString(pool));
+        }
+
+        LlmEndpointPool pool = new LlmEndpointPool(appConfig, objectMapper);
+        pool.init();
+        return pool;
+    }
+
+    private LlmProcessService createLlmProcessService(LlmEndpointPool llmEndpointPool, Map<Long, Article> articles,
+            Map<Long, ArticleExtra> extras, Map<Long, Long> submittedAt, StageStats enrichment,
+            CountDownLatch done) {
+
+        ArticleRepository articleRepository = mock(ArticleRepository.class);
+        when(articleRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(articles.get(invocation.<Long>getArgument(0))));
+
+        ArticleExtraRepository articleExtraRepository = mock(ArticleExtraRepository.class);
+        when(articleExtraRepository.existsByArticleId(anyLong())).thenReturn(false);
+        when(articleExtraRepository.findAttemptCountByArticleId(anyLong())).thenReturn(Optional.empty());
+        when(articleExtraRepository.save(any(ArticleExtra.class))).thenAnswer(invocation -> {
+            ArticleExtra extra = invocation.getArgument(0);
+            if (extras.put(extra.getArticleId(), extra) == null) {
+                enrichment.record(submittedAt.get(extra.getArticleId()));
+                done.countDown();
+            }
+            return extra;
+        });
+
+        when(articleExtraRepository.replaceByArticleId(any(ArticleExtra.class)))
+                .thenAnswer(invocation -> articleExtraRepository.save(invocation.getArgument(0)));
+
+        EmbeddingVersionService embeddingVersionService = mock(EmbeddingVersionService.class);
+        when(embeddingVersionService.getServingModel()).thenReturn(appConfig.getEmbeddingModel());
+        when(embeddingVersionService.getPendingModel()).thenReturn(Optional.empty());
+
+        LlmProcessService service = new LlmProcessService(articleRepository, articleExtraRepository, appConfig,
+                objectMapper, llmEndpointPool, embeddingVersionService, new SearchResultCache(appConfig),
+                mock(FullTextSearchService.class), new RecentVectorIndexService(null, appConfig),
+                mock(ArticleNeighborService.class), mock(TopicMatchService.class),
+                mock(FeedNotificationService.class));
+        service.init();
+        return service;
+    }
+
+    private List<Long> topK(List<Map.Entry<Long, float[]>> index, float[] query) {
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Long, float[]> entry : index) {
+            float[] vector = entry.getValue();
+            double dot = 0;
+            for (int i = 0; i < query.length; i++) {
+                dot += query[i] * vector[i];
+            }
+            heap.offer(Map.entry(entry.getKey(), dot));
+            if (heap.size() > TOP_K) {
+                heap.poll();
+            }
+        }
+        return heap.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private String buildSyntheticFeed(int count) {
+        Random random = new Random(42);
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<rss version=\"2.0\" xmlns:content=\"http://purl.org/rss/1.0/modules/content/\">")
+                .append("<channel><title>load-test</title><link>http://localhost</link>");
+        for (int i = 0; i < count; i++) {
+            String title = SUBJECTS[random.nextInt(SUBJECTS.length)] + " " + ACTIONS[random.nextInt(ACTIONS.length)]
+                    + " " + OBJECTS[random.nextInt(OBJECTS.length)] + " " + (i + 1);
+            StringBuilder html = new StringBuilder();
+            int paragraphs = 3 + random.nextInt(20);
+            for (int p = 0; p < paragraphs; p++) {
+                if (p % 4 == 0) {
+                    html.append("<h2>第").append(p / 4 + 1).append("部分</h2>");
+                }
+                html.append("<p>").append(title).append("。")
+                        .append("这是用于压测的合成段落，包含一些常见的技术词汇与描述。".repeat(1 + random.nextInt(6)))
+                        .append("</p>");
+            }
+            xml.append("<item><title>").append(title).append("</title>")
+                    .append("<link>http://localhost/articles/").append(i).append("</link>")
+                    .append("<guid>load-").append(i).append("</guid>")
+                    .append("<pubDate>Mon, 01 Jan 2024 08:00:00 +0800</pubDate>")
+                    .append("<content:encoded><![CDATA[").append(html).append("]]></content:encoded>")
+                    .append("</item>");
+        }
+        return xml.append("</channel></rss>").toString();
+    }
+
+    /**
+     * 单阶段的延迟样本与吞吐统计
+     */
+    private static final class StageStats {
+        private final String name;
+        private final ConcurrentLinkedQueue<Long> samples = new ConcurrentLinkedQueue<>();
+        private long beginNanos;
+        private long endNanos;
+
+        StageStats(String name) {
+            this.name = name;
+        }
+
+        void begin() {
+            beginNanos = System.nanoTime();
+        }
+
+        void end() {
+            endNanos = System.nanoTime();
+        }
+
+        void record(long startNanos) {
+            samples.add(System.nanoTime() - startNanos);
+        }
+
+        void print() {
+            List<Long> sorted = samples.stream().sorted().toList();
+            double seconds = (endNanos - beginNanos) / 1e9;
+            System.out.printf("%-14s n=%-6d throughput=%8.1f/s  p50=%8.2fms  p99=%8.2fms%n",
+                    name, sorted.size(), seconds == 0 ? 0 : sorted.size() / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99));
+        }
+
+        private static double percentile(List<Long> sorted, double quantile) {
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+            return sorted.get(Math.max(0, index)) / 1e6;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.config.AppConfig;
+import com.jingwei.rsswithai.domain.repository.ArticleExtraRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * RecentVectorIndexService：窗口未建立或为空时的回退、窗口内检索与增量写入
+ * 数据库由内存中的行代替，只模拟建索引时的两类查询
+ */
+class RecentVectorIndexServiceTest {
+
+    private static final String MODEL = "embedding-test";
+
+    private final List<Row> rows = new ArrayList<>();
+    private final Random random = new Random(29);
+    private AppConfig appConfig;
+    private RecentVectorIndexService service;
+
+    private record Row(long articleId, Long sourceId, LocalDateTime pubDate, float[] vector) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        appConfig = new AppConfig();
+        appConfig.setEmbeddingModel(MODEL);
+        appConfig.setRecentVectorIndexDays(7);
+        service = new RecentVectorIndexService(new InMemoryJdbcTemplate(), appConfig);
+    }
+
+    @Test
+    void notBuiltFallsBackToPgvector() {
+        float[] vector = randomVector();
+
+        assertThat(service.search(vector, 1, 10)).isNull();
+        assertThat(service.searchInSources(vector, List.of(1L), 1, 10)).isNull();
+        assertThat(service.findSimilar(1L, 10)).isNull();
+        assertThat(service.matchTopics(List.of(vector), List.of(0.5), LocalDateTime.now(), Long.MAX_VALUE, 10))
+                .isNull();
+        assertThat(service.getStats().ready()).isFalse();
+    }
+
+    @Test
+    void disabledWindowFallsBackToPgvector() throws InterruptedException {
+        appConfig.setRecentVectorIndexDays(0);
+        addRows(10);
+
+        rebuildAndWait();
+
+        assertThat(service.getStats().ready()).isFalse();
+        assertThat(service.search(rows.getFirst().vector(), 1, 10)).isNull();
+    }
+
+    @Test
+    void emptyWindowCoversOnlyItsRange() throws InterruptedException {
+        rebuildAndWait();
+
+        RecentVectorIndexService.Recall recall = service.search(randomVector(), 1, 10);
+        assertThat(recall).isNotNull();
+        assertThat(recall.hits()).isEmpty();
+        // 窗口为空时召回为空，覆盖起点之前的数据仍由pgvector补充
+        assertThat(recall.coverageStart()).isBetween(LocalDateTime.now().minusDays(7).minusMinutes(1),
+                LocalDateTime.now().minusDays(7));
+        assertThat(service.findSimilar(1L, 10)).isNull();
+        assertThat(service.getStats().ready()).isTrue();
+        assertThat(service.getStats().size()).isZero();
+    }
+
+    @Test
+    void searchesWithinWindow() throws InterruptedException {
+        addRows(60);
+        rebuildAndWait();
+        Row target = rows.get(5);
+
+        assertThat(service.getStats().size()).isEqualTo(60);
+        List<ArticleExtraRepository.IdWithDistance> hits = service.search(target.vector(), 0.5, 3).hits();
+        assertThat(hits).hasSize(1);
+        assertThat(hits.getFirst().getArticleId()).isEqualTo(target.articleId());
+        assertThat(hits.getFirst().getDistance()).isCloseTo(0, within(1e-4));
+
+        Long otherSource = target.sourceId() % 3 + 1;
+        assertThat(service.searchInSources(target.vector(), List.of(otherSource), 2, 100).hits())
+                .hasSize(20)
+                .extracting(ArticleExtraRepository.IdWithDistance::getArticleId)
+                .allMatch(articleId -> rows.get(articleId.intValue()).sourceId().equals(otherSource));
+
+        assertThat(service.findSimilar(target.articleId(), 5).hits())
+                .hasSize(5)
+                .extracting(ArticleExtraRepository.IdWithDistance::getArticleId)
+                .doesNotContain(target.articleId());
+
+        // 订阅流顺序：pub_date倒序，游标之后的文章
+        List<ArticleExtraRepository.IdWithDistance> matched = service.matchTopics(
+                List.of(target.vector(), rows.get(10).vector()), List.of(0.01, 0.01),
+                rows.get(4).pubDate(), rows.get(4).articleId(), 10).hits();
+        assertThat(matched).extracting(ArticleExtraRepository.IdWithDistance::getArticleId)
+                .containsExactly(target.articleId(), 10L);
+    }
+
+    @Test
+    void addsNewVectorsInsideWindowOnly() throws InterruptedException {
+        addRows(20);
+        rebuildAndWait();
+        float[] fresh = randomVector();
+        float[] stale = randomVector();
+
+        service.onArticleVector(100L, 1L, LocalDateTime.now(), fresh);
+        service.onArticleVector(101L, 1L, LocalDateTime.now().minusDays(30), stale);
+
+        assertThat(service.search(fresh, 0.01, 1).hits())
+                .extracting(ArticleExtraRepository.IdWithDistance::getArticleId)
+                .containsExactly(100L);
+        assertThat(service.search(stale, 0.01, 1).hits()).isEmpty();
+        assertThat(service.findSimilar(101L, 5)).isNull();
+        assertThat(service.getStats().size()).isEqualTo(21);
+    }
+
+    @Test
+    void servingModelChangeFallsBackToPgvector() throws InterruptedException {
+        addRows(10);
+        rebuildAndWait();
+
+        appConfig.setEmbeddingServingModel("embedding-next");
+
+        assertThat(service.search(rows.getFirst().vector(), 1, 10)).isNull();
+        assertThat(service.getStats().ready()).isFalse();
+    }
+
+    private void rebuildAndWait() throws InterruptedException {
+        service.onApplicationReady();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (service.getStats().rebuilding()) {
+            assertThat(System.nanoTime()).as("index rebuild timed out").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 文章ID即下标，按ID递增、发布时间递减，源为1到3轮流
+     */
+    private void addRows(int count) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Row(i, (long) (i % 3 + 1), now.minusHours(i + 1), randomVector()));
+        }
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[VectorSearchService.DIMENSIONS];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    /**
+     * 按article_id分批加载时一次返回全部行，之后的批次与提交前补齐的查询返回空
+     */
+    private final class InMemoryJdbcTemplate extends JdbcTemplate {
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler, Object... args) {
+            boolean firstBatch = sql.contains("ORDER BY ae.article_id") && Long.valueOf(0).equals(args[1]);
+            if (!firstBatch) {
+                return;
+            }
+            LocalDateTime coverageStart = ((Timestamp) args[0]).toLocalDateTime();
+            try {
+                for (Row row : rows) {
+                    if (!row.pubDate().isBefore(coverageStart)) {
+                        handler.processRow(resultSet(row));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private ResultSet resultSet(Row row) throws SQLException {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("article_id")).thenReturn(row.articleId());
+            when(rs.getLong("source_id")).thenReturn(row.sourceId());
+            when(rs.wasNull()).thenReturn(false);
+            when(rs.getTimestamp("pub_date")).thenReturn(Timestamp.valueOf(row.pubDate()));
+            when(rs.getString("vector")).thenReturn(VectorSearchService.toPgVectorLiteral(row.vector()));
+            return rs;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.config.AppConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TimelineCache：源/主题扇出写入已注册的时间线，以及删除旧实例与重新注册并发时新实例的扇出不丢失
+ */
+class TimelineCacheTest {
+
+    private static final long USER_ID = 1L;
+    private static final long SOURCE_ID = 10L;
+    private static final long TOPIC_ID = 20L;
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    private TimelineCache cache;
+
+    @BeforeEach
+    void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.setTimelineCacheSize(50);
+        cache = new TimelineCache(appConfig);
+    }
+
+    @Test
+    void fansOutToRegisteredTimeline() {
+        TimelineCache.Timeline timeline = registerAndLoad();
+
+        cache.onArticle(SOURCE_ID, 2L, NOW.minusMinutes(1));
+        cache.onTopicMatches(List.of(TOPIC_ID), 3L, NOW);
+        cache.onArticle(SOURCE_ID + 1, 4L, NOW);
+
+        assertThat(timeline.page(NOW.plusDays(1), Long.MAX_VALUE, 10)).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void evictedTimelineNoLongerReceivesFanOut() {
+        TimelineCache.Timeline old = registerAndLoad();
+        cache.evictUser(USER_ID);
+        TimelineCache.Timeline current = registerAndLoad();
+
+        cache.onArticle(SOURCE_ID, 2L, NOW);
+
+        assertThat(cache.get(USER_ID)).isSameAs(current);
+        assertThat(current.page(NOW.plusDays(1), Long.MAX_VALUE, 10)).containsExactly(2L, 1L);
+        assertThat(old.page(NOW.plusDays(1), Long.MAX_VALUE, 10)).containsExactly(1L);
+    }
+
+    @Test
+    void concurrentEvictAndRegisterKeepsCurrentTimelineIndexed() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int round = 0; round < 200; round++) {
+                registerAndLoad();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> tasks = List.of(
+                        executor.submit(() -> {
+                            await(start);
+                            cache.evictUser(USER_ID);
+                        }),
+                        executor.submit(() -> {
+                            await(start);
+                            cache.evictUser(USER_ID);
+                            registerAndLoad();
+                        }),
+                        executor.submit(() -> {
+                            await(start);
+                            registerAndLoad();
+                        }));
+                start.countDown();
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+
+                TimelineCache.Timeline current = cache.get(USER_ID);
+                if (current == null) {
+                    current = registerAndLoad();
+                }
+                long articleId = 1000L + round;
+                cache.onArticle(SOURCE_ID, articleId, NOW.plusMinutes(round));
+                cache.onTopicMatches(List.of(TOPIC_ID), articleId + 100_000, NOW.plusMinutes(round));
+                assertThat(current.page(NOW.plusDays(1), Long.MAX_VALUE, 2)).as("round %d", round)
+                        .containsExactly(articleId + 100_000, articleId);
+
+                cache.evictUser(USER_ID);
+            }
+        }
+    }
+
+    /**
+     * 注册并加载一条初始文章；已有其他实例时返回该实例
+     */
+    private TimelineCache.Timeline registerAndLoad() {
+        TimelineCache.Timeline created = cache.register(USER_ID, List.of(SOURCE_ID), List.of(TOPIC_ID));
+        if (created == null) {
+            return cache.get(USER_ID);
+        }
+        cache.load(created, List.of(new TimelineCache.Entry(1L, NOW.minusDays(1))));
+        return created;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
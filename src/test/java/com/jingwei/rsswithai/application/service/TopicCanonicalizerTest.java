@@ -0,0 +1,44 @@
+package com.jingwei.rsswithai.application.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 主题字面规范化：中日韩文字两侧的空格去掉，其他文字的单词之间保留一个空格
+ */
+class TopicCanonicalizerTest {
+
+    @Test
+    void dropsSpacesAroundCjk() {
+        assertThat(TopicCanonicalizer.normalize("人工 智能")).isEqualTo("人工智能");
+        assertThat(TopicCanonicalizer.normalize("  机器　学习 ")).isEqualTo("机器学习");
+        assertThat(TopicCanonicalizer.normalize("ひらがな カタカナ")).isEqualTo("ひらがなカタカナ");
+        assertThat(TopicCanonicalizer.normalize("한국 어")).isEqualTo("한국어");
+    }
+
+    @Test
+    void mixedCjkAndLatinMatchesWithoutSpaces() {
+        String expected = TopicCanonicalizer.normalize("ai芯片");
+
+        assertThat(expected).isEqualTo("ai芯片");
+        assertThat(TopicCanonicalizer.normalize("AI 芯片")).isEqualTo(expected);
+        assertThat(TopicCanonicalizer.normalize("ＡＩ芯片")).isEqualTo(expected);
+        assertThat(TopicCanonicalizer.normalize("Rust 语言 web 框架")).isEqualTo("rust语言web框架");
+    }
+
+    @Test
+    void keepsSpacesBetweenNonCjkWords() {
+        assertThat(TopicCanonicalizer.normalize("Machine   Learning")).isEqualTo("machine learning");
+        assertThat(TopicCanonicalizer.normalize("Café au lait")).isEqualTo("café au lait");
+        assertThat(TopicCanonicalizer.normalize("résumé écrit")).isEqualTo("résumé écrit");
+        assertThat(TopicCanonicalizer.normalize("Машинное обучение")).isEqualTo("машинное обучение");
+        assertThat(TopicCanonicalizer.normalize("Μηχανική μάθηση")).isEqualTo("μηχανική μάθηση");
+    }
+
+    @Test
+    void blankAndNull() {
+        assertThat(TopicCanonicalizer.normalize(null)).isEmpty();
+        assertThat(TopicCanonicalizer.normalize(" \t ")).isEmpty();
+    }
+}
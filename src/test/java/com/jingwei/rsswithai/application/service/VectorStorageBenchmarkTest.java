@@ -0,0 +1,268 @@
+package com.jingwei.rsswithai.application.service;
+
+import com.jingwei.rsswithai.domain.model.VectorStorageMode;
+import com.jingwei.rsswithai.support.BenchmarkSupport;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 向量索引存储方式基准：FLOAT32 / HALFVEC / BINARY(+精排) 的建索引耗时、索引体积、检索延迟与recall@k
+ * 需要安装了pgvector(>=0.7)的PostgreSQL，使用独立的临时表，不影响业务数据。默认跳过，手动运行：
+ * <pre>
+ * mvn test -Dtest=VectorStorageBenchmarkTest -Dbench.jdbcUrl=jdbc:postgresql://localhost:5432/rsswithai \
+ *          -Dbench.user=postgres -Dbench.password=postgres [-Dbench.rows=50000] [-Dbench.queries=200] [-Dbench.k=10]
+ * </pre>
+ * 数据为围绕若干中心的合成向量（模拟同主题文章聚集），真值由建索引前的精确顺序扫描得到。
+ * 校验：float32与精排结果按原始距离升序、halfvec只差舍入误差；halfvec召回不低于float32超过0.05；二值精排召回不低于不精排。
+ */
+@EnabledIfSystemProperty(named = "bench.jdbcUrl", matches = "jdbc:postgresql:.+")
+class VectorStorageBenchmarkTest {
+
+    private static final String TABLE = "vector_storage_bench";
+    private static final int DIMENSIONS = VectorSearchService.DIMENSIONS;
+    private static final int CLUSTERS = 200;
+
+    private record Hit(long id, double distance) {
+    }
+
+    @Test
+    void compareStorageModes() throws Exception {
+        int rows = Integer.getInteger("bench.rows", 50_000);
+        int queryCount = Integer.getInteger("bench.queries", 200);
+        int k = Integer.getInteger("bench.k", 10);
+        int rerankFactor = Integer.getInteger("bench.rerankFactor", 4);
+
+        try (HikariDataSource dataSource = BenchmarkSupport.dataSource(1);
+             Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            Random random = new Random(7);
+            float[][] centroids = new float[CLUSTERS][];
+            for (int i = 0; i < CLUSTERS; i++) {
+                centroids[i] = normalize(gaussian(random, 1f));
+            }
+
+            prepareTable(connection, rows, centroids, random);
+            List<String> queries = new ArrayList<>();
+            for (int i = 0; i < queryCount; i++) {
+                queries.add(VectorSearchService.toPgVectorLiteral(sample(centroids, random)));
+            }
+
+            // 真值：无索引时的精确检索
+            List<Set<Long>> truth = new ArrayList<>();
+            String exactSql = "SELECT id, " + VectorSearchService.exactDistance("vector", "?") + " AS distance FROM " +
+                    TABLE + " ORDER BY " + VectorSearchService.exactDistance("vector", "?") + " LIMIT " + k;
+            for (String query : queries) {
+                truth.add(ids(queryHits(connection, exactSql, query)));
+            }
+
+            System.out.printf("%n===== vector storage benchmark: %d rows, %d queries, k=%d =====%n",
+                    rows, queryCount, k);
+            Map<VectorStorageMode, Double> recalls = new EnumMap<>(VectorStorageMode.class);
+            for (VectorStorageMode mode : VectorStorageMode.values()) {
+                recalls.put(mode, benchmarkMode(connection, mode, queries, truth, k, rerankFactor));
+            }
+            // halfvec只损失精度，召回应与float32相当
+            assertThat(recalls.get(VectorStorageMode.HALFVEC))
+                    .isGreaterThanOrEqualTo(recalls.get(VectorStorageMode.FLOAT32) - 0.05);
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            }
+        }
+    }
+
+    /**
+     * 建立该模式的索引并检索；二值模式分别测不精排与按原始向量精排两种，精排的候选包含不精排的结果，召回不应更低
+     *
+     * @return 该模式（二值为精排后）的recall@k
+     */
+    private double benchmarkMode(Connection connection, VectorStorageMode mode, List<String> queries,
+            List<Set<Long>> truth, int k, int rerankFactor) throws SQLException {
+        String indexName = TABLE + "_" + mode.name().toLowerCase() + "_idx";
+        long buildStart = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(VectorSearchService.indexDdl(mode, indexName, TABLE, "vector"));
+        }
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+        long indexBytes;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_relation_size('" + indexName + "')")) {
+            rs.next();
+            indexBytes = rs.getLong(1);
+        }
+        System.out.printf("%-8s build=%7dms  index=%8.1fMB%n", mode, buildMillis, indexBytes / 1024.0 / 1024.0);
+
+        double recall;
+        if (mode == VectorStorageMode.BINARY) {
+            double withoutRerank = run(connection, mode, "no rerank", queries, truth, k, 1);
+            recall = run(connection, mode, "rerank x" + rerankFactor, queries, truth, k, rerankFactor);
+            assertThat(recall).isGreaterThanOrEqualTo(withoutRerank);
+        } else {
+            recall = run(connection, mode, "", queries, truth, k, 1);
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX IF EXISTS " + indexName);
+        }
+        return recall;
+    }
+
+    /**
+     * 按索引表达式排序取k条（二值模式先取k*rerankFactor个候选，再按原始向量的余弦距离精排），校验返回顺序
+     */
+    private double run(Connection connection, VectorStorageMode mode, String label, List<String> queries,
+            List<Set<Long>> truth, int k, int rerankFactor) throws SQLException {
+        int candidates = k * rerankFactor;
+        String distance = VectorSearchService.exactDistance("vector", "?");
+        String order = VectorSearchService.orderExpression(mode, "vector", "?");
+        String sql;
+        if (rerankFactor > 1) {
+            sql = "SELECT c.id, c.distance FROM (SELECT id, " + distance + " AS distance FROM " + TABLE +
+                    " ORDER BY " + order + " LIMIT " + candidates + ") c ORDER BY c.distance LIMIT " + k;
+        } else {
+            sql = "SELECT id, " + distance + " AS distance FROM " + TABLE + " ORDER BY " + order + " LIMIT " + k;
+        }
+
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LOCAL hnsw.ef_search = " + Math.max(40, candidates));
+        }
+        // 预热
+        for (int i = 0; i < Math.min(20, queries.size()); i++) {
+            queryHits(connection, sql, queries.get(i));
+        }
+        BenchmarkSupport.Latencies latencies = new BenchmarkSupport.Latencies();
+        int hits = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            String query = queries.get(i);
+            List<Hit> result = latencies.time(() -> queryHits(connection, sql, query));
+            assertThat(result).as("%s %s", mode, label).hasSize(k);
+            if (mode == VectorStorageMode.FLOAT32 || rerankFactor > 1) {
+                // float32索引与精排都按原始向量的距离排序
+                assertThat(result).as("%s %s order", mode, label)
+                        .isSortedAccordingTo(Comparator.comparingDouble(Hit::distance));
+            } else if (mode == VectorStorageMode.HALFVEC) {
+                // halfvec按半精度距离排序，与原始距离只差舍入误差
+                for (int j = 1; j < result.size(); j++) {
+                    assertThat(result.get(j).distance()).as("%s order", mode)
+                            .isGreaterThanOrEqualTo(result.get(j - 1).distance() - 5e-3);
+                }
+            }
+            for (Hit hit : result) {
+                if (truth.get(i).contains(hit.id())) {
+                    hits++;
+                }
+            }
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        double recall = (double) hits / (truth.size() * (double) k);
+        System.out.printf("  %-14s %s  recall@%d=%.3f%n", label.isEmpty() ? "-" : label, latencies.summary(), k,
+                recall);
+        return recall;
+    }
+
+    private void prepareTable(Connection connection, int rows, float[][] centroids, Random random)
+            throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS vector");
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " (id BIGINT PRIMARY KEY, vector vector(" + DIMENSIONS + "))");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + TABLE + " (id, vector) VALUES (?, CAST(? AS vector))")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setLong(1, i + 1);
+                insert.setString(2, VectorSearchService.toPgVectorLiteral(sample(centroids, random)));
+                insert.addBatch();
+                if ((i + 1) % 1000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE " + TABLE);
+        }
+    }
+
+    /**
+     * 执行检索，SQL中的参数全部绑定为查询向量
+     */
+    private List<Hit> queryHits(Connection connection, String sql, String vector) {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setString(i, vector);
+            }
+            List<Hit> hits = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    hits.add(new Hit(rs.getLong(1), rs.getDouble(2)));
+                }
+            }
+            return hits;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Set<Long> ids(List<Hit> hits) {
+        Set<Long> ids = new HashSet<>();
+        for (Hit hit : hits) {
+            ids.add(hit.id());
+        }
+        return ids;
+    }
+
+    private float[] sample(float[][] centroids, Random random) {
+        float[] centroid = centroids[random.nextInt(centroids.length)];
+        float[] noise = gaussian(random, 0.6f / (float) Math.sqrt(DIMENSIONS));
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = centroid[i] + noise[i];
+        }
+        return normalize(vector);
+    }
+
+    private float[] gaussian(Random random, float scale) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian() * scale;
+        }
+        return vector;
+    }
+
+    private float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,53 @@
+package com.jingwei.rsswithai.support;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * PostgreSQL基准测试的公共部分：按 -Dbench.jdbcUrl / -Dbench.user / -Dbench.password 建立连接池，记录并汇总延迟
+ * 各基准以 {@code @EnabledIfSystemProperty(named = "bench.jdbcUrl", matches = "jdbc:postgresql:.+")} 默认跳过
+ */
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    public static HikariDataSource dataSource(int maxPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("bench.jdbcUrl"));
+        dataSource.setUsername(System.getProperty("bench.user"));
+        dataSource.setPassword(System.getProperty("bench.password"));
+        dataSource.setMaximumPoolSize(maxPoolSize);
+        return dataSource;
+    }
+
+    /**
+     * 一组调用的耗时（纳秒）
+     */
+    public static final class Latencies {
+
+        private final List<Long> nanos = new ArrayList<>();
+
+        public <T> T time(Supplier<T> action) {
+            long start = System.nanoTime();
+            T result = action.get();
+            nanos.add(System.nanoTime() - start);
+            return result;
+        }
+
+        /**
+         * p50、p99与均值（毫秒）
+         */
+        public String summary() {
+            List<Long> sorted = new ArrayList<>(nanos);
+            sorted.sort(null);
+            return String.format("p50=%7.2fms  p99=%7.2fms  mean=%7.2fms",
+                    sorted.get(sorted.size() / 2) / 1e6,
+                    sorted.get(Math.max(0, (int) Math.ceil(sorted.size() * 0.99) - 1)) / 1e6,
+                    sorted.stream().mapToLong(Long::longValue).average().orElse(0) / 1e6);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.jingwei.rsswithai.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地OpenAI兼容桩服务（仅测试使用，完全离线）
+ * 提供 /v1/chat/completions 与 /v1/embeddings，支持可配置的延迟分布、5xx错误与429限流注入，
+ * embedding按文本内容确定性生成（词袋哈希），相似文本得到相近向量，可用于召回测试。
+ * <p>
+ * 也可以独立运行：{@code java ... OpenAiStubServer [port]}，再把 llm_base_url / embedding_base_url 指向它。
+ */
+public final class OpenAiStubServer implements AutoCloseable {
+
+    private static final Pattern TITLE_PATTERN = Pattern.compile("标题：(.*)");
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("[\\p{IsHan}]|[\\p{L}\\p{N}]+");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Settings settings;
+    private final HttpServer server;
+
+    private final AtomicLong chatRequests = new AtomicLong();
+    private final AtomicLong embeddingRequests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong injectedRateLimits = new AtomicLong();
+
+    private OpenAiStubServer(Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", settings.port()), 0);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/v1/chat/completions", exchange -> handle(exchange, this::chatCompletion,
+                settings.chatLatency(), chatRequests));
+        this.server.createContext("/v1/embeddings", exchange -> handle(exchange, this::embeddings,
+                settings.embeddingLatency(), embeddingRequests));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public OpenAiStubServer start() {
+        server.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public Stats stats() {
+        return new Stats(chatRequests.get(), embeddingRequests.get(), injectedErrors.get(), injectedRateLimits.get());
+    }
+
+    /**
+     * 确定性embedding：对字（中文）/词（其他语言）做特征哈希后L2归一化
+     */
+    public static float[] deterministicEmbedding(String text, int dimensions) {
+        float[] vector = new float[dimensions];
+        Matcher matcher = TOKEN_PATTERN.matcher(text == null ? "" : text.toLowerCase());
+        while (matcher.find()) {
+            int hash = matcher.group().hashCode() * 0x9E3779B9;
+            int index = Math.floorMod(hash, dimensions);
+            vector[index] += (hash & 0x10000) == 0 ? 1f : -1f;
+        }
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            vector[0] = 1f;
+            return vector;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private void handle(HttpExchange exchange, RequestHandler handler, LatencyProfile latency, AtomicLong counter)
+            throws IOException {
+        try (exchange) {
+            counter.incrementAndGet();
+            int status;
+            String body;
+            try {
+                JsonNode request = objectMapper.readTree(exchange.getRequestBody().readAllBytes());
+                sleep(latency.sampleMillis());
+
+                double roll = ThreadLocalRandom.current().nextDouble();
+                if (roll < settings.rateLimitRate()) {
+                    injectedRateLimits.incrementAndGet();
+                    exchange.getResponseHeaders().add("Retry-After", "1");
+                    status = 429;
+                    body = "{\"error\":{\"message\":\"Rate limit exceeded\",\"type\":\"rate_limit_error\"}}";
+                } else if (roll < settings.rateLimitRate() + settings.errorRate()) {
+                    injectedErrors.incrementAndGet();
+                    status = 500;
+                    body = "{\"error\":{\"message\":\"Injected failure\",\"type\":\"server_error\"}}";
+                } else {
+                    status = 200;
+                    body = objectMapper.writeValueAsString(handler.handle(request));
+                }
+            } catch (Exception e) {
+                // 请求无法解析或处理：仍在连接关闭之前写出400
+                status = 400;
+                body = "{\"error\":{\"message\":\"" + e.getClass().getSimpleName() + "\"}}";
+            }
+            write(exchange, status, body);
+        }
+    }
+
+    private ObjectNode chatCompletion(JsonNode request) {
+        StringBuilder prompt = new StringBuilder();
+        for (JsonNode message : request.path("messages")) {
+            prompt.append(message.path("content").asString("")).append('\n');
+        }
+        String content = chatContentFor(prompt.toString());
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("id", "chatcmpl-stub-" + chatRequests.get());
+        response.put("object", "chat.completion");
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", request.path("model").asString("stub-chat"));
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.put("finish_reason", "stop");
+        ObjectNode message = choice.putObject("message");
+        message.put("role", "assistant");
+        message.put("content", content);
+        putUsage(response, estimateTokens(prompt.toString()), estimateTokens(content));
+        return response;
+    }
+
+    /**
+     * 按提示词类型返回可被业务代码解析的内容：文章增强JSON、分片摘要文本、趋势任务的空结果
+     */
+    private String chatContentFor(String prompt) {
+        if (prompt.contains("key_info")) {
+            Matcher matcher = TITLE_PATTERN.matcher(prompt);
+            String title = matcher.find() ? matcher.group(1).trim() : "未知标题";
+            ObjectNode json = objectMapper.createObjectNode();
+            json.put("overview", "本文介绍了**" + title + "**的相关内容。");
+            json.putArray("key_info").add("关于" + title + "的要点");
+            ArrayNode tags = json.putArray("tags");
+            tags.add("测试");
+            for (String word : title.split("\\s+")) {
+                if (!word.isBlank() && tags.size() < 5) {
+                    tags.add(word);
+                }
+            }
+            json.putArray("toc");
+            return objectMapper.writeValueAsString(json);
+        }
+        if (prompt.contains("标签:频次")) {
+            return "{}";
+        }
+        if (prompt.contains("内容片段")) {
+            return "（桩服务生成的分片摘要）";
+        }
+        return "[]";
+    }
+
+    private ObjectNode embeddings(JsonNode request) {
+        List<String> inputs = new ArrayList<>();
+        JsonNode input = request.path("input");
+        if (input.isArray()) {
+            input.forEach(node -> inputs.add(node.asString("")));
+        } else {
+            inputs.add(input.asString(""));
+        }
+        int dimensions = request.path("dimensions").asInt(settings.dimensions());
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("object", "list");
+        response.put("model", request.path("model").asString("stub-embedding"));
+        ArrayNode data = response.putArray("data");
+        int promptTokens = 0;
+        for (int i = 0; i < inputs.size(); i++) {
+            ObjectNode item = data.addObject();
+            item.put("object", "embedding");
+            item.put("index", i);
+            ArrayNode embedding = item.putArray("embedding");
+            for (float v : deterministicEmbedding(inputs.get(i), dimensions)) {
+                embedding.add(v);
+            }
+            promptTokens += estimateTokens(inputs.get(i));
+        }
+        putUsage(response, promptTokens, 0);
+        return response;
+    }
+
+    private void putUsage(ObjectNode response, int promptTokens, int completionTokens) {
+        ObjectNode usage = response.putObject("usage");
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+    }
+
+    private static int estimateTokens(String text) {
+        return Math.max(1, text.length() / 2);
+    }
+
+    private static void write(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 18080;
+        OpenAiStubServer stub = builder()
+                .port(port)
+                .chatLatency(LatencyProfile.logNormal(800, 0.5))
+                .embeddingLatency(LatencyProfile.logNormal(60, 0.4))
+                .build()
+                .start();
+        System.out.println("OpenAI stub server listening on " + stub.baseUrl());
+    }
+
+    @FunctionalInterface
+    private interface RequestHandler {
+        ObjectNode handle(JsonNode request) throws Exception;
+    }
+
+    /**
+     * 延迟分布
+     */
+    @FunctionalInterface
+    public interface LatencyProfile {
+
+        long sampleMillis();
+
+        static LatencyProfile none() {
+            return () -> 0;
+        }
+
+        static LatencyProfile fixed(long millis) {
+            return () -> millis;
+        }
+
+        static LatencyProfile uniform(long minMillis, long maxMillis) {
+            return () -> ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+        }
+
+        /**
+         * 对数正态分布，median为中位数，sigma越大长尾越重（0.5时p99约为中位数的3.2倍）
+         */
+        static LatencyProfile logNormal(long medianMillis, double sigma) {
+            return () -> Math.round(medianMillis * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        }
+    }
+
+    public record Stats(long chatRequests, long embeddingRequests, long injectedErrors, long injectedRateLimits) {
+    }
+
+    private record Settings(int port, LatencyProfile chatLatency, LatencyProfile embeddingLatency,
+                            double errorRate, double rateLimitRate, int dimensions) {
+    }
+
+    public static final class Builder {
+        private int port = 0;
+        private LatencyProfile chatLatency = LatencyProfile.none();
+        private LatencyProfile embeddingLatency = LatencyProfile.none();
+        private double errorRate = 0;
+        private double rateLimitRate = 0;
+        private int dimensions = 1024;
+
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public Builder chatLatency(LatencyProfile chatLatency) {
+            this.chatLatency = chatLatency;
+            return this;
+        }
+
+        public Builder embeddingLatency(LatencyProfile embeddingLatency) {
+            this.embeddingLatency = embeddingLatency;
+            return this;
+        }
+
+        public Builder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public Builder rateLimitRate(double rateLimitRate) {
+            this.rateLimitRate = rateLimitRate;
+            return this;
+        }
+
+        public Builder dimensions(int dimensions) {
+            this.dimensions = dimensions;
+            return this;
+        }
+
+        public OpenAiStubServer build() throws IOException {
+            return new OpenAiStubServer(new Settings(port, chatLatency, embeddingLatency, errorRate, rateLimitRate,
+                    dimensions));
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.jingwei.rsswithai.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * HnswIndex：固定种子的随机向量上与暴力检索对比召回，多查询范围扫描与逐个查询一致，以及替换、删除、过滤与关闭后的行为
+ */
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 64;
+    private static final int M = 16;
+    private static final int EF_CONSTRUCTION = 100;
+
+    @Test
+    void recallAgainstBruteForce() {
+        Random random = new Random(7);
+        float[][] vectors = new float[3000][];
+        try (HnswIndex index = new HnswIndex(DIMENSIONS, M, EF_CONSTRUCTION)) {
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = randomVector(random);
+                index.add(i, vectors[i]);
+            }
+
+            int k = 10;
+            int queries = 100;
+            int found = 0;
+            for (int q = 0; q < queries; q++) {
+                float[] query = randomVector(random);
+                Set<Long> expected = bruteForce(vectors, query, k);
+                List<HnswIndex.Hit> hits = index.search(query, k, 100, null);
+
+                assertThat(hits).hasSize(k);
+                assertThat(hits).isSortedAccordingTo(Comparator.comparingDouble(HnswIndex.Hit::distance));
+                for (HnswIndex.Hit hit : hits) {
+                    assertThat(hit.distance()).isCloseTo(cosineDistance(vectors[(int) hit.key()], query),
+                            within(1e-4));
+                    if (expected.contains(hit.key())) {
+                        found++;
+                    }
+                }
+            }
+            assertThat((double) found / (queries * k)).isGreaterThanOrEqualTo(0.9);
+        }
+    }
+
+    @Test
+    void rangeSearchIsExact() {
+        Random random = new Random(11);
+        float[][] vectors = new float[500][];
+        try (HnswIndex index = new HnswIndex(DIMENSIONS, M, EF_CONSTRUCTION)) {
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = randomVector(random);
+                index.add(i, vectors[i]);
+            }
+            float[] query = vectors[0];
+            double maxDistance = 0.9;
+
+            List<Long> expected = IntStream.range(0, vectors.length)
+                    .filter(i -> i % 2 == 0 && cosineDistance(vectors[i], query) < maxDistance)
+                    .mapToObj(i -> (long) i)
+                    .toList();
+            List<HnswIndex.Hit> hits = index.rangeSearch(query, maxDistance, key -> key % 2 == 0);
+
+            assertThat(hits).extracting(HnswIndex.Hit::key).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(hits).isSortedAccordingTo(Comparator.comparingDouble(HnswIndex.Hit::distance));
+            assertThat(hits.getFirst().key()).isZero();
+        }
+    }
+
+    @Test
+    void rangeSearchAnyMatchesPerQueryRangeSearch() {
+        Random random = new Random(13);
+        float[][] vectors = new float[500][];
+        try (HnswIndex index = new HnswIndex(DIMENSIONS, M, EF_CONSTRUCTION)) {
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = randomVector(random);
+                index.add(i, vectors[i]);
+            }
+            List<float[]> queries = List.of(vectors[0], vectors[1], new float[DIMENSIONS], vectors[2]);
+            double[] maxDistances = {0.9, 0.95, 2, 0.85};
+
+            Map<Long, Double> expected = new HashMap<>();
+            for (int i = 0; i < queries.size(); i++) {
+                for (HnswIndex.Hit hit : index.rangeSearch(queries.get(i), maxDistances[i], key -> key % 3 != 0)) {
+                    expected.merge(hit.key(), hit.distance(), Math::min);
+                }
+            }
+            List<HnswIndex.Hit> hits = index.rangeSearchAny(queries, maxDistances, key -> key % 3 != 0);
+
+            assertThat(hits).extracting(HnswIndex.Hit::key).containsExactlyInAnyOrderElementsOf(expected.keySet());
+            for (HnswIndex.Hit hit : hits) {
+                assertThat(hit.distance()).isCloseTo(expected.get(hit.key()), within(1e-5));
+            }
+            assertThat(hits).isSortedAccordingTo(Comparator.comparingDouble(HnswIndex.Hit::distance));
+            assertThatThrownBy(() -> index.rangeSearchAny(queries, new double[1], null))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void replaceKeepsOneNodePerKey() {
+        Random random = new Random(13);
+        try (HnswIndex index = new HnswIndex(DIMENSIONS, M, EF_CONSTRUCTION)) {
+            for (int i = 0; i < 200; i++) {
+                index.add(i, randomVector(random));
+            }
+            float[] original = randomVector(random);
+            float[] replacement = randomVector(random);
+            index.add(1000, original);
+            index.add(1000, replacement);
+
+            assertThat(index.size()).isEqualTo(201);
+            assertThat(index.deletedCount()).isEqualTo(1);
+            assertThat(index.vectorOf(1000)).containsExactly(normalize(replacement), within(1e-6f));
+
+            List<HnswIndex.Hit> hits = index.search(replacement, 5, 100, null);
+            assertThat(hits.getFirst().key()).isEqualTo(1000);
+            assertThat(hits.getFirst().distance()).isCloseTo(0, within(1e-4));
+            // 旧节点仍在图中，但按旧向量检索也不会返回被替换的结果
+            List<HnswIndex.Hit> byOriginal = index.rangeSearch(original, 2, null);
+            assertThat(byOriginal).filteredOn(hit -> hit.key() == 1000).singleElement()
+                    .satisfies(hit -> assertThat(hit.distance())
+                            .isCloseTo(cosineDistance(replacement, original), within(1e-4)));
+        }
+    }
+
+    @Test
+    void removedKeysDisappearFromResults() {
+        Random random = new Random(17);
+        float[][] vectors = new float[300][];
+        try (HnswIndex index = new HnswIndex(DIMENSIONS, M, EF_CONSTRUCTION)) {
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = randomVector(random);
+                index.add(i, vectors[i]);
+            }
+            index.remove(42);
+            index.remove(9999);
+
+            assertThat(index.contains(42)).isFalse();
+            assertThat(index.vectorOf(42)).isNull();
+            assertThat(index.size()).isEqualTo(299);
+            assertThat(index.deletedCount()).isEqualTo(1);
+            assertThat(index.search(vectors[42], 10, 100, null)).extracting(HnswIndex.Hit::key)
+                    .hasSize(10)
+                    .doesNotContain(42L);
+            assertThat(index.rangeSearch(vectors[42], 2, null)).extracting(HnswIndex.Hit::key)
+                    .hasSize(299)
+                    .doesNotContain(42L);
+
+            index.add(42, vectors[42]);
+            assertThat(index.search(vectors[42], 1, 100, null).getFirst().key()).isEqualTo(42);
+        }
+    }
+
+    @Test
+    void searchAppliesFilterAndSkipsZeroVectors() {
+        Random random = new Random(19);
+        try (HnswIndex index = new HnswIndex(DIMENSIONS, M, EF_CONSTRUCTION)) {
+            assertThat(index.search(randomVector(random), 5, 100, null)).isEmpty();
+            for (int i = 0; i < 200; i++) {
+                index.add(i, randomVector(random));
+            }
+            index.add(500, new float[DIMENSIONS]);
+
+            assertThat(index.contains(500)).isFalse();
+            assertThat(index.search(new float[DIMENSIONS], 5, 100, null)).isEmpty();
+            assertThat(index.search(randomVector(random), 10, 100, key -> key % 3 == 0))
+                    .extracting(HnswIndex.Hit::key)
+                    .hasSize(10)
+                    .allMatch(key -> key % 3 == 0);
+            assertThatThrownBy(() -> index.add(1, new float[DIMENSIONS + 1]))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void closedIndexRejectsAccess() {
+        Random random = new Random(23);
+        HnswIndex index = new HnswIndex(DIMENSIONS, M, EF_CONSTRUCTION);
+        float[] vector = randomVector(random);
+        index.add(1, vector);
+        index.close();
+        index.close();
+
+        assertThatThrownBy(() -> index.search(vector, 1, 10, null)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> index.rangeSearch(vector, 1, null)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> index.vectorOf(1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> index.add(2, vector)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Set<Long> bruteForce(float[][] vectors, float[] query, int k) {
+        Set<Long> nearest = new HashSet<>();
+        IntStream.range(0, vectors.length)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> cosineDistance(vectors[i], query)))
+                .limit(k)
+                .forEach(i -> nearest.add((long) i));
+        return nearest;
+    }
+
+    private static double cosineDistance(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return 1 - dot / Math.sqrt(normA * normB);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = (float) (vector[i] / Math.sqrt(norm));
+        }
+        return normalized;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,75 @@
+package com.jingwei.rsswithai.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * TokenBudgetUtils：空输入、恰好等于预算的边界，以及中日韩与ASCII字符的Token估算
+ */
+class TokenBudgetUtilsTest {
+
+    @Test
+    void estimatesCjkPerCharacterAndAsciiPerFourCharacters() {
+        assertThat(TokenBudgetUtils.estimateTokens(null)).isZero();
+        assertThat(TokenBudgetUtils.estimateTokens("")).isZero();
+
+        assertThat(TokenBudgetUtils.estimateTokens("a")).isEqualTo(1);
+        assertThat(TokenBudgetUtils.estimateTokens("abcd")).isEqualTo(1);
+        assertThat(TokenBudgetUtils.estimateTokens("abcde")).isEqualTo(2);
+
+        assertThat(TokenBudgetUtils.estimateTokens("中文")).isEqualTo(2);
+        assertThat(TokenBudgetUtils.estimateTokens("ひらがなカタカナ한국어")).isEqualTo(11);
+        // 全角标点按中日韩字符计
+        assertThat(TokenBudgetUtils.estimateTokens("你好。")).isEqualTo(3);
+        assertThat(TokenBudgetUtils.estimateTokens("中文ab")).isEqualTo(3);
+    }
+
+    @Test
+    void emptyInputIsReturnedAsIs() {
+        assertThat(TokenBudgetUtils.fitToBudget(null, 10)).isNull();
+        assertThat(TokenBudgetUtils.fitToBudget("", 10)).isEmpty();
+        assertThat(TokenBudgetUtils.fitToBudget("  \n", 0)).isEqualTo("  \n");
+
+        assertThat(TokenBudgetUtils.splitIntoChunks(null, 10)).isEmpty();
+        assertThat(TokenBudgetUtils.splitIntoChunks(" \n\n ", 10)).isEmpty();
+    }
+
+    @Test
+    void fitToBudgetKeepsInputExactlyAtBudget() {
+        String markdown = "# 标题\n\n第一段。\n\n第二段。";
+        int budget = TokenBudgetUtils.estimateTokens(markdown);
+
+        assertThat(TokenBudgetUtils.fitToBudget(markdown, budget)).isSameAs(markdown);
+        // 少一个Token：保留标题与首段，其余以省略号标记
+        assertThat(TokenBudgetUtils.fitToBudget(markdown, budget - 1)).isEqualTo("# 标题\n\n第一段。\n\n……");
+    }
+
+    @Test
+    void splitIntoChunksKeepsInputExactlyAtBudget() {
+        assertThat(TokenBudgetUtils.splitIntoChunks("第一句。第二句。", 8)).containsExactly("第一句。第二句。");
+        assertThat(TokenBudgetUtils.splitIntoChunks("第一句。第二句。", 7)).containsExactly("第一句。", "第二句。");
+    }
+
+    @Test
+    void hardTruncationStaysWithinBudget() {
+        String ascii = "a".repeat(100);
+        assertThat(TokenBudgetUtils.fitToBudget(ascii, 10)).isEqualTo("a".repeat(40));
+        assertChunksWithinBudget(TokenBudgetUtils.splitIntoChunks(ascii, 10), 10, ascii);
+
+        String cjk = "中".repeat(25);
+        assertThat(TokenBudgetUtils.fitToBudget(cjk, 10)).isEqualTo("中".repeat(10));
+        assertChunksWithinBudget(TokenBudgetUtils.splitIntoChunks(cjk, 10), 10, cjk);
+
+        String mixed = "中a".repeat(30);
+        assertChunksWithinBudget(TokenBudgetUtils.splitIntoChunks(mixed, 10), 10, mixed);
+    }
+
+    private static void assertChunksWithinBudget(List<String> chunks, int budget, String original) {
+        assertThat(chunks).allSatisfy(chunk -> assertThat(TokenBudgetUtils.estimateTokens(chunk))
+                .isLessThanOrEqualTo(budget));
+        assertThat(String.join("", chunks)).isEqualTo(original);
+    }
+}
@@ -0,0 +1,128 @@
+package com.jingwei.rsswithai.utils;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * SIMD内核与标量内核结果一致：点积（堆内、堆外）、余弦与int8点积，覆盖不是向量宽度整数倍的长度（尾部标量处理）
+ * 需要 --add-modules jdk.incubator.vector（surefire已配置），未启用时跳过
+ */
+class VectorKernelTest {
+
+    private static final int[] LENGTHS = {1, 3, 7, 8, 9, 15, 16, 17, 31, 32, 33, 63, 64, 65, 100, 1023, 1024, 1025};
+
+    private static VectorKernel simd;
+    private final VectorKernel scalar = new ScalarVectorKernel();
+    private final Random random = new Random(31);
+
+    @BeforeAll
+    static void loadSimdKernel() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(),
+                "jdk.incubator.vector not enabled");
+        simd = new SimdVectorKernel();
+    }
+
+    @Test
+    void floatDotMatchesScalar() {
+        for (int length : LENGTHS) {
+            float[] a = randomFloats(length);
+            float[] b = randomFloats(length + 5);
+            for (int offset : new int[]{0, 5}) {
+                assertThat(simd.dot(a, b, offset, length))
+                        .as("length %d, offset %d", length, offset)
+                        .isCloseTo(scalar.dot(a, b, offset, length), within(tolerance(a, b, offset)));
+            }
+        }
+    }
+
+    @Test
+    void offHeapDotMatchesScalar() {
+        try (Arena arena = Arena.ofConfined()) {
+            for (int length : LENGTHS) {
+                float[] a = randomFloats(length);
+                float[] b = randomFloats(length);
+                long offset = 3L * Float.BYTES;
+                MemorySegment left = arena.allocate(offset + (long) length * Float.BYTES, Float.BYTES);
+                MemorySegment right = arena.allocate(offset + (long) length * Float.BYTES, Float.BYTES);
+                MemorySegment.copy(a, 0, left, ValueLayout.JAVA_FLOAT, offset, length);
+                MemorySegment.copy(b, 0, right, ValueLayout.JAVA_FLOAT, offset, length);
+                float expected = scalar.dot(a, b, 0, length);
+
+                assertThat(simd.dot(a, right, offset)).as("length %d", length)
+                        .isCloseTo(expected, within(tolerance(a, b, 0)));
+                assertThat(scalar.dot(a, right, offset)).as("length %d", length)
+                        .isCloseTo(expected, within(tolerance(a, b, 0)));
+                assertThat(simd.dot(left, offset, right, offset, length)).as("length %d", length)
+                        .isCloseTo(expected, within(tolerance(a, b, 0)));
+                assertThat(scalar.dot(left, offset, right, offset, length)).as("length %d", length)
+                        .isCloseTo(expected, within(tolerance(a, b, 0)));
+            }
+        }
+    }
+
+    @Test
+    void cosineMatchesScalar() {
+        for (int length : LENGTHS) {
+            float[] a = randomFloats(length);
+            float[] b = randomFloats(length);
+
+            assertThat(simd.cosine(a, b)).as("length %d", length)
+                    .isCloseTo(scalar.cosine(a, b), within(1e-5f));
+            assertThat(simd.cosine(a, a)).as("length %d", length).isCloseTo(1f, within(1e-5f));
+            assertThat(simd.cosine(a, new float[length])).isZero();
+        }
+    }
+
+    @Test
+    void int8DotMatchesScalarExactly() {
+        for (int length : LENGTHS) {
+            byte[] a = randomBytes(length);
+            byte[] b = randomBytes(length + 5);
+            for (int offset : new int[]{0, 5}) {
+                assertThat(simd.dot(a, b, offset, length)).as("length %d, offset %d", length, offset)
+                        .isEqualTo(scalar.dot(a, b, offset, length));
+            }
+            // 全部取极值时不溢出
+            byte[] extreme = new byte[length];
+            Arrays.fill(extreme, (byte) -127);
+            assertThat(simd.dot(extreme, extreme, 0, length)).isEqualTo(127 * 127 * length);
+        }
+    }
+
+    /**
+     * 累加顺序不同带来的误差，按各项绝对值之和放缩
+     */
+    private static float tolerance(float[] a, float[] b, int bOffset) {
+        double magnitude = 0;
+        for (int i = 0; i < a.length; i++) {
+            magnitude += Math.abs(a[i] * b[bOffset + i]);
+        }
+        return (float) Math.max(magnitude * 1e-5, 1e-6);
+    }
+
+    private float[] randomFloats(int length) {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (float) random.nextGaussian();
+        }
+        return values;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] values = new byte[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (byte) (random.nextInt(255) - 127);
+        }
+        return values;
+    }
+}
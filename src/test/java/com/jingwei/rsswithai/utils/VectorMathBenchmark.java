@@ -0,0 +1,165 @@
+package com.jingwei.rsswithai.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * VectorMath的JMH基准：标量与SIMD内核对比点积、余弦、矩阵top-k及int8量化版本（1024维，与embedding一致）
+ * 默认跳过，手动运行（先校验两个内核结果一致，再启动JMH，结果输出到控制台）：
+ * <pre>
+ * mvn test -Dtest=VectorMathBenchmark -Djmh=true [-Djmh.rows=10000]
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@EnabledIfSystemProperty(named = "jmh", matches = "true")
+public class VectorMathBenchmark {
+
+    private static final int DIMENSIONS = 1024;
+    private static final int K = 10;
+
+    @Param("10000")
+    public int rows;
+
+    private final VectorKernel scalar = new ScalarVectorKernel();
+    private final VectorKernel simd = VectorMath.kernel();
+
+    private float[] query;
+    private float[] other;
+    private float[] matrix;
+    private VectorMath.QuantizedVector quantizedQuery;
+    private VectorMath.QuantizedVector quantizedOther;
+    private byte[] quantizedMatrix;
+    private float[] scales;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        query = randomUnitVector(random);
+        other = randomUnitVector(random);
+        matrix = new float[rows * DIMENSIONS];
+        quantizedMatrix = new byte[rows * DIMENSIONS];
+        scales = new float[rows];
+        for (int row = 0; row < rows; row++) {
+            float[] vector = randomUnitVector(random);
+            System.arraycopy(vector, 0, matrix, row * DIMENSIONS, DIMENSIONS);
+            VectorMath.QuantizedVector quantized = VectorMath.quantize(vector);
+            System.arraycopy(quantized.values(), 0, quantizedMatrix, row * DIMENSIONS, DIMENSIONS);
+            scales[row] = quantized.scale();
+        }
+        quantizedQuery = VectorMath.quantize(query);
+        quantizedOther = VectorMath.quantize(other);
+    }
+
+    @Benchmark
+    public float dotScalar() {
+        return scalar.dot(query, other, 0, DIMENSIONS);
+    }
+
+    @Benchmark
+    public float dotSimd() {
+        return simd.dot(query, other, 0, DIMENSIONS);
+    }
+
+    @Benchmark
+    public float cosineScalar() {
+        return scalar.cosine(query, other);
+    }
+
+    @Benchmark
+    public float cosineSimd() {
+        return simd.cosine(query, other);
+    }
+
+    @Benchmark
+    public int dotInt8Scalar() {
+        return scalar.dot(quantizedQuery.values(), quantizedOther.values(), 0, DIMENSIONS);
+    }
+
+    @Benchmark
+    public int dotInt8Simd() {
+        return simd.dot(quantizedQuery.values(), quantizedOther.values(), 0, DIMENSIONS);
+    }
+
+    @Benchmark
+    public List<VectorMath.Scored> topKScalar() {
+        return VectorMath.topK(scalar, query, matrix, K);
+    }
+
+    @Benchmark
+    public List<VectorMath.Scored> topKSimd() {
+        return VectorMath.topK(simd, query, matrix, K);
+    }
+
+    @Benchmark
+    public List<VectorMath.Scored> topKInt8Scalar() {
+        return VectorMath.topK(scalar, quantizedQuery, quantizedMatrix, scales, K);
+    }
+
+    @Benchmark
+    public List<VectorMath.Scored> topKInt8Simd() {
+        return VectorMath.topK(simd, quantizedQuery, quantizedMatrix, scales, K);
+    }
+
+    @Test
+    void run() throws RunnerException {
+        rows = Integer.getInteger("jmh.rows", 10_000);
+        setUp();
+        System.out.printf("%nkernel: %s%n", simd.name());
+        assertThat(simd.dot(query, other, 0, DIMENSIONS)).isCloseTo(scalar.dot(query, other, 0, DIMENSIONS),
+                within(1e-4f));
+        assertThat(simd.cosine(query, other)).isCloseTo(scalar.cosine(query, other), within(1e-4f));
+        assertThat(simd.dot(quantizedQuery.values(), quantizedOther.values(), 0, DIMENSIONS))
+                .isEqualTo(scalar.dot(quantizedQuery.values(), quantizedOther.values(), 0, DIMENSIONS));
+        assertThat(topKSimd().stream().map(VectorMath.Scored::index).toList())
+                .isEqualTo(topKScalar().stream().map(VectorMath.Scored::index).toList());
+        // int8相对float32的top-k召回
+        long overlap = topKInt8Simd().stream().map(VectorMath.Scored::index)
+                .filter(topKScalar().stream().map(VectorMath.Scored::index).toList()::contains).count();
+        System.out.printf("int8 top%d overlap with float32: %d/%d%n", K, overlap, K);
+
+        new Runner(new OptionsBuilder()
+                .include(VectorMathBenchmark.class.getName() + "\\.")
+                .param("rows", String.valueOf(rows))
+                .build()).run();
+    }
+
+    private static float[] randomUnitVector(Random random) {
+        float[] vector = new float[DIMENSIONS];
+        double norm = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian();
+            norm += vector[i] * vector[i];
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+}